@@ -0,0 +1,10 @@
+-- 会計履歴のキーセットページングに必要なデータベース変更
+--
+-- 会計履歴は店舗ごとに (会計日時, 会計ID) の新しい順で1ページずつ取得します
+-- 以下のインデックスにより、履歴の件数に関係なくページサイズ分の行だけを読み込みます
+
+CREATE INDEX idx_payment_store_time ON payment(store_id, payment_time, payment_id);
+
+-- 明細の税抜合計を会計ごとに集計するためのインデックス
+-- （外部キー制約により作成済みの場合は不要です）
+CREATE INDEX idx_payment_detail_payment ON payment_detail(payment_id);
@@ -0,0 +1,36 @@
+-- 印刷ジョブ（印刷のアウトボックス）に必要なデータベース変更
+--
+-- 注文と同じトランザクションで印刷ジョブを登録し、コミット後に端末（またはプリンター）へ送信します
+-- 受信確認（POST /api/print-jobs/{id}/ack）が届かないジョブは一定時間ごとに再送されます
+
+CREATE TABLE print_job (
+    print_job_id INT AUTO_INCREMENT PRIMARY KEY COMMENT '印刷ジョブID（主キー）',
+    store_id INT NOT NULL COMMENT '店舗ID',
+    seat_id INT NOT NULL COMMENT '座席ID（送信先の端末）',
+    job_type VARCHAR(20) NOT NULL COMMENT '種別（ORDER: 注文の単品伝票・小計伝票）',
+    status VARCHAR(20) NOT NULL COMMENT '状態（PENDING / SENT / DONE / FAILED）',
+    parts INT COMMENT '送信した伝票の数',
+    acked_parts BIGINT DEFAULT 0 COMMENT '受信確認済みの伝票（ビット単位）',
+    attempts INT DEFAULT 0 COMMENT '送信回数',
+    created_at DATETIME COMMENT '登録日時',
+    sent_at DATETIME COMMENT '最後に送信した日時',
+    completed_at DATETIME COMMENT '完了（または失敗）日時',
+
+    INDEX idx_print_job_status_sent (status, sent_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='印刷ジョブ（アウトボックス）テーブル';
+
+CREATE TABLE print_job_detail (
+    print_job_id INT NOT NULL COMMENT '印刷ジョブID',
+    payment_detail_id INT NOT NULL COMMENT '印刷対象の明細ID',
+
+    PRIMARY KEY (print_job_id, payment_detail_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='印刷ジョブと明細の紐付けテーブル';
+
+CREATE TABLE print_job_part (
+    print_job_id INT NOT NULL COMMENT '印刷ジョブID',
+    part INT NOT NULL COMMENT '伝票番号（0 から。受信確認のビット位置）',
+    printer_ip VARCHAR(255) COMMENT '送信先のプリンターIP',
+    json_commands TEXT COMMENT '印刷コマンド（JSON）',
+
+    PRIMARY KEY (print_job_id, part)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='印刷ジョブの伝票テーブル（最初の送信時に保存し、再送で同じ内容を送る）';
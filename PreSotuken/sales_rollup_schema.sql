@@ -0,0 +1,37 @@
+-- 売上集計テーブル（時間帯別売上の事前集計）に必要なデータベース変更
+-- 
+-- 以下のSQLを実行して売上集計テーブルを作成してください
+-- 作成後、アプリケーションの初回起動時（集計テーブルが空の場合）に過去の会計データから自動で集計されます
+-- 手動で作り直す場合は起動引数 --rebuild-sales-rollup を指定するか、POST /admin/sales-rollup/rebuild を実行してください
+
+-- 店舗・1時間ごとの売上集計
+CREATE TABLE sales_hourly_rollup (
+    rollup_id INT AUTO_INCREMENT PRIMARY KEY COMMENT '集計ID（主キー）',
+    store_id INT NOT NULL COMMENT '店舗ID',
+    bucket_start DATETIME NOT NULL COMMENT '集計対象の1時間の開始日時（会計日時を正時に切り捨て）',
+
+    -- 売上分析用（取消を含む全会計）
+    sales_with_tax DOUBLE DEFAULT 0 COMMENT '税込売上',
+    sales_without_tax DOUBLE DEFAULT 0 COMMENT '税抜売上',
+    customers INT DEFAULT 0 COMMENT '来店人数',
+
+    -- 点検用（取消を除く）
+    net_customers INT DEFAULT 0 COMMENT '取消を除く客数（来店ごとに最初の会計の時間帯で集計）',
+
+    updated_at DATETIME COMMENT '集計日時',
+
+    UNIQUE KEY uk_store_bucket (store_id, bucket_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='時間帯別売上集計テーブル';
+
+-- 店舗・1時間・メニューごとの販売数集計（取消を除く）
+CREATE TABLE sales_hourly_menu_rollup (
+    rollup_id INT AUTO_INCREMENT PRIMARY KEY COMMENT '集計ID（主キー）',
+    store_id INT NOT NULL COMMENT '店舗ID',
+    bucket_start DATETIME NOT NULL COMMENT '集計対象の1時間の開始日時',
+    menu_name VARCHAR(255) COMMENT 'メニュー名',
+    quantity INT DEFAULT 0 COMMENT '数量',
+    sales_without_tax DOUBLE DEFAULT 0 COMMENT '税抜売上',
+    sales_with_tax DOUBLE DEFAULT 0 COMMENT '税込売上',
+
+    INDEX idx_store_bucket (store_id, bucket_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='時間帯・メニュー別販売数集計テーブル';
@@ -0,0 +1,56 @@
+package com.order.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.order.service.print.PrintFormatService;
+
+/**
+ * 印字幅計算・文字列整形（PrintFormatService）のベンチマーク
+ * 伝票1行あたりの処理時間を測定します（./gradlew jmh で実行、gc プロファイラで割り当て量も出力されます）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PrintFormatBenchmark {
+
+    /** 実際のメニューに近い品名（全角・半角カナ・英数字・記号の混在） */
+    @Param({
+        "特製濃厚豚骨ラーメン（味玉・チャーシュー増し）",
+        "生ビール（中ジョッキ）",
+        "ｶﾞｰﾘｯｸﾗｲｽ ｾｯﾄ",
+        "Caesar Salad シーザーサラダ",
+        "鶏の唐揚げ 5個"
+    })
+    private String itemName;
+
+    private PrintFormatService printFormatService;
+
+    @Setup
+    public void setUp() {
+        printFormatService = new PrintFormatService();
+    }
+
+    @Benchmark
+    public int calculateEpsonPrintByteLength() {
+        return printFormatService.calculateEpsonPrintByteLength(itemName);
+    }
+
+    @Benchmark
+    public String padRightHalfWidth() {
+        return printFormatService.padRightHalfWidth(itemName, printFormatService.getReceiptItemNameMaxWidthHalf());
+    }
+
+    @Benchmark
+    public String formatToLeftAndRight() {
+        return printFormatService.formatToLeftAndRight(itemName, "\\1,280", printFormatService.getReceiptTotalWidthHalf());
+    }
+}
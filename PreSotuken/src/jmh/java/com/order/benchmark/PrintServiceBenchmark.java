@@ -0,0 +1,175 @@
+package com.order.benchmark;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.order.entity.Menu;
+import com.order.entity.MenuPrinterMap;
+import com.order.entity.OptionItem;
+import com.order.entity.PaymentDetail;
+import com.order.entity.PaymentDetailOption;
+import com.order.entity.PrinterConfig;
+import com.order.entity.Seat;
+import com.order.entity.TaxRate;
+import com.order.entity.User;
+import com.order.repository.MenuPrinterMapRepository;
+import com.order.repository.PaymentDetailOptionRepository;
+import com.order.repository.PrinterConfigRepository;
+import com.order.repository.SeatRepository;
+import com.order.service.LogoService;
+import com.order.service.PrintService;
+import com.order.service.print.PrintFormatService;
+import com.order.service.print.PrintLayouts;
+import com.order.service.print.TcpPrinterTransport;
+
+/**
+ * 伝票のJSONコマンド生成（PrintService）のベンチマーク
+ * 小計伝票（品名の折り返しを含む）と注文1件分の単品伝票（プリンター2台に振り分け）の処理時間・割り当て量を測定します
+ * リポジトリ・WebSocket送信はモックに置き換え、標準出力への出力は破棄します
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PrintServiceBenchmark {
+
+    private static final Integer SEAT_ID = 1;
+    private static final Integer STORE_ID = 1;
+
+    private static final String[] MENU_NAMES = {
+        "特製濃厚豚骨ラーメン（味玉・チャーシュー増し）",
+        "生ビール（中ジョッキ）",
+        "ｶﾞｰﾘｯｸﾗｲｽ ｾｯﾄ",
+        "Caesar Salad シーザーサラダ",
+        "鶏の唐揚げ 5個",
+        "季節の天ぷら盛り合わせ（海老・舞茸・大葉）",
+        "ハイボール",
+        "自家製プリン",
+    };
+
+    /** 小計伝票の明細行数 */
+    @Param({ "5", "30" })
+    private int lines;
+
+    private PrintService printService;
+    private List<PaymentDetail> details;
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Seat seat = new Seat();
+        seat.setSeatId(SEAT_ID);
+        seat.setSeatName("カウンター3");
+
+        PrinterConfig printer = new PrinterConfig();
+        printer.setPrinterId(1);
+        printer.setPrinterIp("192.168.0.50");
+        printer.setStoreId(STORE_ID);
+        printer.setReceiptOutput(true);
+
+        PrinterConfig kitchenPrinter = new PrinterConfig();
+        kitchenPrinter.setPrinterId(2);
+        kitchenPrinter.setPrinterIp("192.168.0.51");
+        kitchenPrinter.setStoreId(STORE_ID);
+        kitchenPrinter.setReceiptOutput(false);
+
+        // 呼び出し履歴を記録しないモック（長時間の計測でメモリを消費しないようにする）
+        SeatRepository seatRepository = mock(SeatRepository.class, withSettings().stubOnly());
+        when(seatRepository.findById(SEAT_ID)).thenReturn(Optional.of(seat));
+        PaymentDetailOptionRepository optionRepository = mock(PaymentDetailOptionRepository.class, withSettings().stubOnly());
+        MenuPrinterMapRepository menuPrinterMapRepository = mock(MenuPrinterMapRepository.class, withSettings().stubOnly());
+        PrinterConfigRepository printerConfigRepository = mock(PrinterConfigRepository.class, withSettings().stubOnly());
+        when(printerConfigRepository.findByStoreIdAndReceiptOutput(STORE_ID, true)).thenReturn(printer);
+        LogoService logoService = mock(LogoService.class, withSettings().stubOnly());
+        SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class, withSettings().stubOnly());
+
+        PrintFormatService printFormatService = new PrintFormatService();
+        printService = new PrintService(seatRepository, optionRepository, messagingTemplate, logoService,
+                menuPrinterMapRepository, printerConfigRepository, printFormatService, new PrintLayouts(printFormatService),
+                mock(TcpPrinterTransport.class, withSettings().stubOnly()));
+
+        TaxRate food = new TaxRate();
+        food.setRate(0.08);
+        TaxRate drink = new TaxRate();
+        drink.setRate(0.10);
+
+        User user = new User();
+        user.setUserName("山田");
+
+        details = new ArrayList<>();
+        List<MenuPrinterMap> printerMaps = new ArrayList<>();
+        List<PaymentDetailOption> allOptions = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            Menu menu = new Menu();
+            menu.setMenuId(i + 1);
+            menu.setMenuName(MENU_NAMES[i % MENU_NAMES.length]);
+            menu.setPrice(480.0 + (i % 7) * 120);
+
+            PaymentDetail detail = new PaymentDetail();
+            detail.setPaymentDetailId(i + 1);
+            detail.setMenu(menu);
+            detail.setQuantity(1 + i % 3);
+            detail.setTaxRate(i % 2 == 0 ? food : drink);
+            detail.setUser(user);
+            details.add(detail);
+
+            // 3行に1行はオプション付き
+            List<PaymentDetailOption> options = new ArrayList<>();
+            if (i % 3 == 0) {
+                options.add(option(detail, "大盛り"));
+                options.add(option(detail, "辛さ控えめ"));
+            }
+            allOptions.addAll(options);
+
+            // 2台のプリンターに振り分ける
+            printerMaps.add(new MenuPrinterMap(menu, i % 2 == 0 ? printer : kitchenPrinter));
+        }
+        when(optionRepository.findByPaymentDetailIn(anyCollection())).thenReturn(allOptions);
+        when(menuPrinterMapRepository.findByMenuIdsWithPrinter(anyCollection())).thenReturn(printerMaps);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void printReceiptForPayment() {
+        printService.printReceiptForPayment(details, SEAT_ID, STORE_ID);
+    }
+
+    @Benchmark
+    public void printLabelsForOrder() {
+        printService.printLabelsForOrder(details, SEAT_ID);
+    }
+
+    private static PaymentDetailOption option(PaymentDetail detail, String name) {
+        OptionItem item = new OptionItem();
+        item.setItemName(name);
+        PaymentDetailOption option = new PaymentDetailOption();
+        option.setPaymentDetail(detail);
+        option.setOptionItem(item);
+        return option;
+    }
+}
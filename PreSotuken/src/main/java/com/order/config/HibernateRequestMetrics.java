@@ -0,0 +1,77 @@
+package com.order.config;
+
+import java.io.IOException;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * リクエストごとのSQL発行数・エンティティ読み込み数を集計するフィルター
+ * QueryCounter の件数（SQLはデータソースのプロキシ、エンティティ読み込みは Hibernate の Interceptor で加算）の
+ * リクエスト前後の差を http.server.requests.queries / http.server.requests.entity.loads として記録します
+ * （タグはURIパターンとHTTPメソッド。N+1 のような発行数の多いエンドポイントを見つけるために使います）
+ *
+ * 画面の描画（テンプレートからの遅延読み込み）を含めたリクエスト全体のSQL発行数は、
+ * クエリ予算の query-budget.request-max とも比べます（0 のときは確認しません）
+ */
+@Component
+public class HibernateRequestMetrics extends OncePerRequestFilter implements Interceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final QueryBudgetGuard queryBudgetGuard;
+    private final int requestMax;
+
+    public HibernateRequestMetrics(MeterRegistry meterRegistry, QueryBudgetGuard queryBudgetGuard,
+            @Value("${query-budget.request-max:0}") int requestMax) {
+        this.meterRegistry = meterRegistry;
+        this.queryBudgetGuard = queryBudgetGuard;
+        this.requestMax = requestMax;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        QueryCounter.incrementEntityLoads();
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long startStatements = QueryCounter.current();
+        long startEntityLoads = QueryCounter.currentEntityLoads();
+        long executed;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            executed = QueryCounter.current() - startStatements;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            record("http.server.requests.queries", "リクエストあたりのSQL発行数", uri, request.getMethod(), executed);
+            record("http.server.requests.entity.loads", "リクエストあたりのエンティティ読み込み数", uri, request.getMethod(),
+                    QueryCounter.currentEntityLoads() - startEntityLoads);
+        }
+        if (requestMax > 0) {
+            queryBudgetGuard.check(request.getMethod() + " " + request.getRequestURI(), requestMax, executed);
+        }
+    }
+
+    private void record(String name, String description, String uri, String method, long value) {
+        DistributionSummary.builder(name)
+                .description(description)
+                .tag("uri", uri)
+                .tag("method", method)
+                .register(meterRegistry)
+                .record(value);
+    }
+}
@@ -0,0 +1,48 @@
+package com.order.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 処理時間・件数の計測（Micrometer）の設定を行うコンフィギュレーションクラス
+ * 計測値は管理用ポートの actuator（/actuator/metrics）で確認できます
+ *
+ * - @Timed を付けたメソッド・クラスの処理時間を記録します
+ * - リクエストごとのSQL発行数・エンティティ読み込み数を記録します（HibernateRequestMetrics）
+ */
+@Configuration
+public class MetricsConfig {
+
+    private final HibernateRequestMetrics hibernateRequestMetrics;
+
+    /**
+     * コンストラクタ
+     *
+     * @param hibernateRequestMetrics リクエストごとのSQL発行数・エンティティ読み込み数の集計
+     */
+    public MetricsConfig(HibernateRequestMetrics hibernateRequestMetrics) {
+        this.hibernateRequestMetrics = hibernateRequestMetrics;
+    }
+
+    /**
+     * @Timed を有効にします
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * エンティティ読み込みを数えるよう Hibernate に登録します
+     * （SQL発行はデータソースのプロキシで数えます。QueryCountingDataSourcePostProcessor）
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateRequestMetricsCustomizer() {
+        return properties -> properties.put(AvailableSettings.INTERCEPTOR, hibernateRequestMetrics);
+    }
+}
@@ -0,0 +1,47 @@
+package com.order.config;
+
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 常に新しいトランザクション（REQUIRES_NEW）で処理を実行するテンプレート
+ * コミット後のイベントリスナー（@TransactionalEventListener）や afterCommit の中では、
+ * 通常の TransactionTemplate（REQUIRED）は完了済みのトランザクションに参加してしまい書き込みがコミットされないため、こちらを使います
+ *
+ * TransactionOperations を実装すると Spring Boot の既定の TransactionTemplate が作られなくなるため、委譲で実装しています
+ */
+@Component
+public class NewTransactionTemplate {
+
+    private final TransactionTemplate delegate;
+
+    public NewTransactionTemplate(PlatformTransactionManager transactionManager) {
+        this.delegate = new TransactionTemplate(transactionManager);
+        this.delegate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 新しいトランザクションで処理を実行し、結果を返します
+     *
+     * @param action トランザクション内で実行する処理
+     * @return 処理の結果
+     */
+    public <T> T execute(TransactionCallback<T> action) {
+        return delegate.execute(action);
+    }
+
+    /**
+     * 新しいトランザクションで結果のない処理を実行します
+     *
+     * @param action トランザクション内で実行する処理
+     */
+    public void executeWithoutResult(Consumer<TransactionStatus> action) {
+        delegate.executeWithoutResult(action);
+    }
+}
@@ -0,0 +1,23 @@
+package com.order.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * メソッド1回の呼び出しで発行してよいSQLの件数（クエリ予算）
+ * query-budget.mode が warn / fail のとき、超えた呼び出しを警告またはエラーにします（QueryBudgetGuard）
+ * 件数は明細数などのデータ量に比例しない値にし、N+1 の再発を検出できるようにします
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface QueryBudget {
+
+    /**
+     * 発行してよいSQLの件数
+     */
+    int value();
+}
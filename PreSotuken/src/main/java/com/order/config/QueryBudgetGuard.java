@@ -0,0 +1,99 @@
+package com.order.config;
+
+import java.lang.reflect.Method;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * クエリ予算（メソッド・リクエストごとのSQL発行件数の上限）を確認するコンポーネント
+ * テスト・検証環境で N+1 の再発を検出するためのもので、query-budget.mode で動作を切り替えます
+ *
+ * - off: 確認しない（本番の既定）
+ * - warn: 上限を超えたら警告ログを出す
+ * - fail: 上限を超えたら IllegalStateException を投げる
+ *
+ * 件数はリクエストごとの計測（HibernateRequestMetrics）と同じ QueryCounter から求め、
+ * 呼び出し元のスレッドで実行したSQLだけを数えます（印刷キューなど別スレッドの処理は含みません）
+ */
+@Aspect
+@Component
+public class QueryBudgetGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetGuard.class);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final boolean failOnExceeded;
+
+    public QueryBudgetGuard(MeterRegistry meterRegistry, @Value("${query-budget.mode:off}") String mode) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = !"off".equalsIgnoreCase(mode);
+        this.failOnExceeded = "fail".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * クエリ予算の確認が有効かどうか
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @QueryBudget を付けたメソッドのSQL発行件数を記録し、上限を確認します
+     */
+    @Around("@annotation(com.order.config.QueryBudget)")
+    public Object checkMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String name = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        int budget = method.getAnnotation(QueryBudget.class).value();
+
+        long start = QueryCounter.current();
+        Object result = joinPoint.proceed();
+        long executed = QueryCounter.current() - start;
+
+        DistributionSummary.builder("query.budget.statements")
+                .description("メソッド1回あたりのSQL発行件数")
+                .tag("method", name)
+                .register(meterRegistry)
+                .record(executed);
+        check(name, budget, executed);
+        return result;
+    }
+
+    /**
+     * SQL発行件数が上限を超えていれば警告またはエラーにします
+     *
+     * @param name 対象の名前（メソッド名・リクエストURI）
+     * @param budget 上限
+     * @param executed 発行件数
+     */
+    public void check(String name, int budget, long executed) {
+        if (!enabled || executed <= budget) {
+            return;
+        }
+        Counter.builder("query.budget.exceeded")
+                .description("クエリ予算を超えた回数")
+                .tag("name", name)
+                .register(meterRegistry)
+                .increment();
+        String message = String.format("SQLの発行件数がクエリ予算を超えました: %s (%d件 / 上限%d件)", name, executed, budget);
+        if (failOnExceeded) {
+            throw new IllegalStateException(message);
+        }
+        logger.warn(message);
+    }
+}
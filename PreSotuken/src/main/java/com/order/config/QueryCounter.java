@@ -0,0 +1,40 @@
+package com.order.config;
+
+/**
+ * スレッドごとのSQL発行件数・エンティティ読み込み件数
+ * SQLはデータソースのプロキシ（QueryCountingDataSourcePostProcessor）が実行ごとに、
+ * エンティティ読み込みは Hibernate の Interceptor（HibernateRequestMetrics）が読み込みごとに加算します
+ * 区間の件数は開始時と終了時の差で求めます（リクエストごとの計測・クエリ予算の確認はどちらもこの件数を使います）
+ */
+public final class QueryCounter {
+
+    private static final int STATEMENTS = 0;
+    private static final int ENTITY_LOADS = 1;
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[2]);
+
+    private QueryCounter() {
+    }
+
+    /**
+     * このスレッドで実行したSQLの件数（累計）を返します
+     */
+    public static long current() {
+        return COUNT.get()[STATEMENTS];
+    }
+
+    /**
+     * このスレッドで読み込んだエンティティの件数（累計）を返します
+     */
+    public static long currentEntityLoads() {
+        return COUNT.get()[ENTITY_LOADS];
+    }
+
+    static void increment() {
+        COUNT.get()[STATEMENTS]++;
+    }
+
+    static void incrementEntityLoads() {
+        COUNT.get()[ENTITY_LOADS]++;
+    }
+}
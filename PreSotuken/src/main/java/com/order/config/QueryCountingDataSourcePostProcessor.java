@@ -0,0 +1,29 @@
+package com.order.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * データソースをSQLの実行件数を数えるプロキシで包みます
+ * Hibernate を通さないSQL（JdbcTemplate の一括登録など）も含めて QueryCounter に加算し、
+ * リクエストごとの計測（HibernateRequestMetrics）とクエリ予算（QueryBudgetGuard）の両方で使います
+ */
+@Component
+public class QueryCountingDataSourcePostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .afterQuery((execInfo, queryInfoList) -> QueryCounter.increment())
+                .build();
+    }
+}
@@ -0,0 +1,13 @@
+package com.order.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * スケジュール実行（@Scheduled）を有効にするコンフィギュレーションクラス
+ * メニュー時間帯の切り替え監視などの定期処理で使用します
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
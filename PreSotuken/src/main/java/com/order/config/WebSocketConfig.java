@@ -1,28 +1,161 @@
 package com.order.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * WebSocket設定を行うコンフィギュレーションクラス
  * リアルタイム通信のためのWebSocketメッセージブローカーを設定します
+ *
+ * websocket.broker.mode で以下を切り替えます
+ * - simple: アプリ内ブローカー（既定）。チャネルのスレッド数・ハートビート・送信制限を設定値で調整します
+ * - relay: 外部のSTOMPブローカー（RabbitMQ・ActiveMQ など）へ中継します。複数台構成や多数の端末向け
+ *
+ * 応答の遅い端末があっても他の端末への配信が止まらないよう、送信の待ち時間・バッファ量に上限を設けます
+ * （上限を超えた端末のセッションは切断され、端末側の再接続処理で復帰します）
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketConfig.class);
+
+    private final WebSocketDestinationMetrics destinationMetrics;
+
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.broker.heartbeat-ms:10000}")
+    private long heartbeatMillis;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${websocket.channel.inbound-threads:4}")
+    private int inboundThreads;
+
+    @Value("${websocket.channel.outbound-threads:8}")
+    private int outboundThreads;
+
+    @Value("${websocket.channel.queue-capacity:1000}")
+    private int channelQueueCapacity;
+
+    @Value("${websocket.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMillis;
+
+    @Value("${websocket.transport.send-buffer-size-kb:512}")
+    private int sendBufferSizeKb;
+
+    @Value("${websocket.transport.message-size-kb:64}")
+    private int messageSizeKb;
+
+    /**
+     * コンストラクタ
+     *
+     * @param destinationMetrics 宛先ごとの配信件数・購読数の集計
+     */
+    public WebSocketConfig(WebSocketDestinationMetrics destinationMetrics) {
+        this.destinationMetrics = destinationMetrics;
+    }
+
+    /**
+     * ハートビート送信用のスケジューラを設定します（WebSocket設定自身が定義するため遅延して取得します）
+     */
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler taskScheduler) {
+        this.messageBrokerTaskScheduler = taskScheduler;
+    }
+
     /**
      * メッセージブローカーを設定します
-     * SimpleBrokerとアプリケーション宛先プレフィックスを定義します
+     * ブローカーとアプリケーション宛先プレフィックスを定義します
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // SimpleBrokerのプレフィックスを設定
-        config.enableSimpleBroker("/topic");
+        long[] heartbeat = new long[] { heartbeatMillis, heartbeatMillis };
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // 外部ブローカーへ中継（宛先は /topic/seats/{id} などをそのまま使用）
+            var relay = config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setSystemHeartbeatSendInterval(heartbeatMillis)
+                    .setSystemHeartbeatReceiveInterval(heartbeatMillis);
+            if (!relayVirtualHost.isBlank()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+            logger.info("WebSocketブローカー: 外部ブローカーへ中継します ({}:{})", relayHost, relayPort);
+        } else {
+            // SimpleBrokerのプレフィックスを設定
+            config.enableSimpleBroker("/topic")
+                    .setHeartbeatValue(heartbeat)
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+            logger.info("WebSocketブローカー: アプリ内ブローカーを使用します (ハートビート={}ms)", heartbeatMillis);
+        }
         config.setApplicationDestinationPrefixes("/app");
+        config.configureBrokerChannel().interceptors(destinationMetrics.brokerInterceptor());
+    }
+
+    /**
+     * 端末からの受信を処理するチャネルのスレッド数を設定します
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundThreads)
+                .maxPoolSize(inboundThreads)
+                .queueCapacity(channelQueueCapacity);
+        registration.interceptors(destinationMetrics.inboundInterceptor());
+    }
+
+    /**
+     * 端末への送信を処理するチャネルのスレッド数を設定します
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundThreads)
+                .maxPoolSize(outboundThreads)
+                .queueCapacity(channelQueueCapacity);
+    }
+
+    /**
+     * 端末ごとの送信の待ち時間・バッファ量、受信メッセージサイズの上限を設定します
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMillis)
+                .setSendBufferSizeLimit(sendBufferSizeKb * 1024)
+                .setMessageSizeLimit(messageSizeKb * 1024);
     }
 
     /**
@@ -34,4 +167,4 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // WebSocketエンドポイント（SockJS使用）
         registry.addEndpoint("/ws-endpoint").withSockJS();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,226 @@
+package com.order.config;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * STOMP の宛先ごとの配信件数・購読数を集計するコンポーネント
+ * ブローカーチャネルで配信メッセージを、クライアント受信チャネルで購読・購読解除・切断を数えます
+ * 配信レートは一定間隔（websocket.metrics.interval-ms）ごとに直近の件数から求めます
+ * 配信件数は Micrometer の stomp.messages.published にも記録します（宛先の数値部分は {id} にまとめます）
+ */
+@Component
+public class WebSocketDestinationMetrics implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketDestinationMetrics.class);
+
+    /** ログに出力する配信件数上位の宛先数 */
+    private static final int LOG_TOP_DESTINATIONS = 5;
+
+    /** 宛先の座席ID・店舗IDなどの数値部分（メトリクスのタグが座席数だけ増えないようにまとめる） */
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    /** セッションID → (購読ID → 宛先) */
+    private final Map<String, Map<String, String>> subscriptions = new ConcurrentHashMap<>();
+
+    /** 宛先 → 配信件数（起動からの累計） */
+    private final Map<String, LongAdder> publishedCounts = new ConcurrentHashMap<>();
+
+    /** 宛先 → 直近の集計間隔での1分あたりの配信件数 */
+    private volatile Map<String, Double> ratesPerMinute = Map.of();
+
+    private final Map<String, Long> lastCounts = new HashMap<>();
+    private long lastSampleNanos = System.nanoTime();
+
+    private volatile MeterRegistry meterRegistry;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        Gauge.builder("stomp.sessions", subscriptions, Map::size)
+                .description("STOMPの接続数")
+                .register(registry);
+        Gauge.builder("stomp.subscriptions", subscriptions, s -> s.values().stream().mapToInt(Map::size).sum())
+                .description("STOMPの購読数")
+                .register(registry);
+    }
+
+    /**
+     * クライアント受信チャネルに登録するインターセプター（購読数の集計）
+     */
+    public ChannelInterceptor inboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                onInbound(message.getHeaders());
+                return message;
+            }
+        };
+    }
+
+    /**
+     * ブローカーチャネルに登録するインターセプター（配信件数の集計）
+     */
+    public ChannelInterceptor brokerInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                onBroker(message.getHeaders());
+                return message;
+            }
+        };
+    }
+
+    void onInbound(MessageHeaders headers) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (type == null || sessionId == null) {
+            return;
+        }
+        switch (type) {
+            case SUBSCRIBE -> {
+                String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+                String destination = SimpMessageHeaderAccessor.getDestination(headers);
+                if (subscriptionId != null && destination != null) {
+                    subscriptions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                            .put(subscriptionId, destination);
+                }
+            }
+            case UNSUBSCRIBE -> {
+                String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+                Map<String, String> sessionSubscriptions = subscriptions.get(sessionId);
+                if (sessionSubscriptions != null && subscriptionId != null) {
+                    sessionSubscriptions.remove(subscriptionId);
+                }
+            }
+            case DISCONNECT -> subscriptions.remove(sessionId);
+            default -> {
+            }
+        }
+    }
+
+    void onBroker(MessageHeaders headers) {
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination != null) {
+            publishedCounts.computeIfAbsent(destination, d -> new LongAdder()).increment();
+            MeterRegistry registry = meterRegistry;
+            if (registry != null) {
+                Counter.builder("stomp.messages.published")
+                        .description("STOMPの配信件数")
+                        .tag("destination", normalizeDestination(destination))
+                        .register(registry)
+                        .increment();
+            }
+        }
+    }
+
+    static String normalizeDestination(String destination) {
+        return NUMERIC_SEGMENT.matcher(destination).replaceAll("/{id}");
+    }
+
+    /**
+     * 宛先ごとの購読数を返します
+     */
+    public Map<String, Integer> getSubscriberCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map<String, String> sessionSubscriptions : subscriptions.values()) {
+            for (String destination : sessionSubscriptions.values()) {
+                counts.merge(destination, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 直近の集計間隔での配信レートを更新し、配信件数の多い宛先をログに出力します
+     */
+    @Scheduled(fixedDelayString = "${websocket.metrics.interval-ms:60000}",
+               initialDelayString = "${websocket.metrics.interval-ms:60000}")
+    public void sample() {
+        Map<String, Double> rates = sampleRates(System.nanoTime());
+        if (rates.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Double>> top = new ArrayList<>(rates.entrySet());
+        top.sort(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()));
+        logger.info("WebSocket配信状況: 接続={}, 購読={}, 配信={}件/分, 上位={}",
+                subscriptions.size(),
+                subscriptions.values().stream().mapToInt(Map::size).sum(),
+                Math.round(rates.values().stream().mapToDouble(Double::doubleValue).sum()),
+                top.subList(0, Math.min(LOG_TOP_DESTINATIONS, top.size())));
+    }
+
+    synchronized Map<String, Double> sampleRates(long nowNanos) {
+        double minutes = (nowNanos - lastSampleNanos) / 60_000_000_000.0;
+        Map<String, Double> rates = new HashMap<>();
+        publishedCounts.forEach((destination, adder) -> {
+            long count = adder.sum();
+            long delta = count - lastCounts.getOrDefault(destination, 0L);
+            lastCounts.put(destination, count);
+            if (delta > 0 && minutes > 0) {
+                rates.put(destination, delta / minutes);
+            }
+        });
+        lastSampleNanos = nowNanos;
+        ratesPerMinute = rates;
+        return rates;
+    }
+
+    /**
+     * 宛先ごとの購読数・配信件数・配信レートを返します（購読数の多い順）
+     *
+     * @return 接続数・購読数の合計と宛先ごとの統計
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Integer> subscriberCounts = getSubscriberCounts();
+        Map<String, Double> rates = ratesPerMinute;
+
+        List<String> destinations = new ArrayList<>(subscriberCounts.keySet());
+        publishedCounts.keySet().stream().filter(d -> !subscriberCounts.containsKey(d)).forEach(destinations::add);
+        destinations.sort(Comparator.comparing((String d) -> subscriberCounts.getOrDefault(d, 0)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (String destination : destinations) {
+            LongAdder published = publishedCounts.get(destination);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("destination", destination);
+            row.put("subscribers", subscriberCounts.getOrDefault(destination, 0));
+            row.put("published", published != null ? published.sum() : 0L);
+            row.put("ratePerMinute", rates.getOrDefault(destination, 0.0));
+            rows.add(row);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", subscriptions.size());
+        stats.put("subscriptions", subscriberCounts.values().stream().mapToInt(Integer::intValue).sum());
+        stats.put("destinations", rows);
+        return stats;
+    }
+}
@@ -0,0 +1,57 @@
+package com.order.controller;
+
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.order.service.PrintJobOutboxService;
+import com.order.service.print.PrintJobQueue;
+import com.order.service.print.TcpPrinterTransport;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 印刷キューの稼働状況を提供する管理者向けコントローラ
+ * 滞留件数やジョブの待ち時間・実行時間を確認するために使用します
+ */
+@RestController
+@RequestMapping("/admin/print-queue")
+@RequiredArgsConstructor
+public class AdminPrintQueueController {
+
+    private final PrintJobQueue printJobQueue;
+    private final TcpPrinterTransport printerTransport;
+    private final PrintJobOutboxService printJobOutboxService;
+
+    /**
+     * 印刷キューの統計情報を返します
+     * 
+     * @return 滞留件数・処理件数・平均待ち時間などの統計
+     */
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return printJobQueue.getStats();
+    }
+
+    /**
+     * サーバーからプリンターへの直接送信の状況を返します
+     *
+     * @return プリンターごとの送信待ち件数・送信件数・再試行件数などの統計
+     */
+    @GetMapping("/transport/stats")
+    public Map<String, Object> getTransportStats() {
+        return printerTransport.getStats();
+    }
+
+    /**
+     * 印刷ジョブ（アウトボックス）の状態を返します
+     *
+     * @return 送信待ち・受信確認待ち・完了・失敗のジョブ数
+     */
+    @GetMapping("/outbox/stats")
+    public Map<String, Object> getOutboxStats() {
+        return printJobOutboxService.getStats();
+    }
+}
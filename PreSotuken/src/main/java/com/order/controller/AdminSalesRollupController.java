@@ -0,0 +1,56 @@
+package com.order.controller;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.CookieValue;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.order.service.SalesRollupService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 売上集計テーブルを再構築する管理者向けコントローラ
+ * 過去データの取り込みや、集計テーブルの更新失敗（ログに出力されます）からの復旧に使用します
+ */
+@RestController
+@RequestMapping("/admin/sales-rollup")
+@RequiredArgsConstructor
+public class AdminSalesRollupController {
+
+    private final SalesRollupService salesRollupService;
+
+    /**
+     * 店舗の売上集計テーブルを再構築します
+     * 
+     * @param storeId 店舗ID
+     * @param from 開始日（省略時は最初の会計から）
+     * @param to 終了日（この日を含む。省略時は最後の会計まで）
+     * @return 再構築した時間帯の件数と所要時間
+     */
+    @PostMapping("/rebuild")
+    public Map<String, Object> rebuild(
+            @CookieValue(name = "storeId", required = false) Integer storeId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (storeId == null) {
+            throw new IllegalArgumentException("店舗IDが指定されていません");
+        }
+        long start = System.nanoTime();
+        int buckets = salesRollupService.rebuild(storeId,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("storeId", storeId);
+        result.put("buckets", buckets);
+        result.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+}
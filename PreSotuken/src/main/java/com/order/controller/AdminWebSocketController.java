@@ -0,0 +1,42 @@
+package com.order.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+
+import com.order.config.WebSocketDestinationMetrics;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * WebSocket（STOMP）の稼働状況を提供する管理者向けコントローラ
+ * 宛先ごとの購読数・配信レートや、送受信チャネルの滞留状況を確認するために使用します
+ */
+@RestController
+@RequestMapping("/admin/websocket")
+@RequiredArgsConstructor
+public class AdminWebSocketController {
+
+    private final WebSocketDestinationMetrics destinationMetrics;
+    private final WebSocketMessageBrokerStats brokerStats;
+
+    /**
+     * WebSocketの統計情報を返します
+     * 
+     * @return 宛先ごとの購読数・配信件数と、セッション・チャネル・ブローカーの統計
+     */
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(destinationMetrics.getStats());
+        stats.put("webSocketSessions", brokerStats.getWebSocketSessionStatsInfo());
+        stats.put("stompSubProtocol", brokerStats.getStompSubProtocolStatsInfo());
+        stats.put("inboundChannel", brokerStats.getClientInboundExecutorStatsInfo());
+        stats.put("outboundChannel", brokerStats.getClientOutboundExecutorStatsInfo());
+        stats.put("brokerRelay", brokerStats.getStompBrokerRelayStatsInfo());
+        return stats;
+    }
+}
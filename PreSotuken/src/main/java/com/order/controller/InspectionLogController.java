@@ -43,8 +43,7 @@ public class InspectionLogController {
         Integer storeId = cookieUtil.getStoreIdFromCookie(request);
 
         // 点検対象期間の売上集計値を取得してModelに詰める
-        var summary = inspectionLogService.buildInspectionSummary(storeId);
-        model.addAllAttributes(summary);
+        model.addAttribute("summary", inspectionLogService.buildInspectionSummary(storeId));
 
         // フォーム送信用の空のリクエストオブジェクト
         model.addAttribute("inspectionLogRequest", new InspectionLogRequest());
@@ -11,9 +11,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.order.entity.Store;
-import com.order.entity.Terminal;
 import com.order.repository.StoreRepository;
-import com.order.repository.TerminalRepository;
+import com.order.service.TerminalDirectory;
+import com.order.service.TerminalDirectory.TerminalEntry;
 
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -25,7 +25,7 @@ import lombok.RequiredArgsConstructor;
 public class LoginController {
 
 	private final StoreRepository storeRepository;
-	private final TerminalRepository terminalRepository;
+	private final TerminalDirectory terminalDirectory;
 
 	@GetMapping({"/login", "/"})
 	public String showLoginForm(HttpServletRequest request, HttpServletResponse response, Model model) {
@@ -79,7 +79,7 @@ public class LoginController {
 		}
 
 		String clientIp = getClientIp(request);
-		Optional<Terminal> optTerminal = terminalRepository.findByIpAddressAndStore_StoreId(clientIp, storeId);
+		Optional<TerminalEntry> optTerminal = terminalDirectory.find(clientIp, storeId);
 		
 		// クッキー保存（店舗情報は常に保存）
 		addCookie(response, "storeId", String.valueOf(storeId));
@@ -91,13 +91,13 @@ public class LoginController {
 			return "redirect:/admin/terminals";
 		}
 
-		Terminal terminal = optTerminal.get();
+		TerminalEntry terminal = optTerminal.get();
 
 		// Terminal情報のクッキー保存
 		addCookie(response, "terminalId", String.valueOf(terminal.getTerminalId()));
 		addCookie(response, "adminFlag", String.valueOf(terminal.isAdmin()));
 		if (!terminal.isAdmin()) {
-			addCookie(response, "seatId", String.valueOf(terminal.getSeat().getSeatId()));
+			addCookie(response, "seatId", String.valueOf(terminal.getSeatId()));
 		}
 
 		// 遷移先
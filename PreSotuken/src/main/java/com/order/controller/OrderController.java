@@ -17,9 +17,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.order.dto.MenuWithOptionsDTO;
+import com.order.dto.OrderHistoryDeltaDto;
 import com.order.dto.OrderHistoryDto;
 import com.order.entity.MenuGroup;
 import com.order.entity.Seat;
@@ -168,12 +170,45 @@ public class OrderController {
 			@CookieValue(name = "seatId", required = false) Integer seatIdCookie,
 			@RequestParam(name = "seatId", required = false) Integer seatIdParam) {
 	    
+		return orderService.getOrderHistory(storeId, resolveHistorySeatId(seatIdCookie, seatIdParam));
+	}
+
+	/**
+	 * 注文履歴の差分を取得します
+	 * 前回のバージョンを since に指定すると、その後に追加された明細だけを返します
+	 * 履歴が変わっていない場合は 304 Not Modified を返します
+	 * バージョンは ETag にも設定し、If-None-Match が現在のバージョンと一致する場合も 304 を返します
+	 * 
+	 * @param storeId 店舗ID（Cookieから取得）
+	 * @param seatIdCookie 座席ID（Cookieから取得）
+	 * @param seatIdParam 座席ID（URLパラメータから取得）
+	 * @param since 前回取得したバージョン（初回は省略）
+	 * @param webRequest If-None-Match の判定に使うリクエスト
+	 * @return 注文履歴の差分
+	 */
+	@GetMapping("/history/delta")
+	@ResponseBody
+	public ResponseEntity<OrderHistoryDeltaDto> getOrderHistoryDelta(
+			@CookieValue(name = "storeId") Integer storeId,
+			@CookieValue(name = "seatId", required = false) Integer seatIdCookie,
+			@RequestParam(name = "seatId", required = false) Integer seatIdParam,
+			@RequestParam(name = "since", required = false) String since,
+			WebRequest webRequest) {
+
+		OrderHistoryDeltaDto delta = orderService.getOrderHistoryDelta(storeId, resolveHistorySeatId(seatIdCookie, seatIdParam), since);
+		String version = delta.getVersion();
+		if (version.equals(since) || webRequest.checkNotModified(version)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version).build();
+		}
+		return ResponseEntity.ok().eTag(version).body(delta);
+	}
+
+	private static Integer resolveHistorySeatId(Integer seatIdCookie, Integer seatIdParam) {
 		Integer seatId = (seatIdCookie != null) ? seatIdCookie : seatIdParam;
 		if (seatId == null) {
 	        throw new IllegalArgumentException("seatIdが指定されていません（Cookieにもクエリにも存在しません）");
 	    }
-		
-		return orderService.getOrderHistory(storeId, seatId);
+		return seatId;
 	}
 
 	/**
@@ -1,10 +1,17 @@
 package com.order.controller;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
@@ -16,6 +23,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import com.order.config.QueryBudget;
 import com.order.dto.PaymentFinalizeRequest;
 import com.order.dto.SplitPaymentRequest;
 import com.order.dto.IndividualPaymentRequest;
@@ -26,6 +34,8 @@ import com.order.entity.PaymentType;
 import com.order.entity.User;
 import com.order.entity.Visit;
 import com.order.entity.Seat;
+import com.order.event.SalesChangedEvent;
+import com.order.event.SeatBoardChangedEvent;
 import com.order.dto.PaymentHistoryUpdateRequest;
 import com.order.repository.PaymentDetailRepository;
 import com.order.repository.PaymentRepository;
@@ -35,6 +45,7 @@ import com.order.repository.VisitRepository;
 import com.order.repository.SeatRepository;
 import com.order.service.PaymentSplitService;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
@@ -42,6 +53,12 @@ import lombok.RequiredArgsConstructor;
 @Controller
 public class PaymentController {
 
+    /** 会計履歴の1ページあたりの件数 */
+    private static final int HISTORY_PAGE_SIZE = 50;
+    /** 会計履歴の期間が未指定の場合の下限・上限 */
+    private static final LocalDateTime HISTORY_MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final VisitRepository visitRepository;
     private final PaymentRepository paymentRepository;
     private final PaymentDetailRepository paymentDetailRepository;
@@ -50,6 +67,7 @@ public class PaymentController {
     private final UserRepository userRepository;
     private final SeatRepository seatRepository;
     private final PaymentSplitService paymentSplitService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @GetMapping("/payments")
     public String showPaymentDetail(@RequestParam("visitId") int visitId,
@@ -93,68 +111,55 @@ public class PaymentController {
     }
 
     @GetMapping("/payments/history")
+    @QueryBudget(15)
     public String showPaymentHistory(@CookieValue(name = "storeId", required = false) Integer storeId,
                                      @RequestParam(name = "filter", required = false, defaultValue = "active") String filter,
+                                     @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                     @RequestParam(name = "beforeTime", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeTime,
+                                     @RequestParam(name = "beforeId", required = false) Integer beforeId,
                                      Model model) {
-        List<Payment> payments;
-        
         // フィルタパラメータに基づいて会計履歴を取得
-        if ("cancelled".equals(filter)) {
-            // キャンセルされた履歴のみ表示（visit_cancel = 1 または cancel = 1）
-            payments = paymentRepository.findByStoreStoreIdAndCancelledStatus(storeId, true);
-        } else {
-            // デフォルト: 有効な会計履歴のみ表示（visit_cancel = 0 かつ cancel = 0）
-            payments = paymentRepository.findByStoreStoreIdAndCancelledStatus(storeId, false);
+        // cancelled: キャンセルされた履歴のみ（visit_cancel = 1 または cancel = 1）
+        // それ以外: 有効な会計履歴のみ（visit_cancel = 0 かつ cancel = 0）
+        boolean cancelled = "cancelled".equals(filter);
+
+        // 期間は日付単位（終了日を含む）。未指定の場合は全期間
+        LocalDateTime rangeStart = from != null ? from.atStartOfDay() : HISTORY_MIN_TIME;
+        LocalDateTime rangeEnd = to != null ? to.plusDays(1).atStartOfDay() : HISTORY_MAX_TIME;
+
+        // 前ページ最後の行（会計日時, 会計ID）より古い行を取得する。先頭ページは期間の終端から
+        LocalDateTime cursorTime = rangeEnd;
+        Integer cursorId = Integer.MAX_VALUE;
+        if (beforeTime != null && beforeId != null && beforeTime.isBefore(rangeEnd)) {
+            cursorTime = beforeTime;
+            cursorId = beforeId;
         }
-        
-        // 会計履歴の表示ルール:
-        // - 割り勘(totalSplits > 0): 親会計のみ表示、子会計は非表示
-        // - 個別会計(totalSplits = null or 0): 子会計のみ表示、親会計は非表示
-        payments = payments.stream()
-            .filter(p -> {
-                // 親会計が存在しない場合（親会計または通常の会計）
-                if (p.getParentPayment() == null) {
-                    // 子会計を持つかチェック
-                    List<Payment> children = paymentRepository.findByParentPaymentPaymentId(p.getPaymentId());
-                    if (!children.isEmpty()) {
-                        // 子会計が存在する場合、割り勘かどうかをチェック
-                        // 割り勘(totalSplits > 0)の場合は親会計を表示
-                        // 個別会計(totalSplits = null or 0)の場合は親会計を非表示
-                        Integer totalSplits = p.getTotalSplits();
-                        return totalSplits != null && totalSplits > 0;
-                    }
-                    // 子会計が存在しない通常の会計は表示
-                    return true;
-                }
-                
-                // 親会計が存在する場合（子会計）
-                // 子会計自身のtotalSplitsをチェック
-                // 割り勘(totalSplits > 0)の場合は子会計を非表示
-                Integer totalSplits = p.getTotalSplits();
-                if (totalSplits != null && totalSplits > 0) {
-                    return false; // 割り勘の子会計は非表示
-                }
-                // 個別会計の場合は子会計を表示
-                return true;
-            })
-            .collect(Collectors.toList());
-        
+
+        // 次ページの有無を判定するため1件多く取得する
+        // 表示ルール（割り勘・個別会計）と税抜合計は同じクエリで求める
+        List<Object[]> rows = paymentRepository.findHistoryPage(storeId, cancelled, rangeStart, rangeEnd,
+                cursorTime, cursorId, PageRequest.of(0, HISTORY_PAGE_SIZE + 1));
+
+        List<Payment> payments = new ArrayList<>();
         Map<Integer, Double> subtotalMap = new HashMap<>();
-        for (Payment p : payments) {
-            double subtotal = paymentDetailRepository.findByPaymentPaymentId(p.getPaymentId())
-                    .stream()
-                    .mapToDouble(pd -> {
-                        double base = pd.getSubtotal() != null ? pd.getSubtotal() : 0;
-                        double detailDiscount = pd.getDiscount() != null ? pd.getDiscount() : 0;
-                        double net = base - detailDiscount;
-                        return net > 0 ? net : 0;
-                    })
-                    .sum();
-            subtotalMap.put(p.getPaymentId(), subtotal);
+        for (Object[] row : rows.subList(0, Math.min(rows.size(), HISTORY_PAGE_SIZE))) {
+            Payment p = (Payment) row[0];
+            payments.add(p);
+            subtotalMap.put(p.getPaymentId(), row[1] != null ? ((Number) row[1]).doubleValue() : 0.0);
+        }
+
+        if (rows.size() > HISTORY_PAGE_SIZE) {
+            Payment last = payments.get(payments.size() - 1);
+            model.addAttribute("nextBeforeTime", last.getPaymentTime());
+            model.addAttribute("nextBeforeId", last.getPaymentId());
         }
         model.addAttribute("payments", payments);
         model.addAttribute("subtotalMap", subtotalMap);
         model.addAttribute("currentFilter", filter);
+        model.addAttribute("from", from);
+        model.addAttribute("to", to);
+        model.addAttribute("firstPage", beforeTime == null);
         return "paymentHistory";
     }
 
@@ -288,6 +293,7 @@ public class PaymentController {
         
         payment.setTotal(totalWithTax - (discount != null ? discount : 0));
         paymentRepository.save(payment);
+        eventPublisher.publishEvent(SalesChangedEvent.of(storeId, payment.getPaymentTime()));
         return ResponseEntity.ok().build();
     }
 
@@ -319,8 +325,20 @@ public class PaymentController {
         if (req.getSeatId() != null) {
             Seat seat = seatRepository.findById(req.getSeatId()).orElse(null);
             Visit visit = payment.getVisit();
+            Integer previousSeatId = visit.getSeat() != null ? visit.getSeat().getSeatId() : null;
             visit.setSeat(seat);
             visitRepository.save(visit);
+
+            // 移動元・移動先の座席の表示（来店中・合計金額）をコミット後に更新する
+            Integer newSeatId = seat != null ? seat.getSeatId() : null;
+            if (!Objects.equals(previousSeatId, newSeatId)) {
+                if (previousSeatId != null) {
+                    eventPublisher.publishEvent(new SeatBoardChangedEvent(storeId, previousSeatId));
+                }
+                if (newSeatId != null) {
+                    eventPublisher.publishEvent(new SeatBoardChangedEvent(storeId, newSeatId));
+                }
+            }
         }
 
         if (req.getDetails() != null) {
@@ -379,6 +397,7 @@ public class PaymentController {
         double discount = payment.getDiscount() != null ? payment.getDiscount() : 0;
         payment.setTotal(totalWithTax - discount);
         paymentRepository.save(payment);
+        eventPublisher.publishEvent(SalesChangedEvent.of(storeId, payment.getPaymentTime()));
 
         return ResponseEntity.ok().build();
     }
@@ -401,6 +420,7 @@ public class PaymentController {
 
         payment.setCancel(cancel);
         paymentRepository.save(payment);
+        eventPublisher.publishEvent(SalesChangedEvent.of(storeId, payment.getPaymentTime()));
         return ResponseEntity.ok().build();
     }
 
@@ -408,6 +428,7 @@ public class PaymentController {
     //会計確定: Payment および Visit の退店時刻を更新
 
     @Transactional
+    @Timed(value = "payment.finalize", histogram = true)
     @PostMapping("/payments/finalize")
     public ResponseEntity<Void> finalizePayment(@RequestBody PaymentFinalizeRequest req) {
     	//会計担当者を取得
@@ -438,13 +459,15 @@ public class PaymentController {
             payment.setPaymentType(type);
         }
 
+        // 再会計の場合は変更前の会計日時の売上集計も更新する
+        LocalDateTime previousPaymentTime = payment.getPaymentTime();
+
         // その他の値を設定
         payment.setSubtotal(req.getSubtotal());
         payment.setDiscount(req.getDiscount());
         payment.setDiscountReason(req.getDiscountReason());
         payment.setTotal(req.getTotal());
         payment.setPaymentTime(req.getPaymentTime());
-        System.out.println(req.getPaymentTime());
         payment.setDeposit(req.getDeposit());
         payment.setCashier(staff);
         
@@ -470,7 +493,6 @@ public class PaymentController {
             visit.setNumberOfPeople(req.getPeople());
         }
         visit.setLeaveTime(req.getPaymentTime());
-        System.out.println(req.getPaymentTime());
         Map<String, Object> payload = new HashMap<>();
         payload.put("type", "LEAVE");
         payload.put("seatId", visit.getSeat().getSeatId()); // 離席した座席のIDもペイロードに含める
@@ -481,6 +503,9 @@ public class PaymentController {
         // 保存
         paymentRepository.save(payment);
         visitRepository.save(visit);
+        eventPublisher.publishEvent(SalesChangedEvent.of(payment.getStore().getStoreId(),
+                previousPaymentTime, payment.getPaymentTime()));
+        eventPublisher.publishEvent(new SeatBoardChangedEvent(payment.getStore().getStoreId(), visit.getSeat().getSeatId()));
         return ResponseEntity.ok().build();
     }
     
@@ -0,0 +1,43 @@
+package com.order.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.order.service.PrintJobOutboxService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 印刷ジョブの受信確認を受け付けるコントローラ
+ * 端末は伝票を印刷した後にジョブIDと伝票番号を送り、確認のない伝票はサーバーから再送されます
+ */
+@RestController
+@RequestMapping("/api/print-jobs")
+@RequiredArgsConstructor
+public class PrintJobController {
+
+    private final PrintJobOutboxService printJobOutboxService;
+
+    /**
+     * 伝票1枚分の受信確認
+     *
+     * @param printJobId 印刷ジョブID
+     * @param part 伝票番号
+     * @return 記録できた場合は 204、ジョブが存在しない場合は 404、伝票番号が範囲外の場合は 400
+     */
+    @PostMapping("/{printJobId}/ack")
+    public ResponseEntity<Void> acknowledge(@PathVariable Integer printJobId, @RequestParam int part) {
+        try {
+            if (!printJobOutboxService.acknowledge(printJobId, part)) {
+                return ResponseEntity.notFound().build();
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -16,22 +16,24 @@ import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import com.order.entity.Payment;
-import com.order.repository.PaymentDetailRepository;
-import com.order.repository.PaymentRepository;
+import com.order.config.QueryBudget;
+import com.order.dto.HourlySalesDto;
 import com.order.repository.StoreRepository;
+import com.order.service.SalesReportService;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
 @Controller
+@Timed("sales.analysis")
 public class SalesAnalysisController {
 
-    private final PaymentRepository paymentRepository;
-    private final PaymentDetailRepository paymentDetailRepository;
     private final StoreRepository storeRepository;
+    private final SalesReportService salesReportService;
 
     @GetMapping("/sales-analysis")
+    @QueryBudget(10)
     public String showDailySales(
             @CookieValue(name = "storeId", required = false) Integer storeId,
             @RequestParam(name = "date", required = false)
@@ -50,65 +52,16 @@ public class SalesAnalysisController {
         LocalDateTime startOfDay = date.atTime(transitionTime);
         LocalDateTime endOfDay = date.plusDays(1).atTime(transitionTime);
         
-        List<Payment> payments = paymentRepository
-                .findByStoreStoreIdAndPaymentTimeBetween(storeId, startOfDay, endOfDay);
-
-        double[] hourlySalesWithTax = new double[24];
-        double[] hourlySalesWithoutTax = new double[24];
-        int[] hourlyCustomers = new int[24];
-        for (Payment p : payments) {
-            if (p.getPaymentTime() == null) continue;
-            int hour = p.getPaymentTime().getHour();
-            double total = p.getTotal() != null ? p.getTotal() : 0;
-            hourlySalesWithTax[hour] += total;
-            double subtotal = paymentDetailRepository.findByPaymentPaymentId(p.getPaymentId())
-                    .stream()
-                    .mapToDouble(pd -> pd.getSubtotal() != null ? pd.getSubtotal() : 0)
-                    .sum();
-            hourlySalesWithoutTax[hour] += subtotal;
-            if (p.getVisit() != null && p.getVisit().getNumberOfPeople() != null) {
-                hourlyCustomers[hour] += p.getVisit().getNumberOfPeople();
-            }
-        }
-
-        List<Map<String, Object>> hourlyData = new ArrayList<>();
-        double cumulativeWithTax = 0;
-        double cumulativeWithoutTax = 0;
-        int totalCustomers = 0;
-        for (int i = 0; i < 24; i++) {
-            cumulativeWithTax += hourlySalesWithTax[i];
-            cumulativeWithoutTax += hourlySalesWithoutTax[i];
-            totalCustomers += hourlyCustomers[i];
-            Map<String, Object> m = new HashMap<>();
-            m.put("hour", i);
-            m.put("customers", hourlyCustomers[i]);
-            m.put("customerUnitPriceWithTax", hourlyCustomers[i] > 0 ? hourlySalesWithTax[i] / hourlyCustomers[i] : 0);
-            m.put("customerUnitPriceWithoutTax", hourlyCustomers[i] > 0 ? hourlySalesWithoutTax[i] / hourlyCustomers[i] : 0);
-            m.put("hourSalesWithTax", hourlySalesWithTax[i]);
-            m.put("hourSalesWithoutTax", hourlySalesWithoutTax[i]);
-            m.put("cumulativeSalesWithTax", cumulativeWithTax);
-            m.put("cumulativeSalesWithoutTax", cumulativeWithoutTax);
-            hourlyData.add(m);
-        }
-
-        // 合計行のデータを追加
-        Map<String, Object> totalRow = new HashMap<>();
-        totalRow.put("hour", -1); // 合計行を識別するための特殊値
-        totalRow.put("customers", totalCustomers);
-        totalRow.put("customerUnitPriceWithTax", totalCustomers > 0 ? cumulativeWithTax / totalCustomers : 0);
-        totalRow.put("customerUnitPriceWithoutTax", totalCustomers > 0 ? cumulativeWithoutTax / totalCustomers : 0);
-        totalRow.put("hourSalesWithTax", cumulativeWithTax);
-        totalRow.put("hourSalesWithoutTax", cumulativeWithoutTax);
-        totalRow.put("cumulativeSalesWithTax", cumulativeWithTax);
-        totalRow.put("cumulativeSalesWithoutTax", cumulativeWithoutTax);
+        HourlySalesDto sales = salesReportService.aggregateHourly(storeId, startOfDay, endOfDay);
 
         model.addAttribute("date", date);
-        model.addAttribute("hourlyData", hourlyData);
-        model.addAttribute("totalRow", totalRow);
+        model.addAttribute("hourlyData", salesReportService.buildHourlyRows(sales));
+        model.addAttribute("totalRow", salesReportService.buildTotalRow(sales));
         return "sales-analysis";
     }
 
     @GetMapping("/sales-analysis/details")
+    @QueryBudget(10)
     public ResponseEntity<List<Map<String, Object>>> getHourlyDetails(
             @CookieValue(name = "storeId", required = false) Integer storeId,
             @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
@@ -122,7 +75,7 @@ public class SalesAnalysisController {
         LocalDateTime start = date.atTime(transitionTime).plusHours(hour);
         LocalDateTime end = start.plusHours(1);
         
-        List<Object[]> result = paymentDetailRepository.sumMenuQuantityByTime(storeId, start, end);
+        List<Object[]> result = salesReportService.sumMenuQuantity(storeId, start, end);
         List<Map<String, Object>> list = new ArrayList<>();
         for (Object[] r : result) {
             Map<String, Object> m = new HashMap<>();
@@ -137,6 +90,7 @@ public class SalesAnalysisController {
     }
 
     @GetMapping("/sales-analysis/time-range")
+    @QueryBudget(10)
     public String showTimeRangeSales(
             @CookieValue(name = "storeId", required = false) Integer storeId,
             @RequestParam(name = "startDate", required = false)
@@ -168,69 +122,19 @@ public class SalesAnalysisController {
         // 終了時刻を次の分の開始時刻に調整（23:59 -> 24:00相当）
         endDateTime = endDateTime.plusMinutes(1);
 
-        List<Payment> payments = paymentRepository
-                .findByStoreStoreIdAndPaymentTimeBetween(storeId, startDateTime, endDateTime);
-
-        double[] hourlySalesWithTax = new double[24];
-        double[] hourlySalesWithoutTax = new double[24];
-        int[] hourlyCustomers = new int[24];
-        
-        for (Payment p : payments) {
-            if (p.getPaymentTime() == null) continue;
-            int hour = p.getPaymentTime().getHour();
-            double total = p.getTotal() != null ? p.getTotal() : 0;
-            hourlySalesWithTax[hour] += total;
-            double subtotal = paymentDetailRepository.findByPaymentPaymentId(p.getPaymentId())
-                    .stream()
-                    .mapToDouble(pd -> pd.getSubtotal() != null ? pd.getSubtotal() : 0)
-                    .sum();
-            hourlySalesWithoutTax[hour] += subtotal;
-            if (p.getVisit() != null && p.getVisit().getNumberOfPeople() != null) {
-                hourlyCustomers[hour] += p.getVisit().getNumberOfPeople();
-            }
-        }
-
-        List<Map<String, Object>> hourlyData = new ArrayList<>();
-        double cumulativeWithTax = 0;
-        double cumulativeWithoutTax = 0;
-        int totalCustomers = 0;
-        for (int i = 0; i < 24; i++) {
-            cumulativeWithTax += hourlySalesWithTax[i];
-            cumulativeWithoutTax += hourlySalesWithoutTax[i];
-            totalCustomers += hourlyCustomers[i];
-            Map<String, Object> m = new HashMap<>();
-            m.put("hour", i);
-            m.put("customers", hourlyCustomers[i]);
-            m.put("customerUnitPriceWithTax", hourlyCustomers[i] > 0 ? hourlySalesWithTax[i] / hourlyCustomers[i] : 0);
-            m.put("customerUnitPriceWithoutTax", hourlyCustomers[i] > 0 ? hourlySalesWithoutTax[i] / hourlyCustomers[i] : 0);
-            m.put("hourSalesWithTax", hourlySalesWithTax[i]);
-            m.put("hourSalesWithoutTax", hourlySalesWithoutTax[i]);
-            m.put("cumulativeSalesWithTax", cumulativeWithTax);
-            m.put("cumulativeSalesWithoutTax", cumulativeWithoutTax);
-            hourlyData.add(m);
-        }
-
-        // 合計行のデータを追加
-        Map<String, Object> totalRow = new HashMap<>();
-        totalRow.put("hour", -1);
-        totalRow.put("customers", totalCustomers);
-        totalRow.put("customerUnitPriceWithTax", totalCustomers > 0 ? cumulativeWithTax / totalCustomers : 0);
-        totalRow.put("customerUnitPriceWithoutTax", totalCustomers > 0 ? cumulativeWithoutTax / totalCustomers : 0);
-        totalRow.put("hourSalesWithTax", cumulativeWithTax);
-        totalRow.put("hourSalesWithoutTax", cumulativeWithoutTax);
-        totalRow.put("cumulativeSalesWithTax", cumulativeWithTax);
-        totalRow.put("cumulativeSalesWithoutTax", cumulativeWithoutTax);
+        HourlySalesDto sales = salesReportService.aggregateHourly(storeId, startDateTime, endDateTime);
 
         model.addAttribute("startDate", startDate);
         model.addAttribute("startTime", startTime);
         model.addAttribute("endDate", endDate);
         model.addAttribute("endTime", endTime);
-        model.addAttribute("hourlyData", hourlyData);
-        model.addAttribute("totalRow", totalRow);
+        model.addAttribute("hourlyData", salesReportService.buildHourlyRows(sales));
+        model.addAttribute("totalRow", salesReportService.buildTotalRow(sales));
         return "sales-analysis-time-range";
     }
 
     @GetMapping("/sales-analysis/multi-day")
+    @QueryBudget(10)
     public String showMultiDaySales(
             @CookieValue(name = "storeId", required = false) Integer storeId,
             @RequestParam(name = "startDate", required = false)
@@ -247,90 +151,44 @@ public class SalesAnalysisController {
             startDate = endDate.minusDays(6);
         }
 
+        // 期間全体を1回で日付・時間帯ごとに集計
+        Map<LocalDate, HourlySalesDto> salesByDate = salesReportService.aggregateHourlyByDate(
+                storeId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+
         // 日付ごと、時間ごとの売上データを格納
         List<Map<String, Object>> dailyHourlyData = new ArrayList<>();
+        // 時間ごとの合計（全日合計）
+        HourlySalesDto grandTotal = new HourlySalesDto();
         
         LocalDate currentDate = startDate;
         while (!currentDate.isAfter(endDate)) {
-            LocalDateTime startOfDay = currentDate.atStartOfDay();
-            LocalDateTime endOfDay = startOfDay.plusDays(1);
-            
-            List<Payment> payments = paymentRepository
-                    .findByStoreStoreIdAndPaymentTimeBetween(storeId, startOfDay, endOfDay);
-            
-            double[] hourlySalesWithTax = new double[24];
-            double[] hourlySalesWithoutTax = new double[24];
-            int[] hourlyCustomers = new int[24];
-            
-            for (Payment p : payments) {
-                if (p.getPaymentTime() == null) continue;
-                int hour = p.getPaymentTime().getHour();
-                double total = p.getTotal() != null ? p.getTotal() : 0;
-                hourlySalesWithTax[hour] += total;
-                double subtotal = paymentDetailRepository.findByPaymentPaymentId(p.getPaymentId())
-                        .stream()
-                        .mapToDouble(pd -> pd.getSubtotal() != null ? pd.getSubtotal() : 0)
-                        .sum();
-                hourlySalesWithoutTax[hour] += subtotal;
-                if (p.getVisit() != null && p.getVisit().getNumberOfPeople() != null) {
-                    hourlyCustomers[hour] += p.getVisit().getNumberOfPeople();
-                }
-            }
+            HourlySalesDto sales = salesByDate.getOrDefault(currentDate, new HourlySalesDto());
             
             Map<String, Object> dayData = new HashMap<>();
             dayData.put("date", currentDate);
-            dayData.put("hourlySalesWithTax", hourlySalesWithTax);
-            dayData.put("hourlySalesWithoutTax", hourlySalesWithoutTax);
-            dayData.put("hourlyCustomers", hourlyCustomers);
+            dayData.put("hourlySalesWithTax", sales.getSalesWithTax());
+            dayData.put("hourlySalesWithoutTax", sales.getSalesWithoutTax());
+            dayData.put("hourlyCustomers", sales.getCustomers());
             
-            // 日次合計を計算
-            double dailyTotalWithTax = 0;
-            double dailyTotalWithoutTax = 0;
-            int dailyTotalCustomers = 0;
-            for (int i = 0; i < 24; i++) {
-                dailyTotalWithTax += hourlySalesWithTax[i];
-                dailyTotalWithoutTax += hourlySalesWithoutTax[i];
-                dailyTotalCustomers += hourlyCustomers[i];
-            }
-            dayData.put("dailyTotalWithTax", dailyTotalWithTax);
-            dayData.put("dailyTotalWithoutTax", dailyTotalWithoutTax);
-            dayData.put("dailyTotalCustomers", dailyTotalCustomers);
+            // 日次合計
+            dayData.put("dailyTotalWithTax", sales.getTotalSalesWithTax());
+            dayData.put("dailyTotalWithoutTax", sales.getTotalSalesWithoutTax());
+            dayData.put("dailyTotalCustomers", sales.getTotalCustomers());
             
             dailyHourlyData.add(dayData);
+            grandTotal.add(sales);
             currentDate = currentDate.plusDays(1);
         }
         
-        // 時間ごとの合計（全日合計）を計算
-        double[] hourlyTotalWithTax = new double[24];
-        double[] hourlyTotalWithoutTax = new double[24];
-        int[] hourlyTotalCustomers = new int[24];
-        double grandTotalWithTax = 0;
-        double grandTotalWithoutTax = 0;
-        int grandTotalCustomers = 0;
-        
-        for (Map<String, Object> dayData : dailyHourlyData) {
-            double[] salesWithTax = (double[]) dayData.get("hourlySalesWithTax");
-            double[] salesWithoutTax = (double[]) dayData.get("hourlySalesWithoutTax");
-            int[] customers = (int[]) dayData.get("hourlyCustomers");
-            for (int i = 0; i < 24; i++) {
-                hourlyTotalWithTax[i] += salesWithTax[i];
-                hourlyTotalWithoutTax[i] += salesWithoutTax[i];
-                hourlyTotalCustomers[i] += customers[i];
-            }
-            grandTotalWithTax += (Double) dayData.get("dailyTotalWithTax");
-            grandTotalWithoutTax += (Double) dayData.get("dailyTotalWithoutTax");
-            grandTotalCustomers += (Integer) dayData.get("dailyTotalCustomers");
-        }
-        
         model.addAttribute("startDate", startDate);
         model.addAttribute("endDate", endDate);
         model.addAttribute("dailyHourlyData", dailyHourlyData);
-        model.addAttribute("hourlyTotalWithTax", hourlyTotalWithTax);
-        model.addAttribute("hourlyTotalWithoutTax", hourlyTotalWithoutTax);
-        model.addAttribute("hourlyTotalCustomers", hourlyTotalCustomers);
-        model.addAttribute("grandTotalWithTax", grandTotalWithTax);
-        model.addAttribute("grandTotalWithoutTax", grandTotalWithoutTax);
-        model.addAttribute("grandTotalCustomers", grandTotalCustomers);
+        model.addAttribute("hourlyTotalWithTax", grandTotal.getSalesWithTax());
+        model.addAttribute("hourlyTotalWithoutTax", grandTotal.getSalesWithoutTax());
+        model.addAttribute("hourlyTotalCustomers", grandTotal.getCustomers());
+        model.addAttribute("grandTotalWithTax", grandTotal.getTotalSalesWithTax());
+        model.addAttribute("grandTotalWithoutTax", grandTotal.getTotalSalesWithoutTax());
+        model.addAttribute("grandTotalCustomers", grandTotal.getTotalCustomers());
         
         return "sales-analysis-multi-day";
     }
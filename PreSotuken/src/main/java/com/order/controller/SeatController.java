@@ -1,10 +1,8 @@
 package com.order.controller;
 
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Controller;
@@ -12,14 +10,13 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
+import com.order.config.QueryBudget;
 import com.order.entity.Seat;
 import com.order.entity.SeatGroup;
 import com.order.entity.User;
-import com.order.entity.Visit;
 import com.order.repository.SeatGroupRepository;
 import com.order.repository.SeatRepository;
 import com.order.repository.UserRepository;
-import com.order.repository.VisitRepository;
 
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -32,11 +29,11 @@ public class SeatController {
 
     private final SeatGroupRepository seatGroupRepository;
     private final SeatRepository seatRepository;
-    private final VisitRepository visitRepository;
     private final UserRepository userRepository;
 //    private final SeatService seatService;
 
     @GetMapping
+    @QueryBudget(10)
     public String showSeatsByGroup(HttpServletRequest request, Model model) {
         Integer storeId = null;
 
@@ -61,31 +58,21 @@ public class SeatController {
         
         List<SeatGroup> groups = seatGroupRepository.findByStore_StoreId(storeId);
 
-        Map<SeatGroup, List<com.order.entity.Seat>> groupedSeats = new LinkedHashMap<>();
+        // 店舗の座席を1回で取得し、グループごとに振り分ける（座席名順）
+        Map<Integer, List<Seat>> seatsByGroupId = seatRepository.findByStore_StoreIdOrderBySeatNameAsc(storeId).stream()
+                .filter(seat -> seat.getSeatGroup() != null)
+                .collect(Collectors.groupingBy(seat -> seat.getSeatGroup().getSeatGroupId()));
+        Map<SeatGroup, List<Seat>> groupedSeats = new LinkedHashMap<>();
         for (SeatGroup group : groups) {
-//            List<com.order.entity.Seat> seats = seatRepository.findByStore_StoreIdAndSeatGroup_SeatGroupId(storeId, group.getSeatGroupId());
-        	//たぶん↓でも動作変わらない
-        	List<Seat> seats = seatRepository.findBySeatGroup_SeatGroupIdOrderBySeatNameAsc(group.getSeatGroupId());
-            groupedSeats.put(group, seats);
+            groupedSeats.put(group, seatsByGroupId.getOrDefault(group.getSeatGroupId(), List.of()));
         }
-        
-        Map<Integer, Visit> visitMap = new HashMap<>();
-    	List<Visit> visits = visitRepository.findByStore_StoreIdAndLeaveTimeIsNull(storeId);
-    	List<User> users = userRepository.findByStore_StoreId(storeId);
-        
 
-    	if (visits != null) {
-    	    visitMap = visits.stream()
-    	        .collect(Collectors.toMap(v -> v.getSeat().getSeatId(), Function.identity()));
-    	}
+        // 来店中の座席の人数・経過時間・合計金額は、画面表示後に座席ボード（/api/seat-board と差分の通知）で表示する
+        List<User> users = userRepository.findByStore_StoreId(storeId);
 
-    	model.addAttribute("visitMap", visitMap);
-        model.addAttribute("activeVisits", visits);
         model.addAttribute("users", users);
         model.addAttribute("registerSuccess", model.asMap().get("registerSuccess"));
 
-
-
         model.addAttribute("groupedSeats", groupedSeats);
         return "seat-list"; //テストアクセス　http://localhost:8080/seats?storeId=1
     }
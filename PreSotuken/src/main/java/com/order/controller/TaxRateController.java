@@ -2,6 +2,7 @@ package com.order.controller;
 
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -18,6 +19,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.order.entity.Store;
 import com.order.entity.TaxRate;
+import com.order.event.MenuCatalogChangedEvent;
 import com.order.repository.StoreRepository;
 import com.order.repository.TaxRateRepository;
 
@@ -30,6 +32,7 @@ public class TaxRateController {
 
     private final TaxRateRepository taxRateRepository;
     private final StoreRepository storeRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 税率設定ページを表示
@@ -79,6 +82,8 @@ public class TaxRateController {
                     }
                     existing.setRate(taxRate.getRate());
                     TaxRate updated = taxRateRepository.save(existing);
+                    // 税込価格はメニューカタログに含まれるため破棄する
+                    eventPublisher.publishEvent(new MenuCatalogChangedEvent(storeId));
                     return ResponseEntity.ok(updated);
                 })
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
@@ -97,6 +102,7 @@ public class TaxRateController {
                         return new ResponseEntity<Void>(HttpStatus.FORBIDDEN);
                     }
                     taxRateRepository.delete(existing);
+                    eventPublisher.publishEvent(new MenuCatalogChangedEvent(storeId));
                     return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
                 })
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -17,13 +18,16 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import com.order.entity.Payment;
 import com.order.entity.Seat;
 import com.order.entity.Store;
-import com.order.entity.Terminal;
 import com.order.entity.Visit;
+import com.order.event.SeatBoardChangedEvent;
 import com.order.repository.PaymentRepository;
 import com.order.repository.SeatRepository;
 import com.order.repository.StoreRepository;
-import com.order.repository.TerminalRepository;
 import com.order.repository.VisitRepository;
+import com.order.service.ActiveVisitRegistry;
+import com.order.service.ActiveVisitRegistry.ActiveVisit;
+import com.order.service.TerminalDirectory;
+import com.order.service.TerminalDirectory.TerminalEntry;
 
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -39,8 +43,10 @@ public class VisitController {
 	private final PaymentRepository paymentRepository;
 	private final StoreRepository storeRepository;
 	private final SeatRepository seatRepository;
-	private final TerminalRepository terminalRepository;
+	private final TerminalDirectory terminalDirectory;
 	private final SimpMessagingTemplate messagingTemplate;
+	private final ApplicationEventPublisher eventPublisher;
+	private final ActiveVisitRegistry activeVisitRegistry;
 
 	@PostMapping
 	public String createVisit(@RequestParam("seat.seatId") Integer seatId,
@@ -93,6 +99,7 @@ public class VisitController {
 			payload.put("storeId", storeId);
 			payload.put("seatId", seatId);
 			messagingTemplate.convertAndSend("/topic/seats/" + seatId + "/start-order", payload);
+			eventPublisher.publishEvent(new SeatBoardChangedEvent(storeId, seatId));
 
 			redirectAttributes.addFlashAttribute("registerSuccess", true);
 			return "redirect:/seats?storeId=" + storeId;
@@ -115,10 +122,14 @@ public class VisitController {
 			ip = "127.0.0.1";
 		}
 
-		Terminal terminal = terminalRepository.findByIpAddressAndStore_StoreId(ip, storeId)
+		// 端末は店舗の端末一覧のキャッシュから、来店中かどうかは来店中の座席の登録簿から取得する（DBには問い合わせない）
+		TerminalEntry terminal = terminalDirectory.find(ip, storeId)
 				.orElseThrow(() -> new RuntimeException("端末が見つかりません"));
 
-                Integer seatId = terminal.getSeat().getSeatId();
+                Integer seatId = terminal.getSeatId();
+                if (seatId == null) {
+                        throw new RuntimeException("端末に座席が設定されていません");
+                }
                 model.addAttribute("seatId", seatId);
                 model.addAttribute("storeId", storeId);
                 model.addAttribute("userId", null);
@@ -128,9 +139,7 @@ public class VisitController {
                 seatIdCookie.setMaxAge(60 * 60 * 24 * 120);
                 response.addCookie(seatIdCookie);
 
-                Visit activeVisit = visitRepository
-                                .findFirstBySeat_Store_StoreIdAndSeat_SeatIdAndLeaveTimeIsNullOrderByVisitTimeDesc(storeId,
-                                                seatId);
+                ActiveVisit activeVisit = activeVisitRegistry.find(storeId, seatId).orElse(null);
                 if (activeVisit != null && activeVisit.getVisitId() != null) {
                         Cookie visitIdCookie = new Cookie("visitId", String.valueOf(activeVisit.getVisitId()));
                         visitIdCookie.setPath("/");
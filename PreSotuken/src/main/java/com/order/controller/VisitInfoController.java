@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.CookieValue;
@@ -20,11 +21,16 @@ import com.order.entity.Payment;
 import com.order.entity.PaymentDetail;
 import com.order.entity.User;
 import com.order.entity.Visit;
+import com.order.event.SalesChangedEvent;
+import com.order.event.SeatBoardChangedEvent;
 import com.order.repository.PaymentDetailRepository;
 import com.order.repository.PaymentRepository;
 import com.order.repository.UserRepository;
 import com.order.repository.VisitRepository;
+import com.order.service.ActiveVisitRegistry;
+import com.order.service.ActiveVisitRegistry.ActiveVisit;
 import com.order.service.PaymentLookupService;
+import com.order.service.SeatBoardService;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -39,16 +45,22 @@ public class VisitInfoController {
 	private final PaymentDetailRepository paymentDetailRepository;
 	private final SimpMessagingTemplate messagingTemplate;
 	private final UserRepository userRepository;
+	private final ApplicationEventPublisher eventPublisher;
 
 	@Autowired
 	private PaymentLookupService paymentLookupService;
 
+	@Autowired
+	private SeatBoardService seatBoardService;
+
+	@Autowired
+	private ActiveVisitRegistry activeVisitRegistry;
+
 	@GetMapping("/visit-info")
 	public Map<String, Object> getVisitInfo(@RequestParam("seatId") int seatId, @RequestParam("storeId") int storeId) {
 		Map<String, Object> result = new HashMap<>();
-		//        Visit visit = visitRepository.findFirstBySeat_SeatIdAndLeaveTimeIsNullOrderByVisitTimeDesc(seatId);
-		Visit visit = visitRepository
-				.findFirstBySeat_Store_StoreIdAndSeat_SeatIdAndLeaveTimeIsNullOrderByVisitTimeDesc(storeId, seatId);
+		// 来店中の座席の登録簿から取得する（DBには問い合わせない）
+		ActiveVisit visit = activeVisitRegistry.find(storeId, seatId).orElse(null);
 
 		if (visit != null) {
 			result.put("visiting", true);
@@ -65,6 +77,19 @@ public class VisitInfoController {
 		return result;
 	}
 
+	/**
+	 * 座席一覧用に、店舗の来店中の座席の状態（座席ボード）を返します
+	 * 以降の変更は /topic/stores/{storeId}/seats に差分で通知されます
+	 */
+	@GetMapping("/seat-board")
+	public Map<String, Object> getSeatBoard(@RequestParam("storeId") int storeId) {
+		Map<String, Object> result = new HashMap<>();
+		result.put("storeId", storeId);
+		result.put("serverTime", System.currentTimeMillis());
+		result.put("seats", seatBoardService.getBoard(storeId));
+		return result;
+	}
+
 	@DeleteMapping("/delete-visit") // エンドポイント名はdeleteのままだが、処理は会計確定
     @Transactional
     public ResponseEntity<Void> deleteVisitAndPayment(@RequestParam("seatId") int seatId,
@@ -103,6 +128,8 @@ public class VisitInfoController {
                                                      // deposit, subtotal, total, discount はデフォルトのまま（設定しない）
 
             paymentRepository.save(payment); // Paymentエンティティを更新
+            eventPublisher.publishEvent(SalesChangedEvent.of(payment.getStore().getStoreId(), paymentTime));
+            eventPublisher.publishEvent(new SeatBoardChangedEvent(payment.getStore().getStoreId(), seatId));
 
             // Visitテーブルに設定する項目
             visit.setLeaveTime(paymentTime);         // Visitの退店時刻を設定
@@ -128,12 +155,12 @@ public class VisitInfoController {
 
 	@GetMapping("/total-amount")
 	public Map<String, Object> getTotalAmount(@RequestParam int seatId) {
-		Payment payment = paymentLookupService.findPaymentBySeatId(seatId);
-		if (payment == null) {
+		Integer paymentId = paymentLookupService.findPaymentIdBySeatId(seatId);
+		if (paymentId == null) {
 			return Map.of("total", 0);
 		}
 
-		List<PaymentDetail> details = paymentDetailRepository.findByPaymentPaymentId(payment.getPaymentId());
+		List<PaymentDetail> details = paymentDetailRepository.findByPaymentPaymentId(paymentId);
 
 		int total = 0;
 		for (PaymentDetail d : details) {
@@ -0,0 +1,59 @@
+package com.order.dto;
+
+import lombok.Getter;
+
+/**
+ * 0時〜23時の時間帯ごとの売上集計DTO
+ * 売上分析画面（日次・時間範囲・複数日）で共通して使用します
+ */
+@Getter
+public class HourlySalesDto {
+    public static final int HOURS = 24;
+
+    private final double[] salesWithTax = new double[HOURS];
+    private final double[] salesWithoutTax = new double[HOURS];
+    private final int[] customers = new int[HOURS];
+
+    public void addSalesWithTax(int hour, double amount) {
+        salesWithTax[hour] += amount;
+    }
+
+    public void addSalesWithoutTax(int hour, double amount) {
+        salesWithoutTax[hour] += amount;
+    }
+
+    public void addCustomers(int hour, int count) {
+        customers[hour] += count;
+    }
+
+    /**
+     * 別の集計結果を時間帯ごとに加算します
+     * 
+     * @param other 加算する集計結果
+     */
+    public void add(HourlySalesDto other) {
+        for (int i = 0; i < HOURS; i++) {
+            salesWithTax[i] += other.salesWithTax[i];
+            salesWithoutTax[i] += other.salesWithoutTax[i];
+            customers[i] += other.customers[i];
+        }
+    }
+
+    public double getTotalSalesWithTax() {
+        double total = 0;
+        for (double v : salesWithTax) total += v;
+        return total;
+    }
+
+    public double getTotalSalesWithoutTax() {
+        double total = 0;
+        for (double v : salesWithoutTax) total += v;
+        return total;
+    }
+
+    public int getTotalCustomers() {
+        int total = 0;
+        for (int v : customers) total += v;
+        return total;
+    }
+}
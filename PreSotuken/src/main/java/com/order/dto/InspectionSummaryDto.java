@@ -0,0 +1,194 @@
+package com.order.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 点検画面の売上サマリーDTO
+ * 会計種別・税率の組み合わせごとの集計行を1回の走査で積み上げ、全体・会計種別ごとの合計を求めます
+ * 税率・会計種別はマスタに登録されたものをそのまま扱い、特定のIDや名称には依存しません
+ */
+@Getter
+@Setter
+public class InspectionSummaryDto {
+
+    /** 会計種別が未設定の会計をまとめる際の表示名 */
+    public static final String UNKNOWN_PAYMENT_TYPE_NAME = "未設定";
+
+    /** 点検期間内に点検登録済みか */
+    private boolean inspectionCompletedToday;
+    /** 現金売上（点検対象の会計種別の会計合計） */
+    private BigDecimal cashSales = BigDecimal.ZERO;
+    /** 入金合計 */
+    private BigDecimal deposit = BigDecimal.ZERO;
+    /** 出金合計 */
+    private BigDecimal withdraw = BigDecimal.ZERO;
+    /** 客数 */
+    private long guestCount;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<Integer, TaxRateSales> taxRates = new LinkedHashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<Integer, PaymentTypeSales> paymentTypes = new LinkedHashMap<>();
+
+    /**
+     * 会計種別を表示対象として登録します（売上がなくても表示するため、集計前に登録します）
+     */
+    public void registerPaymentType(Integer typeId, String typeName, Boolean inspectionTarget) {
+        paymentTypes.computeIfAbsent(typeId, id -> new PaymentTypeSales(typeId, typeName, Boolean.TRUE.equals(inspectionTarget)));
+    }
+
+    /**
+     * 会計種別・税率ごとの集計行を加算します
+     *
+     * @param typeId 会計種別ID（未設定の場合は null）
+     * @param typeName 会計種別名
+     * @param inspectionTarget 点検対象の会計種別か
+     * @param taxRateId 税率ID（未設定の場合は null）
+     * @param rate 税率（0.10 など）
+     * @param sales 税抜売上
+     * @param taxAmount 消費税額
+     * @param discount 明細の値引額
+     */
+    public void addSales(Integer typeId, String typeName, Boolean inspectionTarget,
+                         Integer taxRateId, Double rate, BigDecimal sales, BigDecimal taxAmount, BigDecimal discount) {
+        PaymentTypeSales type = paymentTypes.computeIfAbsent(typeId, id -> new PaymentTypeSales(
+                typeId, typeName != null ? typeName : UNKNOWN_PAYMENT_TYPE_NAME, Boolean.TRUE.equals(inspectionTarget)));
+        type.rateOf(taxRateId, rate).add(sales, taxAmount);
+        type.discount = type.discount.add(discount);
+
+        TaxRateSales overall = taxRates.computeIfAbsent(taxRateId, id -> new TaxRateSales(taxRateId, rate));
+        overall.add(sales, taxAmount);
+        if (type.inspectionTarget) {
+            overall.inspectionTargetSales = overall.inspectionTargetSales.add(sales);
+        }
+    }
+
+    /**
+     * 税率ごとの全体集計（税率の高い順）
+     */
+    public List<TaxRateSales> getTaxRates() {
+        return sortByRate(taxRates.values());
+    }
+
+    /**
+     * 会計種別ごとの集計（登録順）
+     */
+    public List<PaymentTypeSales> getPaymentTypes() {
+        return new ArrayList<>(paymentTypes.values());
+    }
+
+    /** 総売上（税抜） */
+    public BigDecimal getTotalSales() {
+        return taxRates.values().stream().map(TaxRateSales::getSales).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /** 消費税額の合計 */
+    public BigDecimal getTotalTaxAmount() {
+        return taxRates.values().stream().map(TaxRateSales::getTaxAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /** 総売上（税込） */
+    public BigDecimal getTotalSalesWithTax() {
+        return getTotalSales().add(getTotalTaxAmount());
+    }
+
+    /** 想定金額（現金売上 + 入金 − 出金） */
+    public BigDecimal getExpectedCash() {
+        return cashSales.add(deposit).subtract(withdraw);
+    }
+
+    private static List<TaxRateSales> sortByRate(Collection<TaxRateSales> values) {
+        List<TaxRateSales> list = new ArrayList<>(values);
+        list.sort(Comparator.comparing(TaxRateSales::getRate, Comparator.nullsLast(Comparator.reverseOrder())));
+        return list;
+    }
+
+    /**
+     * 税率ごとの売上・消費税額
+     */
+    @Getter
+    public static class TaxRateSales {
+        private final Integer taxRateId;
+        private final Double rate;
+        private BigDecimal sales = BigDecimal.ZERO;
+        private BigDecimal taxAmount = BigDecimal.ZERO;
+        /** 点検対象の会計種別の売上（全体集計でのみ使用） */
+        private BigDecimal inspectionTargetSales = BigDecimal.ZERO;
+
+        TaxRateSales(Integer taxRateId, Double rate) {
+            this.taxRateId = taxRateId;
+            this.rate = rate;
+        }
+
+        private void add(BigDecimal sales, BigDecimal taxAmount) {
+            this.sales = this.sales.add(sales);
+            this.taxAmount = this.taxAmount.add(taxAmount);
+        }
+
+        /** 表示用の税率（例: "10%"、税率未設定の場合は "税率なし"） */
+        public String getLabel() {
+            if (rate == null) {
+                return "税率なし";
+            }
+            return BigDecimal.valueOf(rate).movePointRight(2).stripTrailingZeros().toPlainString() + "%";
+        }
+
+        public BigDecimal getSalesWithTax() {
+            return sales.add(taxAmount);
+        }
+    }
+
+    /**
+     * 会計種別ごとの税率別売上・値引額
+     */
+    @Getter
+    public static class PaymentTypeSales {
+        private final Integer typeId;
+        private final String typeName;
+        private final boolean inspectionTarget;
+        private BigDecimal discount = BigDecimal.ZERO;
+
+        @Getter(AccessLevel.NONE)
+        private final Map<Integer, TaxRateSales> taxRates = new LinkedHashMap<>();
+
+        PaymentTypeSales(Integer typeId, String typeName, boolean inspectionTarget) {
+            this.typeId = typeId;
+            this.typeName = typeName;
+            this.inspectionTarget = inspectionTarget;
+        }
+
+        private TaxRateSales rateOf(Integer taxRateId, Double rate) {
+            return taxRates.computeIfAbsent(taxRateId, id -> new TaxRateSales(taxRateId, rate));
+        }
+
+        /** 税率ごとの集計（税率の高い順） */
+        public List<TaxRateSales> getTaxRates() {
+            return sortByRate(taxRates.values());
+        }
+
+        public BigDecimal getSales() {
+            return taxRates.values().stream().map(TaxRateSales::getSales).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        public BigDecimal getTaxAmount() {
+            return taxRates.values().stream().map(TaxRateSales::getTaxAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        public BigDecimal getSalesWithTax() {
+            return getSales().add(getTaxAmount());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.order.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * 注文履歴の差分DTO
+ * 端末は version を保持し、次回の取得時に since として送ると、その後に追加された明細だけを受け取ります
+ * 明細の削除・数量の変更などで差分が作れない場合は reset が true になり、lines に全件が入ります
+ */
+@Data
+public class OrderHistoryDeltaDto {
+    private String version;              // 履歴のバージョン（ETag にも使う）
+    private boolean reset;               // true の場合は保持している履歴を lines で置き換える
+    private List<OrderHistoryDto> lines; // 追加された明細（reset の場合は全件）
+}
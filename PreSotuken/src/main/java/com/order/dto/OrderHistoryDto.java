@@ -8,6 +8,7 @@ import lombok.Setter;
 @Getter
 @Setter
 public class OrderHistoryDto {
+    private Integer paymentDetailId; // 明細ID（差分取得の順序の基準）
     private String menuName;
     private int quantity;
     private int subtotal;
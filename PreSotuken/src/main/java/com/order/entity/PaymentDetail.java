@@ -3,6 +3,7 @@ package com.order.entity;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -11,6 +12,11 @@ import jakarta.persistence.ManyToOne;
 import lombok.Getter;
 import lombok.Setter;
 
+/**
+ * 会計明細
+ * 関連は必要なときだけ読み込む（LAZY）。画面・伝票で使う関連は PaymentDetailRepository の
+ * エンティティグラフ付きのメソッドでまとめて取得する
+ */
 @Getter
 @Setter
 @Entity
@@ -19,25 +25,25 @@ public class PaymentDetail {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer paymentDetailId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "payment_id")
     private Payment payment;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "store_id")
     private Store store;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "menu_id")
     private Menu menu;
 
     private int quantity;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tax_rate_id")
     private TaxRate taxRate;
     
@@ -47,7 +53,7 @@ public class PaymentDetail {
     private Double discount;
     
     // 個別会計機能用: この商品が支払い済みかどうか
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "paid_in_payment_id")
     private Payment paidInPayment;
 }
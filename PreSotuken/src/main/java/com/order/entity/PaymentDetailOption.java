@@ -1,6 +1,7 @@
 package com.order.entity;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -21,7 +22,8 @@ public class PaymentDetailOption {
     private int id;
 
     // paymentDetailId を PaymentDetail エンティティへの参照に変更
-    @ManyToOne
+    // 読み込み時は明細IDしか使わないため LAZY（オプションごとに明細を読み込まない）
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "payment_detail_id") // DBのカラム名を指定
     private PaymentDetail paymentDetail;
 
@@ -0,0 +1,68 @@
+package com.order.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 印刷ジョブ（印刷のアウトボックス）
+ * 注文と同じトランザクションで登録し、コミット後に送信します
+ * 端末（またはプリンター）からの受信確認が届くまで、一定時間ごとに再送します
+ * 印刷対象の明細は print_job_detail（PrintJobDetail）で紐付けます
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "print_job",
+       indexes = @Index(columnList = "status, sent_at"))
+public class PrintJob {
+
+    /** 送信待ち */
+    public static final String STATUS_PENDING = "PENDING";
+    /** 送信済み（受信確認待ち） */
+    public static final String STATUS_SENT = "SENT";
+    /** 全ての伝票の受信確認済み */
+    public static final String STATUS_DONE = "DONE";
+    /** 再送の上限に達した */
+    public static final String STATUS_FAILED = "FAILED";
+
+    /** 注文の単品伝票・小計伝票 */
+    public static final String TYPE_ORDER = "ORDER";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer printJobId;
+
+    @Column(name = "store_id", nullable = false)
+    private Integer storeId;
+
+    @Column(name = "seat_id", nullable = false)
+    private Integer seatId;
+
+    @Column(name = "job_type", nullable = false, length = 20)
+    private String jobType;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    // 送信した伝票の数と、受信確認済みの伝票（ビット単位）
+    private Integer parts;
+    private Long ackedParts;
+
+    private Integer attempts;
+
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,32 @@
+package com.order.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 印刷ジョブと印刷対象の明細の紐付け
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "print_job_detail")
+@IdClass(PrintJobDetailId.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrintJobDetail {
+
+    @Id
+    @Column(name = "print_job_id")
+    private Integer printJobId;
+
+    @Id
+    @Column(name = "payment_detail_id")
+    private Integer paymentDetailId;
+}
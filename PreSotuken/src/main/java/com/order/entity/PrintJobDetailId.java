@@ -0,0 +1,20 @@
+package com.order.entity;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class PrintJobDetailId implements Serializable {
+
+    private Integer printJobId;
+    private Integer paymentDetailId;
+}
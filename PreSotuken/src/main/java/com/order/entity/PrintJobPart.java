@@ -0,0 +1,40 @@
+package com.order.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 印刷ジョブの伝票1枚分
+ * 最初の送信時に組み立てた伝票を保存し、再送では組み立て直さずに同じ伝票番号で同じ内容を送ります
+ * （明細の削除やメニューのプリンター変更で伝票の数・順序が変わると、受信確認のビットと伝票が対応しなくなるため）
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "print_job_part")
+@IdClass(PrintJobPartId.class)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrintJobPart {
+
+    @Id
+    @Column(name = "print_job_id")
+    private Integer printJobId;
+
+    @Id
+    @Column(name = "part")
+    private Integer part;
+
+    @Column(name = "printer_ip")
+    private String printerIp;
+
+    @Column(name = "json_commands", columnDefinition = "TEXT")
+    private String jsonCommands;
+}
@@ -0,0 +1,40 @@
+package com.order.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 店舗・1時間・メニューごとの販売数集計（取消を除く）
+ * 売上分析の時間帯別明細で使用します
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "sales_hourly_menu_rollup",
+       indexes = @Index(columnList = "store_id, bucket_start"))
+public class SalesHourlyMenuRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer rollupId;
+
+    @Column(name = "store_id", nullable = false)
+    private Integer storeId;
+
+    // 集計対象の1時間の開始日時
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    private String menuName;
+    private Integer quantity;
+    private Double salesWithoutTax;
+    private Double salesWithTax;
+}
@@ -0,0 +1,47 @@
+package com.order.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 店舗・1時間ごとの売上集計
+ * 会計日時の時刻（0分0秒に切り捨て）単位で保持し、営業日（店舗の区切り時間）への振り分けは参照時に行います
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "sales_hourly_rollup",
+       uniqueConstraints = @UniqueConstraint(columnNames = { "store_id", "bucket_start" }),
+       indexes = @Index(columnList = "store_id, bucket_start"))
+public class SalesHourlyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer rollupId;
+
+    @Column(name = "store_id", nullable = false)
+    private Integer storeId;
+
+    // 集計対象の1時間の開始日時
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    // 売上分析用（取消を含む全会計）: 税込売上・税抜売上・来店人数
+    private Double salesWithTax;
+    private Double salesWithoutTax;
+    private Integer customers;
+
+    // 取消を除く客数（来店ごとに最初の会計の時間帯で数え、点検で使用する）
+    private Integer netCustomers;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,26 @@
+package com.order.event;
+
+import lombok.Getter;
+
+/**
+ * メニュー表示に影響するデータ（メニュー・オプション・時間帯・品切れ・グループ・税率）が変更されたことを通知するイベント
+ * storeId が null の場合は、店舗を特定できない変更として全店舗分を対象とします
+ */
+@Getter
+public class MenuCatalogChangedEvent {
+
+    private final Integer storeId;
+
+    public MenuCatalogChangedEvent(Integer storeId) {
+        this.storeId = storeId;
+    }
+
+    /**
+     * 全店舗を対象とする変更イベントを生成します
+     * 
+     * @return storeId が null のイベント
+     */
+    public static MenuCatalogChangedEvent allStores() {
+        return new MenuCatalogChangedEvent(null);
+    }
+}
@@ -0,0 +1,31 @@
+package com.order.event;
+
+import java.util.Set;
+
+import lombok.Getter;
+
+/**
+ * 飲み放題開始メニューの注文で、来店中の座席のプランが新たに有効になったことを通知するイベント
+ * コミット後に新たに表示されるメニューグループとメニューだけを座席の端末へ送ります
+ */
+@Getter
+public class PlanActivatedEvent {
+
+    private final Integer storeId;
+    private final Integer seatId;
+    /** 親会計ID */
+    private final Integer paymentId;
+    /** 今回の注文で新たに有効になったプランID */
+    private final Set<Integer> planIds;
+    /** 注文前から有効だったプランID */
+    private final Set<Integer> previousPlanIds;
+
+    public PlanActivatedEvent(Integer storeId, Integer seatId, Integer paymentId,
+                              Set<Integer> planIds, Set<Integer> previousPlanIds) {
+        this.storeId = storeId;
+        this.seatId = seatId;
+        this.paymentId = paymentId;
+        this.planIds = planIds;
+        this.previousPlanIds = previousPlanIds;
+    }
+}
@@ -0,0 +1,38 @@
+package com.order.event;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+
+/**
+ * 会計の確定・取消・編集などで売上集計に影響する変更があったことを通知するイベント
+ * paymentTimes には変更前後の会計日時を含めます（未確定の会計など null の日時は除外されます）
+ */
+@Getter
+public class SalesChangedEvent {
+
+    private final Integer storeId;
+    private final Set<LocalDateTime> paymentTimes;
+
+    public SalesChangedEvent(Integer storeId, Set<LocalDateTime> paymentTimes) {
+        this.storeId = storeId;
+        this.paymentTimes = Set.copyOf(paymentTimes);
+    }
+
+    /**
+     * 変更された会計日時を指定してイベントを生成します
+     * 
+     * @param storeId 店舗ID
+     * @param paymentTimes 変更前後の会計日時（null は無視されます）
+     * @return 売上変更イベント
+     */
+    public static SalesChangedEvent of(Integer storeId, LocalDateTime... paymentTimes) {
+        return new SalesChangedEvent(storeId, Arrays.stream(paymentTimes)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+    }
+}
@@ -0,0 +1,19 @@
+package com.order.event;
+
+import lombok.Getter;
+
+/**
+ * 座席の状態（来店・退店・人数・注文・会計による合計金額）が変わったことを通知するイベント
+ * 座席ボードはコミット後にこの座席の状態だけを読み直し、変化があれば端末へ差分を送ります
+ */
+@Getter
+public class SeatBoardChangedEvent {
+
+    private final Integer storeId;
+    private final Integer seatId;
+
+    public SeatBoardChangedEvent(Integer storeId, Integer seatId) {
+        this.storeId = storeId;
+        this.seatId = seatId;
+    }
+}
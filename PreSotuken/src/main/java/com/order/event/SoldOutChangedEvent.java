@@ -0,0 +1,25 @@
+package com.order.event;
+
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * メニューの品切れ状態が変更されたことを通知するイベント
+ * メニューカタログの変更イベントでもあり、カタログは破棄せずにこのイベントの内容で品切れ状態だけを差し替えます
+ * 品切れの登録簿はDBを読み直さずにこのイベントの内容を反映し、端末へ差分を送ります
+ */
+@Getter
+public class SoldOutChangedEvent extends MenuCatalogChangedEvent {
+
+    /** 変更されたメニュー（メニューID → メニュー名） */
+    private final Map<Integer, String> menus;
+    /** 変更後の品切れ状態 */
+    private final boolean soldOut;
+
+    public SoldOutChangedEvent(Integer storeId, Map<Integer, String> menus, boolean soldOut) {
+        super(storeId);
+        this.menus = menus;
+        this.soldOut = soldOut;
+    }
+}
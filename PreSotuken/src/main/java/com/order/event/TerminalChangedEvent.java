@@ -0,0 +1,16 @@
+package com.order.event;
+
+import lombok.Getter;
+
+/**
+ * 端末（IPアドレスと座席の対応）が登録・更新・削除されたことを通知するイベント
+ */
+@Getter
+public class TerminalChangedEvent {
+
+    private final Integer storeId;
+
+    public TerminalChangedEvent(Integer storeId) {
+        this.storeId = storeId;
+    }
+}
@@ -1,5 +1,6 @@
 package com.order.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -15,6 +16,11 @@ public interface MenuOptionRepository extends JpaRepository<MenuOption, Integer>
 
     // ★★★ これが正しい！ findByMenuId(int) ではなく findByMenu_MenuId(Integer) を使う
     List<MenuOption> findByMenu_MenuId(Integer menuId);
+
+    // 複数メニューのMenuOptionをまとめて取得（メニューカタログ構築用）
+    // メニューを一緒に取得し、メニューごとの追加のSELECTを発生させない
+    @Query("SELECT mo FROM MenuOption mo JOIN FETCH mo.menu WHERE mo.menu.menuId IN :menuIds")
+    List<MenuOption> findByMenu_MenuIdIn(@Param("menuIds") Collection<Integer> menuIds);
     
     // オプショングループIDでMenuOptionを検索
     List<MenuOption> findByOptionGroupId(Integer optionGroupId);
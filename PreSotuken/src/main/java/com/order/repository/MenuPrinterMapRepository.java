@@ -1,8 +1,11 @@
 package com.order.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.order.entity.MenuPrinterMap;
 import com.order.entity.PrinterConfig;
@@ -16,5 +19,8 @@ public interface MenuPrinterMapRepository extends JpaRepository<MenuPrinterMap,
 //    List<MenuPrinterMap> findByMenu_MenuId(Integer menuId);
     MenuPrinterMap findFirstByMenu_MenuIdOrderByPrinter_PrinterIdAsc(Integer menuId);
 
+    // 複数メニューの印刷先を1クエリで取得する（メニューごとの先頭が findFirstByMenu_MenuIdOrderByPrinter_PrinterIdAsc と同じ印刷先）
+    @Query("SELECT m FROM MenuPrinterMap m JOIN FETCH m.menu JOIN FETCH m.printer WHERE m.menu.menuId IN :menuIds ORDER BY m.printer.printerId ASC")
+    List<MenuPrinterMap> findByMenuIdsWithPrinter(@Param("menuIds") Collection<Integer> menuIds);
     
 }
@@ -35,12 +35,20 @@ public interface MenuRepository extends JpaRepository<Menu, Integer> {
     // 特定の店舗の全てのメニューをmenu_nameでソートして取得 (管理者用・品切れも表示する場合、削除されていないもののみ)
     List<Menu> findByStore_StoreIdAndDeletedAtIsNullOrderByMenuIdAsc(Integer storeId);
 
+    // メニューカタログ構築用: 特定の店舗の全てのメニューをmenu_nameでソートして取得（品切れも含む、削除されていないもののみ）
+    List<Menu> findByStore_StoreIdAndDeletedAtIsNullOrderByMenuNameAsc(Integer storeId);
+
     // isPlanStarterがtrueのメニューをmenu_nameでソートして取得（削除されていないもののみ）
     List<Menu> findByIsPlanStarterTrueAndDeletedAtIsNullOrderByMenuNameAsc();
 
     // isPlanStarterがtrueで、特定のplanIdを持つメニューをmenu_nameでソートして取得（削除されていないもののみ）
     List<Menu> findByIsPlanStarterTrueAndPlanIdAndDeletedAtIsNullOrderByMenuNameAsc(Integer planId);
     
+    // 品切れの登録簿用: 特定の店舗の品切れ中のメニューのIDと名前を取得（削除されていないもののみ）
+    // 列の順序: [0] menuId, [1] menuName
+    @Query("SELECT m.menuId, m.menuName FROM Menu m WHERE m.store.storeId = :storeId AND m.isSoldOut = TRUE AND m.deletedAt IS NULL")
+    List<Object[]> findSoldOutMenuRows(@Param("storeId") Integer storeId);
+
     // 特定のメニューグループに属するメニューを取得（削除されていないもののみ）
     List<Menu> findByMenuGroup_GroupIdAndDeletedAtIsNull(Integer groupId);
     
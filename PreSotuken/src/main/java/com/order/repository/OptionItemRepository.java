@@ -1,5 +1,6 @@
 package com.order.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,4 +11,7 @@ import com.order.entity.OptionItem;
 @Repository
 public interface OptionItemRepository extends JpaRepository<OptionItem, Integer> {
     List<OptionItem> findByOptionGroupId(int optionGroupId);
+
+    // 複数オプショングループのアイテムをまとめて取得（メニューカタログ構築用）
+    List<OptionItem> findByOptionGroupIdIn(Collection<Integer> optionGroupIds);
 }
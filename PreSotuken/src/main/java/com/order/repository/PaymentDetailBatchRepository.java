@@ -0,0 +1,120 @@
+package com.order.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import com.order.entity.PaymentDetail;
+import com.order.entity.PaymentDetailOption;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 注文明細（PaymentDetail / PaymentDetailOption）をJDBCバッチでまとめて登録するリポジトリ
+ * IDENTITY採番のエンティティはHibernateではバッチINSERTされないため、注文登録の経路のみJDBCで直接書き込みます
+ */
+@Repository
+@RequiredArgsConstructor
+public class PaymentDetailBatchRepository {
+
+    private static final String INSERT_DETAIL_SQL = """
+            INSERT INTO payment_detail
+                (payment_id, store_id, menu_id, quantity, user_id, tax_rate_id, subtotal, order_time)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_OPTION_SQL = """
+            INSERT INTO payment_detail_option (payment_detail_id, option_item_id)
+            VALUES (?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 注文明細を1回のバッチで登録し、採番されたIDを各エンティティに設定します
+     *
+     * @param details 登録する注文明細（paymentDetailIdは未設定であること）
+     */
+    public void insertDetails(List<PaymentDetail> details) {
+        if (details.isEmpty()) {
+            return;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_DETAIL_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PaymentDetail detail = details.get(i);
+                        ps.setInt(1, detail.getPayment().getPaymentId());
+                        setNullableInt(ps, 2, detail.getStore() != null ? detail.getStore().getStoreId() : null);
+                        ps.setInt(3, detail.getMenu().getMenuId());
+                        ps.setInt(4, detail.getQuantity());
+                        setNullableInt(ps, 5, detail.getUser() != null ? detail.getUser().getUserId() : null);
+                        ps.setInt(6, detail.getTaxRate().getTaxRateId());
+                        ps.setDouble(7, detail.getSubtotal());
+                        ps.setTimestamp(8, Timestamp.valueOf(detail.getOrderTime()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return details.size();
+                    }
+                },
+                keyHolder);
+
+        // 採番結果はドライバによってキー名が異なる（MySQL: GENERATED_KEY, H2: PAYMENT_DETAIL_ID）ため先頭の値を使う
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != details.size()) {
+            throw new IllegalStateException("注文明細の採番結果が取得できませんでした: " + keys.size() + "/" + details.size());
+        }
+        for (int i = 0; i < details.size(); i++) {
+            Number id = (Number) keys.get(i).values().iterator().next();
+            details.get(i).setPaymentDetailId(id.intValue());
+        }
+    }
+
+    /**
+     * 注文明細オプションを1回のバッチで登録します
+     *
+     * @param options 登録するオプション（紐づくPaymentDetailは採番済みであること）
+     */
+    public void insertOptions(List<PaymentDetailOption> options) {
+        if (options.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_OPTION_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PaymentDetailOption option = options.get(i);
+                ps.setInt(1, option.getPaymentDetail().getPaymentDetailId());
+                ps.setInt(2, option.getOptionItem().getOptionItemId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return options.size();
+            }
+        });
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.order.repository;
 
+import java.util.Collection;
 import java.util.List; // 追加
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.order.entity.PaymentDetail; // 追加
@@ -12,4 +15,12 @@ import com.order.entity.PaymentDetailOption;
 public interface PaymentDetailOptionRepository extends JpaRepository<PaymentDetailOption, Integer> {
     // PaymentDetail に紐づく PaymentDetailOption のリストを取得するメソッド
     List<PaymentDetailOption> findByPaymentDetail(PaymentDetail paymentDetail);
+
+    // 複数の明細のオプションを1クエリで取得する（伝票印刷用）
+    @Query("SELECT o FROM PaymentDetailOption o JOIN FETCH o.optionItem WHERE o.paymentDetail IN :details ORDER BY o.id ASC")
+    List<PaymentDetailOption> findByPaymentDetailIn(@Param("details") Collection<PaymentDetail> details);
+
+    // 注文履歴用: 複数の明細のオプション名を1クエリで取得する（[明細ID, オプション名] のリスト、登録順）
+    @Query("SELECT o.paymentDetail.paymentDetailId, i.itemName FROM PaymentDetailOption o JOIN o.optionItem i WHERE o.paymentDetail.paymentDetailId IN :paymentDetailIds ORDER BY o.id ASC")
+    List<Object[]> findOptionNamesByPaymentDetailIds(@Param("paymentDetailIds") Collection<Integer> paymentDetailIds);
 }
\ No newline at end of file
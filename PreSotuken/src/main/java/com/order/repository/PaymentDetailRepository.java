@@ -1,9 +1,10 @@
 package com.order.repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -15,14 +16,73 @@ import jakarta.transaction.Transactional;
 
 public interface PaymentDetailRepository extends JpaRepository<PaymentDetail, Integer> {
 
+    // 会計画面・領収書・割り勘などの明細表示用: メニューと税率を一緒に取得する
+    @EntityGraph(attributePaths = { "menu", "taxRate" })
     List<PaymentDetail> findByPaymentPaymentId(int paymentId);
 
+    // 伝票の印刷用: メニュー・税率・注文者を一緒に取得する（トランザクション外の印刷キューから呼ばれる）
+    @EntityGraph(attributePaths = { "menu", "taxRate", "user" })
+    List<PaymentDetail> findByPaymentDetailIdIn(Collection<Integer> paymentDetailIds);
+
+    // 印刷ジョブの伝票用: ジョブに紐づく明細を明細ID順に、メニュー・税率・注文者と一緒に取得する（トランザクション外の印刷キューから呼ばれる）
+    @EntityGraph(attributePaths = { "menu", "taxRate", "user" })
+    @Query("""
+        SELECT d FROM PaymentDetail d
+        JOIN PrintJobDetail pjd ON pjd.paymentDetailId = d.paymentDetailId
+        WHERE pjd.printJobId = :printJobId
+        ORDER BY d.paymentDetailId ASC
+    """)
+    List<PaymentDetail> findByPrintJobId(@Param("printJobId") Integer printJobId);
+
+    /**
+     * 注文履歴用: 会計の明細を表示に必要な列だけで取得します（明細ID順）
+     * @param paymentId 会計ID
+     * @param afterPaymentDetailId この明細IDより後の明細だけを取得する（全件の場合は 0）
+     * @return [明細ID, メニュー名, 数量, 単価, 税率, 小計, 値引額] のリスト（税率が未設定の場合は null）
+     */
+    @Query("""
+        SELECT pd.paymentDetailId, m.menuName, pd.quantity, m.price, tr.rate, pd.subtotal, pd.discount
+        FROM PaymentDetail pd
+        JOIN pd.menu m
+        LEFT JOIN pd.taxRate tr
+        WHERE pd.payment.paymentId = :paymentId
+          AND pd.paymentDetailId > :afterPaymentDetailId
+        ORDER BY pd.paymentDetailId
+    """)
+    List<Object[]> findOrderHistoryRows(@Param("paymentId") int paymentId,
+                                        @Param("afterPaymentDetailId") int afterPaymentDetailId);
+
+    /**
+     * 注文履歴の差分取得用: 会計の明細の、編集で変わり得る列だけを取得します（明細ID順）
+     * 内容のハッシュを履歴のバージョンとして使います（メニュー名などの結合は行いません）
+     * @param paymentId 会計ID
+     * @return [明細ID, 数量, 小計, 値引額] のリスト
+     */
+    @Query("""
+        SELECT pd.paymentDetailId, pd.quantity, pd.subtotal, pd.discount
+        FROM PaymentDetail pd
+        WHERE pd.payment.paymentId = :paymentId
+        ORDER BY pd.paymentDetailId
+    """)
+    List<Object[]> findOrderHistoryVersionRows(@Param("paymentId") int paymentId);
+
     @Transactional
     @Modifying
     @Query("DELETE FROM PaymentDetail pd WHERE pd.payment.paymentId = :paymentId")
     void deleteByPaymentPaymentId(@Param("paymentId") Integer paymentId);
 
-    List<PaymentDetail> findByPaymentPaymentIdAndMenuIsPlanStarterTrue(Integer paymentId);
+    /**
+     * 会計で注文された飲み放題開始メニューのプランID（有効になっているプラン）を取得します
+     */
+    @Query("""
+        SELECT DISTINCT m.planId
+        FROM PaymentDetail pd
+        JOIN pd.menu m
+        WHERE pd.payment.paymentId = :paymentId
+          AND m.isPlanStarter = TRUE
+          AND m.planId IS NOT NULL
+        """)
+    List<Integer> findActivePlanIds(@Param("paymentId") Integer paymentId);
 
     @Query("""
         SELECT pd.menu.menuName,
@@ -45,161 +105,70 @@ public interface PaymentDetailRepository extends JpaRepository<PaymentDetail, In
         @Param("end") LocalDateTime end
     );
 
-    // 現金売上（点検対象の支払い種別）
-//    @Query("""
-//        SELECT SUM(pd.subtotal)
-//        FROM PaymentDetail pd
-//        JOIN pd.payment p
-//        JOIN p.paymentType pt
-//        WHERE p.store.storeId = :storeId
-//          AND p.paymentTime BETWEEN :start AND :end
-//          AND pt.isInspectionTarget = true
-//          AND p.visitCancel = false
-//    """)
-//    BigDecimal sumCashSales(
-//        @Param("storeId") Integer storeId,
-//        @Param("start") LocalDateTime start,
-//        @Param("end") LocalDateTime end
-//    );
-
-    // 税率ごとの売上合計（点検対象の支払い種別）
-    @Query("""
-        SELECT pd.taxRate.taxRateId, SUM(pd.subtotal)
-        FROM PaymentDetail pd
-        JOIN pd.payment p
-        JOIN p.paymentType pt
-        WHERE p.store.storeId = :storeId
-          AND p.paymentTime BETWEEN :start AND :end
-          AND pt.isInspectionTarget = true
-          AND p.visitCancel = false
-          AND p.cancel = false
-        GROUP BY pd.taxRate.taxRateId
-    """)
-    List<Object[]> sumSalesByTaxRate(
-        @Param("storeId") Integer storeId,
-        @Param("start") LocalDateTime start,
-        @Param("end") LocalDateTime end
-    );
-
-    // 会計種別ごとの売上合計（すべて）
-    @Query("""
-        SELECT pt.typeName, SUM(pd.subtotal)
-        FROM PaymentDetail pd
-        JOIN pd.payment p
-        JOIN p.paymentType pt
-        WHERE p.store.storeId = :storeId
-          AND p.paymentTime BETWEEN :start AND :end
-          AND p.visitCancel = false
-          AND p.cancel = false
-        GROUP BY pt.typeName
-    """)
-    List<Object[]> sumSalesByPaymentType(
-        @Param("storeId") Integer storeId,
-        @Param("start") LocalDateTime start,
-        @Param("end") LocalDateTime end
-    );
-
-    // 会計種別ごとの値引き合計（discountがnullでない）
+    // 売上分析・売上集計テーブル用: 会計日時の日付・時間帯ごとの税抜売上（[年, 月, 日, 時, 税抜売上合計]、終了日時は含まない）
+    // 会計・明細からの集計と集計テーブルの値がずれないよう、両方でこのクエリを使う
     @Query("""
-        SELECT pt.typeName, SUM(pd.discount)
+        SELECT YEAR(p.paymentTime), MONTH(p.paymentTime), DAY(p.paymentTime), HOUR(p.paymentTime),
+               COALESCE(SUM(pd.subtotal), 0)
         FROM PaymentDetail pd
         JOIN pd.payment p
-        JOIN p.paymentType pt
         WHERE p.store.storeId = :storeId
-          AND p.paymentTime BETWEEN :start AND :end
-          AND pd.discount IS NOT NULL
-          AND p.visitCancel = false
-          AND p.cancel = false
-        GROUP BY pt.typeName
-    """)
-    List<Object[]> sumDiscountByPaymentType(
-        @Param("storeId") Integer storeId,
-        @Param("start") LocalDateTime start,
-        @Param("end") LocalDateTime end
-    );
-    
- // 総売上（キャンセル除外・全支払種別）
-    @Query("""
-        SELECT SUM(pd.subtotal)
-        FROM PaymentDetail pd
-        JOIN pd.payment p
-        WHERE p.store.storeId = :storeId
-          AND p.paymentTime BETWEEN :start AND :end
-          AND p.visitCancel = false
-          AND p.cancel = false
+          AND p.paymentTime >= :start AND p.paymentTime < :end
+        GROUP BY YEAR(p.paymentTime), MONTH(p.paymentTime), DAY(p.paymentTime), HOUR(p.paymentTime)
     """)
-    BigDecimal sumTotalSales(
+    List<Object[]> sumHourlySubtotalByPaymentTime(
         @Param("storeId") Integer storeId,
         @Param("start") LocalDateTime start,
         @Param("end") LocalDateTime end
     );
 
-    // 消費税額（税率指定）
+    // 売上集計テーブル用: 時間帯・メニューごとの販売数（[年, 月, 日, 時, メニュー名, 数量, 税抜売上, 税込売上]、取消を除く）
     @Query("""
-    	    SELECT SUM(pd.subtotal * pd.taxRate.rate)
-    	    FROM PaymentDetail pd
-    	    JOIN pd.payment p
-            WHERE p.store.storeId = :storeId
-              AND p.paymentTime BETWEEN :start AND :end
-              AND p.visitCancel = false
-              AND p.cancel = false
-              AND pd.taxRate.rate = :rate
-    	""")
-    	BigDecimal sumTaxAmount(
-    	    @Param("storeId") Integer storeId,
-    	    @Param("start") LocalDateTime start,
-    	    @Param("end") LocalDateTime end,
-    	    @Param("rate") BigDecimal rate
-    	);
-    
-    /**
-     * 指定された期間、店舗の支払いタイプおよび税率ごとの合計売上を取得します。
-     * @param storeId 店舗ID
-     * @param start 集計開始日時 (以上)
-     * @param end 集計終了日時 (未満)
-     * @return 支払いタイプ名、税率ID、合計金額のリスト (例: ["現金", 1, 1000.00], ["現金", 2, 50.00])
-     */
-    @Query("""
-        SELECT pt.typeName, tr.taxRateId, SUM(pd.subtotal)
+        SELECT YEAR(p.paymentTime), MONTH(p.paymentTime), DAY(p.paymentTime), HOUR(p.paymentTime),
+               pd.menu.menuName,
+               SUM(pd.quantity),
+               SUM(pd.subtotal),
+               SUM(pd.subtotal * (1 + pd.taxRate.rate))
         FROM PaymentDetail pd
         JOIN pd.payment p
-        JOIN p.paymentType pt
-        JOIN pd.taxRate tr
         WHERE p.store.storeId = :storeId
-          AND p.paymentTime >= :start
-          AND p.paymentTime < :end
+          AND p.paymentTime >= :start AND p.paymentTime < :end
           AND p.visitCancel = false
           AND p.cancel = false
-        GROUP BY pt.typeName, tr.taxRateId
-        ORDER BY pt.typeName, tr.taxRateId
+        GROUP BY YEAR(p.paymentTime), MONTH(p.paymentTime), DAY(p.paymentTime), HOUR(p.paymentTime), pd.menu.menuName
     """)
-    List<Object[]> sumSalesByPaymentTypeAndTaxRate(
+    List<Object[]> sumRollupMenuQuantityByHour(
         @Param("storeId") Integer storeId,
         @Param("start") LocalDateTime start,
         @Param("end") LocalDateTime end
     );
 
     /**
-     * 指定された期間、店舗の支払いタイプおよび税率ごとの消費税額を取得します。
+     * 点検用: 指定期間の売上を会計種別・税率の組み合わせごとに1回の走査で集計します（取消を除く）
+     * 会計種別・税率が未設定の明細も、それぞれ null のグループとして含めます
      * @param storeId 店舗ID
      * @param start 集計開始日時 (以上)
      * @param end 集計終了日時 (未満)
-     * @return 支払いタイプ名、税率、消費税額のリスト (例: ["現金", 0.10, 100.00], ["現金", 0.08, 40.00])
+     * @return [会計種別ID, 会計種別名, 点検対象か, 税率ID, 税率, 税抜売上, 消費税額, 値引額] のリスト
      */
     @Query("""
-        SELECT pt.typeName, pd.taxRate.rate, SUM(pd.subtotal * pd.taxRate.rate)
+        SELECT pt.typeId, pt.typeName, pt.isInspectionTarget, tr.taxRateId, tr.rate,
+               COALESCE(SUM(pd.subtotal), 0),
+               COALESCE(SUM(pd.subtotal * tr.rate), 0),
+               COALESCE(SUM(pd.discount), 0)
         FROM PaymentDetail pd
         JOIN pd.payment p
-        JOIN p.paymentType pt
+        LEFT JOIN p.paymentType pt
+        LEFT JOIN pd.taxRate tr
         WHERE p.store.storeId = :storeId
           AND p.paymentTime >= :start
           AND p.paymentTime < :end
           AND p.visitCancel = false
           AND p.cancel = false
-        GROUP BY pt.typeName, pd.taxRate.rate
-        ORDER BY pt.typeName, pd.taxRate.rate
+        GROUP BY pt.typeId, pt.typeName, pt.isInspectionTarget, tr.taxRateId, tr.rate
+        ORDER BY pt.typeName, tr.rate DESC
     """)
-    List<Object[]> sumTaxAmountByPaymentTypeAndTaxRate(
+    List<Object[]> sumInspectionSalesByPaymentTypeAndTaxRate(
         @Param("storeId") Integer storeId,
         @Param("start") LocalDateTime start,
         @Param("end") LocalDateTime end
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -25,25 +26,120 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
 
     List<Payment> findByStoreStoreIdOrderByPaymentTimeDesc(Integer storeId);
 
+    /**
+     * 会計履歴の1ページ分を会計日時の新しい順に取得します（キーセットページング）
+     * 前ページ最後の行（会計日時, 会計ID）より古い行から取得するため、履歴の件数に関係なくページサイズ分だけ読み込みます
+     *
+     * 表示ルール:
+     * - 割り勘(totalSplits > 0): 親会計のみ表示、子会計は非表示
+     * - 個別会計(totalSplits = null or 0): 子会計のみ表示、親会計は非表示
+     * - 会計日時が未確定（会計前・分割会計の途中）の会計は履歴に含めない
+     *
+     * @return [Payment, 税抜合計（明細ごとに 小計 − 値引 を0円で下限補正した合計）]
+     */
     @Query("""
-            SELECT p FROM Payment p
+            SELECT p,
+                   (SELECT COALESCE(SUM(CASE
+                               WHEN COALESCE(pd.subtotal, 0) - COALESCE(pd.discount, 0) > 0
+                               THEN COALESCE(pd.subtotal, 0) - COALESCE(pd.discount, 0)
+                               ELSE 0 END), 0)
+                    FROM PaymentDetail pd
+                    WHERE pd.payment = p)
+            FROM Payment p
+            LEFT JOIN FETCH p.visit v
+            LEFT JOIN FETCH v.seat
+            LEFT JOIN FETCH p.cashier
             WHERE p.store.storeId = :storeId
-              AND (p.visitCancel = :isCancelled OR p.cancel = :isCancelled)
               AND (
-                CASE 
+                CASE
                   WHEN :isCancelled = true THEN (p.visitCancel = true OR p.cancel = true)
                   ELSE (p.visitCancel = false AND p.cancel = false)
                 END
               )
-            ORDER BY p.paymentTime DESC
+              AND p.paymentTime >= :from
+              AND p.paymentTime < :to
+              AND (p.paymentTime < :cursorTime
+                   OR (p.paymentTime = :cursorTime AND p.paymentId < :cursorId))
+              AND (
+                (p.parentPayment IS NULL
+                  AND (COALESCE(p.totalSplits, 0) > 0
+                       OR NOT EXISTS (SELECT c.paymentId FROM Payment c WHERE c.parentPayment = p)))
+                OR (p.parentPayment IS NOT NULL AND COALESCE(p.totalSplits, 0) = 0)
+              )
+            ORDER BY p.paymentTime DESC, p.paymentId DESC
         """)
-    List<Payment> findByStoreStoreIdAndCancelledStatus(
+    List<Object[]> findHistoryPage(
         @Param("storeId") Integer storeId,
-        @Param("isCancelled") Boolean isCancelled);
+        @Param("isCancelled") Boolean isCancelled,
+        @Param("from") LocalDateTime from,
+        @Param("to") LocalDateTime to,
+        @Param("cursorTime") LocalDateTime cursorTime,
+        @Param("cursorId") Integer cursorId,
+        Pageable pageable);
 
     List<Payment> findByStoreStoreIdAndPaymentTimeBetween(Integer storeId, LocalDateTime start, LocalDateTime end);
 
+    // 売上分析・売上集計テーブル用: 日付・時間帯ごとの税込売上と来店人数（[年, 月, 日, 時, 税込売上合計, 人数合計]、終了日時は含まない）
+    // 会計・明細からの集計と集計テーブルの値がずれないよう、両方でこのクエリを使う
+    @Query("""
+        SELECT YEAR(p.paymentTime), MONTH(p.paymentTime), DAY(p.paymentTime), HOUR(p.paymentTime),
+               COALESCE(SUM(p.total), 0),
+               COALESCE(SUM(v.numberOfPeople), 0)
+        FROM Payment p
+        LEFT JOIN p.visit v
+        WHERE p.store.storeId = :storeId
+          AND p.paymentTime >= :start AND p.paymentTime < :end
+        GROUP BY YEAR(p.paymentTime), MONTH(p.paymentTime), DAY(p.paymentTime), HOUR(p.paymentTime)
+    """)
+    List<Object[]> sumHourlySalesByPaymentTime(
+        @Param("storeId") Integer storeId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+
+    // 売上集計テーブル用: 期間内に会計がある来店ごとの、取消を除いた最初の会計日時と人数（[来店ID, 最初の会計日時, 人数]）
+    @Query("""
+        SELECT v.visitId, MIN(p.paymentTime), v.numberOfPeople
+        FROM Payment p
+        JOIN p.visit v
+        WHERE p.store.storeId = :storeId
+          AND p.paymentTime IS NOT NULL
+          AND p.visitCancel = false
+          AND COALESCE(p.cancel, false) = false
+          AND v.visitId IN (
+            SELECT p2.visit.visitId FROM Payment p2
+            WHERE p2.store.storeId = :storeId
+              AND p2.paymentTime >= :start AND p2.paymentTime < :end
+          )
+        GROUP BY v.visitId, v.numberOfPeople
+    """)
+    List<Object[]> findFirstPaymentTimeByVisit(
+        @Param("storeId") Integer storeId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+
+    // 売上集計テーブル用: 期間内に会計がある来店の、全会計の会計日時（分割会計で他の時間帯に会計がある場合の再集計範囲）
+    @Query("""
+        SELECT DISTINCT p.paymentTime
+        FROM Payment p
+        WHERE p.paymentTime IS NOT NULL
+          AND p.visit.visitId IN (
+            SELECT p2.visit.visitId FROM Payment p2
+            WHERE p2.store.storeId = :storeId
+              AND p2.paymentTime >= :start AND p2.paymentTime < :end
+          )
+    """)
+    List<LocalDateTime> findPaymentTimesOfVisitsPaidBetween(
+        @Param("storeId") Integer storeId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
 
+    // 売上集計テーブルの再構築範囲（[最初の会計日時, 最後の会計日時]）
+    @Query("""
+        SELECT MIN(p.paymentTime), MAX(p.paymentTime)
+        FROM Payment p
+        WHERE p.store.storeId = :storeId
+    """)
+    List<Object[]> findPaymentTimeRange(@Param("storeId") Integer storeId);
 
     @Query("""
         SELECT COUNT(DISTINCT p.visit.visitId)
@@ -63,7 +159,7 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
     	    SELECT SUM(p.total)
     	    FROM Payment p
             WHERE p.store.storeId = :storeId
-              AND p.paymentTime BETWEEN :start AND :end
+              AND p.paymentTime >= :start AND p.paymentTime < :end
               AND p.visitCancel = false
               AND COALESCE(p.cancel, false) = false
               AND p.paymentType.isInspectionTarget = true
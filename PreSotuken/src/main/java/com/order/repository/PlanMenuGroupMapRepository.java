@@ -17,6 +17,11 @@ import jakarta.transaction.Transactional;
 public interface PlanMenuGroupMapRepository extends JpaRepository<PlanMenuGroupMap, PlanMenuGroupMapId> {
     List<PlanMenuGroupMap> findByPlanId(Integer planId);
 
+    // 飲み放題プランのキャッシュ用: 店舗の全プランとメニューグループの紐付けを取得
+    // 列の順序: [0] planId, [1] menuGroupId
+    @Query("SELECT pmm.planId, pmm.menuGroupId FROM PlanMenuGroupMap pmm JOIN Plan p ON p.planId = pmm.planId WHERE p.store.storeId = :storeId")
+    List<Object[]> findPlanMenuGroupRowsByStoreId(@Param("storeId") Integer storeId);
+
     // ★追加：planIdに基づいて紐付けを全て削除するカスタムクエリ
     @Modifying // DML操作（UPDATE, DELETE）であることを示す
     @Transactional // この操作はトランザクション内で実行される必要がある
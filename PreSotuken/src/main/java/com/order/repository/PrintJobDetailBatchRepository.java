@@ -0,0 +1,40 @@
+package com.order.repository;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 印刷ジョブと明細の紐付け（PrintJobDetail）をJDBCバッチでまとめて登録するリポジトリ
+ * 複合キーのエンティティを JpaRepository.saveAll で登録すると明細ごとに存在確認の SELECT が発行されるため、JDBCで直接書き込みます
+ */
+@Repository
+@RequiredArgsConstructor
+public class PrintJobDetailBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO print_job_detail (print_job_id, payment_detail_id)
+            VALUES (?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 印刷ジョブに明細を1回のバッチで紐付けます
+     *
+     * @param printJobId 印刷ジョブID
+     * @param paymentDetailIds 明細IDのリスト
+     */
+    public void insert(Integer printJobId, List<Integer> paymentDetailIds) {
+        if (paymentDetailIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, paymentDetailIds, paymentDetailIds.size(), (ps, paymentDetailId) -> {
+            ps.setInt(1, printJobId);
+            ps.setInt(2, paymentDetailId);
+        });
+    }
+}
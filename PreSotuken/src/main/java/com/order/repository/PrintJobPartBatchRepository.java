@@ -0,0 +1,43 @@
+package com.order.repository;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.order.entity.PrintJobPart;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 印刷ジョブの伝票（PrintJobPart）をJDBCバッチでまとめて登録するリポジトリ
+ * 複合キーのエンティティを JpaRepository.saveAll で登録すると伝票ごとに存在確認の SELECT が発行されるため、JDBCで直接書き込みます
+ */
+@Repository
+@RequiredArgsConstructor
+public class PrintJobPartBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO print_job_part (print_job_id, part, printer_ip, json_commands)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 印刷ジョブの伝票を1回のバッチで登録します
+     *
+     * @param parts 伝票のリスト
+     */
+    public void insert(List<PrintJobPart> parts) {
+        if (parts.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, parts, parts.size(), (ps, part) -> {
+            ps.setInt(1, part.getPrintJobId());
+            ps.setInt(2, part.getPart());
+            ps.setString(3, part.getPrinterIp());
+            ps.setString(4, part.getJsonCommands());
+        });
+    }
+}
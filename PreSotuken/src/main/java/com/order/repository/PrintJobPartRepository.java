@@ -0,0 +1,14 @@
+package com.order.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.order.entity.PrintJobPart;
+import com.order.entity.PrintJobPartId;
+
+public interface PrintJobPartRepository extends JpaRepository<PrintJobPart, PrintJobPartId> {
+
+    // 再送用に、最初の送信時に保存した伝票を伝票番号順に取得する
+    List<PrintJobPart> findByPrintJobIdOrderByPartAsc(Integer printJobId);
+}
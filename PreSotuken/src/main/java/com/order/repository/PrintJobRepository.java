@@ -0,0 +1,66 @@
+package com.order.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.order.entity.PrintJob;
+
+import jakarta.persistence.LockModeType;
+
+public interface PrintJobRepository extends JpaRepository<PrintJob, Integer> {
+
+    // 送信対象のジョブ（送信待ち、または受信確認がないまま再送時刻を過ぎたもの）を古い順に取得する
+    @Query("""
+        SELECT j FROM PrintJob j
+        WHERE (j.status = 'PENDING' AND j.createdAt < :pendingBefore)
+           OR (j.status = 'SENT' AND j.sentAt < :replayBefore)
+        ORDER BY j.printJobId ASC
+    """)
+    List<PrintJob> findDue(
+        @Param("pendingBefore") LocalDateTime pendingBefore,
+        @Param("replayBefore") LocalDateTime replayBefore,
+        Pageable pageable);
+
+    // 送信するジョブを確保する（他のスレッド・サーバーが先に確保した場合は 0 件）
+    @Modifying
+    @Query("""
+        UPDATE PrintJob j
+        SET j.status = 'SENT', j.sentAt = :now, j.attempts = j.attempts + 1
+        WHERE j.printJobId = :printJobId
+          AND j.attempts = :attempts
+          AND j.status IN ('PENDING', 'SENT')
+    """)
+    int claim(
+        @Param("printJobId") Integer printJobId,
+        @Param("attempts") Integer attempts,
+        @Param("now") LocalDateTime now);
+
+    // 確保したジョブの伝票の数を記録する（最初の送信の前に1回だけ呼び、以後は変更しない）
+    @Modifying
+    @Query("UPDATE PrintJob j SET j.parts = :parts WHERE j.printJobId = :printJobId AND j.parts IS NULL")
+    int updateParts(
+        @Param("printJobId") Integer printJobId,
+        @Param("parts") Integer parts);
+
+    @Modifying
+    @Query("UPDATE PrintJob j SET j.status = :status, j.completedAt = :now WHERE j.printJobId = :printJobId")
+    int updateStatus(
+        @Param("printJobId") Integer printJobId,
+        @Param("status") String status,
+        @Param("now") LocalDateTime now);
+
+    // 受信確認の記録用（同じジョブの確認が同時に届いても取りこぼさないよう行ロックする）
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM PrintJob j WHERE j.printJobId = :printJobId")
+    Optional<PrintJob> findForUpdate(@Param("printJobId") Integer printJobId);
+
+    long countByStatus(String status);
+}
@@ -0,0 +1,39 @@
+package com.order.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.order.entity.SalesHourlyMenuRollup;
+
+public interface SalesHourlyMenuRollupRepository extends JpaRepository<SalesHourlyMenuRollup, Integer> {
+
+    // 期間内のメニュー別集計（[メニュー名, 数量, 税抜売上, 税込売上]、sumMenuQuantityByTime と同じ形）
+    @Query("""
+        SELECT r.menuName, SUM(r.quantity), SUM(r.salesWithoutTax), SUM(r.salesWithTax)
+        FROM SalesHourlyMenuRollup r
+        WHERE r.storeId = :storeId
+          AND r.bucketStart >= :start AND r.bucketStart < :end
+        GROUP BY r.menuName
+        ORDER BY r.menuName
+    """)
+    List<Object[]> sumMenuQuantityByRange(
+        @Param("storeId") Integer storeId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query("""
+        DELETE FROM SalesHourlyMenuRollup r
+        WHERE r.storeId = :storeId
+          AND r.bucketStart >= :start AND r.bucketStart < :end
+    """)
+    int deleteByStoreIdAndRange(
+        @Param("storeId") Integer storeId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+}
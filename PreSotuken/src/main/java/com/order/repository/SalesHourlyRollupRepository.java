@@ -0,0 +1,28 @@
+package com.order.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.order.entity.SalesHourlyRollup;
+
+public interface SalesHourlyRollupRepository extends JpaRepository<SalesHourlyRollup, Integer> {
+
+    List<SalesHourlyRollup> findByStoreIdAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+        Integer storeId, LocalDateTime start, LocalDateTime end);
+
+    @Modifying
+    @Query("""
+        DELETE FROM SalesHourlyRollup r
+        WHERE r.storeId = :storeId
+          AND r.bucketStart >= :start AND r.bucketStart < :end
+    """)
+    int deleteByStoreIdAndRange(
+        @Param("storeId") Integer storeId,
+        @Param("start") LocalDateTime start,
+        @Param("end") LocalDateTime end);
+}
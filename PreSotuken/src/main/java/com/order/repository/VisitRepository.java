@@ -19,6 +19,44 @@ public interface VisitRepository extends JpaRepository<Visit, Integer> {
 	Visit findFirstBySeat_Store_StoreIdAndSeat_SeatIdAndLeaveTimeIsNullOrderByVisitTimeDesc(
 		    int storeId, int seatId);
 
+	/**
+	 * 来店中の座席の登録簿用: 退店していない来店と、その親会計のIDを取得します
+	 * @param seatId 座席ID（null の場合は全店舗の全座席）
+	 * @return [座席ID, 座席の店舗ID, 来店ID, 人数, 来店日時, 親会計ID] のリスト（来店日時の古い順。親会計がない場合は null）
+	 */
+	@Query("""
+		SELECT s.seatId, s.store.storeId, v.visitId, v.numberOfPeople, v.visitTime, p.paymentId
+		FROM Visit v
+		JOIN v.seat s
+		LEFT JOIN Payment p ON p.visit = v AND p.parentPayment IS NULL
+		WHERE v.leaveTime IS NULL
+		  AND (:seatId IS NULL OR s.seatId = :seatId)
+		ORDER BY v.visitTime
+	""")
+	List<Object[]> findActiveVisitRows(@Param("seatId") Integer seatId);
+
+	/**
+	 * 座席ボード用: 退店していない来店と、その親会計の税込合計（明細ごとに四捨五入）を取得します
+	 * @param storeId 店舗ID
+	 * @param seatId 座席ID（null の場合は店舗の全座席）
+	 * @return [座席ID, 来店ID, 人数, 来店日時, 税込合計] のリスト（来店日時の古い順）
+	 */
+	@Query("""
+		SELECT v.seat.seatId, v.visitId, v.numberOfPeople, v.visitTime,
+		       (SELECT COALESCE(SUM(ROUND(m.price * pd.quantity * (1 + COALESCE(tr.rate, 0)), 0)), 0)
+		        FROM PaymentDetail pd
+		        JOIN pd.menu m
+		        LEFT JOIN pd.taxRate tr
+		        WHERE pd.payment.visit = v
+		          AND pd.payment.parentPayment IS NULL)
+		FROM Visit v
+		WHERE v.store.storeId = :storeId
+		  AND v.leaveTime IS NULL
+		  AND (:seatId IS NULL OR v.seat.seatId = :seatId)
+		ORDER BY v.visitTime
+	""")
+	List<Object[]> findSeatBoardRows(@Param("storeId") Integer storeId, @Param("seatId") Integer seatId);
+
 	/**
 	 * 指定された店舗と期間における来店人数の合計を取得します
 	 * @param storeId 店舗ID
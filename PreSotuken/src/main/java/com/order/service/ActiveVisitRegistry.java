@@ -0,0 +1,164 @@
+package com.order.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.order.event.SeatBoardChangedEvent;
+import com.order.repository.VisitRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * 座席ごとの来店中の来店と親会計（個別会計の子会計ではなく元の会計）を保持する登録簿
+ * 座席 → 来店 → 会計 の検索を、端末のポーリングのたびにDBへ問い合わせずに済ませるために使います
+ *
+ * - 起動時と一定間隔でDBの全件から作り直します（複数台構成で他のサーバーが受けた変更もここで反映されます）
+ * - 来店・退店・会計のイベント（SeatBoardChangedEvent）を受けて、コミット後に該当座席だけを読み直します
+ */
+@Component
+@RequiredArgsConstructor
+public class ActiveVisitRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveVisitRegistry.class);
+
+    private final VisitRepository visitRepository;
+
+    /** 座席ID → 来店中の来店 */
+    private final Map<Integer, ActiveVisit> visitsBySeatId = new ConcurrentHashMap<>();
+
+    /** 全件の読み込みが済んでいるか（起動直後のリクエストでは読み込みを待つ） */
+    private volatile boolean loaded;
+
+    /**
+     * 座席の来店中の来店を取得します
+     *
+     * @param seatId 座席ID
+     * @return 来店中の来店（退店済み・来店なしの場合は空）
+     */
+    public Optional<ActiveVisit> findBySeatId(Integer seatId) {
+        ensureLoaded();
+        return Optional.ofNullable(visitsBySeatId.get(seatId));
+    }
+
+    /**
+     * 店舗の座席の来店中の来店を取得します（座席が別の店舗のものの場合は空）
+     *
+     * @param storeId 店舗ID
+     * @param seatId 座席ID
+     * @return 来店中の来店
+     */
+    public Optional<ActiveVisit> find(Integer storeId, Integer seatId) {
+        return findBySeatId(seatId).filter(visit -> visit.getStoreId().equals(storeId));
+    }
+
+    /**
+     * 座席の来店中の来店の親会計IDを取得します
+     *
+     * @param seatId 座席ID
+     * @return 親会計ID（来店なし・会計未作成の場合は null）
+     */
+    public Integer findPaymentIdBySeatId(Integer seatId) {
+        return findBySeatId(seatId).map(ActiveVisit::getPaymentId).orElse(null);
+    }
+
+    /**
+     * 座席の変更をコミット後に反映します（トランザクション外で発行された場合は即時）
+     *
+     * @param event 座席の変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatChanged(SeatBoardChangedEvent event) {
+        refresh(event.getSeatId());
+    }
+
+    /**
+     * 座席の来店中の来店をDBから読み直します
+     *
+     * @param seatId 座席ID
+     */
+    public synchronized void refresh(Integer seatId) {
+        Map<Integer, ActiveVisit> loadedVisits = load(seatId);
+        ActiveVisit visit = loadedVisits.get(seatId);
+        if (visit != null) {
+            visitsBySeatId.put(seatId, visit);
+        } else {
+            visitsBySeatId.remove(seatId);
+        }
+    }
+
+    /**
+     * 起動時と一定間隔で、全店舗の来店中の来店をDBから作り直します
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${active-visit.resync-interval-ms:60000}",
+               initialDelayString = "${active-visit.resync-interval-ms:60000}")
+    public synchronized void rebuild() {
+        try {
+            Map<Integer, ActiveVisit> loadedVisits = load(null);
+            visitsBySeatId.putAll(loadedVisits);
+            visitsBySeatId.keySet().retainAll(loadedVisits.keySet());
+            if (!loaded) {
+                logger.info("来店中の座席を読み込みました: {}件", loadedVisits.size());
+            }
+            loaded = true;
+        } catch (RuntimeException e) {
+            // 読み込み済みの場合は、次の作り直しまで前回の内容とイベントによる更新で続ける
+            logger.error("来店中の座席の読み込みに失敗しました。error: {}", e.getMessage(), e);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            rebuild();
+            if (!loaded) {
+                throw new IllegalStateException("来店中の座席を読み込めませんでした");
+            }
+        }
+    }
+
+    /**
+     * 来店中の来店をDBから読み込みます（同じ座席に複数の来店がある場合は最新の来店）
+     */
+    private Map<Integer, ActiveVisit> load(Integer seatId) {
+        List<Object[]> rows = visitRepository.findActiveVisitRows(seatId);
+        Map<Integer, ActiveVisit> visits = new HashMap<>();
+        for (Object[] row : rows) {
+            ActiveVisit visit = new ActiveVisit(
+                    (Integer) row[0],
+                    (Integer) row[1],
+                    (Integer) row[2],
+                    (Integer) row[3],
+                    (LocalDateTime) row[4],
+                    (Integer) row[5]);
+            visits.put(visit.getSeatId(), visit);
+        }
+        return visits;
+    }
+
+    /**
+     * 座席の来店中の来店
+     */
+    @Value
+    public static class ActiveVisit {
+        Integer seatId;
+        Integer storeId;
+        Integer visitId;
+        Integer numberOfPeople;
+        LocalDateTime visitTime;
+        /** 親会計ID（会計が未作成の場合は null） */
+        Integer paymentId;
+    }
+}
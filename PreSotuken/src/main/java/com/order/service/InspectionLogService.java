@@ -4,14 +4,13 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
 
 import org.springframework.stereotype.Service;
 
 import com.order.dto.InspectionLogRequest;
+import com.order.dto.InspectionSummaryDto;
 import com.order.entity.CashTransaction;
 import com.order.entity.InspectionLog;
 import com.order.entity.PaymentType;
@@ -23,7 +22,6 @@ import com.order.repository.PaymentRepository;
 import com.order.repository.PaymentTypeRepository;
 import com.order.repository.StoreRepository;
 import com.order.repository.UserRepository;
-import com.order.repository.VisitRepository;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -44,7 +42,7 @@ public class InspectionLogService {
     private final StoreRepository storeRepository;
     private final CashTransactionRepository cashTransactionRepository;
     private final PaymentTypeRepository paymentTypeRepository;
-    private final VisitRepository visitRepository;
+    private final SalesReportService salesReportService;
     
 //    private static final int[] DENOMINATIONS = {10000, 5000, 1000, 500, 100, 50, 10, 5, 1};
 
@@ -130,7 +128,14 @@ public class InspectionLogService {
         return inspectionLogRepository.findByStore_StoreIdOrderByInspectionTimeDesc(storeId);
     }
 
-    public Map<String, Object> buildInspectionSummary(Integer storeId) {
+    /**
+     * 点検対象期間（店舗の区切り時間から1日）の売上サマリーを作成します
+     * 会計種別・税率ごとの売上・消費税額・値引額は1回の集計クエリでまとめて取得します
+     * 
+     * @param storeId 店舗ID
+     * @return 売上サマリー
+     */
+    public InspectionSummaryDto buildInspectionSummary(Integer storeId) {
         // 店舗の区切り時間を取得（デフォルトは3:00）
         LocalTime transitionTime = storeRepository.findById(storeId)
             .map(store -> store.getTransitionTime() != null ? store.getTransitionTime() : LocalTime.of(3, 0))
@@ -141,119 +146,36 @@ public class InspectionLogService {
         if (now.isBefore(start)) start = start.minusDays(1);
         LocalDateTime end = start.plusDays(1);
 
-        Map<String, Object> result = new HashMap<>();
-
-        // 安全に合計値を扱うためのヘルパー
-        Function<BigDecimal, BigDecimal> safe = val -> val != null ? val : BigDecimal.ZERO;
-        
-        boolean inspectionCompletedToday = inspectionLogRepository.existsByStoreIdAndInspectionTimeBetween(storeId, start, end);
-        result.put("inspectionCompletedToday", inspectionCompletedToday);
-
-        // 現金売上（点検対象の支払種別）
-        BigDecimal cashSales = safe.apply(paymentRepository.sumCashSales(storeId, start, end));
-        result.put("cashSalesPure", cashSales);
-//        result.put("expectedCashSales", cashSales);
-
-        // 総売上
-        BigDecimal totalSales = safe.apply(paymentDetailRepository.sumTotalSales(storeId, start, end));
-        result.put("total", totalSales);
-
-        // 税率別売上 (既存のコード、これは画面上部の総合計用として残しておく)
-        BigDecimal tax10Sales = BigDecimal.ZERO;
-        BigDecimal tax8Sales = BigDecimal.ZERO;
-        for (Object[] row : paymentDetailRepository.sumSalesByTaxRate(storeId, start, end)) {
-            Integer taxRateId = (Integer) row[0];
-            BigDecimal sum = safe.apply(BigDecimal.valueOf((Double) row[1]));
-            if (taxRateId == 1) tax10Sales = sum;
-            if (taxRateId == 2) tax8Sales = sum;
-        }
-        result.put("tax10", tax10Sales);
-        result.put("tax8", tax8Sales);
-
-        // ★★★ ここから新しい会計種別ごとの税率別売上を追加 ★★★
-        Map<String, BigDecimal> salesByPaymentTypeAndTax = new HashMap<>();
-        List<Object[]> salesData = paymentDetailRepository.sumSalesByPaymentTypeAndTaxRate(storeId, start, end);
-        
-        for (Object[] row : salesData) {
-            String typeName = (String) row[0]; // 例: "現金", "カード"
-            Integer taxRateId = (Integer) row[1]; // 例: 1 (10%), 2 (8%)
-            BigDecimal sum = safe.apply(BigDecimal.valueOf((Double) row[2])); // 合計金額
-
-            String key = "salesByPaymentType_" + typeName;
-            if (taxRateId == 1) { // 10%税率の場合
-                key += "_10%";
-            } else if (taxRateId == 2) { // 8%税率の場合
-                key += "_8%";
-            } else {
-                // その他の税率IDの場合の処理（必要であれば）
-                key += "_その他"; // もし他の税率があるなら対応を検討
-            }
-            salesByPaymentTypeAndTax.put(key, sum);
-        }
-        result.putAll(salesByPaymentTypeAndTax); // Mapごとresultに追加
-
-        // ★★★ ここまで新しい会計種別ごとの税率別売上を追加 ★★★
-
-        // 消費税額 (既存のコード - 全体の合計)
-        BigDecimal taxAmount10 = safe.apply(paymentDetailRepository.sumTaxAmount(storeId, start, end, new BigDecimal("0.10")));
-        BigDecimal taxAmount8 = safe.apply(paymentDetailRepository.sumTaxAmount(storeId, start, end, new BigDecimal("0.08")));
-        result.put("taxAmount10", taxAmount10);
-        result.put("taxAmount8", taxAmount8);
+        InspectionSummaryDto summary = new InspectionSummaryDto();
+        summary.setInspectionCompletedToday(inspectionLogRepository.existsByStoreIdAndInspectionTimeBetween(storeId, start, end));
 
-        // ★★★ 支払い方法別の消費税額を追加 ★★★
-        Map<String, BigDecimal> taxAmountsByPaymentType = new HashMap<>();
-        List<Object[]> taxAmountData = paymentDetailRepository.sumTaxAmountByPaymentTypeAndTaxRate(storeId, start, end);
-        
-        for (Object[] row : taxAmountData) {
-            String typeName = (String) row[0]; // 例: "現金", "カード"
-            Double rate = (Double) row[1]; // 例: 0.10, 0.08
-            BigDecimal taxAmount = safe.apply(BigDecimal.valueOf((Double) row[2])); // 消費税額
-
-            String key = "taxAmountByPaymentType_" + typeName;
-            if (rate != null && rate == 0.10) {
-                key += "_10%";
-            } else if (rate != null && rate == 0.08) {
-                key += "_8%";
-            } else {
-                key += "_その他";
-            }
-            taxAmountsByPaymentType.put(key, taxAmount);
-        }
-        result.putAll(taxAmountsByPaymentType);
-        // ★★★ ここまで支払い方法別の消費税額を追加 ★★★
+        // 売上がない会計種別も表示するため、店舗の会計種別を名前順に先に登録する
+        paymentTypeRepository.findByStoreId(storeId).stream()
+            .sorted(Comparator.comparing(PaymentType::getTypeName, Comparator.nullsLast(Comparator.naturalOrder())))
+            .forEach(type -> summary.registerPaymentType(type.getTypeId(), type.getTypeName(), type.getIsInspectionTarget()));
 
-        // 割引
-        BigDecimal discountCash = BigDecimal.ZERO;
-        BigDecimal discountCard = BigDecimal.ZERO;
-        for (Object[] row : paymentDetailRepository.sumDiscountByPaymentType(storeId, start, end)) {
-            String typeName = (String) row[0];
-            BigDecimal sum = safe.apply(BigDecimal.valueOf((Double) row[1]));
-            if ("現金".equals(typeName)) discountCash = sum;
-            if ("カード".equals(typeName)) discountCard = sum;
+        // 会計種別・税率ごとの売上・消費税額・値引額（取消を除く）
+        for (Object[] row : paymentDetailRepository.sumInspectionSalesByPaymentTypeAndTaxRate(storeId, start, end)) {
+            summary.addSales((Integer) row[0], (String) row[1], (Boolean) row[2],
+                    (Integer) row[3], row[4] != null ? ((Number) row[4]).doubleValue() : null,
+                    toBigDecimal(row[5]), toBigDecimal(row[6]), toBigDecimal(row[7]));
         }
-        result.put("discountCash", discountCash);
-        result.put("discountCard", discountCard);
 
+        // 現金売上（点検対象の会計種別の会計合計。会計単位の値引を含むため会計から集計する）
+        summary.setCashSales(safeBig(paymentRepository.sumCashSales(storeId, start, end)));
 
-
-        // 客数（visitテーブルのnumber_of_peopleの合計を利用）
-        Long guestCount = visitRepository.sumNumberOfPeopleByPaymentTime(storeId, start, end);
-        result.put("guestCount", guestCount != null ? guestCount : 0L);
+        // 客数（区切り時間が正時の場合は売上集計テーブルから取得）
+        Long guestCount = salesReportService.sumNetCustomers(storeId, start, end);
+        summary.setGuestCount(guestCount != null ? guestCount : 0L);
 
         // 入出金
-        BigDecimal deposit = safe.apply(cashTransactionRepository.sumAmountByType(storeId, "IN", start, end));
-        BigDecimal withdraw = safe.apply(cashTransactionRepository.sumAmountByType(storeId, "OUT", start, end));
-
-        // 想定金額（現金売上 + 入金 − 出金）
-        BigDecimal expectedCash = cashSales.add(deposit).subtract(withdraw);
-        result.put("expectedCash", expectedCash);
-        
-        List<PaymentType> allPaymentTypes = paymentTypeRepository.findAllByOrderByTypeNameAsc(); // ソートして取得すると表示がきれいだよ
-        result.put("allPaymentTypes", allPaymentTypes);
+        summary.setDeposit(safeBig(cashTransactionRepository.sumAmountByType(storeId, "IN", start, end)));
+        summary.setWithdraw(safeBig(cashTransactionRepository.sumAmountByType(storeId, "OUT", start, end)));
 
-        return result;
+        return summary;
     }
 
-    
-    
+    private static BigDecimal toBigDecimal(Object value) {
+        return value != null ? BigDecimal.valueOf(((Number) value).doubleValue()) : BigDecimal.ZERO;
+    }
 }
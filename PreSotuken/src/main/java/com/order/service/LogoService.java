@@ -1,12 +1,18 @@
 package com.order.service; // パッケージ名はcom.order.service に合わせるね！
 
+import java.util.Map;
 import java.util.Optional; // Optionalをインポート
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional; // トランザクション管理のためにインポート
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.order.entity.Logo; // Logoエンティティをインポート
 import com.order.repository.LogoRepository; // LogoRepositoryをインポート
+import com.order.service.print.PrintLogo;
 
 /**
  * ロゴに関するビジネスロジックを提供するサービス。
@@ -16,12 +22,37 @@ import com.order.repository.LogoRepository; // LogoRepositoryをインポート
 public class LogoService {
 
     private final LogoRepository logoRepository; // リポジトリをインジェクションするフィールド
-    
-    
+
+    // 伝票に印字するロゴの店舗ごとのキャッシュ（ロゴなしも Optional.empty() として保持する）
+    // 伝票のたびにDBから大きなBASE64データを読み直さないようにする。saveOrUpdateLogo で破棄する
+    private final Map<Long, Optional<PrintLogo>> printLogoCache = new ConcurrentHashMap<>();
+
+    private final int logoWidth;
+    private final int logoHeight;
 
     // コンストラクタインジェクションを使うのがSpring Bootでは推奨だよ
-    public LogoService(LogoRepository logoRepository) {
+    public LogoService(LogoRepository logoRepository,
+                       @Value("${print.logo.width:256}") int logoWidth,
+                       @Value("${print.logo.height:60}") int logoHeight) {
         this.logoRepository = logoRepository;
+        this.logoWidth = logoWidth;
+        this.logoHeight = logoHeight;
+    }
+
+    /**
+     * 伝票に印字する店舗ロゴを取得する。
+     * 初回のみDBから読み込んで印字サイズのラスターに変換し、以降はキャッシュを返す。
+     *
+     * @param storeId 取得対象の店舗ID
+     * @return 存在する場合は変換済みのロゴ、存在しない場合は null
+     */
+    @Transactional(readOnly = true)
+    public PrintLogo getPrintLogo(Long storeId) {
+        return printLogoCache.computeIfAbsent(storeId, id -> findLogoByStoreId(id)
+                .map(Logo::getLogoData)
+                .filter(data -> !data.isBlank())
+                .map(data -> PrintLogo.of(data, logoWidth, logoHeight)))
+                .orElse(null);
     }
     
     /**
@@ -81,6 +112,26 @@ public class LogoService {
             logo = new Logo(storeId, logoData); // storeIdをidとして設定
         }
 
-        return logoRepository.save(logo); // 保存または更新を実行
+        Logo saved = logoRepository.save(logo); // 保存または更新を実行
+        evictPrintLogo(storeId);
+        return saved;
+    }
+
+    /**
+     * 店舗のロゴのキャッシュを破棄する。
+     * 保存と同じトランザクション中に古いロゴが再びキャッシュされないよう、コミット後にも破棄する。
+     *
+     * @param storeId 店舗ID
+     */
+    public void evictPrintLogo(Long storeId) {
+        printLogoCache.remove(storeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    printLogoCache.remove(storeId);
+                }
+            });
+        }
     }
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -19,16 +20,13 @@ import com.order.entity.Menu;
 import com.order.entity.MenuGroup;
 import com.order.entity.MenuOption;
 import com.order.entity.MenuPrinterMap;
-import com.order.entity.Payment;
-import com.order.entity.PaymentDetail;
 import com.order.entity.PrinterConfig;
 import com.order.entity.Store;
+import com.order.event.MenuCatalogChangedEvent;
 import com.order.repository.MenuGroupRepository;
 import com.order.repository.MenuOptionRepository;
 import com.order.repository.MenuPrinterMapRepository;
 import com.order.repository.MenuRepository;
-import com.order.repository.PaymentDetailRepository;
-import com.order.repository.PlanMenuGroupMapRepository;
 import com.order.repository.PrinterConfigRepository;
 import com.order.repository.StoreRepository;
 
@@ -46,9 +44,9 @@ public class MenuAddService {
     private final MenuOptionRepository menuOptionRepository;
     private final MenuGroupRepository menuGroupRepository;
 
-    private final PaymentDetailRepository paymentDetailRepository;
-    private final PlanMenuGroupMapRepository planMenuGroupMapRepository;
     private final PaymentLookupService paymentLookup;
+    private final PlanActivationCache planActivationCache;
+    private final ApplicationEventPublisher eventPublisher;
     
     
     // MenuエンティティをMenuForm DTOに変換して返すメソッド（削除されていないメニューのみ）
@@ -124,25 +122,14 @@ public class MenuAddService {
         // 1. 通常の顧客向けメニューグループ（isPlanTarget=false）を追加 (ソート順適用)
         combinedGroups.addAll(getCustomerMenuGroups(storeId));
 
-        // 2. 現在アクティブな飲み放題プランがあるかチェックし、そのplanId"s"を取得
-        // ★修正！単一のIDではなく、Set<Integer>を受け取る
-        Set<Integer> activePlanIds = getActivePlanIdsForSeat(seatId, storeId);
-
-        if (!activePlanIds.isEmpty()) { // activePlanIdsが空でなければ処理
-            Set<Integer> allPlanTargetMenuGroupIds = new HashSet<>(); // 収集用Set
-
-            // ★修正！全てのactivePlanIdに対して処理を繰り返す
-            for (Integer planId : activePlanIds) {
-                List<Integer> groupIdsForPlan = planMenuGroupMapRepository.findByPlanId(planId).stream()
-                    .map(map -> map.getMenuGroupId())
-                    .collect(Collectors.toList());
-                allPlanTargetMenuGroupIds.addAll(groupIdsForPlan); // 各プランのグループIDをSetに追加
+        // 2. 来店中の座席で有効な飲み放題プランのメニューグループを追加（プランの紐付けと有効なプランはキャッシュから取得する）
+        Integer paymentId = paymentLookup.findPaymentIdBySeatId(seatId);
+        Set<Integer> activePlanIds = planActivationCache.getActivePlanIds(seatId, paymentId);
+        if (!activePlanIds.isEmpty()) {
+            Set<Integer> planTargetMenuGroupIds = planActivationCache.getMenuGroupIds(storeId, activePlanIds);
+            if (!planTargetMenuGroupIds.isEmpty()) {
+                combinedGroups.addAll(menuGroupRepository.findByGroupIdInAndIsPlanTargetTrueOrderBySortOrderAsc(new ArrayList<>(planTargetMenuGroupIds)));
             }
-
-            // 取得したMenuGroupIdリストを使ってMenuGroupエンティティを取得 (ソート順適用)
-            // Set<Integer>をList<Integer>に変換してfindByGroupIdInに渡す
-            List<MenuGroup> planTargetGroups = menuGroupRepository.findByGroupIdInAndIsPlanTargetTrueOrderBySortOrderAsc(new ArrayList<>(allPlanTargetMenuGroupIds));
-            combinedGroups.addAll(planTargetGroups);
         }
 
         // SetからListに変換後、最終的なソート順を保証するために再度ソート（もし必要なら）
@@ -160,24 +147,6 @@ public class MenuAddService {
     
     
 
-    private Set<Integer> getActivePlanIdsForSeat(Integer seatId, Integer storeId) {
-        // PaymentをLookupPaymentから取得
-        Payment payment = paymentLookup.findPaymentBySeatId(seatId); // storeIdはseatIdで特定できるなら不要
-
-        Set<Integer> activePlanIds = new HashSet<>();
-        if (payment != null) {
-            // そのPaymentに紐づくPaymentDetailの中から、is_plan_starterがtrueのメニューを検索
-            List<PaymentDetail> planStarterOrders = paymentDetailRepository.findByPaymentPaymentIdAndMenuIsPlanStarterTrue(payment.getPaymentId());
-
-            activePlanIds = planStarterOrders.stream()
-                .map(pd -> pd.getMenu().getPlanId())
-                .filter(java.util.Objects::nonNull) // nullチェックは重要
-                .collect(Collectors.toSet());
-        }
-        return activePlanIds;
-    }
-
-
     // 全メニューを取得するメソッド (menu_nameでソート適用、削除されていないもののみ)
     public List<Menu> getMenusByStoreId(Integer storeId) {
         return menuRepository.findByStore_StoreIdAndDeletedAtIsNullOrderByMenuIdAsc(storeId);
@@ -262,7 +231,8 @@ public class MenuAddService {
                 menuOptionRepository.save(mog);
             }
         }
-        
+
+        eventPublisher.publishEvent(new MenuCatalogChangedEvent(storeId));
         return savedMenu;
     }
 
@@ -344,6 +314,7 @@ public class MenuAddService {
             }
         }
 
+        eventPublisher.publishEvent(new MenuCatalogChangedEvent(storeId));
         return updatedMenu;
     }
 
@@ -367,6 +338,7 @@ public class MenuAddService {
         // ソフトデリート: deleted_at に現在時刻を設定
         menuToDelete.setDeletedAt(LocalDateTime.now());
         menuRepository.save(menuToDelete);
+        eventPublisher.publishEvent(new MenuCatalogChangedEvent(storeId));
         
         // 注意: プリンターマップやオプションは削除しない
         // これらは履歴として残しておく
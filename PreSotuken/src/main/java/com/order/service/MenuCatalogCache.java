@@ -0,0 +1,338 @@
+package com.order.service;
+
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.order.dto.MenuWithOptionsDTO;
+import com.order.event.MenuCatalogChangedEvent;
+import com.order.event.SoldOutChangedEvent;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 店舗ごとのメニューカタログ（オプション込みのDTO）を保持するキャッシュ
+ * メニュー関連の更新イベントを受けて、コミット後に該当店舗のカタログを破棄します（品切れの変更はDBを読み直さずにカタログへ反映します）
+ * 保持しているDTOは複数リクエストで共有されるため、呼び出し側で変更しないでください
+ */
+@Component
+public class MenuCatalogCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(MenuCatalogCache.class);
+
+    /**
+     * 店舗ID → カタログの構築タスク
+     * 構築（DBの検索）はマップのロックの外で行い、同じ店舗の同時アクセスは先に登録されたタスクの完了を待ちます
+     */
+    private final Map<Integer, FutureTask<StoreMenuCatalog>> catalogs = new ConcurrentHashMap<>();
+
+    /** 一度でもカタログを参照した店舗（破棄後も時間帯切り替えの監視対象にするため保持する） */
+    private final Set<Integer> knownStoreIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 店舗のカタログを取得します。未構築の場合は loader で構築して保持します
+     * 同じ店舗への同時アクセスでは構築は1回だけ行われます
+     *
+     * @param storeId 店舗ID
+     * @param loader カタログの構築処理
+     * @return 店舗のカタログ
+     */
+    public StoreMenuCatalog get(Integer storeId, Function<Integer, StoreMenuCatalog> loader) {
+        knownStoreIds.add(storeId);
+        FutureTask<StoreMenuCatalog> task = catalogs.get(storeId);
+        if (task == null) {
+            FutureTask<StoreMenuCatalog> created = new FutureTask<>(() -> build(storeId, loader));
+            task = catalogs.putIfAbsent(storeId, created);
+            if (task == null) {
+                task = created;
+                created.run();
+            }
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            // 構築に失敗したタスクは残さず、次の参照で構築し直す
+            catalogs.remove(storeId, task);
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("メニューカタログの構築に失敗しました: storeId=" + storeId, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("メニューカタログの構築待ちで割り込まれました: storeId=" + storeId, e);
+        }
+    }
+
+    private StoreMenuCatalog build(Integer storeId, Function<Integer, StoreMenuCatalog> loader) {
+        long start = System.nanoTime();
+        StoreMenuCatalog catalog = loader.apply(storeId);
+        catalog.activate(LocalTime.now());
+        logger.info("メニューカタログを構築しました: storeId={}, メニュー={}件, 所要時間={}ms",
+                storeId, catalog.getEntriesById().size(), (System.nanoTime() - start) / 1_000_000);
+        return catalog;
+    }
+
+    /**
+     * カタログを参照したことのある店舗IDを返します
+     *
+     * @return 店舗IDのセット
+     */
+    public Set<Integer> getKnownStoreIds() {
+        return Set.copyOf(knownStoreIds);
+    }
+
+    /**
+     * 指定店舗のカタログを破棄します
+     *
+     * @param storeId 店舗ID
+     */
+    public void evict(Integer storeId) {
+        catalogs.remove(storeId);
+    }
+
+    /**
+     * 全店舗のカタログを破棄します
+     */
+    public void clear() {
+        catalogs.clear();
+    }
+
+    /**
+     * メニュー関連の変更をコミット後に反映します（トランザクション外で発行された場合は即時）
+     * 構築中のカタログは完了を待たずに破棄し、構築を待っている呼び出しには構築中の結果を返した上で、次の参照で構築し直します
+     * 品切れの変更は、構築済みのカタログの該当メニューの品切れ状態だけを差し替えます
+     *
+     * @param event メニューカタログ変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuCatalogChanged(MenuCatalogChangedEvent event) {
+        if (event instanceof SoldOutChangedEvent soldOutEvent && event.getStoreId() != null) {
+            applySoldOut(soldOutEvent);
+        } else if (event.getStoreId() == null) {
+            clear();
+        } else {
+            evict(event.getStoreId());
+        }
+    }
+
+    /**
+     * 構築済みのカタログに品切れ状態の変更を反映し、差し替えます
+     * 構築中（変更前のDBを読んでいる可能性がある）・構築に失敗したカタログや、差し替えの間に他の変更があった場合は破棄して次の参照で構築し直します
+     */
+    private void applySoldOut(SoldOutChangedEvent event) {
+        Integer storeId = event.getStoreId();
+        FutureTask<StoreMenuCatalog> task = catalogs.get(storeId);
+        if (task == null) {
+            return;
+        }
+        StoreMenuCatalog current = task.isDone() ? completedOrNull(task) : null;
+        if (current == null) {
+            catalogs.remove(storeId, task);
+            return;
+        }
+        StoreMenuCatalog patched = current.withSoldOut(event.getMenus().keySet(), event.isSoldOut());
+        patched.activate(LocalTime.now());
+        FutureTask<StoreMenuCatalog> next = new FutureTask<>(() -> patched);
+        next.run();
+        if (!catalogs.replace(storeId, task, next)) {
+            catalogs.remove(storeId);
+        }
+    }
+
+    private static StoreMenuCatalog completedOrNull(FutureTask<StoreMenuCatalog> task) {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 店舗単位で事前構築したメニューカタログ
+     * 時間帯の境界ごとに注文画面用のメニュー一覧（スナップショット）を事前計算して保持します
+     */
+    @Getter
+    public static class StoreMenuCatalog {
+        /** 店舗の時間帯一覧 */
+        private final List<TimeSlotRange> timeSlots;
+        /** 削除されていない全メニュー（メニュー名順） */
+        private final List<CatalogEntry> entriesByName;
+        /** 削除されていない全メニュー（メニューID順） */
+        private final List<CatalogEntry> entriesById;
+        /** 時間帯境界の時刻 → その時刻から次の境界までのスナップショット */
+        private final NavigableMap<LocalTime, MenuSnapshot> snapshots;
+
+        @Getter(AccessLevel.NONE)
+        private final AtomicReference<MenuSnapshot> activeSnapshot = new AtomicReference<>();
+
+        public StoreMenuCatalog(List<TimeSlotRange> timeSlots, List<CatalogEntry> entriesByName,
+                                List<CatalogEntry> entriesById) {
+            this.timeSlots = timeSlots;
+            this.entriesByName = entriesByName;
+            this.entriesById = entriesById;
+            this.snapshots = buildSnapshots(timeSlots, entriesByName);
+        }
+
+        /**
+         * 指定時刻に有効なスナップショットを返します
+         * 切り替え済みのスナップショットが指定時刻を含む場合はそれを返し、境界を過ぎている場合は該当するものを探します
+         *
+         * @param time 時刻
+         * @return 指定時刻に有効なスナップショット
+         */
+        public MenuSnapshot snapshotAt(LocalTime time) {
+            MenuSnapshot active = activeSnapshot.get();
+            if (active != null && active.covers(time)) {
+                return active;
+            }
+            return snapshots.floorEntry(time).getValue();
+        }
+
+        /**
+         * 指定時刻に有効なスナップショットへ切り替えます
+         *
+         * @param time 時刻
+         * @return 切り替え後のスナップショット
+         */
+        public MenuSnapshot activate(LocalTime time) {
+            MenuSnapshot next = snapshots.floorEntry(time).getValue();
+            activeSnapshot.set(next);
+            return next;
+        }
+
+        /**
+         * 指定メニューの品切れ状態を変更したカタログを返します（このカタログ自体と共有中のDTOは変更しません）
+         *
+         * @param menuIds 変更するメニューID
+         * @param soldOut 変更後の品切れ状態
+         * @return 品切れ状態を反映した新しいカタログ
+         */
+        public StoreMenuCatalog withSoldOut(Set<Integer> menuIds, boolean soldOut) {
+            List<CatalogEntry> patchedByName = entriesByName.stream()
+                    .map(entry -> menuIds.contains(entry.getDto().getMenuId()) ? entry.withSoldOut(soldOut) : entry)
+                    .collect(Collectors.toUnmodifiableList());
+            List<CatalogEntry> patchedById = patchedByName.stream()
+                    .sorted(Comparator.comparing(entry -> entry.getDto().getMenuId()))
+                    .collect(Collectors.toUnmodifiableList());
+            return new StoreMenuCatalog(timeSlots, patchedByName, patchedById);
+        }
+
+        /**
+         * 時間帯の開始・終了時刻を境界として、境界ごとに有効な時間帯と注文可能なメニューを事前計算します
+         * 境界の間では有効な時間帯の組み合わせが変わらないため、境界時刻での判定結果をその区間全体に使えます
+         */
+        private static NavigableMap<LocalTime, MenuSnapshot> buildSnapshots(List<TimeSlotRange> timeSlots,
+                                                                            List<CatalogEntry> entriesByName) {
+            TreeSet<LocalTime> boundaries = new TreeSet<>();
+            boundaries.add(LocalTime.MIN);
+            for (TimeSlotRange slot : timeSlots) {
+                boundaries.add(slot.getStartTime());
+                boundaries.add(slot.getEndTime());
+            }
+
+            NavigableMap<LocalTime, MenuSnapshot> result = new TreeMap<>();
+            for (LocalTime start : boundaries) {
+                LocalTime end = boundaries.higher(start);
+                Set<Integer> activeSlotIds = timeSlots.stream()
+                        .filter(slot -> slot.contains(start))
+                        .map(TimeSlotRange::getTimeSlotId)
+                        .collect(Collectors.toUnmodifiableSet());
+                List<MenuWithOptionsDTO> menus = activeSlotIds.isEmpty() ? List.of() : entriesByName.stream()
+                        .filter(entry -> !entry.isSoldOut() && entry.getTimeSlotId() != null
+                                && activeSlotIds.contains(entry.getTimeSlotId()))
+                        .map(CatalogEntry::getDto)
+                        .collect(Collectors.toUnmodifiableList());
+                result.put(start, new MenuSnapshot(start, end, activeSlotIds, menus));
+            }
+            return Collections.unmodifiableNavigableMap(result);
+        }
+    }
+
+    /**
+     * 時間帯境界の区間ごとの注文画面用メニュー一覧
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class MenuSnapshot {
+        /** 区間の開始時刻（含む） */
+        private final LocalTime startTime;
+        /** 区間の終了時刻（含まない）。null の場合はその日の終わりまで */
+        private final LocalTime endTime;
+        /** 区間内で有効な時間帯ID */
+        private final Set<Integer> activeTimeSlotIds;
+        /** 区間内で注文可能なメニュー（メニュー名順） */
+        private final List<MenuWithOptionsDTO> menus;
+
+        /**
+         * 指定時刻がこの区間に含まれるかを判定します
+         */
+        public boolean covers(LocalTime time) {
+            return !time.isBefore(startTime) && (endTime == null || time.isBefore(endTime));
+        }
+    }
+
+    /**
+     * カタログ内の1メニュー分のエントリ
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class CatalogEntry {
+        private final Integer timeSlotId;
+        private final boolean soldOut;
+        private final MenuWithOptionsDTO dto;
+
+        /**
+         * 品切れ状態を変更したエントリを返します（DTOは共有されているため複製して変更します）
+         */
+        CatalogEntry withSoldOut(boolean soldOut) {
+            MenuWithOptionsDTO copy = new MenuWithOptionsDTO();
+            BeanUtils.copyProperties(dto, copy);
+            copy.setIsSoldOut(soldOut);
+            return new CatalogEntry(timeSlotId, soldOut, copy);
+        }
+    }
+
+    /**
+     * 時間帯の開始・終了時刻
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class TimeSlotRange {
+        private final Integer timeSlotId;
+        private final LocalTime startTime;
+        private final LocalTime endTime;
+
+        /**
+         * 指定時刻がこの時間帯に含まれるかを判定します（開始を含み、終了を含まない）
+         */
+        public boolean contains(LocalTime time) {
+            return !time.isBefore(startTime) && time.isBefore(endTime);
+        }
+    }
+}
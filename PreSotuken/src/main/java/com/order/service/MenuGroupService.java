@@ -3,6 +3,7 @@ package com.order.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,6 +12,7 @@ import org.springframework.web.server.ResponseStatusException;
 import com.order.entity.Menu;
 import com.order.entity.MenuGroup;
 import com.order.entity.Store;
+import com.order.event.MenuCatalogChangedEvent;
 import com.order.repository.MenuGroupRepository;
 import com.order.repository.MenuRepository;
 import com.order.repository.StoreRepository;
@@ -24,6 +26,7 @@ public class MenuGroupService {
     private final MenuGroupRepository menuGroupRepository;
     private final StoreRepository storeRepository;
     private final MenuRepository menuRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // グループ一覧取得
     public List<MenuGroup> getMenuGroupsByStoreId(Integer storeId) {
@@ -77,7 +80,9 @@ public class MenuGroupService {
         }
         menuGroup.setForAdminOnly(forAdminOnly);
         menuGroup.setGroupName(newGroupName);
-        return menuGroupRepository.save(menuGroup);
+        MenuGroup saved = menuGroupRepository.save(menuGroup);
+        eventPublisher.publishEvent(new MenuCatalogChangedEvent(storeId));
+        return saved;
     }
 
     // 並び順変更
@@ -115,6 +120,7 @@ public class MenuGroupService {
                 targetGroup.setSortOrder(groupToSwap.getSortOrder());
                 groupToSwap.setSortOrder(tempOrder);
                 menuGroupRepository.saveAll(List.of(targetGroup, groupToSwap));
+                eventPublisher.publishEvent(new MenuCatalogChangedEvent(storeId));
             }
         } else if ("down".equalsIgnoreCase(direction)) {
             if (targetIndex < allGroupsInStore.size() - 1) {
@@ -124,6 +130,7 @@ public class MenuGroupService {
                 targetGroup.setSortOrder(groupToSwap.getSortOrder());
                 groupToSwap.setSortOrder(tempOrder);
                 menuGroupRepository.saveAll(List.of(targetGroup, groupToSwap));
+                eventPublisher.publishEvent(new MenuCatalogChangedEvent(storeId));
             }
         } else {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "無効な方向です。'up'または'down'を指定してください。");
@@ -150,5 +157,6 @@ public class MenuGroupService {
         
         // メニューグループを削除
         menuGroupRepository.delete(menuGroup);
+        eventPublisher.publishEvent(new MenuCatalogChangedEvent(storeId));
     }
 }
\ No newline at end of file
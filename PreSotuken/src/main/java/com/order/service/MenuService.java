@@ -1,24 +1,39 @@
 package com.order.service;
 
 import java.time.LocalTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.order.config.QueryBudget;
 import com.order.dto.MenuWithOptionsDTO;
 import com.order.dto.OptionGroupDTO;
 import com.order.dto.OptionItemDTO;
 import com.order.entity.Menu;
-import com.order.entity.MenuTimeSlot;
+import com.order.entity.MenuOption;
+import com.order.entity.OptionGroup;
+import com.order.entity.OptionItem;
 import com.order.entity.Plan;
+import com.order.event.SoldOutChangedEvent;
 import com.order.repository.MenuOptionRepository;
 import com.order.repository.MenuRepository;
 import com.order.repository.MenuTimeSlotRepository;
 import com.order.repository.OptionGroupRepository;
 import com.order.repository.OptionItemRepository;
 import com.order.repository.PlanRepository;
+import com.order.service.MenuCatalogCache.CatalogEntry;
+import com.order.service.MenuCatalogCache.MenuSnapshot;
+import com.order.service.MenuCatalogCache.StoreMenuCatalog;
+import com.order.service.MenuCatalogCache.TimeSlotRange;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -35,32 +50,42 @@ public class MenuService {
     private final OptionGroupRepository optionGroupRepository;
     private final OptionItemRepository optionItemRepository;
     private final PlanRepository planRepository;
+    private final MenuCatalogCache menuCatalogCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 現在の時間帯に合致し、品切れでないメニューとオプションを取得します
+     * 時間帯境界ごとに事前計算したスナップショットから返すため、DBへの問い合わせは発生しません
      * 
      * @param storeId 店舗ID
      * @return メニューとオプション情報のDTOリスト
      */
+    @Timed(value = "menu.list", histogram = true)
+    @QueryBudget(20)
     public List<MenuWithOptionsDTO> getMenusWithOptions(Integer storeId) {
-        LocalTime now = LocalTime.now();
-        
-        List<MenuTimeSlot> allTimeSlots = menuTimeSlotRepository.findByStoreStoreId(storeId);
-        
-        // 現在時刻に合致する全ての時間帯スロットを取得
-        List<Integer> currentSlotIds = allTimeSlots.stream()
-                .filter(slot -> !now.isBefore(slot.getStartTime()) && now.isBefore(slot.getEndTime()))
-                .map(MenuTimeSlot::getTimeSlotId)
-                .collect(Collectors.toList());
-
-        if (currentSlotIds.isEmpty()) {
-            return List.of();
-        }
+        return getMenuSnapshot(storeId, LocalTime.now()).getMenus();
+    }
 
-        // 取得した複数のtimeSlotIdに紐づくメニューを全て取得し、重複を除去してソート（削除されていないもののみ）
-        List<Menu> menus = menuRepository.findByStore_StoreIdAndIsSoldOutFalseAndTimeSlot_TimeSlotIdInAndDeletedAtIsNullOrderByMenuNameAsc(storeId, currentSlotIds);
+    /**
+     * 指定時刻に有効な注文画面用メニューのスナップショットを取得します
+     * 
+     * @param storeId 店舗ID
+     * @param time 時刻
+     * @return スナップショット
+     */
+    public MenuSnapshot getMenuSnapshot(Integer storeId, LocalTime time) {
+        return menuCatalogCache.get(storeId, this::buildCatalog).snapshotAt(time);
+    }
 
-        return menus.stream().map(this::toDto).collect(Collectors.toList());
+    /**
+     * 指定時刻に有効なスナップショットへ切り替えます（時間帯切り替えのスケジューラから呼び出されます）
+     * 
+     * @param storeId 店舗ID
+     * @param time 時刻
+     * @return 切り替え後のスナップショット
+     */
+    public MenuSnapshot activateMenuSnapshot(Integer storeId, LocalTime time) {
+        return menuCatalogCache.get(storeId, this::buildCatalog).activate(time);
     }
     
     /**
@@ -79,9 +104,43 @@ public class MenuService {
      * @param storeId 店舗ID
      * @return 全メニューとオプション情報のDTOリスト
      */
+    @QueryBudget(20)
     public List<MenuWithOptionsDTO> getAllMenusWithOptions(Integer storeId) {
-        List<Menu> menus = menuRepository.findByStore_StoreIdAndDeletedAtIsNullOrderByMenuIdAsc(storeId);
-        return menus.stream().map(this::toDto).collect(Collectors.toList());
+        StoreMenuCatalog catalog = menuCatalogCache.get(storeId, this::buildCatalog);
+        return catalog.getEntriesById().stream()
+                .map(CatalogEntry::getDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 店舗のメニューカタログを構築します
+     * メニュー・オプション紐づけ・オプショングループ・オプションアイテムをそれぞれ1回のクエリでまとめて取得します
+     * 
+     * @param storeId 店舗ID
+     * @return 構築したカタログ
+     */
+    private StoreMenuCatalog buildCatalog(Integer storeId) {
+        List<TimeSlotRange> timeSlots = menuTimeSlotRepository.findByStoreStoreId(storeId).stream()
+                .map(slot -> new TimeSlotRange(slot.getTimeSlotId(), slot.getStartTime(), slot.getEndTime()))
+                .collect(Collectors.toList());
+
+        List<Menu> menus = menuRepository.findByStore_StoreIdAndDeletedAtIsNullOrderByMenuNameAsc(storeId);
+        List<Integer> menuIds = menus.stream().map(Menu::getMenuId).collect(Collectors.toList());
+        List<MenuOption> menuOptions = menuIds.isEmpty() ? List.of() : menuOptionRepository.findByMenu_MenuIdIn(menuIds);
+        OptionLookup optionLookup = loadOptionLookup(menuOptions);
+
+        List<CatalogEntry> entriesByName = menus.stream()
+                .map(menu -> new CatalogEntry(
+                        menu.getTimeSlot() != null ? menu.getTimeSlot().getTimeSlotId() : null,
+                        // 品切れフラグが未設定(null)のメニューも従来のクエリ(isSoldOut = FALSE)同様に注文画面から除外する
+                        !Boolean.FALSE.equals(menu.getIsSoldOut()),
+                        toDto(menu, optionLookup)))
+                .collect(Collectors.toUnmodifiableList());
+        List<CatalogEntry> entriesById = entriesByName.stream()
+                .sorted(Comparator.comparing(entry -> entry.getDto().getMenuId()))
+                .collect(Collectors.toUnmodifiableList());
+
+        return new StoreMenuCatalog(List.copyOf(timeSlots), entriesByName, entriesById);
     }
 
     /**
@@ -92,6 +151,13 @@ public class MenuService {
      * @return 変換されたDTO
      */
     public MenuWithOptionsDTO toDto(Menu menu) {
+        return toDto(menu, loadOptionLookup(menuOptionRepository.findByMenu_MenuId(menu.getMenuId())));
+    }
+
+    /**
+     * 事前に取得したオプション情報を使ってMenuエンティティをDTOに変換します
+     */
+    private MenuWithOptionsDTO toDto(Menu menu, OptionLookup optionLookup) {
         MenuWithOptionsDTO dto = new MenuWithOptionsDTO();
 
         // 基本情報のマッピング
@@ -113,7 +179,7 @@ public class MenuService {
         dto.setPlanId(menu.getPlanId());
         
         // オプショングループの構築
-        buildOptionGroups(menu, dto);
+        buildOptionGroups(menu, dto, optionLookup);
 
         return dto;
     }
@@ -132,7 +198,9 @@ public class MenuService {
                 return null;
             }
             menu.setIsSoldOut(isSoldOut);
-            return menuRepository.save(menu);
+            Menu saved = menuRepository.save(menu);
+            publishSoldOutChanged(List.of(saved), isSoldOut);
+            return saved;
         }).orElse(null);
     }
 
@@ -155,7 +223,20 @@ public class MenuService {
             menu.setIsSoldOut(isSoldOut);
         }
         
-        return menuRepository.saveAll(validMenus);
+        List<Menu> savedMenus = menuRepository.saveAll(validMenus);
+        publishSoldOutChanged(savedMenus, isSoldOut);
+        return savedMenus;
+    }
+
+    /**
+     * 品切れ状態の変更を店舗ごとに通知します（メニューカタログと品切れの登録簿・端末への反映を兼ねます）
+     */
+    private void publishSoldOutChanged(List<Menu> menus, Boolean isSoldOut) {
+        Map<Integer, Map<Integer, String>> menusByStore = menus.stream()
+                .collect(Collectors.groupingBy(menu -> menu.getStore().getStoreId(),
+                        Collectors.toMap(Menu::getMenuId, menu -> Objects.toString(menu.getMenuName(), ""))));
+        menusByStore.forEach((storeId, storeMenus) ->
+                eventPublisher.publishEvent(new SoldOutChangedEvent(storeId, storeMenus, Boolean.TRUE.equals(isSoldOut))));
     }
 
     /**
@@ -194,11 +275,12 @@ public class MenuService {
     /**
      * オプショングループ情報を構築してDTOに設定します
      */
-    private void buildOptionGroups(Menu menu, MenuWithOptionsDTO dto) {
-        var menuOptions = menuOptionRepository.findByMenu_MenuId(menu.getMenuId());
-        List<OptionGroupDTO> groupDTOs = menuOptions.stream()
+    private void buildOptionGroups(Menu menu, MenuWithOptionsDTO dto, OptionLookup optionLookup) {
+        List<OptionGroupDTO> groupDTOs = optionLookup.menuOptionsByMenuId()
+            .getOrDefault(menu.getMenuId(), List.of())
+            .stream()
             .map(menuOption -> {
-                var group = optionGroupRepository.findById(menuOption.getOptionGroupId()).orElse(null);
+                var group = optionLookup.groupsById().get(menuOption.getOptionGroupId());
                 if (group == null) return null;
 
                 var groupDTO = new OptionGroupDTO();
@@ -206,7 +288,8 @@ public class MenuService {
                 groupDTO.setGroupName(group.getGroupName());
 
                 // OptionItemのリストをOptionItemDTOに変換
-                var itemDTOs = optionItemRepository.findByOptionGroupId(group.getOptionGroupId())
+                var itemDTOs = optionLookup.itemsByGroupId()
+                        .getOrDefault(group.getOptionGroupId(), List.of())
                         .stream()
                         .map(item -> {
                             var itemDTO = new OptionItemDTO();
@@ -223,4 +306,33 @@ public class MenuService {
 
         dto.setOptionGroups(groupDTOs);
     }
-}
\ No newline at end of file
+
+    /**
+     * MenuOptionに紐づくオプショングループ・アイテムをまとめて取得します
+     */
+    private OptionLookup loadOptionLookup(List<MenuOption> menuOptions) {
+        Map<Integer, List<MenuOption>> menuOptionsByMenuId = menuOptions.stream()
+                .collect(Collectors.groupingBy(menuOption -> menuOption.getMenu().getMenuId()));
+        Set<Integer> groupIds = menuOptions.stream()
+                .map(MenuOption::getOptionGroupId)
+                .collect(Collectors.toSet());
+        if (groupIds.isEmpty()) {
+            return new OptionLookup(menuOptionsByMenuId, Map.of(), Map.of());
+        }
+
+        Map<Integer, OptionGroup> groupsById = optionGroupRepository.findAllById(groupIds).stream()
+                .collect(Collectors.toMap(OptionGroup::getOptionGroupId, Function.identity()));
+        Map<Integer, List<OptionItem>> itemsByGroupId = optionItemRepository.findByOptionGroupIdIn(groupIds).stream()
+                .collect(Collectors.groupingBy(OptionItem::getOptionGroupId));
+        return new OptionLookup(menuOptionsByMenuId, groupsById, itemsByGroupId);
+    }
+
+    /**
+     * DTO変換時に参照するオプション情報（メニューID・グループIDをキーにしたもの）
+     */
+    private record OptionLookup(
+            Map<Integer, List<MenuOption>> menuOptionsByMenuId,
+            Map<Integer, OptionGroup> groupsById,
+            Map<Integer, List<OptionItem>> itemsByGroupId) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.order.service;
+
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.order.service.MenuCatalogCache.MenuSnapshot;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * メニュー時間帯の切り替えを監視するスケジューラ
+ * 毎分、各店舗の有効なスナップショットを切り替え、有効な時間帯が変わった場合は端末へ通知します
+ */
+@Component
+@RequiredArgsConstructor
+public class MenuSnapshotScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MenuSnapshotScheduler.class);
+
+    private final MenuService menuService;
+    private final MenuCatalogCache menuCatalogCache;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /** 店舗ID → 前回通知時点で有効だった時間帯ID */
+    private final Map<Integer, Set<Integer>> lastActiveSlotIds = new ConcurrentHashMap<>();
+
+    /**
+     * 毎分0秒に時間帯の切り替えを確認します
+     */
+    @Scheduled(cron = "0 * * * * *")
+    public void rolloverMenuSnapshots() {
+        rollover(LocalTime.now());
+    }
+
+    /**
+     * 指定時刻で各店舗のスナップショットを切り替え、時間帯が変わった店舗へ通知します
+     * 
+     * @param now 判定する時刻
+     */
+    void rollover(LocalTime now) {
+        for (Integer storeId : menuCatalogCache.getKnownStoreIds()) {
+            try {
+                MenuSnapshot snapshot = menuService.activateMenuSnapshot(storeId, now);
+                Set<Integer> previous = lastActiveSlotIds.put(storeId, snapshot.getActiveTimeSlotIds());
+                if (previous == null) {
+                    // 初回は1分前の状態と比較し、起動直後の境界も取りこぼさないようにする
+                    previous = menuService.getMenuSnapshot(storeId, now.minusMinutes(1)).getActiveTimeSlotIds();
+                }
+                if (!previous.equals(snapshot.getActiveTimeSlotIds())) {
+                    notifyTimeSlotChanged(storeId, snapshot);
+                }
+            } catch (Exception e) {
+                logger.error("メニュー時間帯の切り替えに失敗しました。storeId: {}, error: {}", storeId, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 時間帯の切り替えを店舗の端末へ通知します
+     */
+    private void notifyTimeSlotChanged(Integer storeId, MenuSnapshot snapshot) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", "MENU_TIMESLOT_CHANGED");
+        payload.put("storeId", storeId);
+        payload.put("activeTimeSlotIds", snapshot.getActiveTimeSlotIds());
+        messagingTemplate.convertAndSend("/topic/stores/" + storeId + "/menu", payload);
+        logger.info("メニュー時間帯を切り替えました: storeId={}, 有効な時間帯={}, メニュー={}件",
+                storeId, snapshot.getActiveTimeSlotIds(), snapshot.getMenus().size());
+    }
+}
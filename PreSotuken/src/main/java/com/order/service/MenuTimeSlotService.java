@@ -2,11 +2,13 @@ package com.order.service;
 
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.order.entity.MenuTimeSlot;
 import com.order.entity.Store;
+import com.order.event.MenuCatalogChangedEvent;
 import com.order.repository.MenuTimeSlotRepository;
 import com.order.repository.StoreRepository;
 
@@ -21,6 +23,7 @@ public class MenuTimeSlotService {
 
     private final MenuTimeSlotRepository menuTimeSlotRepository;
     private final StoreRepository storeRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 指定した店舗の時間帯一覧を取得します
@@ -44,7 +47,9 @@ public class MenuTimeSlotService {
         Store store = storeRepository.findById(storeId)
                 .orElseThrow(() -> new IllegalArgumentException("Store with ID " + storeId + " not found."));
         timeSlot.setStore(store);
-        return menuTimeSlotRepository.save(timeSlot);
+        MenuTimeSlot saved = menuTimeSlotRepository.save(timeSlot);
+        eventPublisher.publishEvent(new MenuCatalogChangedEvent(storeId));
+        return saved;
     }
 
     /**
@@ -60,7 +65,9 @@ public class MenuTimeSlotService {
                     existing.setName(updatedTimeSlot.getName());
                     existing.setStartTime(updatedTimeSlot.getStartTime());
                     existing.setEndTime(updatedTimeSlot.getEndTime());
-                    return menuTimeSlotRepository.save(existing);
+                    MenuTimeSlot saved = menuTimeSlotRepository.save(existing);
+                    eventPublisher.publishEvent(new MenuCatalogChangedEvent(saved.getStore().getStoreId()));
+                    return saved;
                 })
                 .orElseThrow(() -> new IllegalArgumentException(
                         "TimeSlot with ID " + updatedTimeSlot.getTimeSlotId() + " not found."));
@@ -77,5 +84,6 @@ public class MenuTimeSlotService {
             throw new IllegalArgumentException("TimeSlot with ID " + timeSlotId + " not found.");
         }
         menuTimeSlotRepository.deleteById(timeSlotId);
+        eventPublisher.publishEvent(MenuCatalogChangedEvent.allStores());
     }
 }
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -11,6 +12,7 @@ import com.order.dto.OptionDeletionCheckDTO;
 import com.order.entity.MenuOption;
 import com.order.entity.OptionGroup;
 import com.order.entity.OptionItem;
+import com.order.event.MenuCatalogChangedEvent;
 import com.order.repository.MenuOptionRepository;
 import com.order.repository.OptionGroupRepository;
 import com.order.repository.OptionItemRepository;
@@ -24,12 +26,15 @@ public class OptionManagementService {
     private final OptionGroupRepository optionGroupRepository;
     private final OptionItemRepository optionItemRepository;
     private final MenuOptionRepository menuOptionRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // オプショングループ関連のメソッド
 
     @Transactional
     public OptionGroup createOptionGroup(OptionGroup optionGroup) {
-        return optionGroupRepository.save(optionGroup);
+        OptionGroup saved = optionGroupRepository.save(optionGroup);
+        eventPublisher.publishEvent(new MenuCatalogChangedEvent(saved.getStoreId()));
+        return saved;
     }
 
     public Optional<OptionGroup> getOptionGroupById(int id) {
@@ -47,7 +52,10 @@ public class OptionManagementService {
                 .map(existingGroup -> {
                     existingGroup.setGroupName(updatedOptionGroup.getGroupName());
                     existingGroup.setStoreId(updatedOptionGroup.getStoreId()); // 必要であればstoreIdも更新
-                    return optionGroupRepository.save(existingGroup);
+                    OptionGroup saved = optionGroupRepository.save(existingGroup);
+                    // storeIdが変わる可能性があるため全店舗分を破棄する
+                    eventPublisher.publishEvent(MenuCatalogChangedEvent.allStores());
+                    return saved;
                 })
                 .orElseThrow(() -> new IllegalArgumentException("OptionGroup with ID " + updatedOptionGroup.getOptionGroupId() + " not found."));
     }
@@ -63,6 +71,7 @@ public class OptionManagementService {
         menuOptionRepository.deleteAll(menuOptions);
         
         optionGroupRepository.deleteById(id);
+        eventPublisher.publishEvent(MenuCatalogChangedEvent.allStores());
     }
 
     /**
@@ -106,6 +115,7 @@ public class OptionManagementService {
         
         // オプショングループ本体を削除
         optionGroupRepository.deleteById(optionGroupId);
+        eventPublisher.publishEvent(MenuCatalogChangedEvent.allStores());
     }
 
     // オプションアイテム関連のメソッド
@@ -113,7 +123,9 @@ public class OptionManagementService {
     @Transactional
     public OptionItem createOptionItem(OptionItem optionItem) {
         // 関連するOptionGroupが存在するか確認することも可能だが、ここではシンプルに保存
-        return optionItemRepository.save(optionItem);
+        OptionItem saved = optionItemRepository.save(optionItem);
+        eventPublisher.publishEvent(MenuCatalogChangedEvent.allStores());
+        return saved;
     }
 
     public Optional<OptionItem> getOptionItemById(int id) {
@@ -134,7 +146,9 @@ public class OptionManagementService {
                     existingItem.setOptionGroupId(updatedOptionItem.getOptionGroupId());
                     // 価格などがあれば追加
                     // existingItem.setPrice(updatedOptionItem.getPrice());
-                    return optionItemRepository.save(existingItem);
+                    OptionItem saved = optionItemRepository.save(existingItem);
+                    eventPublisher.publishEvent(MenuCatalogChangedEvent.allStores());
+                    return saved;
                 })
                 .orElseThrow(() -> new IllegalArgumentException("OptionItem with ID " + updatedOptionItem.getOptionItemId() + " not found."));
     }
@@ -142,5 +156,6 @@ public class OptionManagementService {
     @Transactional
     public void deleteOptionItem(int id) {
         optionItemRepository.deleteById(id);
+        eventPublisher.publishEvent(MenuCatalogChangedEvent.allStores());
     }
 }
\ No newline at end of file
@@ -5,14 +5,22 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.order.config.QueryBudget;
 import com.order.controller.OrderController.OrderItemDto;
+import com.order.dto.OrderHistoryDeltaDto;
 import com.order.dto.OrderHistoryDto;
 import com.order.entity.Menu;
 import com.order.entity.OptionItem;
@@ -24,17 +32,20 @@ import com.order.entity.Store;
 import com.order.entity.TaxRate;
 import com.order.entity.User;
 import com.order.entity.Visit;
+import com.order.event.PlanActivatedEvent;
+import com.order.event.SeatBoardChangedEvent;
 import com.order.repository.MenuRepository;
 import com.order.repository.OptionItemRepository;
+import com.order.repository.PaymentDetailBatchRepository;
 import com.order.repository.PaymentDetailOptionRepository;
 import com.order.repository.PaymentDetailRepository;
 import com.order.repository.PaymentRepository;
-import com.order.repository.PlanMenuGroupMapRepository;
 import com.order.repository.SeatRepository;
 import com.order.repository.StoreRepository;
 import com.order.repository.TaxRateRepository;
 import com.order.repository.UserRepository;
 import com.order.repository.VisitRepository;
+import com.order.service.ActiveVisitRegistry.ActiveVisit;
 
 import lombok.RequiredArgsConstructor;
 
@@ -45,19 +56,25 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class OrderService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+
     private final MenuRepository menuRepository;
     private final PaymentRepository paymentRepository;
     private final PaymentDetailRepository paymentDetailRepository;
     private final TaxRateRepository taxRateRepository;
     private final VisitRepository visitRepository;
     private final UserRepository userRepository;
-    private final PrintService printService;
     private final OptionItemRepository optionItemRepository;
     private final PaymentDetailOptionRepository paymentDetailOptionRepository;
     private final StoreRepository storeRepository;
     private final SeatRepository seatRepository;
     private final SimpMessagingTemplate messagingTemplate;
-    private final PlanMenuGroupMapRepository planMenuGroupMapRepository;
+    private final PaymentDetailBatchRepository paymentDetailBatchRepository;
+    private final PrintJobOutboxService printJobOutboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ActiveVisitRegistry activeVisitRegistry;
+    private final SoldOutRegistry soldOutRegistry;
+    private final PlanActivationCache planActivationCache;
 
     /**
      * 来店登録を行います
@@ -99,6 +116,7 @@ public class OrderService {
             payload.put("userId", null);
             
             messagingTemplate.convertAndSend("/topic/seats/" + seatId, payload);
+            eventPublisher.publishEvent(new SeatBoardChangedEvent(storeId, seatId));
         } else {
             throw new RuntimeException("来店登録に失敗しました");
         }
@@ -106,6 +124,7 @@ public class OrderService {
 
     /**
      * 注文を登録します
+     * メニュー・税率・オプションはカート単位でまとめて取得し、明細はJDBCバッチで登録します
      * 
      * @param items 注文商品のリスト
      * @param visitId 来店ID
@@ -114,7 +133,16 @@ public class OrderService {
      * @throws IllegalArgumentException 品切れ商品が含まれている場合や無効なIDが指定された場合
      */
     @Transactional
+    @Timed(value = "order.submit", histogram = true)
+    @QueryBudget(15)
     public void submitOrder(List<OrderItemDto> items, Integer visitId, Integer storeId, Integer userId) {
+        long startNanos = System.nanoTime();
+
+        // 品切れチェック（品切れの登録簿で判定し、品切れ商品を含む注文はDBに問い合わせる前に弾く）
+        soldOutRegistry.findSoldOutMenuName(storeId, collectIds(items, OrderItemDto::getMenuId)).ifPresent(menuName -> {
+            throw new IllegalArgumentException("品切れ商品「" + menuName + "」が含まれていました。再度注文をお願いします。");
+        });
+
         User user = null;
         if (userId != null) {
             user = userRepository.findById(userId).orElse(null);
@@ -126,75 +154,254 @@ public class OrderService {
             throw new IllegalArgumentException("無効なvisitId: " + visitId);
         }
 
-        List<PaymentDetail> submitDetails = new ArrayList<>();
-        
         // submitOrderの開始時にseatIdを確定しておく
         Integer seatId = visitRepository.findById(visitId)
                 .map(Visit::getSeat)
                 .map(Seat::getSeatId)
                 .orElseThrow(() -> new IllegalArgumentException("無効なvisitId: " + visitId));
 
+        // カート内のメニュー・税率・オプションを一括取得
+        Map<Integer, Menu> menuMap = toMap(menuRepository.findAllById(collectIds(items, OrderItemDto::getMenuId)),
+                Menu::getMenuId);
+        Map<Integer, TaxRate> taxRateMap = toMap(taxRateRepository.findAllById(collectIds(items, OrderItemDto::getTaxRateId)),
+                TaxRate::getTaxRateId);
+
+        Set<Integer> optionItemIds = items.stream()
+                .filter(item -> item.getOptionItemIds() != null)
+                .flatMap(item -> item.getOptionItemIds().stream())
+                .collect(Collectors.toSet());
+        Map<Integer, OptionItem> optionItemMap = Map.of();
+        if (!optionItemIds.isEmpty()) {
+            optionItemMap = toMap(optionItemRepository.findAllById(optionItemIds), OptionItem::getOptionItemId);
+        }
+
+        // 検証と明細の組み立て（DBへの書き込み前に全件チェックする）
+        List<PaymentDetail> submitDetails = new ArrayList<>();
+        List<PaymentDetailOption> submitOptions = new ArrayList<>();
         for (OrderItemDto item : items) {
-            Menu menu = menuRepository.findById(item.getMenuId())
-                    .orElseThrow(() -> new RuntimeException("Menu not found with ID: " + item.getMenuId()));
-            
+            Menu menu = menuMap.get(item.getMenuId());
+            if (menu == null) {
+                throw new RuntimeException("Menu not found with ID: " + item.getMenuId());
+            }
+
             // 削除済みメニューのチェック
             if (menu.getDeletedAt() != null) {
                 throw new IllegalArgumentException("削除されたメニュー「" + menu.getMenuName() + "」が含まれていました。再度注文をお願いします。");
             }
-            
-            TaxRate taxRate = taxRateRepository.findById(item.getTaxRateId())
-                    .orElseThrow(() -> new RuntimeException("TaxRate not found with ID: " + item.getTaxRateId()));
-            
-            // 品切れチェック
+
+            TaxRate taxRate = taxRateMap.get(item.getTaxRateId());
+            if (taxRate == null) {
+                throw new RuntimeException("TaxRate not found with ID: " + item.getTaxRateId());
+            }
+
+            // 品切れチェック（他のサーバーで品切れにされ、登録簿への反映前の場合に備えて取得したメニューでも確認する）
             if (Boolean.TRUE.equals(menu.getIsSoldOut())) {
                 throw new IllegalArgumentException("品切れ商品「" + menu.getMenuName() + "」が含まれていました。再度注文をお願いします。");
             }
 
             PaymentDetail detail = createPaymentDetail(payment, menu, taxRate, item.getQuantity(), user);
-            PaymentDetail savedDetail = paymentDetailRepository.save(detail);
-            submitDetails.add(savedDetail);
+            submitDetails.add(detail);
 
             // オプション商品の処理
-            if (item.getOptionItemIds() != null && !item.getOptionItemIds().isEmpty()) {
-                processOptionItems(savedDetail, item.getOptionItemIds());
+            if (item.getOptionItemIds() != null) {
+                for (Integer optionItemId : item.getOptionItemIds()) {
+                    OptionItem optionItem = optionItemMap.get(optionItemId);
+                    if (optionItem == null) {
+                        throw new RuntimeException("OptionItem not found with ID: " + optionItemId);
+                    }
+                    PaymentDetailOption paymentDetailOption = new PaymentDetailOption();
+                    paymentDetailOption.setPaymentDetail(detail);
+                    paymentDetailOption.setOptionItem(optionItem);
+                    submitOptions.add(paymentDetailOption);
+                }
             }
-            
-            // 単品伝票の印刷
-            printService.printLabelsForOrder(savedDetail, seatId);
+        }
 
-            // 飲み放題開始メニューの処理
-            if (Boolean.TRUE.equals(menu.getIsPlanStarter())) {
-                processPlanStarterMenu(menu, payment, seatId);
-            }
+        // 飲み放題開始メニューで新たに有効になるプラン（登録前に有効だったプランと比較する）
+        Set<Integer> starterPlanIds = submitDetails.stream()
+                .map(PaymentDetail::getMenu)
+                .filter(menu -> Boolean.TRUE.equals(menu.getIsPlanStarter()))
+                .map(Menu::getPlanId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Integer> previousPlanIds = starterPlanIds.isEmpty() ? Set.of()
+                : planActivationCache.getActivePlanIds(seatId, payment.getPaymentId());
+
+        // 明細・オプションをバッチ登録（採番IDは明細エンティティに反映される）
+        paymentDetailBatchRepository.insertDetails(submitDetails);
+        paymentDetailBatchRepository.insertOptions(submitOptions);
+
+        // 飲み放題の開始は、コミット後に新たに表示されるメニューグループとメニューだけを座席の端末へ通知する
+        Set<Integer> newPlanIds = starterPlanIds.stream()
+                .filter(planId -> !previousPlanIds.contains(planId))
+                .collect(Collectors.toUnmodifiableSet());
+        if (!newPlanIds.isEmpty()) {
+            eventPublisher.publishEvent(new PlanActivatedEvent(storeId, seatId, payment.getPaymentId(), newPlanIds, previousPlanIds));
         }
 
-        // 小計伝票の印刷
-        printService.printReceiptForPayment(submitDetails, seatId, storeId); 
+        // 単品伝票・小計伝票は印刷ジョブとして注文と同じトランザクションで登録し、コミット後に送信する
+        printJobOutboxService.enqueueOrder(storeId, seatId, submitDetails);
+        eventPublisher.publishEvent(new SeatBoardChangedEvent(storeId, seatId));
+
+        // SQLの発行件数はクエリ予算（@QueryBudget）で確認する
+        logger.info("注文登録: visitId={}, 明細={}件, オプション={}件, 所要時間={}ms",
+                visitId, submitDetails.size(), submitOptions.size(), (System.nanoTime() - startNanos) / 1_000_000);
     }
 
     /**
      * 注文履歴を取得します
+     * 明細は表示に必要な列だけを、オプションは明細全体で1回のクエリで取得します
      * 
      * @param storeId 店舗ID
      * @param seatId 座席ID
      * @return 注文履歴のリスト
      */
+    @Transactional(readOnly = true)
+    @QueryBudget(20)
     public List<OrderHistoryDto> getOrderHistory(Integer storeId, Integer seatId) {
-        Visit currentVisit = visitRepository.findTopByStore_StoreIdAndSeat_SeatIdOrderByVisitTimeDesc(storeId, seatId);
-        if (currentVisit == null) {
+        Integer paymentId = findCurrentPaymentId(storeId, seatId);
+        if (paymentId == null) {
             return List.of();
         }
+        return toOrderHistoryDtos(paymentDetailRepository.findOrderHistoryRows(paymentId, 0));
+    }
 
-        // 個別会計機能対応: 親会計（元の会計）のみを取得
-        Payment payment = paymentRepository.findByVisitVisitIdAndParentPaymentIsNull(currentVisit.getVisitId());
-        if (payment == null) {
+    /**
+     * 注文履歴の差分を取得します
+     * since（前回取得したバージョン）以降に明細が追加されただけの場合は、追加分の明細だけを返します
+     * 明細の削除・数量や金額の変更・来店の切り替えなどで差分を作れない場合は、全件を reset として返します
+     * 履歴が変わっていない場合は since と同じバージョンで明細なしを返します（明細は読み込みません）
+     *
+     * @param storeId 店舗ID
+     * @param seatId 座席ID
+     * @param since 前回取得したバージョン（初回は null）
+     * @return 注文履歴の差分
+     */
+    @Transactional(readOnly = true)
+    @QueryBudget(10)
+    public OrderHistoryDeltaDto getOrderHistoryDelta(Integer storeId, Integer seatId, String since) {
+        Integer paymentId = findCurrentPaymentId(storeId, seatId);
+        if (paymentId == null) {
+            return toOrderHistoryDelta(HistoryVersion.EMPTY, !HistoryVersion.EMPTY.toString().equals(since), List.of());
+        }
+
+        HistoryVersion current = HistoryVersion.of(paymentId, paymentDetailRepository.findOrderHistoryVersionRows(paymentId));
+        if (current.toString().equals(since)) {
+            return toOrderHistoryDelta(current, false, List.of());
+        }
+
+        // 前回の履歴が変わらず、後ろに明細が追加されただけなら追加分だけを返す
+        HistoryVersion previous = HistoryVersion.parse(since);
+        if (previous != null && previous.paymentId() == paymentId && previous.lastPaymentDetailId() <= current.lastPaymentDetailId()) {
+            List<Object[]> added = paymentDetailRepository.findOrderHistoryRows(paymentId, previous.lastPaymentDetailId());
+            HistoryVersion appended = previous.append(added);
+            if (appended.equals(current)) {
+                return toOrderHistoryDelta(appended, false, toOrderHistoryDtos(added));
+            }
+        }
+
+        List<Object[]> rows = paymentDetailRepository.findOrderHistoryRows(paymentId, 0);
+        return toOrderHistoryDelta(HistoryVersion.EMPTY.withPaymentId(paymentId).append(rows), true, toOrderHistoryDtos(rows));
+    }
+
+    /**
+     * 座席の来店中の来店の親会計（個別会計の子会計ではなく元の会計）のIDを、来店中の座席の登録簿から取得します
+     *
+     * @return 会計ID（来店中でない・会計がない場合は null）
+     */
+    private Integer findCurrentPaymentId(Integer storeId, Integer seatId) {
+        return activeVisitRegistry.find(storeId, seatId).map(ActiveVisit::getPaymentId).orElse(null);
+    }
+
+    /**
+     * 注文履歴の行を、オプション名を一括で取得してDTOに変換します
+     */
+    private List<OrderHistoryDto> toOrderHistoryDtos(List<Object[]> rows) {
+        if (rows.isEmpty()) {
             return List.of();
         }
 
-        List<PaymentDetail> details = paymentDetailRepository.findByPaymentPaymentId(payment.getPaymentId());
+        List<Integer> detailIds = rows.stream().map(row -> (Integer) row[0]).collect(Collectors.toList());
+        Map<Integer, List<String>> optionNamesByDetailId = paymentDetailOptionRepository.findOptionNamesByPaymentDetailIds(detailIds).stream()
+                .collect(Collectors.groupingBy(row -> (Integer) row[0],
+                        Collectors.mapping(row -> (String) row[1], Collectors.toList())));
+
+        return rows.stream()
+                .map(row -> convertToOrderHistoryDto(row, optionNamesByDetailId.getOrDefault((Integer) row[0], List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private static OrderHistoryDeltaDto toOrderHistoryDelta(HistoryVersion version, boolean reset, List<OrderHistoryDto> lines) {
+        OrderHistoryDeltaDto delta = new OrderHistoryDeltaDto();
+        delta.setVersion(version.toString());
+        delta.setReset(reset);
+        delta.setLines(lines);
+        return delta;
+    }
+
+    /**
+     * 注文履歴のバージョン（"会計ID-件数-最大の明細ID-内容のハッシュ"、ハッシュは16進数）
+     * 端末が保持している履歴の内容を表し、明細の追加・削除と、数量・小計・値引額の変更で変わります
+     * ハッシュは明細ID順に各明細の [明細ID, 数量, 小計, 値引額] を畳み込むため、後ろに明細を加えた値を追加分だけから求められます
+     */
+    record HistoryVersion(int paymentId, int count, int lastPaymentDetailId, int hash) {
+
+        static final HistoryVersion EMPTY = new HistoryVersion(0, 0, 0, 0);
+
+        /**
+         * 文字列のバージョンを解析します（形式が不正な場合は null）
+         */
+        static HistoryVersion parse(String version) {
+            if (version == null) {
+                return null;
+            }
+            String[] parts = version.split("-");
+            if (parts.length != 4) {
+                return null;
+            }
+            try {
+                return new HistoryVersion(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+                        Integer.parseInt(parts[2]), Integer.parseUnsignedInt(parts[3], 16));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * 明細ID順のバージョン用の行（[明細ID, 数量, 小計, 値引額]）からバージョンを求めます
+         */
+        static HistoryVersion of(int paymentId, List<Object[]> versionRows) {
+            HistoryVersion version = EMPTY.withPaymentId(paymentId);
+            for (Object[] row : versionRows) {
+                version = version.append((Integer) row[0], (Integer) row[1], (Double) row[2], (Double) row[3]);
+            }
+            return version;
+        }
+
+        HistoryVersion withPaymentId(int newPaymentId) {
+            return new HistoryVersion(newPaymentId, count, lastPaymentDetailId, hash);
+        }
+
+        /**
+         * 明細ID順の注文履歴の行（[明細ID, メニュー名, 数量, 単価, 税率, 小計, 値引額]）を後ろに加えたバージョンを返します
+         */
+        HistoryVersion append(List<Object[]> rows) {
+            HistoryVersion version = this;
+            for (Object[] row : rows) {
+                version = version.append((Integer) row[0], (Integer) row[2], (Double) row[5], (Double) row[6]);
+            }
+            return version;
+        }
+
+        private HistoryVersion append(int paymentDetailId, int quantity, Double subtotal, Double discount) {
+            return new HistoryVersion(paymentId, count + 1, Math.max(lastPaymentDetailId, paymentDetailId),
+                    31 * hash + Objects.hash(paymentDetailId, quantity, subtotal, discount));
+        }
 
-        return details.stream().map(this::convertToOrderHistoryDto).collect(Collectors.toList());
+        @Override
+        public String toString() {
+            return paymentId + "-" + count + "-" + lastPaymentDetailId + "-" + Integer.toHexString(hash);
+        }
     }
 
     /**
@@ -214,74 +421,41 @@ public class OrderService {
     }
 
     /**
-     * オプション商品を処理します
+     * 注文商品から指定項目のIDを重複なく収集します
      */
-    private void processOptionItems(PaymentDetail paymentDetail, List<Integer> optionItemIds) {
-        for (Integer optionItemId : optionItemIds) {
-            OptionItem optionItem = optionItemRepository.findById(optionItemId)
-                    .orElseThrow(() -> new RuntimeException("OptionItem not found with ID: " + optionItemId));
-
-            PaymentDetailOption paymentDetailOption = new PaymentDetailOption();
-            paymentDetailOption.setPaymentDetail(paymentDetail);
-            paymentDetailOption.setOptionItem(optionItem);
-
-            paymentDetailOptionRepository.save(paymentDetailOption);
-        }
+    private static Set<Integer> collectIds(List<OrderItemDto> items, Function<OrderItemDto, Integer> idGetter) {
+        return items.stream()
+                .map(idGetter)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
     }
 
     /**
-     * 飲み放題開始メニューの処理を行います
+     * 一括取得した結果をID→エンティティのMapに変換します
      */
-    private void processPlanStarterMenu(Menu menu, Payment payment, Integer seatId) {
-        Integer planId = menu.getPlanId();
-        List<PaymentDetail> activePlans = paymentDetailRepository.findByPaymentPaymentIdAndMenuIsPlanStarterTrue(payment.getPaymentId());
-        
-        // 現在有効な全てのisPlanStarterメニューのplanIdを収集
-        Set<Integer> activePlanIds = activePlans.stream()
-            .map(pd -> pd.getMenu().getPlanId())
-            .filter(java.util.Objects::nonNull)
-            .collect(java.util.stream.Collectors.toSet());
-
-        // 全ての有効なplanIdに紐づくmenuGroupのIDを収集
-        List<Integer> allActivatedMenuGroupIds = new ArrayList<>();
-        for (Integer activePlanId : activePlanIds) {
-            List<Integer> groupIdsForPlan = planMenuGroupMapRepository.findByPlanId(activePlanId).stream()
-                .map(map -> map.getMenuGroupId())
-                .collect(Collectors.toList());
-            allActivatedMenuGroupIds.addAll(groupIdsForPlan);
-        }
-        
-        // 重複を排除
-        allActivatedMenuGroupIds = allActivatedMenuGroupIds.stream().distinct().collect(Collectors.toList());
-
-        // WebSocket通知を送信
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("type", "PLAN_ACTIVATED");
-        payload.put("seatId", seatId);
-        payload.put("planId", planId);
-        payload.put("activatedMenuGroupIds", allActivatedMenuGroupIds);
-
-        messagingTemplate.convertAndSend("/topic/seats/" + seatId, payload);
-        System.out.println("WebSocket通知: seatId " + seatId + " でプラン " + planId + " がアクティブ化されました。");
+    private static <T> Map<Integer, T> toMap(List<T> entities, Function<T, Integer> idGetter) {
+        return entities.stream().collect(Collectors.toMap(idGetter, Function.identity()));
     }
 
     /**
-     * PaymentDetailを注文履歴DTOに変換します
+     * 注文履歴の行（[明細ID, メニュー名, 数量, 単価, 税率]）を注文履歴DTOに変換します
      */
-    private OrderHistoryDto convertToOrderHistoryDto(PaymentDetail detail) {
+    private OrderHistoryDto convertToOrderHistoryDto(Object[] row, List<String> optionNames) {
+        String menuName = (String) row[1];
+        int quantity = (Integer) row[2];
+        Double price = (Double) row[3];
+        double taxRate = row[4] != null ? (Double) row[4] : 0.0;
+
         OrderHistoryDto dto = new OrderHistoryDto();
-        dto.setMenuName(detail.getMenu().getMenuName());
-        dto.setQuantity(detail.getQuantity());
-        dto.setPrice(detail.getMenu().getPrice());
-        dto.setTaxRate(detail.getTaxRate().getRate());
+        dto.setPaymentDetailId((Integer) row[0]);
+        dto.setMenuName(menuName);
+        dto.setQuantity(quantity);
+        dto.setPrice(price);
+        dto.setTaxRate(taxRate);
 
-        double subtotalWithTax = detail.getMenu().getPrice() * detail.getQuantity()
-                * (1 + detail.getTaxRate().getRate());
+        double subtotalWithTax = price * quantity * (1 + taxRate);
         dto.setSubtotal((int) Math.round(subtotalWithTax));
 
-        List<String> optionNames = paymentDetailOptionRepository.findByPaymentDetail(detail).stream()
-                .map(pdo -> pdo.getOptionItem().getItemName())
-                .collect(Collectors.toList());
         dto.setSelectedOptionNames(optionNames);
 
         return dto;
@@ -4,25 +4,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.order.entity.Payment;
-import com.order.entity.Visit;
 import com.order.repository.PaymentRepository;
-import com.order.repository.VisitRepository;
 
 @Service
 public class PaymentLookupService {
 
     @Autowired
-    private VisitRepository visitRepository;
+    private ActiveVisitRegistry activeVisitRegistry;
 
     @Autowired
     private PaymentRepository paymentRepository;
 
+    /**
+     * 座席の来店中の来店の親会計IDを取得します（来店中の座席の登録簿から取得し、DBには問い合わせません）
+     *
+     * @param seatId 座席ID
+     * @return 親会計ID（来店なし・会計未作成の場合は null）
+     */
+    public Integer findPaymentIdBySeatId(int seatId) {
+        return activeVisitRegistry.findPaymentIdBySeatId(seatId);
+    }
+
     public Payment findPaymentBySeatId(int seatId) {
-        Visit visit = visitRepository.findFirstBySeat_SeatIdAndLeaveTimeIsNullOrderByVisitTimeDesc(seatId);
-        if (visit == null) {
-            return null;
-        }
         // 個別会計機能対応: 親会計（元の会計）のみを取得
-        return paymentRepository.findByVisitVisitIdAndParentPaymentIsNull(visit.getVisitId());
+        Integer paymentId = findPaymentIdBySeatId(seatId);
+        return paymentId != null ? paymentRepository.findById(paymentId).orElse(null) : null;
     }
 } 
@@ -1,9 +1,13 @@
 package com.order.service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,12 +19,15 @@ import com.order.entity.PaymentDetail;
 import com.order.entity.PaymentType;
 import com.order.entity.User;
 import com.order.entity.Visit;
+import com.order.event.SalesChangedEvent;
+import com.order.event.SeatBoardChangedEvent;
 import com.order.repository.PaymentDetailRepository;
 import com.order.repository.PaymentRepository;
 import com.order.repository.PaymentTypeRepository;
 import com.order.repository.UserRepository;
 import com.order.repository.VisitRepository;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -28,6 +35,7 @@ import lombok.RequiredArgsConstructor;
  */
 @Service
 @RequiredArgsConstructor
+@Timed("payment.split")
 public class PaymentSplitService {
     
     private final PaymentRepository paymentRepository;
@@ -35,6 +43,7 @@ public class PaymentSplitService {
     private final PaymentTypeRepository paymentTypeRepository;
     private final UserRepository userRepository;
     private final VisitRepository visitRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * 割り勘会計処理
@@ -143,6 +152,7 @@ public class PaymentSplitService {
                 .sum();
             
             // 親会計の情報を更新
+            LocalDateTime previousPaymentTime = originalPayment.getPaymentTime();
             originalPayment.setPaymentStatus("COMPLETED");
             originalPayment.setPaymentTime(request.getPaymentTime()); // 最後の会計時刻を設定
             originalPayment.setSubtotal(aggregatedSubtotal);
@@ -164,10 +174,13 @@ public class PaymentSplitService {
                 visitRepository.save(visit);
             }
             
+            publishSalesChanged(originalPayment, saved, previousPaymentTime);
             return saved;
         } else {
             childPayment.setPaymentStatus("PARTIAL");
-            return paymentRepository.save(childPayment);
+            Payment saved = paymentRepository.save(childPayment);
+            publishSalesChanged(originalPayment, saved, null);
+            return saved;
         }
     }
     
@@ -195,13 +208,21 @@ public class PaymentSplitService {
             paymentRepository.save(originalPayment);
         }
         
+        // 選択された商品を（メニュー・税率と一緒に）まとめて取得
+        Map<Integer, PaymentDetail> selectedDetails = paymentDetailRepository.findByPaymentDetailIdIn(
+                request.getItems().stream().map(IndividualPaymentRequest.ItemSelection::getPaymentDetailId).collect(Collectors.toSet()))
+            .stream()
+            .collect(Collectors.toMap(PaymentDetail::getPaymentDetailId, Function.identity()));
+        
         // 選択された商品と数量を処理
         List<PaymentDetail> newDetails = new ArrayList<>();
         double totalAmount = 0.0;
         
         for (IndividualPaymentRequest.ItemSelection item : request.getItems()) {
-            PaymentDetail originalDetail = paymentDetailRepository.findById(item.getPaymentDetailId())
-                .orElseThrow(() -> new IllegalArgumentException("商品が見つかりません: " + item.getPaymentDetailId()));
+            PaymentDetail originalDetail = selectedDetails.get(item.getPaymentDetailId());
+            if (originalDetail == null) {
+                throw new IllegalArgumentException("商品が見つかりません: " + item.getPaymentDetailId());
+            }
             
             // 数量の検証
             if (item.getQuantity() == null || item.getQuantity() <= 0) {
@@ -310,12 +331,26 @@ public class PaymentSplitService {
                 visitRepository.save(visit);
             }
             
+            publishSalesChanged(originalPayment, saved, null);
             return saved;
         } else {
             childPayment.setPaymentStatus("PARTIAL");
-            return paymentRepository.save(childPayment);
+            Payment saved = paymentRepository.save(childPayment);
+            publishSalesChanged(originalPayment, saved, null);
+            return saved;
         }
     }
+
+    /**
+     * 子会計の登録による売上集計・座席ボードの更新を通知します（コミット後に反映されます）
+     * 個別会計では元の会計の明細も減るため、元の会計日時も対象に含めます
+     */
+    private void publishSalesChanged(Payment originalPayment, Payment childPayment, LocalDateTime previousPaymentTime) {
+        Integer storeId = originalPayment.getStore().getStoreId();
+        eventPublisher.publishEvent(SalesChangedEvent.of(storeId,
+                childPayment.getPaymentTime(), originalPayment.getPaymentTime(), previousPaymentTime));
+        eventPublisher.publishEvent(new SeatBoardChangedEvent(storeId, originalPayment.getVisit().getSeat().getSeatId()));
+    }
     
     /**
      * 残りの会計情報を取得
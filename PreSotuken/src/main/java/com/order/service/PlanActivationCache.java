@@ -0,0 +1,215 @@
+package com.order.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.order.dto.MenuWithOptionsDTO;
+import com.order.entity.MenuGroup;
+import com.order.event.MenuCatalogChangedEvent;
+import com.order.event.PlanActivatedEvent;
+import com.order.event.SeatBoardChangedEvent;
+import com.order.event.SoldOutChangedEvent;
+import com.order.repository.MenuGroupRepository;
+import com.order.repository.PaymentDetailRepository;
+import com.order.repository.PlanMenuGroupMapRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * 飲み放題プランの有効状態を保持するキャッシュ
+ * 店舗ごとのプラン → メニューグループの紐付けと、座席ごとの来店中に有効になっているプランを保持し、
+ * 注文画面の表示のたびにプランの紐付けと飲み放題開始メニューの注文をDBから検索しないために使います
+ *
+ * - プランの紐付けは、メニュー関連の変更イベント（プランの登録・更新・削除を含む）で店舗単位に破棄します
+ * - 座席の有効なプランは、座席の変更イベント（注文の取消・会計・退店など）で破棄し、次の参照時に読み直します
+ * - プランが新たに有効になった場合は、コミット後に新たに表示されるメニューグループとメニューだけを座席の端末へ送ります
+ */
+@Component
+@RequiredArgsConstructor
+public class PlanActivationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanActivationCache.class);
+
+    private final PlanMenuGroupMapRepository planMenuGroupMapRepository;
+    private final PaymentDetailRepository paymentDetailRepository;
+    private final MenuGroupRepository menuGroupRepository;
+    private final MenuService menuService;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /** 店舗ID → (プランID → メニューグループIDのリスト) */
+    private final Map<Integer, Map<Integer, List<Integer>>> planGroups = new ConcurrentHashMap<>();
+
+    /** 座席ID → 来店中に有効になっているプラン */
+    private final Map<Integer, VisitPlans> visitPlans = new ConcurrentHashMap<>();
+
+    /**
+     * 座席ID → 有効なプランの更新・破棄の回数
+     * DBからの読み込み中に更新・破棄された場合、読み込んだ（古い可能性のある）内容で上書きしないために使います
+     */
+    private final Map<Integer, Long> seatVersions = new ConcurrentHashMap<>();
+
+    /**
+     * 来店中の座席で有効になっているプランIDを取得します。未読み込み・別の会計の場合はDBから読み込んで保持します
+     * 読み込み中に他のスレッドが同じ会計の内容を保持した場合や、プランの開始・座席の変更があった場合は、読み込んだ内容では上書きしません
+     *
+     * @param seatId 座席ID
+     * @param paymentId 来店中の親会計ID（来店なしの場合は null）
+     * @return 有効なプランIDのセット
+     */
+    public Set<Integer> getActivePlanIds(Integer seatId, Integer paymentId) {
+        if (paymentId == null) {
+            return Set.of();
+        }
+        VisitPlans cached = visitPlans.get(seatId);
+        if (cached != null && cached.getPaymentId().equals(paymentId)) {
+            return cached.getPlanIds();
+        }
+        long version = seatVersions.getOrDefault(seatId, 0L);
+        Set<Integer> planIds = Set.copyOf(paymentDetailRepository.findActivePlanIds(paymentId));
+        VisitPlans result = visitPlans.compute(seatId, (id, current) -> {
+            if (current != null && current.getPaymentId().equals(paymentId)) {
+                return current;
+            }
+            return seatVersions.getOrDefault(id, 0L) == version ? new VisitPlans(paymentId, planIds) : current;
+        });
+        return result != null && result.getPaymentId().equals(paymentId) ? result.getPlanIds() : planIds;
+    }
+
+    /**
+     * プランに紐づくメニューグループIDを取得します。店舗の紐付けが未読み込みの場合はDBから読み込んで保持します
+     *
+     * @param storeId 店舗ID
+     * @param planIds プランIDのリスト
+     * @return メニューグループIDのセット（重複なし）
+     */
+    public Set<Integer> getMenuGroupIds(Integer storeId, Collection<Integer> planIds) {
+        Map<Integer, List<Integer>> groupsByPlan = planGroups.computeIfAbsent(storeId, this::loadPlanGroups);
+        Set<Integer> groupIds = new LinkedHashSet<>();
+        for (Integer planId : planIds) {
+            groupIds.addAll(groupsByPlan.getOrDefault(planId, List.of()));
+        }
+        return groupIds;
+    }
+
+    /**
+     * プランが新たに有効になったことをコミット後に反映し、新たに表示されるメニューグループとメニューを座席の端末へ送ります
+     *
+     * @param event プラン有効化イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanActivated(PlanActivatedEvent event) {
+        Set<Integer> activePlanIds = new HashSet<>(event.getPreviousPlanIds());
+        activePlanIds.addAll(event.getPlanIds());
+        seatVersions.merge(event.getSeatId(), 1L, Long::sum);
+        visitPlans.computeIfPresent(event.getSeatId(), (seatId, cached) ->
+                cached.getPaymentId().equals(event.getPaymentId())
+                        ? new VisitPlans(cached.getPaymentId(), Set.copyOf(activePlanIds))
+                        : cached);
+        try {
+            notifyPlanActivated(event, activePlanIds);
+        } catch (RuntimeException e) {
+            // 通知できなかった場合も、注文画面の再読み込みで有効なプランのメニューは表示される
+            logger.error("飲み放題開始の通知に失敗しました。seatId: {}, planIds: {}, error: {}",
+                    event.getSeatId(), event.getPlanIds(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 座席の変更（注文の取消・会計・退店など）をコミット後に反映します
+     *
+     * @param event 座席の変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatChanged(SeatBoardChangedEvent event) {
+        seatVersions.merge(event.getSeatId(), 1L, Long::sum);
+        visitPlans.remove(event.getSeatId());
+    }
+
+    /**
+     * メニュー関連の変更（プランの登録・更新・削除を含む）をコミット後に反映します
+     * 品切れの変更はプランの紐付けに影響しないため何もしません
+     *
+     * @param event メニューカタログ変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuCatalogChanged(MenuCatalogChangedEvent event) {
+        if (event instanceof SoldOutChangedEvent) {
+            return;
+        }
+        if (event.getStoreId() == null) {
+            planGroups.clear();
+        } else {
+            planGroups.remove(event.getStoreId());
+        }
+    }
+
+    private Map<Integer, List<Integer>> loadPlanGroups(Integer storeId) {
+        Map<Integer, List<Integer>> groupsByPlan = new HashMap<>();
+        for (Object[] row : planMenuGroupMapRepository.findPlanMenuGroupRowsByStoreId(storeId)) {
+            groupsByPlan.computeIfAbsent((Integer) row[0], planId -> new ArrayList<>()).add((Integer) row[1]);
+        }
+        return groupsByPlan;
+    }
+
+    /**
+     * 今回新たに表示されるメニューグループ（注文前から有効なプランのグループを除く）と、
+     * 現在の時間帯の注文可能なメニューのうちそのグループに属するものを座席の端末へ送ります
+     * 端末は有効なメニューグループID（activatedMenuGroupIds）で表示を切り替え、画面にないグループはタブを追加します
+     */
+    private void notifyPlanActivated(PlanActivatedEvent event, Set<Integer> activePlanIds) {
+        Set<Integer> activatedGroupIds = getMenuGroupIds(event.getStoreId(), activePlanIds);
+        Set<Integer> newGroupIds = new LinkedHashSet<>(activatedGroupIds);
+        newGroupIds.removeAll(getMenuGroupIds(event.getStoreId(), event.getPreviousPlanIds()));
+
+        List<Map<String, Object>> newGroups = new ArrayList<>();
+        List<MenuWithOptionsDTO> newMenus = List.of();
+        if (!newGroupIds.isEmpty()) {
+            for (MenuGroup group : menuGroupRepository.findByGroupIdInAndIsPlanTargetTrueOrderBySortOrderAsc(new ArrayList<>(newGroupIds))) {
+                Map<String, Object> groupPayload = new LinkedHashMap<>();
+                groupPayload.put("groupId", group.getGroupId());
+                groupPayload.put("groupName", group.getGroupName());
+                groupPayload.put("sortOrder", group.getSortOrder());
+                newGroups.add(groupPayload);
+            }
+            newMenus = menuService.getMenusWithOptions(event.getStoreId()).stream()
+                    .filter(menu -> newGroupIds.contains(menu.getMenuGroupId()))
+                    .toList();
+        }
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", "PLAN_ACTIVATED");
+        payload.put("seatId", event.getSeatId());
+        payload.put("planIds", event.getPlanIds());
+        payload.put("activatedMenuGroupIds", activatedGroupIds);
+        payload.put("menuGroups", newGroups);
+        payload.put("menus", newMenus);
+        messagingTemplate.convertAndSend("/topic/seats/" + event.getSeatId(), payload);
+        logger.info("WebSocket通知: seatId {} でプラン {} がアクティブ化されました。追加のメニューグループ={}件, メニュー={}件",
+                event.getSeatId(), event.getPlanIds(), newGroups.size(), newMenus.size());
+    }
+
+    /**
+     * 来店中に有効になっているプラン
+     */
+    @Value
+    private static class VisitPlans {
+        /** 親会計ID（来店が切り替わったことの判定に使う） */
+        Integer paymentId;
+        Set<Integer> planIds;
+    }
+}
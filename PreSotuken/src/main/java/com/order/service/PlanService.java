@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,6 +13,7 @@ import com.order.dto.PlanResponseDto;
 import com.order.entity.MenuGroup; // PlanResponseDtoでmenuGroupNamesを取得するため
 import com.order.entity.Plan;
 import com.order.entity.PlanMenuGroupMap;
+import com.order.event.MenuCatalogChangedEvent;
 import com.order.repository.MenuGroupRepository; // MenuGroupの名前を取得するため
 import com.order.repository.PlanMenuGroupMapRepository;
 import com.order.repository.PlanRepository;
@@ -27,6 +29,7 @@ public class PlanService {
     private final MenuGroupRepository menuGroupRepository; // MenuGroupの名前解決用
     private final PlanMenuGroupMapRepository planMenuGroupMapRepository;
     private final StoreRepository storeRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // プラン一覧取得
     public List<PlanResponseDto> getAllPlans(Integer storeId) {
@@ -56,6 +59,7 @@ public class PlanService {
 
         // 紐づくメニューグループを保存
         updatePlanMenuGroupMaps(savedPlan.getPlanId(), requestDto.getMenuGroupIds());
+        eventPublisher.publishEvent(new MenuCatalogChangedEvent(savedPlan.getStore().getStoreId()));
 
         return convertToDto(savedPlan);
     }
@@ -74,6 +78,7 @@ public class PlanService {
 
         // 紐づくメニューグループを更新
         updatePlanMenuGroupMaps(updatedPlan.getPlanId(), requestDto.getMenuGroupIds());
+        eventPublisher.publishEvent(new MenuCatalogChangedEvent(updatedPlan.getStore().getStoreId()));
 
         return convertToDto(updatedPlan);
     }
@@ -81,10 +86,15 @@ public class PlanService {
     // プランの削除
     @Transactional
     public void deletePlan(Integer planId) {
+        Integer storeId = planRepository.findById(planId)
+                .map(plan -> plan.getStore().getStoreId())
+                .orElse(null);
         // 紐づくPlanMenuGroupMapを先に削除
         planMenuGroupMapRepository.deleteByPlanId(planId);
         // プランを削除
         planRepository.deleteById(planId);
+        // プランの紐付けとメニューグループの飲み放題対象フラグはメニュー表示に影響するため、カタログとプランのキャッシュを破棄する
+        eventPublisher.publishEvent(storeId != null ? new MenuCatalogChangedEvent(storeId) : MenuCatalogChangedEvent.allStores());
     }
 
     // DTO変換ヘルパーメソッド
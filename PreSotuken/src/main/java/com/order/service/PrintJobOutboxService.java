@@ -0,0 +1,245 @@
+package com.order.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.order.config.NewTransactionTemplate;
+import com.order.entity.PaymentDetail;
+import com.order.entity.PrintJob;
+import com.order.entity.PrintJobPart;
+import com.order.repository.PaymentDetailRepository;
+import com.order.repository.PrintJobDetailBatchRepository;
+import com.order.repository.PrintJobPartBatchRepository;
+import com.order.repository.PrintJobPartRepository;
+import com.order.repository.PrintJobRepository;
+import com.order.service.print.PrintJobQueue;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 印刷ジョブのアウトボックス
+ * 注文の印刷ジョブを注文と同じトランザクションで print_job テーブルに登録し、コミット後に印刷キューで送信します
+ * 端末（またはプリンター）は伝票ごとに受信確認を返し、確認のない伝票は一定時間ごとに再送します（少なくとも1回の配信）
+ * 端末側は同じジョブ・伝票番号の再送を印刷済みとして読み飛ばします
+ * 伝票は最初の送信時に組み立てて保存し、再送では保存した伝票を同じ伝票番号で送ります（伝票の数・順序は変わりません）
+ */
+@Service
+@RequiredArgsConstructor
+public class PrintJobOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrintJobOutboxService.class);
+
+    /** 受信確認をビット単位で記録できる伝票の数 */
+    private static final int MAX_PARTS = Long.SIZE - 1;
+
+    private final PrintJobRepository printJobRepository;
+    private final PrintJobDetailBatchRepository printJobDetailBatchRepository;
+    private final PrintJobPartRepository printJobPartRepository;
+    private final PrintJobPartBatchRepository printJobPartBatchRepository;
+    private final PaymentDetailRepository paymentDetailRepository;
+    private final PrintService printService;
+    private final PrintJobQueue printJobQueue;
+    /** 送信・受信確認は印刷キューやコミット後のコールバックから呼ばれるため、常に新しいトランザクションで更新する */
+    private final NewTransactionTemplate newTransactionTemplate;
+
+    // 受信確認を待つ時間（過ぎたら再送する）
+    @Value("${print.outbox.ack-timeout-ms:30000}")
+    private long ackTimeoutMillis;
+
+    // 送信回数の上限（超えたら FAILED にして再送をやめる）
+    @Value("${print.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    // 1回の巡回で送信するジョブ数
+    @Value("${print.outbox.batch-size:50}")
+    private int batchSize;
+
+    /**
+     * 注文の単品伝票・小計伝票の印刷ジョブを登録します
+     * 呼び出し元のトランザクションで登録し、コミット後に送信します（ロールバック時は登録も送信もされません）
+     *
+     * @param storeId 店舗ID
+     * @param seatId 座席ID
+     * @param details 印刷対象の明細（登録済みでIDが採番されていること）
+     */
+    public void enqueueOrder(Integer storeId, Integer seatId, List<PaymentDetail> details) {
+        if (details.isEmpty()) {
+            return;
+        }
+        PrintJob job = new PrintJob();
+        job.setStoreId(storeId);
+        job.setSeatId(seatId);
+        job.setJobType(PrintJob.TYPE_ORDER);
+        job.setStatus(PrintJob.STATUS_PENDING);
+        job.setAckedParts(0L);
+        job.setAttempts(0);
+        job.setCreatedAt(LocalDateTime.now());
+        printJobRepository.save(job);
+
+        Integer printJobId = job.getPrintJobId();
+        printJobDetailBatchRepository.insert(printJobId, details.stream()
+                .map(PaymentDetail::getPaymentDetailId)
+                .toList());
+        printJobQueue.submitAfterCommit("print-job " + printJobId, () -> dispatch(printJobId));
+    }
+
+    /**
+     * 印刷ジョブを送信します（受信確認済みの伝票は送りません）
+     *
+     * @param printJobId 印刷ジョブID
+     */
+    public void dispatch(Integer printJobId) {
+        printJobRepository.findById(printJobId).ifPresent(this::dispatch);
+    }
+
+    /**
+     * 送信待ちのまま残ったジョブと、受信確認のないまま再送時刻を過ぎたジョブを送信します
+     * 送信待ちのジョブは通常コミット直後に送信されるため、登録から再送時刻を過ぎたもの（再起動などで取り残されたもの）だけを対象にします
+     */
+    @Scheduled(fixedDelayString = "${print.outbox.poll-interval-ms:10000}",
+               initialDelayString = "${print.outbox.poll-interval-ms:10000}")
+    public void dispatchDue() {
+        LocalDateTime threshold = LocalDateTime.now().minusNanos(ackTimeoutMillis * 1_000_000);
+        List<PrintJob> jobs = printJobRepository.findDue(threshold, threshold, PageRequest.of(0, batchSize));
+        for (PrintJob job : jobs) {
+            try {
+                dispatch(job);
+            } catch (RuntimeException e) {
+                logger.error("印刷ジョブの再送に失敗しました。printJobId: {}, error: {}", job.getPrintJobId(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void dispatch(PrintJob job) {
+        if (!PrintJob.STATUS_PENDING.equals(job.getStatus()) && !PrintJob.STATUS_SENT.equals(job.getStatus())) {
+            return;
+        }
+        Integer printJobId = job.getPrintJobId();
+        if (job.getAttempts() >= maxAttempts) {
+            newTransactionTemplate.executeWithoutResult(status ->
+                    printJobRepository.updateStatus(printJobId, PrintJob.STATUS_FAILED, LocalDateTime.now()));
+            logger.error("印刷ジョブの受信確認がないまま再送の上限({})に達しました。printJobId: {}, seatId: {}",
+                    maxAttempts, printJobId, job.getSeatId());
+            return;
+        }
+
+        // 他のスレッド・サーバーが先に送信した場合は送らない（伝票の組み立てでDBを読む前に確保する）
+        Integer claimed = newTransactionTemplate.execute(status ->
+                printJobRepository.claim(printJobId, job.getAttempts(), LocalDateTime.now()));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+
+        List<PrintService.PrintMessage> messages;
+        if (job.getParts() == null) {
+            messages = render(job);
+            if (messages.size() > MAX_PARTS) {
+                // 受信確認を記録できないため、再送を繰り返さないよう FAILED にする
+                newTransactionTemplate.executeWithoutResult(status ->
+                        printJobRepository.updateStatus(printJobId, PrintJob.STATUS_FAILED, LocalDateTime.now()));
+                logger.error("1つの印刷ジョブの伝票が上限({})を超えたため送信しません。printJobId: {}, seatId: {}, 伝票数: {}",
+                        MAX_PARTS, printJobId, job.getSeatId(), messages.size());
+                return;
+            }
+            // 受信確認のビットと伝票が対応し続けるよう、送信前に伝票の数と内容を保存して以後の再送で組み立て直さない
+            newTransactionTemplate.executeWithoutResult(status -> {
+                printJobRepository.updateParts(printJobId, messages.size());
+                printJobPartBatchRepository.insert(toParts(printJobId, messages));
+            });
+        } else {
+            messages = printJobPartRepository.findByPrintJobIdOrderByPartAsc(printJobId).stream()
+                    .map(part -> new PrintService.PrintMessage(part.getPrinterIp(), part.getJsonCommands()))
+                    .toList();
+        }
+
+        long ackedParts = job.getAckedParts() != null ? job.getAckedParts() : 0L;
+        for (int part = 0; part < messages.size(); part++) {
+            if ((ackedParts & (1L << part)) != 0) {
+                continue;
+            }
+            int ackPart = part;
+            printService.sendPrintJobPart(messages.get(part), job.getSeatId(), printJobId, part,
+                    () -> acknowledge(printJobId, ackPart));
+        }
+        if (job.getAttempts() > 0) {
+            logger.warn("受信確認のない印刷ジョブを再送しました。printJobId: {}, 送信回数: {}", printJobId, job.getAttempts() + 1);
+        }
+    }
+
+    // ジョブに紐づく明細から伝票を組み立てる（単品伝票をプリンターごとに、最後に小計伝票）
+    private List<PrintService.PrintMessage> render(PrintJob job) {
+        // 印刷キューのスレッドで組み立てるため、伝票に使うメニュー・税率も一緒に取得する
+        List<PaymentDetail> details = paymentDetailRepository.findByPrintJobId(job.getPrintJobId());
+
+        List<PrintService.PrintMessage> messages = new ArrayList<>(printService.renderLabelsForOrder(details, job.getSeatId()));
+        messages.add(printService.renderReceiptForPayment(details, job.getSeatId(), job.getStoreId()));
+        return messages;
+    }
+
+    private static List<PrintJobPart> toParts(Integer printJobId, List<PrintService.PrintMessage> messages) {
+        List<PrintJobPart> parts = new ArrayList<>(messages.size());
+        for (int part = 0; part < messages.size(); part++) {
+            PrintService.PrintMessage message = messages.get(part);
+            parts.add(new PrintJobPart(printJobId, part, message.printerIp(), message.jsonCommands()));
+        }
+        return parts;
+    }
+
+    /**
+     * 伝票1枚分の受信確認を記録します
+     * 全ての伝票の確認が揃ったジョブは DONE になり、再送されなくなります
+     *
+     * @param printJobId 印刷ジョブID
+     * @param part 伝票番号（0 から）
+     * @return ジョブが存在した場合は true
+     * @throws IllegalArgumentException 伝票番号がジョブの伝票の範囲外の場合
+     */
+    public boolean acknowledge(Integer printJobId, int part) {
+        if (part < 0 || part >= MAX_PARTS) {
+            throw new IllegalArgumentException("伝票番号が不正です: " + part);
+        }
+        return Boolean.TRUE.equals(newTransactionTemplate.execute(status -> printJobRepository.findForUpdate(printJobId)
+                .map(job -> {
+                    Integer parts = job.getParts();
+                    if (parts == null || part >= parts) {
+                        // 送信していない伝票番号の確認を記録すると、全ての伝票の確認が揃わず DONE にならなくなる
+                        throw new IllegalArgumentException("伝票番号が不正です: " + part + "（伝票数: " + parts + "）");
+                    }
+                    long ackedParts = (job.getAckedParts() != null ? job.getAckedParts() : 0L) | (1L << part);
+                    job.setAckedParts(ackedParts);
+                    if (ackedParts == (1L << parts) - 1
+                            && !PrintJob.STATUS_DONE.equals(job.getStatus())) {
+                        job.setStatus(PrintJob.STATUS_DONE);
+                        job.setCompletedAt(LocalDateTime.now());
+                    }
+                    return true;
+                })
+                .orElse(false)));
+    }
+
+    /**
+     * 状態ごとのジョブ数を返します
+     *
+     * @return 統計情報のMap
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", printJobRepository.countByStatus(PrintJob.STATUS_PENDING));
+        stats.put("sent", printJobRepository.countByStatus(PrintJob.STATUS_SENT));
+        stats.put("done", printJobRepository.countByStatus(PrintJob.STATUS_DONE));
+        stats.put("failed", printJobRepository.countByStatus(PrintJob.STATUS_FAILED));
+        stats.put("ackTimeoutMillis", ackTimeoutMillis);
+        stats.put("maxAttempts", maxAttempts);
+        return stats;
+    }
+}
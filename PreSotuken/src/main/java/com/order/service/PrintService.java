@@ -1,23 +1,25 @@
 package com.order.service;
 
-import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.order.entity.Menu;
 import com.order.entity.MenuPrinterMap;
 import com.order.entity.PaymentDetail;
@@ -30,15 +32,21 @@ import com.order.repository.MenuPrinterMapRepository;
 import com.order.repository.PaymentDetailOptionRepository;
 import com.order.repository.PrinterConfigRepository;
 import com.order.repository.SeatRepository;
-import com.order.service.print.PrintCommandService;
 import com.order.service.print.PrintFormatService;
+import com.order.service.print.PrintLayouts;
+import com.order.service.print.PrintLogo;
+import com.order.service.print.TcpPrinterTransport;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
+@Timed("print.service")
 public class PrintService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PrintService.class);
+
     private final SeatRepository seatRepo;
     private final PaymentDetailOptionRepository paymentDetailOptionRepo;
     private final SimpMessagingTemplate messagingTemplate;
@@ -46,133 +54,91 @@ public class PrintService {
     private final MenuPrinterMapRepository menuPrinterMapRepository;
     private final PrinterConfigRepository printerConfigRepository;
     private final PrintFormatService printFormatService;
-    private final PrintCommandService gencmd;
+    private final PrintLayouts printLayouts;
+    private final TcpPrinterTransport printerTransport;
 
-    private final ObjectMapper objectMapper = new ObjectMapper(); // JSON生成用
+    // ロゴの印字方式（image / raster / nv）
+    @Value("${print.logo.mode:raster}")
+    private String logoMode;
 
-    // 単品伝票印刷 (変更後)
-    // このメソッドは、JSONコマンドを生成してWebSocketでフロントエンドに通知する
+    // NVグラフィックスにロゴを登録済みのプリンター（プリンターIP → 登録したロゴ）
+    private final Map<String, PrintLogo> nvRegisteredLogos = new ConcurrentHashMap<>();
+
+    /** 送信先プリンターと印刷コマンド（伝票1回の送信分） */
+    public record PrintMessage(String printerIp, String jsonCommands) {
+    }
+
+    private static final DateTimeFormatter LABEL_TIME_FORMAT = DateTimeFormatter.ofPattern("MM/dd HH:mm");
+    private static final DateTimeFormatter SLIP_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm");
+
+    // 単品伝票印刷（1明細）
     public void printLabelsForOrder(PaymentDetail detail, Integer seatId) {
-        String seatName = seatRepo.findById(seatId)
-                .map(Seat::getSeatName)
-                .orElse("不明な席");
-        
         if (detail == null) {
             notifyClientError(seatId, "印刷対象のPaymentDetailがnullです。");
             return;
         }
+        printLabelsForOrder(List.of(detail), seatId);
+    }
+
+    // 単品伝票印刷（注文単位）
+    // このメソッドは、JSONコマンドを生成してWebSocketでフロントエンドに通知する
+    // 明細を印刷先プリンターごとにまとめ、プリンター1台につき1回（伝票ごとにカット）だけ送信する
+    // 席名・オプション・印刷先は注文全体で1回ずつまとめて取得する
+    // レイアウトは PrintLayouts で事前にコンパイル済みのため、ここでは可変部分だけを求める
+    public void printLabelsForOrder(List<PaymentDetail> details, Integer seatId) {
+        for (PrintMessage message : renderLabelsForOrder(details, seatId)) {
+            sendPrintCommandsToFrontend(message.printerIp(), seatId, message.jsonCommands());
+        }
+    }
 
-        String timeStr = LocalDateTime.now().format(DateTimeFormatter.ofPattern("MM/dd HH:mm"));
+    // 注文単位の単品伝票を印刷先プリンターごとに組み立てる（送信はしない）
+    public List<PrintMessage> renderLabelsForOrder(List<PaymentDetail> details, Integer seatId) {
+        if (details == null || details.isEmpty()) {
+            return List.of();
+        }
+        String seatName = seatRepo.findById(seatId)
+                .map(Seat::getSeatName)
+                .orElse("不明な席");
 
-        User user = detail.getUser();
-        String username = (user != null) ? user.getUserName() : "卓上端末";
+        String timeStr = LocalDateTime.now().format(LABEL_TIME_FORMAT);
 
-        // JSONコマンドを格納するArrayNode
-        ArrayNode commands = objectMapper.createArrayNode();
-        commands.add(gencmd.createSoundCommand("pattern_a", 1));
-        commands.add(gencmd.createAddTextLangCommand("ja"));
-        commands.add(gencmd.createAddTextFontCommand("FONT_A")); // フォントA
+        Map<Integer, List<PaymentDetailOption>> optionsByDetailId = optionsByDetailId(details);
 
-        Menu menu = detail.getMenu();
-        if (menu == null) {
-            notifyClientError(seatId, "menu_id=" + detail.getMenu().getMenuId() + " のメニューが存在しません");
+        // メニューごとの印刷先（プリンターIDの小さいものを優先）
+        Set<Integer> menuIds = details.stream()
+                .map(d -> d.getMenu().getMenuId())
+                .collect(Collectors.toSet());
+        Map<Integer, String> printerIpByMenuId = new HashMap<>();
+        for (MenuPrinterMap printerMap : menuPrinterMapRepository.findByMenuIdsWithPrinter(menuIds)) {
+            printerIpByMenuId.putIfAbsent(printerMap.getMenu().getMenuId(), printerMap.getPrinter().getPrinterIp());
         }
 
-        List<PaymentDetailOption> optionList = paymentDetailOptionRepo.findByPaymentDetail(detail);
-        String optionSuffix = optionList.isEmpty() ? "" :
-                optionList.stream()
-                        .map(o -> o.getOptionItem().getItemName())
-                        .collect(Collectors.joining("・", "（", "）"));
+        // 印刷先プリンターごとの伝票（注文の明細順）
+        Map<String, List<PrintLayouts.OrderLabel>> labelsByPrinterIp = new LinkedHashMap<>();
+        for (PaymentDetail detail : details) {
+            String printerIp = printerIpByMenuId.get(detail.getMenu().getMenuId());
+            if (printerIp == null) {
+                notifyClientError(seatId, "menu_id=" + detail.getMenu().getMenuId() + " の印刷先プリンターが設定されていません");
+                continue;
+            }
 
-        String baseLabel = (menu.getReceiptLabel() != null && !menu.getReceiptLabel().isBlank())
-                ? menu.getReceiptLabel()
-                : menu.getMenuName();
+            User user = detail.getUser();
+            String username = (user != null) ? user.getUserName() : "卓上端末";
+
+            Integer currentQuantity = detail.getQuantity();
+            int quantity = (currentQuantity != null) ? currentQuantity : 1;
 
-        String itemName = baseLabel + optionSuffix;
-
-        Integer currentQuantity = detail.getQuantity();
-        int quantity = (currentQuantity != null) ? currentQuantity : 1;
-
-        // ★★★ JSONコマンド組み立て部分 ★★★
-        // 各印刷命令をObjectNodeとして作成し、commandsに追加する
-
-        // 初期化・リセット系は、印刷ジョブの最初に一度だけ発行する方が効率的
-        // ここでは各アイテムごとに発行するが、設計によって調整
-//            if (commands.isEmpty()) { // 最初のアイテムのときだけ実行
-//                 // ブザー
-//                ObjectNode soundCmd = objectMapper.createObjectNode();
-//                soundCmd.put("api", "addSound");
-//                soundCmd.put("pattern", "pattern_a");
-//                soundCmd.put("repeat", 1);
-//                commands.add(soundCmd);
-//
-//                // 言語設定
-//                ObjectNode textLangCmd = objectMapper.createObjectNode();
-//                textLangCmd.put("api", "addTextLang");
-//                textLangCmd.put("lang", "ja");
-//                commands.add(textLangCmd);
-//
-//                // 文字サイズのリセット (デフォルト1倍角)
-//                ObjectNode textSizeResetCmd = objectMapper.createObjectNode();
-//                textSizeResetCmd.put("api", "addTextSize");
-//                textSizeResetCmd.put("width", 1);
-//                textSizeResetCmd.put("height", 1);
-//                commands.add(textSizeResetCmd);
-//
-//                 // 文字装飾のリセット (デフォルト)
-//                ObjectNode textStyleResetCmd = objectMapper.createObjectNode();
-//                textStyleResetCmd.put("api", "addTextStyle");
-//                textStyleResetCmd.put("reverse", false);
-//                textStyleResetCmd.put("ul", false);
-//                textStyleResetCmd.put("em", false);
-//                textStyleResetCmd.put("color", "COLOR_1"); // Enum名で渡す
-//                commands.add(textStyleResetCmd);
-//            }
-
-        // 個別のアイテム印刷コマンド
-//            commands.add(createFeedUnitCommand(0)); // 少し空白
-        
-//            //初期設定
-//            commands.add(createSoundCommand("pattern_a", 1));
-//            commands.add(createAddTextLangCommand("ja"));
-//            commands.add(createAddTextFontCommand("FONT_A")); // フォントA
-//            commands.add(createTextAlignCommand("center"));
-//            commands.add(createFeedCommand());
-
-        // テーブル名
-        commands.add(gencmd.createTextAlignCommand("left")); // デフォルトに戻す
-        commands.add(gencmd.createTextCommand("テーブル: " + seatName));
-
-        // 注文者名
-        commands.add(gencmd.createFeedUnitCommand(5));
-        commands.add(gencmd.createTextCommand((username != null ? username : "不明") + "             " + timeStr));
-        System.out.println(timeStr);
-
-        // 日時 (右寄せ)
-//            commands.add(createTextAlignCommand("right"));
-//            commands.add(createTextCommand("                "+timeStr));
-        commands.add(gencmd.createFeedUnitCommand(8));
-
-        // 注文商品 (倍角)
-        commands.add(gencmd.createTextDoubleCommand(true, true)); // 倍角設定
-        commands.add(gencmd.createTextAlignCommand("left")); // 左寄せに戻す
-        commands.add(gencmd.createTextCommand(itemName));
-        
-        // 点数 (右寄せ、倍角はそのまま)
-        commands.add(gencmd.createTextAlignCommand("right"));
-        commands.add(gencmd.createTextCommand("          "+quantity + "点"));
-        commands.add(gencmd.createFeedUnitCommand(8));
-
-        // 倍角とアラインメントをリセット (次のアイテムのために)
-        commands.add(gencmd.createTextDoubleCommand(false, false));
-        commands.add(gencmd.createTextAlignCommand("left")); // デフォルトに戻しておく
-        
-//          commands.add(createFeedUnitCommand(15));
-        commands.add(gencmd.createCutCommand("feed")); // 最後はfeedカット
-//            commands.add(createFeedCommand()); // 最後の改行
-        MenuPrinterMap printerMap = menuPrinterMapRepository.findFirstByMenu_MenuIdOrderByPrinter_PrinterIdAsc(detail.getMenu().getMenuId());
-        String printerIp = printerMap.getPrinter().getPrinterIp();
-        sendPrintCommandsToFrontend(printerIp, seatId, commands.toString());
+            labelsByPrinterIp.computeIfAbsent(printerIp, ip -> new ArrayList<>()).add(new PrintLayouts.OrderLabel(
+                    seatName,
+                    (username != null ? username : "不明") + "             " + timeStr,
+                    displayItemName(detail, optionsByDetailId.getOrDefault(detail.getPaymentDetailId(), List.of())),
+                    "          " + quantity + "点"));
+        }
+
+        List<PrintMessage> messages = new ArrayList<>();
+        labelsByPrinterIp.forEach((printerIp, labels) ->
+                messages.add(new PrintMessage(printerIp, printLayouts.renderOrderLabels(labels))));
+        return messages;
     }
     
     // 小計伝票印刷メソッド
@@ -180,9 +146,18 @@ public class PrintService {
             List<PaymentDetail> detailsForReceipt,
             Integer seatId,
             Integer storeId) {
+        PrintMessage message = renderReceiptForPayment(detailsForReceipt, seatId, storeId);
+        // フロントエンドに送信
+        sendPrintCommandsToFrontend(message.printerIp(), seatId, message.jsonCommands());
+    }
 
-        // --- 伝票に必要な情報の計算 (変更なし) ---
-        BigDecimal subtotalExcludingTax = BigDecimal.ZERO;
+    // 小計伝票を組み立てる（送信はしない）
+    public PrintMessage renderReceiptForPayment(
+            List<PaymentDetail> detailsForReceipt,
+            Integer seatId,
+            Integer storeId) {
+
+        // --- 伝票に必要な情報の計算 ---
         BigDecimal subtotalIncludingTax = BigDecimal.ZERO;
         Map<BigDecimal, BigDecimal> taxRateToAmountMap = new TreeMap<>();
         Map<BigDecimal, BigDecimal> taxRateToTaxAmountMap = new TreeMap<>();
@@ -196,144 +171,70 @@ public class PrintService {
             BigDecimal taxAmount = itemLineTotalExcludingTax.multiply(taxRateValueFromDb).setScale(0, RoundingMode.HALF_UP);
             BigDecimal itemLineTotalIncludingTax = itemLineTotalExcludingTax.add(taxAmount);
 
-            subtotalExcludingTax = subtotalExcludingTax.add(itemLineTotalExcludingTax);
             subtotalIncludingTax = subtotalIncludingTax.add(itemLineTotalIncludingTax);
 
             taxRateToAmountMap.merge(taxRateValueFromDb, itemLineTotalExcludingTax, BigDecimal::add);
             taxRateToTaxAmountMap.merge(taxRateValueFromDb, taxAmount, BigDecimal::add);
         }
 
-        // --- 共通情報取得 (変更なし) ---
+        // --- 共通情報取得 ---
         String seatName = seatRepo.findById(seatId).map(Seat::getSeatName).orElse("不明な席");
-        String timeStr = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm"));
-        String logoImageBase64 = logoService.getLogoBase64Data((long)storeId);
-
-        // --- JSONコマンド組み立て開始 ---
-        ArrayNode commands = objectMapper.createArrayNode();
-        commands.add(gencmd.createSoundCommand("pattern_a", 1));
-        commands.add(gencmd.createAddTextLangCommand("ja"));
-        commands.add(gencmd.createAddTextFontCommand("FONT_A"));
-        commands.add(gencmd.createTextAlignCommand("center"));
-
-        // ロゴ画像
-        if(logoImageBase64 != null) {
-            commands.add(gencmd.createAddImageCommand(logoImageBase64, 0, 0, 256, 60, "COLOR_1", "MONO"));
-            commands.add(gencmd.createFeedUnitCommand(10));
-        }
+        String timeStr = LocalDateTime.now().format(SLIP_TIME_FORMAT);
+        PrinterConfig printer = printerConfigRepository.findByStoreIdAndReceiptOutput(storeId,true);
+        String printerIp = printer.getPrinterIp();
+        int totalWidth = printFormatService.getReceiptTotalWidthHalf();
+        int itemNameWidth = printFormatService.getReceiptItemNameMaxWidthHalf();
 
-        // テーブルと日時
-        commands.add(gencmd.createTextAlignCommand("left"));
-        String tableLine = "テーブル: " + seatName;
-        commands.add(gencmd.createTextCommand(printFormatService.formatToLeftAndRight(tableLine, timeStr, printFormatService.getReceiptTotalWidthHalf())));
-        commands.add(gencmd.createFeedUnitCommand(5));
-        commands.add(gencmd.createFeedCommand());
-        
-        // --- ★★★ ヘッダーのレイアウトを修正 ★★★ ---
-        String itemHeaderLine = printFormatService.padRightHalfWidth("品名", printFormatService.getReceiptItemNameMaxWidthHalf())
-                            + printFormatService.padRightHalfWidth("数量", printFormatService.getReceiptQuantityWidthHalf())
-                            + printFormatService.padLeftHalfWidth("単価", printFormatService.getReceiptPriceWidthHalf());
-        commands.add(gencmd.createTextCommand(itemHeaderLine));
-        commands.add(gencmd.createTextCommand("-".repeat(printFormatService.getReceiptTotalWidthHalf()))); // 罫線
-
-        // --- ★★★ 商品詳細のループ (改行処理を追加) ★★★ ---
+        // --- 商品詳細 (品名は品名エリアの幅で折り返す) ---
+        Map<Integer, List<PaymentDetailOption>> optionsByDetailId = optionsByDetailId(detailsForReceipt);
+        List<String> itemLines = new ArrayList<>();
         for (PaymentDetail detail : detailsForReceipt) {
             Menu menu = detail.getMenu();
-            List<PaymentDetailOption> optionList = paymentDetailOptionRepo.findByPaymentDetail(detail);
-            String optionSuffix = optionList.isEmpty() ? "" :
-                    optionList.stream()
-                            .map(o -> o.getOptionItem().getItemName())
-                            .collect(Collectors.joining("・", "（", "）"));
-
-            String displayItemName = (menu.getReceiptLabel() != null && !menu.getReceiptLabel().isBlank())
-                    ? menu.getReceiptLabel()
-                    : menu.getMenuName();
-            displayItemName += optionSuffix;
-
             String quantityStr = String.valueOf(detail.getQuantity());
 
             BigDecimal unitPriceIncludingTax = BigDecimal.valueOf(menu.getPrice())
                     .multiply(BigDecimal.ONE.add(BigDecimal.valueOf(detail.getTaxRate().getRate())))
                     .setScale(0, RoundingMode.HALF_UP);
-            String unitPriceStr = "\\" + String.format("%,d", unitPriceIncludingTax.longValue());
-            
-            String remainingItemName = displayItemName;
-            boolean isFirstLine = true;
-
-            // 品名がなくなるまでループして、複数行に分割する
-            while (!remainingItemName.isEmpty()) {
-                int currentLineByteLength = 0;
-                int cutIndex = 0;
-                // 品名エリアの最大幅を超えないギリギリの文字数を探す
-                for (int i = 0; i < remainingItemName.length(); i++) {
-                    char c = remainingItemName.charAt(i);
-                    int charBytes = 1;
-                    try {
-                        charBytes = String.valueOf(c).getBytes("Shift_JIS").length > 1 ? 2 : 1;
-                    } catch (UnsupportedEncodingException e) { /* ignore */ }
-
-                    if (currentLineByteLength + charBytes > printFormatService.getReceiptItemNameMaxWidthHalf()) {
-                        break; // 幅を超えるのでここでカット
-                    }
-                    currentLineByteLength += charBytes;
-                    cutIndex++;
-                }
-
-                String itemNameForThisLine = remainingItemName.substring(0, cutIndex);
-                remainingItemName = remainingItemName.substring(cutIndex);
+            String unitPriceStr = yen(unitPriceIncludingTax.longValue());
 
+            List<String> itemNameLines = printFormatService.wrapHalfWidth(
+                    displayItemName(detail, optionsByDetailId.getOrDefault(detail.getPaymentDetailId(), List.of())), itemNameWidth);
+            for (int i = 0; i < itemNameLines.size(); i++) {
                 // 品名部分を作成 (右側を空白で埋める)
-                String paddedItemName = printFormatService.padRightHalfWidth(itemNameForThisLine, printFormatService.getReceiptItemNameMaxWidthHalf());
+                String paddedItemName = printFormatService.padRightHalfWidth(itemNameLines.get(i), itemNameWidth);
 
-                if (isFirstLine) {
+                if (i == 0) {
                     // 1行目: 品名 + 数量 + 単価
                     String paddedQuantity = printFormatService.padRightHalfWidth(quantityStr, printFormatService.getReceiptQuantityWidthHalf());
                     String paddedPrice = printFormatService.padLeftHalfWidth(unitPriceStr, printFormatService.getReceiptPriceWidthHalf());
-                    commands.add(gencmd.createTextCommand(paddedItemName + paddedQuantity + paddedPrice));
-                    isFirstLine = false;
+                    itemLines.add(paddedItemName + paddedQuantity + paddedPrice);
                 } else {
                     // 2行目以降: 品名の続きのみ
-                    commands.add(gencmd.createTextCommand(paddedItemName));
+                    itemLines.add(paddedItemName);
                 }
             }
         }
-        commands.add(gencmd.createTextCommand("-".repeat(printFormatService.getReceiptTotalWidthHalf()))); // 罫線
-        commands.add(gencmd.createFeedUnitCommand(10));
-
-        // --- ★★★ 小計・税額表示のレイアウトを修正 ★★★ ---
-        // 小計 (税込)
-        String subtotalAmount = "\\" + String.format("%,d", subtotalIncludingTax.longValue());
-        commands.add(gencmd.createTextCommand(printFormatService.formatToLeftAndRight("小計", subtotalAmount, printFormatService.getReceiptTotalWidthHalf())));
-
-        // 税率ごとの対象額
-        List<BigDecimal> sortedTaxRates = new ArrayList<>(taxRateToAmountMap.keySet());
-        sortedTaxRates.sort(Comparator.naturalOrder());
-
-        for (BigDecimal rate : sortedTaxRates) {
-            BigDecimal amountForRate = taxRateToAmountMap.get(rate);
-            String taxRateLabel = "(" + rate.multiply(BigDecimal.valueOf(100)).stripTrailingZeros().toPlainString() + "%対象";
-            String taxRateAmount = "\\" + String.format("%,d", amountForRate.longValue()) + ")";
-            commands.add(gencmd.createTextCommand(printFormatService.formatToLeftAndRight(taxRateLabel, taxRateAmount, printFormatService.getReceiptTotalWidthHalf())));
-        }
-
-        // 「内税」テキスト
-        commands.add(gencmd.createTextCommand("内税"));
 
-        // 各税率ごとの税額
-        for (BigDecimal rate : sortedTaxRates) {
-            BigDecimal taxAmountForRate = taxRateToTaxAmountMap.get(rate);
-            String taxRateTaxLabel = "(" + rate.multiply(BigDecimal.valueOf(100)).stripTrailingZeros().toPlainString() + "%税";
-            String taxRateTaxAmount = "\\" + String.format("%,d", taxAmountForRate.longValue()) + ")";
-            commands.add(gencmd.createTextCommand(printFormatService.formatToLeftAndRight(taxRateTaxLabel, taxRateTaxAmount, printFormatService.getReceiptTotalWidthHalf())));
+        // --- 税率ごとの対象額・税額 (税率の低い順) ---
+        List<String> taxTargetLines = new ArrayList<>();
+        List<String> taxLines = new ArrayList<>();
+        for (BigDecimal rate : taxRateToAmountMap.keySet()) {
+            String percent = rate.multiply(BigDecimal.valueOf(100)).stripTrailingZeros().toPlainString();
+            taxTargetLines.add(printFormatService.formatToLeftAndRight(
+                    "(" + percent + "%対象", yen(taxRateToAmountMap.get(rate).longValue()) + ")", totalWidth));
+            taxLines.add(printFormatService.formatToLeftAndRight(
+                    "(" + percent + "%税", yen(taxRateToTaxAmountMap.get(rate).longValue()) + ")", totalWidth));
         }
-        
-        commands.add(gencmd.createFeedUnitCommand(15));
-        commands.add(gencmd.createCutCommand("feed"));
 
-        PrinterConfig printer = printerConfigRepository.findByStoreIdAndReceiptOutput(storeId,true);
-        String printerIp = printer.getPrinterIp();
-        
-        // フロントエンドに送信
-        sendPrintCommandsToFrontend(printerIp, seatId, commands.toString());
+        String jsonCommands = printLayouts.renderSubtotalSlip(new PrintLayouts.SubtotalSlip(
+                logoFor(storeId, printerIp),
+                printFormatService.formatToLeftAndRight("テーブル: " + seatName, timeStr, totalWidth),
+                itemLines,
+                // 小計 (税込)
+                printFormatService.formatToLeftAndRight("小計", yen(subtotalIncludingTax.longValue()), totalWidth),
+                taxTargetLines,
+                taxLines));
+        return new PrintMessage(printerIp, jsonCommands);
     }
 
 
@@ -344,36 +245,10 @@ public class PrintService {
      * @param reprint 再印字フラグ
      */
     public void printReceipt(com.order.entity.Receipt receipt, Integer storeId, boolean reprint) {
-        ArrayNode commands = objectMapper.createArrayNode();
-
-        // ロゴを追加
-        String logoImageBase64 = logoService.getLogoBase64Data((long)storeId);
-        if(logoImageBase64 != null) {
-            commands.add(gencmd.createAddImageCommand(logoImageBase64, 0, 0, 256, 60, "COLOR_1", "MONO"));
-            commands.add(gencmd.createFeedUnitCommand(10));
-        }
-        commands.add(gencmd.createFeedCommand());
-
-        // ヘッダー：店名と発行日時
-        String storeName = receipt.getStore().getStoreName();
-        LocalDateTime issuedAt = receipt.getIssuedAt();
-        String dateStr = issuedAt.format(DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm"));
-
-        commands.add(gencmd.createTextAlignCommand("center"));
-        commands.add(gencmd.createTextCommand(storeName));
-        commands.add(gencmd.createTextCommand("領収書"));
-        if (reprint) {
-            commands.add(gencmd.createTextCommand("【再印字】"));
-        }
-        commands.add(gencmd.createTextAlignCommand("left"));
-        commands.add(gencmd.createFeedUnitCommand(5));
-
-        // 印字番号と発行日時
-        commands.add(gencmd.createTextCommand("印字番号: " + receipt.getReceiptNo()));
-        commands.add(gencmd.createTextCommand("発行日時: " + dateStr));
-        commands.add(gencmd.createTextCommand("発行者: " + receipt.getIssuer().getUserName()));
-        commands.add(gencmd.createFeedUnitCommand(5));
-        commands.add(gencmd.createTextCommand("-".repeat(printFormatService.getReceiptTotalWidthHalf())));
+        // プリンター取得
+        PrinterConfig printer = printerConfigRepository.findByStoreIdAndReceiptOutput(storeId, true);
+        String printerIp = printer.getPrinterIp();
+        int totalWidth = printFormatService.getReceiptTotalWidthHalf();
 
         // 合計金額（税込）
         BigDecimal totalAmount = BigDecimal.ZERO;
@@ -390,79 +265,119 @@ public class PrintService {
             totalAmount = totalAmount.add(BigDecimal.valueOf(receipt.getTaxAmount8()));
         }
 
-        String totalAmountStr = "\\" + String.format("%,d", totalAmount.longValue());
-        commands.add(gencmd.createTextCommand(printFormatService.formatToLeftAndRight("合計金額", totalAmountStr, printFormatService.getReceiptTotalWidthHalf())));
-        commands.add(gencmd.createFeedUnitCommand(5));
-
         // 税率別内訳
-        commands.add(gencmd.createTextCommand("【内訳】"));
+        List<String> breakdownLines = new ArrayList<>();
 
         // 10%対象
         if (receipt.getNetAmount10() != null && receipt.getNetAmount10() > 0) {
-            String net10Str = "\\" + String.format("%,d", receipt.getNetAmount10().longValue());
-            commands.add(gencmd.createTextCommand(printFormatService.formatToLeftAndRight("10%対象(税抜)", net10Str, printFormatService.getReceiptTotalWidthHalf())));
-            
-            String tax10Str = "\\" + String.format("%,d", receipt.getTaxAmount10().longValue());
-            commands.add(gencmd.createTextCommand(printFormatService.formatToLeftAndRight("10%税額", tax10Str, printFormatService.getReceiptTotalWidthHalf())));
-            
+            breakdownLines.add(printFormatService.formatToLeftAndRight("10%対象(税抜)", yen(receipt.getNetAmount10().longValue()), totalWidth));
+            breakdownLines.add(printFormatService.formatToLeftAndRight("10%税額", yen(receipt.getTaxAmount10().longValue()), totalWidth));
             BigDecimal gross10 = BigDecimal.valueOf(receipt.getNetAmount10()).add(BigDecimal.valueOf(receipt.getTaxAmount10()));
-            String gross10Str = "\\" + String.format("%,d", gross10.longValue());
-            commands.add(gencmd.createTextCommand(printFormatService.formatToLeftAndRight("10%税込", gross10Str, printFormatService.getReceiptTotalWidthHalf())));
+            breakdownLines.add(printFormatService.formatToLeftAndRight("10%税込", yen(gross10.longValue()), totalWidth));
         }
 
         // 8%対象
         if (receipt.getNetAmount8() != null && receipt.getNetAmount8() > 0) {
-            String net8Str = "\\" + String.format("%,d", receipt.getNetAmount8().longValue());
-            commands.add(gencmd.createTextCommand(printFormatService.formatToLeftAndRight("8%対象(税抜)", net8Str, printFormatService.getReceiptTotalWidthHalf())));
-            
-            String tax8Str = "\\" + String.format("%,d", receipt.getTaxAmount8().longValue());
-            commands.add(gencmd.createTextCommand(printFormatService.formatToLeftAndRight("8%税額", tax8Str, printFormatService.getReceiptTotalWidthHalf())));
-            
+            breakdownLines.add(printFormatService.formatToLeftAndRight("8%対象(税抜)", yen(receipt.getNetAmount8().longValue()), totalWidth));
+            breakdownLines.add(printFormatService.formatToLeftAndRight("8%税額", yen(receipt.getTaxAmount8().longValue()), totalWidth));
             BigDecimal gross8 = BigDecimal.valueOf(receipt.getNetAmount8()).add(BigDecimal.valueOf(receipt.getTaxAmount8()));
-            String gross8Str = "\\" + String.format("%,d", gross8.longValue());
-            commands.add(gencmd.createTextCommand(printFormatService.formatToLeftAndRight("8%税込", gross8Str, printFormatService.getReceiptTotalWidthHalf())));
+            breakdownLines.add(printFormatService.formatToLeftAndRight("8%税込", yen(gross8.longValue()), totalWidth));
         }
 
-        commands.add(gencmd.createFeedUnitCommand(5));
-        commands.add(gencmd.createTextCommand("-".repeat(printFormatService.getReceiptTotalWidthHalf())));
+        String jsonCommands = printLayouts.renderReceipt(new PrintLayouts.ReceiptSlip(
+                logoFor(storeId, printerIp),
+                receipt.getStore().getStoreName(),
+                reprint,
+                receipt.getReceiptNo(),
+                receipt.getIssuedAt().format(SLIP_TIME_FORMAT),
+                receipt.getIssuer().getUserName(),
+                printFormatService.formatToLeftAndRight("合計金額", yen(totalAmount.longValue()), totalWidth),
+                breakdownLines,
+                receipt.getPayment().getPaymentId(),
+                receipt.getReceiptId(),
+                receipt.getIssuer().getUserId()));
 
-        // フッター：会計ID、領収書ID、発行者ID
-        commands.add(gencmd.createFeedUnitCommand(5));
-        commands.add(gencmd.createTextCommand("会計ID: " + receipt.getPayment().getPaymentId()));
-        commands.add(gencmd.createTextCommand("領収書ID: " + receipt.getReceiptId()));
-        commands.add(gencmd.createTextCommand("発行者ID: " + receipt.getIssuer().getUserId()));
+        // フロントエンドに送信（seatIdは領収書印刷では不要なので0を使用）
+        sendPrintCommandsToFrontend(printerIp, 0, jsonCommands);
+    }
 
-        // QRコード（印字番号を埋め込み）
-        commands.add(gencmd.createFeedUnitCommand(5));
-        commands.add(gencmd.createQRCodeCommand(receipt.getReceiptNo()));
+    // 伝票に印字するロゴ（ロゴは店舗ごとにキャッシュ済み。NV方式ではプリンターごとに初回のみ登録コマンドを送る）
+    private PrintLayouts.LogoOutput logoFor(Integer storeId, String printerIp) {
+        PrintLogo logo = logoService.getPrintLogo((long)storeId);
+        if (logo == null) {
+            return null;
+        }
+        PrintLogo.Mode mode = logo.isRasterized() ? PrintLogo.Mode.valueOf(logoMode.toUpperCase()) : PrintLogo.Mode.IMAGE;
+        boolean register = mode == PrintLogo.Mode.NV && nvRegisteredLogos.put(printerIp, logo) != logo;
+        return new PrintLayouts.LogoOutput(logo, mode, register);
+    }
 
-        commands.add(gencmd.createFeedUnitCommand(15));
-        commands.add(gencmd.createCutCommand("feed"));
+    // 明細のオプションを1回のクエリでまとめて取得する（明細ID → オプション）
+    private Map<Integer, List<PaymentDetailOption>> optionsByDetailId(List<PaymentDetail> details) {
+        if (details.isEmpty()) {
+            return Map.of();
+        }
+        return paymentDetailOptionRepo.findByPaymentDetailIn(details).stream()
+                .collect(Collectors.groupingBy(o -> o.getPaymentDetail().getPaymentDetailId()));
+    }
 
-        // プリンター取得
-        PrinterConfig printer = printerConfigRepository.findByStoreIdAndReceiptOutput(storeId, true);
-        String printerIp = printer.getPrinterIp();
+    // 伝票に印字する品名（レシート用表記があれば優先し、オプションを括弧書きで付ける）
+    private String displayItemName(PaymentDetail detail, List<PaymentDetailOption> optionList) {
+        Menu menu = detail.getMenu();
+        String optionSuffix = optionList.isEmpty() ? "" :
+                optionList.stream()
+                        .map(o -> o.getOptionItem().getItemName())
+                        .collect(Collectors.joining("・", "（", "）"));
 
-        // フロントエンドに送信（seatIdは領収書印刷では不要なので0を使用）
-        sendPrintCommandsToFrontend(printerIp, 0, commands.toString());
+        String baseLabel = (menu.getReceiptLabel() != null && !menu.getReceiptLabel().isBlank())
+                ? menu.getReceiptLabel()
+                : menu.getMenuName();
+        return baseLabel + optionSuffix;
+    }
+
+    // 金額の印字形式（例: \1,280）
+    private static String yen(long amount) {
+        return "\\" + String.format("%,d", amount);
     }
 
     // JSONコマンドをフロントエンドに送信するヘルパーメソッド
+    // サーバーから直接送信する設定（print.transport.mode=tcp）の場合はプリンターへ送り、送信できなかった場合のみ端末経由で送る
     public void sendPrintCommandsToFrontend(String printerIp, Integer seatId, String jsonCommands) {
+        if (printerTransport.isEnabled()) {
+            printerTransport.submit(printerIp, jsonCommands, () -> sendPrintCommandsToTablet(printerIp, seatId, jsonCommands, null, null));
+            return;
+        }
+        sendPrintCommandsToTablet(printerIp, seatId, jsonCommands, null, null);
+    }
+
+    // 印刷ジョブ（アウトボックス）の伝票1枚分を送信する
+    // 端末は印刷後に受信確認を返す。プリンターへ直接送信した場合は送信の成功をもって受信確認とする
+    public void sendPrintJobPart(PrintMessage message, Integer seatId, Integer printJobId, int part, Runnable onDelivered) {
+        if (printerTransport.isEnabled()) {
+            printerTransport.submit(message.printerIp(), message.jsonCommands(), onDelivered,
+                    () -> sendPrintCommandsToTablet(message.printerIp(), seatId, message.jsonCommands(), printJobId, part));
+            return;
+        }
+        sendPrintCommandsToTablet(message.printerIp(), seatId, message.jsonCommands(), printJobId, part);
+    }
+
+    private void sendPrintCommandsToTablet(String printerIp, Integer seatId, String jsonCommands, Integer printJobId, Integer part) {
         String targetPrinterIp = printerIp; // サンプルコードのIPアドレスを仮に使う
 
-        Map<String, String> payload = new HashMap<>();
+        Map<String, Object> payload = new HashMap<>();
         payload.put("type", "PRINT_COMMANDS");
         payload.put("ip", targetPrinterIp); // フロントエンドがどのプリンターに送るか判断できるようIPも渡す
         payload.put("commands", jsonCommands); // JSON文字列をそのまま渡す
+        if (printJobId != null) {
+            // 印刷後に受信確認を返すためのジョブIDと伝票番号
+            payload.put("jobId", printJobId);
+            payload.put("part", part);
+        }
 
         // WebSocketを通じてフロントエンドにメッセージを送信
         messagingTemplate.convertAndSend("/topic/printer/" + seatId, payload);
 
-        System.out.println("--- フロントエンドへ印刷コマンドを通知 ---");
-        System.out.println("対象IP: " + targetPrinterIp);
-        System.out.println("JSONコマンド:\n" + jsonCommands);
-        System.out.println("-------------------------------------");
+        logger.debug("フロントエンドへ印刷コマンドを通知: seatId={}, 対象IP={}, JSONコマンド:\n{}", seatId, targetPrinterIp, jsonCommands);
     }
     
     private void notifyClientError(Integer seatId, String message) {
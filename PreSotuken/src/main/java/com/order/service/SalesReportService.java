@@ -0,0 +1,203 @@
+package com.order.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.order.dto.HourlySalesDto;
+import com.order.entity.SalesHourlyRollup;
+import com.order.repository.PaymentDetailRepository;
+import com.order.repository.PaymentRepository;
+import com.order.repository.SalesHourlyMenuRollupRepository;
+import com.order.repository.SalesHourlyRollupRepository;
+import com.order.repository.VisitRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 売上分析の時間帯別集計を提供するサービス
+ * 期間の開始・終了が正時の場合は売上集計テーブル（1時間単位）から、それ以外は会計・明細をDB側で集計して結果を返します
+ * 集計テーブルが再構築中・利用不可の場合も会計・明細から集計します
+ */
+@Service
+@RequiredArgsConstructor
+public class SalesReportService {
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentDetailRepository paymentDetailRepository;
+    private final VisitRepository visitRepository;
+    private final SalesHourlyRollupRepository salesHourlyRollupRepository;
+    private final SalesHourlyMenuRollupRepository salesHourlyMenuRollupRepository;
+    private final SalesRollupService salesRollupService;
+
+    /** 売上集計テーブルを参照するか（false の場合は常に会計・明細から集計する） */
+    @Value("${sales.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    /**
+     * 期間内の売上を会計日付・時間帯ごとに集計します
+     * 
+     * @param storeId 店舗ID
+     * @param start 期間の開始日時（含む）
+     * @param end 期間の終了日時（含まない）
+     * @return 会計日付ごとの時間帯別集計（日付順）
+     */
+    public Map<LocalDate, HourlySalesDto> aggregateHourlyByDate(Integer storeId, LocalDateTime start, LocalDateTime end) {
+        Map<LocalDate, HourlySalesDto> result = new TreeMap<>();
+
+        if (canUseRollup(start, end)) {
+            for (SalesHourlyRollup rollup : findRollups(storeId, start, end)) {
+                HourlySalesDto sales = result.computeIfAbsent(rollup.getBucketStart().toLocalDate(), d -> new HourlySalesDto());
+                int hour = rollup.getBucketStart().getHour();
+                sales.addSalesWithTax(hour, rollup.getSalesWithTax());
+                sales.addSalesWithoutTax(hour, rollup.getSalesWithoutTax());
+                sales.addCustomers(hour, rollup.getCustomers());
+            }
+            return result;
+        }
+
+        // 税込売上・来店人数（会計単位）
+        for (Object[] row : paymentRepository.sumHourlySalesByPaymentTime(storeId, start, end)) {
+            HourlySalesDto sales = result.computeIfAbsent(toDate(row), d -> new HourlySalesDto());
+            int hour = ((Number) row[3]).intValue();
+            sales.addSalesWithTax(hour, ((Number) row[4]).doubleValue());
+            sales.addCustomers(hour, ((Number) row[5]).intValue());
+        }
+
+        // 税抜売上（明細単位）
+        for (Object[] row : paymentDetailRepository.sumHourlySubtotalByPaymentTime(storeId, start, end)) {
+            HourlySalesDto sales = result.computeIfAbsent(toDate(row), d -> new HourlySalesDto());
+            sales.addSalesWithoutTax(((Number) row[3]).intValue(), ((Number) row[4]).doubleValue());
+        }
+
+        return result;
+    }
+
+    /**
+     * 期間内の売上を時間帯ごとに集計します（日付をまたぐ場合は同じ時間帯に合算）
+     * 
+     * @param storeId 店舗ID
+     * @param start 期間の開始日時（含む）
+     * @param end 期間の終了日時（含まない）
+     * @return 時間帯別集計
+     */
+    public HourlySalesDto aggregateHourly(Integer storeId, LocalDateTime start, LocalDateTime end) {
+        HourlySalesDto merged = new HourlySalesDto();
+        aggregateHourlyByDate(storeId, start, end).values().forEach(merged::add);
+        return merged;
+    }
+
+    /**
+     * 期間内のメニュー別販売数を集計します（取消を除く）
+     * 
+     * @param storeId 店舗ID
+     * @param start 期間の開始日時（含む）
+     * @param end 期間の終了日時（含まない）
+     * @return [メニュー名, 数量, 税抜売上, 税込売上] のリスト（メニュー名順）
+     */
+    public List<Object[]> sumMenuQuantity(Integer storeId, LocalDateTime start, LocalDateTime end) {
+        if (canUseRollup(start, end)) {
+            return salesHourlyMenuRollupRepository.sumMenuQuantityByRange(storeId, start, end);
+        }
+        return paymentDetailRepository.sumMenuQuantityByTime(storeId, start, end);
+    }
+
+    /**
+     * 期間内の客数を返します（取消を除く、点検用）
+     * 
+     * @param storeId 店舗ID
+     * @param start 期間の開始日時（含む）
+     * @param end 期間の終了日時（含まない）
+     * @return 客数
+     */
+    public Long sumNetCustomers(Integer storeId, LocalDateTime start, LocalDateTime end) {
+        if (canUseRollup(start, end)) {
+            long total = 0;
+            for (SalesHourlyRollup rollup : findRollups(storeId, start, end)) {
+                total += rollup.getNetCustomers();
+            }
+            return total;
+        }
+        return visitRepository.sumNumberOfPeopleByPaymentTime(storeId, start, end);
+    }
+
+    /**
+     * 時間帯別集計を画面表示用の行データ（累計・客単価を含む）に変換します
+     * 
+     * @param sales 時間帯別集計
+     * @return 0時〜23時の行データ
+     */
+    public List<Map<String, Object>> buildHourlyRows(HourlySalesDto sales) {
+        List<Map<String, Object>> hourlyData = new ArrayList<>();
+        double cumulativeWithTax = 0;
+        double cumulativeWithoutTax = 0;
+        for (int i = 0; i < HourlySalesDto.HOURS; i++) {
+            double withTax = sales.getSalesWithTax()[i];
+            double withoutTax = sales.getSalesWithoutTax()[i];
+            int customers = sales.getCustomers()[i];
+            cumulativeWithTax += withTax;
+            cumulativeWithoutTax += withoutTax;
+            Map<String, Object> m = new HashMap<>();
+            m.put("hour", i);
+            m.put("customers", customers);
+            m.put("customerUnitPriceWithTax", customers > 0 ? withTax / customers : 0);
+            m.put("customerUnitPriceWithoutTax", customers > 0 ? withoutTax / customers : 0);
+            m.put("hourSalesWithTax", withTax);
+            m.put("hourSalesWithoutTax", withoutTax);
+            m.put("cumulativeSalesWithTax", cumulativeWithTax);
+            m.put("cumulativeSalesWithoutTax", cumulativeWithoutTax);
+            hourlyData.add(m);
+        }
+        return hourlyData;
+    }
+
+    /**
+     * 時間帯別集計の合計行を作成します
+     * 
+     * @param sales 時間帯別集計
+     * @return 合計行（hour = -1）
+     */
+    public Map<String, Object> buildTotalRow(HourlySalesDto sales) {
+        double totalWithTax = sales.getTotalSalesWithTax();
+        double totalWithoutTax = sales.getTotalSalesWithoutTax();
+        int totalCustomers = sales.getTotalCustomers();
+
+        Map<String, Object> totalRow = new HashMap<>();
+        totalRow.put("hour", -1); // 合計行を識別するための特殊値
+        totalRow.put("customers", totalCustomers);
+        totalRow.put("customerUnitPriceWithTax", totalCustomers > 0 ? totalWithTax / totalCustomers : 0);
+        totalRow.put("customerUnitPriceWithoutTax", totalCustomers > 0 ? totalWithoutTax / totalCustomers : 0);
+        totalRow.put("hourSalesWithTax", totalWithTax);
+        totalRow.put("hourSalesWithoutTax", totalWithoutTax);
+        totalRow.put("cumulativeSalesWithTax", totalWithTax);
+        totalRow.put("cumulativeSalesWithoutTax", totalWithoutTax);
+        return totalRow;
+    }
+
+    /**
+     * 売上集計テーブルは1時間単位のため、期間の開始・終了がどちらも正時で、集計テーブルが利用可能な場合のみ使用します
+     */
+    private boolean canUseRollup(LocalDateTime start, LocalDateTime end) {
+        return rollupEnabled && isOnTheHour(start) && isOnTheHour(end) && salesRollupService.isAvailable();
+    }
+
+    private static boolean isOnTheHour(LocalDateTime time) {
+        return time.getMinute() == 0 && time.getSecond() == 0 && time.getNano() == 0;
+    }
+
+    private List<SalesHourlyRollup> findRollups(Integer storeId, LocalDateTime start, LocalDateTime end) {
+        return salesHourlyRollupRepository
+                .findByStoreIdAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(storeId, start, end);
+    }
+
+    private static LocalDate toDate(Object[] row) {
+        return LocalDate.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+    }
+}
@@ -0,0 +1,62 @@
+package com.order.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.order.repository.PaymentRepository;
+import com.order.repository.SalesHourlyRollupRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 起動時に売上集計テーブルを再構築するランナー
+ * 起動引数 --rebuild-sales-rollup を指定した場合、または集計テーブルが空で会計データがある場合（導入直後）に
+ * 全店舗・全期間の集計を会計データから作り直します
+ *
+ * 起動を遅らせないよう再構築は別スレッドで行い、再構築中と失敗時（集計テーブルが未作成の場合など）は
+ * 集計テーブルを利用不可にして、売上分析は会計・明細から集計します
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesRollupRebuildRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupRebuildRunner.class);
+
+    static final String REBUILD_OPTION = "rebuild-sales-rollup";
+
+    private final SalesRollupService salesRollupService;
+    private final SalesHourlyRollupRepository salesHourlyRollupRepository;
+    private final PaymentRepository paymentRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        boolean requested = args.containsOption(REBUILD_OPTION);
+        Thread thread = new Thread(() -> rebuildIfNeeded(requested), "sales-rollup-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 必要な場合に集計テーブルを再構築します
+     *
+     * @param requested 起動引数で再構築が指定された場合は true
+     */
+    void rebuildIfNeeded(boolean requested) {
+        try {
+            if (!requested && (salesHourlyRollupRepository.count() > 0 || paymentRepository.count() == 0)) {
+                return;
+            }
+            salesRollupService.markRebuildStarted();
+            logger.info("売上集計テーブルの再構築を開始します（{}）", requested ? "起動引数による指定" : "集計テーブルが空のため");
+            int buckets = salesRollupService.rebuildAll();
+            salesRollupService.markRebuildCompleted();
+            logger.info("売上集計テーブルの再構築が完了しました: 時間帯={}件", buckets);
+        } catch (RuntimeException e) {
+            salesRollupService.markRebuildFailed();
+            logger.error("売上集計テーブルを利用できません。売上分析は会計・明細から集計します", e);
+        }
+    }
+}
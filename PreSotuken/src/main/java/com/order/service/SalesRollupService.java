@@ -0,0 +1,317 @@
+package com.order.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.order.config.NewTransactionTemplate;
+import com.order.entity.SalesHourlyMenuRollup;
+import com.order.entity.SalesHourlyRollup;
+import com.order.entity.Store;
+import com.order.event.SalesChangedEvent;
+import com.order.repository.PaymentDetailRepository;
+import com.order.repository.PaymentRepository;
+import com.order.repository.SalesHourlyMenuRollupRepository;
+import com.order.repository.SalesHourlyRollupRepository;
+import com.order.repository.StoreRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 売上集計テーブル（sales_hourly_rollup / sales_hourly_menu_rollup）を維持するサービス
+ * 会計の変更イベントを受けて、コミット後に影響する1時間単位の集計だけを会計・明細から再計算します
+ * 再計算は時間帯ごとの置き換えのため、同じ時間帯を何度再計算しても結果は変わりません
+ * 更新に失敗した時間帯は記録して再試行し、再構築中・再構築の失敗後・再試行待ちの時間帯がある間は集計テーブルを利用不可とします
+ */
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    /** 再構築時に1回のトランザクションで再計算する期間 */
+    private static final int REBUILD_CHUNK_DAYS = 7;
+
+    private final SalesHourlyRollupRepository salesHourlyRollupRepository;
+    private final SalesHourlyMenuRollupRepository salesHourlyMenuRollupRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentDetailRepository paymentDetailRepository;
+    private final StoreRepository storeRepository;
+    /** コミット後のイベントから呼ばれるため、発行元のトランザクションに参加しないよう常に新しいトランザクションで書き込む */
+    private final NewTransactionTemplate newTransactionTemplate;
+
+    /** 同じ店舗の再計算が並行して削除・登録を行わないようにするためのロック */
+    private final Map<Integer, Object> storeLocks = new ConcurrentHashMap<>();
+
+    /** 全店舗の再構築中か */
+    private volatile boolean rebuilding;
+    /** 全店舗の再構築に失敗したか（次に再構築が完了するまで集計テーブルを使わない） */
+    private volatile boolean rebuildFailed;
+
+    /**
+     * 更新に失敗した時間帯（店舗ID → (時間帯の開始 → 失敗の世代)）
+     * 再試行の間に同じ時間帯の更新が再び失敗した場合に記録を消さないよう、失敗ごとに世代を進めます
+     */
+    private final Map<Integer, Map<LocalDateTime, Long>> failedHours = new ConcurrentHashMap<>();
+    private final AtomicLong failureGeneration = new AtomicLong();
+
+    /**
+     * 会計の変更をコミット後に集計テーブルへ反映します（トランザクション外で発行された場合は即時）
+     * 反映に失敗しても会計処理自体には影響させず、失敗した時間帯を記録して後で再試行します（再試行が成功するまで集計テーブルは利用不可）
+     *
+     * @param event 売上変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSalesChanged(SalesChangedEvent event) {
+        if (event.getStoreId() == null || event.getPaymentTimes().isEmpty()) {
+            return;
+        }
+        try {
+            refreshHours(event.getStoreId(), event.getPaymentTimes());
+        } catch (RuntimeException e) {
+            recordFailure(event.getStoreId(), event.getPaymentTimes());
+            logger.error("売上集計テーブルの更新に失敗しました。再試行が成功するまで売上分析は会計・明細から集計します: storeId={}, 会計日時={}",
+                    event.getStoreId(), event.getPaymentTimes(), e);
+            return;
+        }
+        // 同じ店舗の失敗した時間帯が残っていれば、DBが復旧している可能性が高いため続けて再試行する
+        retryFailedHours(event.getStoreId());
+    }
+
+    /**
+     * 更新に失敗した時間帯を再試行します
+     */
+    @Scheduled(fixedDelayString = "${sales.rollup.retry-interval-ms:60000}",
+               initialDelayString = "${sales.rollup.retry-interval-ms:60000}")
+    public void retryFailedHours() {
+        for (Integer storeId : failedHours.keySet()) {
+            retryFailedHours(storeId);
+        }
+    }
+
+    /**
+     * 集計テーブルを売上分析に使用できるかを返します
+     *
+     * @return 再構築中・再構築の失敗後でなく、再試行待ちの時間帯がない場合は true
+     */
+    public boolean isAvailable() {
+        return !rebuilding && !rebuildFailed && failedHours.values().stream().allMatch(Map::isEmpty);
+    }
+
+    /**
+     * 全店舗の再構築の開始を記録します（完了するまで集計テーブルは利用不可）
+     */
+    public void markRebuildStarted() {
+        rebuilding = true;
+    }
+
+    /**
+     * 全店舗の再構築の完了を記録します
+     * 再構築中に更新に失敗した時間帯は、再構築がその時間帯を処理した後に失敗した可能性があるため、再試行が成功するまで利用不可のままです
+     */
+    public void markRebuildCompleted() {
+        rebuildFailed = false;
+        rebuilding = false;
+    }
+
+    /**
+     * 全店舗の再構築の失敗（集計テーブルが未作成の場合を含む）を記録します。次に再構築が完了するまで集計テーブルは利用不可です
+     */
+    public void markRebuildFailed() {
+        rebuildFailed = true;
+        rebuilding = false;
+    }
+
+    private void recordFailure(Integer storeId, Iterable<LocalDateTime> paymentTimes) {
+        long generation = failureGeneration.incrementAndGet();
+        Map<LocalDateTime, Long> hours = failedHours.computeIfAbsent(storeId, id -> new ConcurrentHashMap<>());
+        for (LocalDateTime time : paymentTimes) {
+            hours.put(time.truncatedTo(ChronoUnit.HOURS), generation);
+        }
+    }
+
+    private void retryFailedHours(Integer storeId) {
+        Map<LocalDateTime, Long> hours = failedHours.get(storeId);
+        if (hours == null || hours.isEmpty()) {
+            return;
+        }
+        Map<LocalDateTime, Long> retrying = new HashMap<>(hours);
+        try {
+            refreshHours(storeId, retrying.keySet());
+        } catch (RuntimeException e) {
+            logger.warn("売上集計テーブルの更新の再試行に失敗しました: storeId={}, 時間帯={}, error={}",
+                    storeId, retrying.keySet(), e.getMessage());
+            return;
+        }
+        // 再試行の間に再び失敗した時間帯（世代が変わったもの）は残す
+        retrying.forEach(hours::remove);
+        logger.info("売上集計テーブルの更新の再試行に成功しました: storeId={}, 時間帯={}", storeId, retrying.keySet());
+    }
+
+    /**
+     * 指定された会計日時を含む時間帯を再計算します
+     * 同じ来店の他の会計（分割会計など）がある時間帯も、客数の振り分けが変わるため合わせて再計算します
+     *
+     * @param storeId 店舗ID
+     * @param paymentTimes 会計日時
+     */
+    public void refreshHours(Integer storeId, Iterable<LocalDateTime> paymentTimes) {
+        TreeSet<LocalDateTime> hours = new TreeSet<>();
+        for (LocalDateTime time : paymentTimes) {
+            LocalDateTime hour = time.truncatedTo(ChronoUnit.HOURS);
+            hours.add(hour);
+            for (LocalDateTime related : paymentRepository.findPaymentTimesOfVisitsPaidBetween(
+                    storeId, hour, hour.plusHours(1))) {
+                hours.add(related.truncatedTo(ChronoUnit.HOURS));
+            }
+        }
+        for (LocalDateTime hour : hours) {
+            recompute(storeId, hour, hour.plusHours(1));
+        }
+        logger.debug("売上集計テーブルを更新しました: storeId={}, 時間帯={}", storeId, hours);
+    }
+
+    /**
+     * 全店舗の集計テーブルを会計の全期間について再構築します（過去データの取り込み用）
+     *
+     * @return 再構築した時間帯の件数
+     */
+    public int rebuildAll() {
+        int buckets = 0;
+        for (Store store : storeRepository.findAll()) {
+            buckets += rebuild(store.getStoreId(), null, null);
+        }
+        return buckets;
+    }
+
+    /**
+     * 店舗の集計テーブルを指定期間について再構築します
+     *
+     * @param storeId 店舗ID
+     * @param from 開始日時（含む）。null の場合は最初の会計から
+     * @param to 終了日時（含まない）。null の場合は最後の会計まで
+     * @return 再構築した時間帯の件数
+     */
+    public int rebuild(Integer storeId, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            List<Object[]> range = paymentRepository.findPaymentTimeRange(storeId);
+            if (range.isEmpty() || range.get(0)[0] == null) {
+                return 0;
+            }
+            if (from == null) {
+                from = (LocalDateTime) range.get(0)[0];
+            }
+            if (to == null) {
+                to = ((LocalDateTime) range.get(0)[1]).truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            }
+        }
+        from = from.truncatedTo(ChronoUnit.HOURS);
+
+        long start = System.nanoTime();
+        int buckets = 0;
+        for (LocalDateTime chunkStart = from; chunkStart.isBefore(to); chunkStart = chunkStart.plusDays(REBUILD_CHUNK_DAYS)) {
+            LocalDateTime chunkEnd = chunkStart.plusDays(REBUILD_CHUNK_DAYS);
+            buckets += recompute(storeId, chunkStart, chunkEnd.isBefore(to) ? chunkEnd : to);
+        }
+        logger.info("売上集計テーブルを再構築しました: storeId={}, 期間={}〜{}, 時間帯={}件, 所要時間={}ms",
+                storeId, from, to, buckets, (System.nanoTime() - start) / 1_000_000);
+        return buckets;
+    }
+
+    /**
+     * 期間内の集計を会計・明細から再計算して置き換えます
+     *
+     * @param storeId 店舗ID
+     * @param start 開始日時（含む、正時）
+     * @param end 終了日時（含まない）
+     * @return 登録した時間帯の件数
+     */
+    int recompute(Integer storeId, LocalDateTime start, LocalDateTime end) {
+        synchronized (storeLocks.computeIfAbsent(storeId, id -> new Object())) {
+            Integer count = newTransactionTemplate.execute(status -> {
+                salesHourlyRollupRepository.deleteByStoreIdAndRange(storeId, start, end);
+                salesHourlyMenuRollupRepository.deleteByStoreIdAndRange(storeId, start, end);
+
+                List<SalesHourlyRollup> rollups = new ArrayList<>(buildHourlyRollups(storeId, start, end).values());
+                salesHourlyRollupRepository.saveAll(rollups);
+                salesHourlyMenuRollupRepository.saveAll(buildMenuRollups(storeId, start, end));
+                return rollups.size();
+            });
+            return count != null ? count : 0;
+        }
+    }
+
+    private Map<LocalDateTime, SalesHourlyRollup> buildHourlyRollups(Integer storeId, LocalDateTime start, LocalDateTime end) {
+        Map<LocalDateTime, SalesHourlyRollup> rollups = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        // 税込売上・来店人数（会計単位、取消を含む）
+        for (Object[] row : paymentRepository.sumHourlySalesByPaymentTime(storeId, start, end)) {
+            SalesHourlyRollup rollup = rollups.computeIfAbsent(toBucketStart(row), b -> newRollup(storeId, b, now));
+            rollup.setSalesWithTax(((Number) row[4]).doubleValue());
+            rollup.setCustomers(((Number) row[5]).intValue());
+        }
+
+        // 税抜売上（明細単位）
+        for (Object[] row : paymentDetailRepository.sumHourlySubtotalByPaymentTime(storeId, start, end)) {
+            SalesHourlyRollup rollup = rollups.computeIfAbsent(toBucketStart(row), b -> newRollup(storeId, b, now));
+            rollup.setSalesWithoutTax(((Number) row[4]).doubleValue());
+        }
+
+        // 客数（取消を除き、来店ごとに最初の会計の時間帯で数える）
+        for (Object[] row : paymentRepository.findFirstPaymentTimeByVisit(storeId, start, end)) {
+            LocalDateTime firstPaymentTime = (LocalDateTime) row[1];
+            if (firstPaymentTime == null || firstPaymentTime.isBefore(start) || !firstPaymentTime.isBefore(end)) {
+                continue;
+            }
+            LocalDateTime bucket = firstPaymentTime.truncatedTo(ChronoUnit.HOURS);
+            SalesHourlyRollup rollup = rollups.computeIfAbsent(bucket, b -> newRollup(storeId, b, now));
+            rollup.setNetCustomers(rollup.getNetCustomers() + (row[2] != null ? ((Number) row[2]).intValue() : 0));
+        }
+        return rollups;
+    }
+
+    private List<SalesHourlyMenuRollup> buildMenuRollups(Integer storeId, LocalDateTime start, LocalDateTime end) {
+        List<SalesHourlyMenuRollup> rollups = new ArrayList<>();
+        for (Object[] row : paymentDetailRepository.sumRollupMenuQuantityByHour(storeId, start, end)) {
+            SalesHourlyMenuRollup rollup = new SalesHourlyMenuRollup();
+            rollup.setStoreId(storeId);
+            rollup.setBucketStart(toBucketStart(row));
+            rollup.setMenuName((String) row[4]);
+            rollup.setQuantity(((Number) row[5]).intValue());
+            rollup.setSalesWithoutTax(((Number) row[6]).doubleValue());
+            rollup.setSalesWithTax(((Number) row[7]).doubleValue());
+            rollups.add(rollup);
+        }
+        return rollups;
+    }
+
+    private static SalesHourlyRollup newRollup(Integer storeId, LocalDateTime bucketStart, LocalDateTime now) {
+        SalesHourlyRollup rollup = new SalesHourlyRollup();
+        rollup.setStoreId(storeId);
+        rollup.setBucketStart(bucketStart);
+        rollup.setSalesWithTax(0.0);
+        rollup.setSalesWithoutTax(0.0);
+        rollup.setCustomers(0);
+        rollup.setNetCustomers(0);
+        rollup.setUpdatedAt(now);
+        return rollup;
+    }
+
+    private static LocalDateTime toBucketStart(Object[] row) {
+        return LocalDateTime.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue(),
+                ((Number) row[2]).intValue(), ((Number) row[3]).intValue(), 0);
+    }
+}
@@ -0,0 +1,207 @@
+package com.order.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.order.event.SeatBoardChangedEvent;
+import com.order.repository.VisitRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * 店舗ごとの座席ボード（来店中の座席の人数・来店日時・合計金額）をメモリ上に保持するサービス
+ * 座席一覧の端末は最初に全体を取得し、その後は /topic/stores/{storeId}/seats に送られる差分で表示を更新します
+ *
+ * - 来店・退店・注文・会計のイベントを受けて、コミット後に該当座席だけを読み直します
+ * - イベントを通らない変更（直接のデータ修正など）は定期的な再読み込みで反映します
+ * - 経過時間は来店日時から端末側で計算するため、時間の経過だけでは通知しません
+ * - DBの読み込みから反映・通知までを店舗ごとのロックの中で行い、先に始まった遅い読み込みが新しい状態を上書きしないようにします
+ */
+@Service
+@RequiredArgsConstructor
+public class SeatBoardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeatBoardService.class);
+
+    private final VisitRepository visitRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /** 店舗ID → 座席ボード（マップへの登録ではDBを読まず、読み込みは店舗ごとのロックの中で行う） */
+    private final Map<Integer, StoreBoard> boards = new ConcurrentHashMap<>();
+
+    /**
+     * 店舗の座席ボードを取得します。未読み込みの場合はDBから読み込んで保持します
+     * 差分の通知と同じ形式（座席ID・来店中か・来店ID・人数・来店日時・合計金額）で返します
+     *
+     * @param storeId 店舗ID
+     * @return 来店中の座席の状態のリスト
+     */
+    public List<Map<String, Object>> getBoard(Integer storeId) {
+        StoreBoard board = boards.computeIfAbsent(storeId, id -> new StoreBoard());
+        synchronized (board) {
+            if (!board.loaded) {
+                board.tiles.putAll(loadTiles(storeId, null));
+                board.loaded = true;
+                logger.info("座席ボードを読み込みました: storeId={}, 来店中の座席={}件", storeId, board.tiles.size());
+            }
+            return board.tiles.values().stream().map(SeatTile::toPayload).toList();
+        }
+    }
+
+    /**
+     * 座席の変更をコミット後に反映します（トランザクション外で発行された場合は即時）
+     * 座席ボードを読み込んでいない店舗は、次に参照されたときに読み込むため何もしません
+     * 最初の読み込み中に届いた変更は、読み込みの完了を待ってから読み直して反映します
+     *
+     * @param event 座席ボード変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatBoardChanged(SeatBoardChangedEvent event) {
+        StoreBoard board = boards.get(event.getStoreId());
+        if (board == null) {
+            return;
+        }
+        try {
+            synchronized (board) {
+                if (!board.loaded) {
+                    return;
+                }
+                Map<Integer, SeatTile> loaded = loadTiles(event.getStoreId(), event.getSeatId());
+                apply(event.getStoreId(), board, Set.of(event.getSeatId()), loaded);
+            }
+        } catch (RuntimeException e) {
+            // 反映できなかった変更は定期的な再読み込みで反映される
+            logger.error("座席ボードの更新に失敗しました。storeId: {}, seatId: {}, error: {}",
+                    event.getStoreId(), event.getSeatId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 読み込み済みの全店舗の座席ボードをDBから読み直し、変化した座席を通知します
+     */
+    @Scheduled(fixedDelayString = "${seat-board.resync-interval-ms:300000}",
+               initialDelayString = "${seat-board.resync-interval-ms:300000}")
+    public void resync() {
+        for (Map.Entry<Integer, StoreBoard> entry : boards.entrySet()) {
+            Integer storeId = entry.getKey();
+            StoreBoard board = entry.getValue();
+            try {
+                synchronized (board) {
+                    if (!board.loaded) {
+                        continue;
+                    }
+                    Map<Integer, SeatTile> loaded = loadTiles(storeId, null);
+                    Set<Integer> seatIds = new HashSet<>(board.tiles.keySet());
+                    seatIds.addAll(loaded.keySet());
+                    apply(storeId, board, seatIds, loaded);
+                }
+            } catch (RuntimeException e) {
+                logger.error("座席ボードの再読み込みに失敗しました。storeId: {}, error: {}", storeId, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 来店中の座席の状態をDBから読み込みます（同じ座席に複数の来店がある場合は最新の来店）
+     */
+    private Map<Integer, SeatTile> loadTiles(Integer storeId, Integer seatId) {
+        Map<Integer, SeatTile> tiles = new LinkedHashMap<>();
+        for (Object[] row : visitRepository.findSeatBoardRows(storeId, seatId)) {
+            SeatTile tile = new SeatTile(
+                    (Integer) row[0],
+                    (Integer) row[1],
+                    (Integer) row[2],
+                    toEpochMillis((LocalDateTime) row[3]),
+                    ((Number) row[4]).intValue());
+            tiles.put(tile.getSeatId(), tile);
+        }
+        return tiles;
+    }
+
+    /**
+     * 指定座席の状態を読み込んだ内容で置き換え、変化した座席を店舗の端末へ通知します
+     * 通知の順序が反映の順序と入れ替わらないよう、店舗のロックを保持したまま呼び出します
+     */
+    private void apply(Integer storeId, StoreBoard board, Set<Integer> seatIds, Map<Integer, SeatTile> loaded) {
+        List<Map<String, Object>> changes = new ArrayList<>();
+        for (Integer seatId : seatIds) {
+            SeatTile tile = loaded.get(seatId);
+            SeatTile previous = tile != null ? board.tiles.put(seatId, tile) : board.tiles.remove(seatId);
+            if (!Objects.equals(previous, tile)) {
+                changes.add(tile != null ? tile.toPayload() : SeatTile.vacant(seatId));
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", "SEAT_BOARD");
+        payload.put("storeId", storeId);
+        payload.put("serverTime", System.currentTimeMillis());
+        payload.put("seats", changes);
+        messagingTemplate.convertAndSend("/topic/stores/" + storeId + "/seats", payload);
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 店舗の座席ボード（このオブジェクトを店舗のロックとして使う）
+     */
+    private static class StoreBoard {
+        /** 座席ID → 来店中の座席の状態 */
+        final Map<Integer, SeatTile> tiles = new LinkedHashMap<>();
+        /** DBから読み込み済みか */
+        boolean loaded;
+    }
+
+    /**
+     * 来店中の座席の状態
+     */
+    @Value
+    private static class SeatTile {
+        Integer seatId;
+        Integer visitId;
+        Integer numberOfPeople;
+        /** 来店日時（エポックミリ秒。経過時間は端末側で計算する） */
+        long visitTime;
+        /** 親会計の税込合計 */
+        int total;
+
+        Map<String, Object> toPayload() {
+            Map<String, Object> seat = new LinkedHashMap<>();
+            seat.put("seatId", seatId);
+            seat.put("visiting", true);
+            seat.put("visitId", visitId);
+            seat.put("numberOfPeople", numberOfPeople);
+            seat.put("visitTime", visitTime);
+            seat.put("total", total);
+            return seat;
+        }
+
+        static Map<String, Object> vacant(Integer seatId) {
+            Map<String, Object> seat = new LinkedHashMap<>();
+            seat.put("seatId", seatId);
+            seat.put("visiting", false);
+            return seat;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.order.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.order.event.MenuCatalogChangedEvent;
+import com.order.event.SoldOutChangedEvent;
+import com.order.repository.MenuRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 店舗ごとの品切れ中のメニュー（メニューID → メニュー名）を保持する登録簿
+ * 注文確定時の品切れチェックをDBに問い合わせずに行い、品切れの変更を /topic/stores/{storeId}/menu へ差分で通知します
+ *
+ * - 品切れの変更（SoldOutChangedEvent）はDBを読み直さずにイベントの内容をコミット後に反映します
+ * - その他のメニューの変更（編集画面での品切れ設定・削除など）は、読み込み済みの店舗を読み直して差分を通知します
+ * - 他のサーバーが受けた変更などは一定間隔の読み直しで反映します
+ * - DBの読み込み中に品切れの変更が反映された場合は、読み込んだ（古い可能性のある）内容で上書きしません
+ */
+@Component
+@RequiredArgsConstructor
+public class SoldOutRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SoldOutRegistry.class);
+
+    private final MenuRepository menuRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /** 店舗ID → (品切れ中のメニューID → メニュー名) */
+    private final Map<Integer, Map<Integer, String>> soldOutMenus = new ConcurrentHashMap<>();
+
+    /**
+     * 店舗ID → 品切れ変更イベントを反映した回数
+     * DBからの読み込みの前後で変わっていた場合、読み込んだ内容を保持しないために使います
+     */
+    private final Map<Integer, Long> storeVersions = new ConcurrentHashMap<>();
+
+    /**
+     * 指定メニューのうち品切れ中のものを探します。店舗が未読み込みの場合はDBから読み込んで保持します
+     *
+     * @param storeId 店舗ID
+     * @param menuIds メニューIDのリスト
+     * @return 最初に見つかった品切れ中のメニューの名前（品切れ中のメニューがない場合は空）
+     */
+    public Optional<String> findSoldOutMenuName(Integer storeId, Collection<Integer> menuIds) {
+        Map<Integer, String> menus = soldOutMenus.get(storeId);
+        if (menus == null) {
+            menus = loadAndRegister(storeId);
+        }
+        return menuIds.stream()
+                .map(menus::get)
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
+
+    /**
+     * メニューの変更をコミット後に反映します（トランザクション外で発行された場合は即時）
+     *
+     * @param event メニューカタログ変更イベント（品切れ変更イベントを含む）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuCatalogChanged(MenuCatalogChangedEvent event) {
+        if (event instanceof SoldOutChangedEvent soldOutEvent) {
+            apply(soldOutEvent);
+            return;
+        }
+        Collection<Integer> storeIds = event.getStoreId() != null
+                ? List.of(event.getStoreId())
+                : List.copyOf(soldOutMenus.keySet());
+        for (Integer storeId : storeIds) {
+            reload(storeId);
+        }
+    }
+
+    /**
+     * 読み込み済みの全店舗の品切れ状態をDBから読み直し、変化したメニューを通知します
+     */
+    @Scheduled(fixedDelayString = "${sold-out.resync-interval-ms:60000}",
+               initialDelayString = "${sold-out.resync-interval-ms:60000}")
+    public void resync() {
+        for (Integer storeId : List.copyOf(soldOutMenus.keySet())) {
+            reload(storeId);
+        }
+    }
+
+    /**
+     * 品切れ変更イベントの内容を反映し、変更されたメニューを通知します
+     * 店舗が未読み込みの場合も、表示中の端末のために通知は送ります
+     */
+    private void apply(SoldOutChangedEvent event) {
+        // 読み込み中の内容を登録・反映させないよう、登録簿を取得する前に回数を進める
+        storeVersions.merge(event.getStoreId(), 1L, Long::sum);
+        Map<Integer, String> menus = soldOutMenus.get(event.getStoreId());
+        if (menus != null) {
+            synchronized (menus) {
+                if (event.isSoldOut()) {
+                    menus.putAll(event.getMenus());
+                } else {
+                    menus.keySet().removeAll(event.getMenus().keySet());
+                }
+            }
+        }
+        List<Integer> menuIds = List.copyOf(event.getMenus().keySet());
+        notifyChanged(event.getStoreId(), event.isSoldOut() ? menuIds : List.of(), event.isSoldOut() ? List.of() : menuIds);
+    }
+
+    /**
+     * 読み込み済みの店舗の品切れ状態をDBから読み直し、変化したメニューを通知します
+     * 読み込み中に品切れ変更イベントが反映された場合は、読み込んだ内容を捨てて次の読み直しに任せます
+     */
+    private void reload(Integer storeId) {
+        Map<Integer, String> menus = soldOutMenus.get(storeId);
+        if (menus == null) {
+            return;
+        }
+        try {
+            long version = storeVersions.getOrDefault(storeId, 0L);
+            Map<Integer, String> loaded = load(storeId);
+            List<Integer> soldOut = new ArrayList<>();
+            List<Integer> available = new ArrayList<>();
+            synchronized (menus) {
+                if (storeVersions.getOrDefault(storeId, 0L) != version) {
+                    logger.debug("読み込み中に品切れの変更が反映されたため、読み直した内容を破棄しました。storeId: {}", storeId);
+                    return;
+                }
+                loaded.keySet().stream().filter(menuId -> !menus.containsKey(menuId)).forEach(soldOut::add);
+                menus.keySet().stream().filter(menuId -> !loaded.containsKey(menuId)).forEach(available::add);
+                menus.putAll(loaded);
+                menus.keySet().retainAll(loaded.keySet());
+            }
+            notifyChanged(storeId, soldOut, available);
+        } catch (RuntimeException e) {
+            // 反映できなかった変更は次の読み直しで反映される
+            logger.error("品切れ状態の読み直しに失敗しました。storeId: {}, error: {}", storeId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 店舗の品切れ状態をDBから読み込み、読み込み中に品切れの変更がなければ登録簿に保持します
+     * 変更があった場合は、変更のコミット後の状態をDBから読み直して返します（保持は次の参照に任せます）
+     */
+    private Map<Integer, String> loadAndRegister(Integer storeId) {
+        long version = storeVersions.getOrDefault(storeId, 0L);
+        Map<Integer, String> loaded = load(storeId);
+        Map<Integer, String> registered = soldOutMenus.compute(storeId, (id, current) -> {
+            if (current != null) {
+                return current;
+            }
+            return storeVersions.getOrDefault(id, 0L) == version ? loaded : null;
+        });
+        return registered != null ? registered : load(storeId);
+    }
+
+    private Map<Integer, String> load(Integer storeId) {
+        Map<Integer, String> menus = new ConcurrentHashMap<>();
+        for (Object[] row : menuRepository.findSoldOutMenuRows(storeId)) {
+            menus.put((Integer) row[0], Objects.toString(row[1], ""));
+        }
+        return menus;
+    }
+
+    /**
+     * 品切れになったメニューと品切れが解除されたメニューを店舗の端末へ通知します
+     */
+    private void notifyChanged(Integer storeId, List<Integer> soldOut, List<Integer> available) {
+        if (soldOut.isEmpty() && available.isEmpty()) {
+            return;
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", "SOLD_OUT_CHANGED");
+        payload.put("storeId", storeId);
+        payload.put("soldOut", soldOut);
+        payload.put("available", available);
+        messagingTemplate.convertAndSend("/topic/stores/" + storeId + "/menu", payload);
+    }
+}
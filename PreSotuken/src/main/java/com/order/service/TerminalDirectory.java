@@ -0,0 +1,89 @@
+package com.order.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.order.entity.Terminal;
+import com.order.event.TerminalChangedEvent;
+import com.order.repository.TerminalRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * 店舗ごとの端末一覧（IPアドレス → 端末）を保持するキャッシュ
+ * ログインや注文待ち画面の再読み込みのたびに端末をDBから検索しないために使います
+ * 端末の登録・更新・削除のイベントを受けて、コミット後に該当店舗の一覧を破棄します
+ */
+@Component
+@RequiredArgsConstructor
+public class TerminalDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(TerminalDirectory.class);
+
+    private final TerminalRepository terminalRepository;
+
+    /** 店舗ID → (IPアドレス → 端末) */
+    private final Map<Integer, Map<String, TerminalEntry>> directories = new ConcurrentHashMap<>();
+
+    /**
+     * IPアドレスから店舗の端末を取得します。店舗の一覧が未読み込みの場合はDBから読み込んで保持します
+     *
+     * @param ipAddress IPアドレス
+     * @param storeId 店舗ID
+     * @return 端末（未登録の場合は空）
+     */
+    public Optional<TerminalEntry> find(String ipAddress, Integer storeId) {
+        Map<String, TerminalEntry> directory = directories.computeIfAbsent(storeId, this::load);
+        return Optional.ofNullable(directory.get(ipAddress));
+    }
+
+    /**
+     * 指定店舗の端末一覧を破棄します
+     *
+     * @param storeId 店舗ID
+     */
+    public void evict(Integer storeId) {
+        directories.remove(storeId);
+    }
+
+    /**
+     * 端末の変更をコミット後に反映します（トランザクション外で発行された場合は即時）
+     *
+     * @param event 端末変更イベント
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTerminalChanged(TerminalChangedEvent event) {
+        evict(event.getStoreId());
+    }
+
+    private Map<String, TerminalEntry> load(Integer storeId) {
+        Map<String, TerminalEntry> directory = new HashMap<>();
+        for (Terminal terminal : terminalRepository.findByStoreStoreId(storeId)) {
+            directory.put(terminal.getIpAddress(), new TerminalEntry(
+                    terminal.getTerminalId(),
+                    terminal.isAdmin(),
+                    terminal.getSeat() != null ? terminal.getSeat().getSeatId() : null));
+        }
+        logger.info("端末一覧を読み込みました: storeId={}, 端末={}件", storeId, directory.size());
+        return directory;
+    }
+
+    /**
+     * 端末（ログイン・注文待ち画面で使う項目のみ）
+     */
+    @Value
+    public static class TerminalEntry {
+        Integer terminalId;
+        boolean admin;
+        /** 座席ID（管理者端末の場合は null） */
+        Integer seatId;
+    }
+}
@@ -2,12 +2,14 @@ package com.order.service;
 
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.order.dto.TerminalCreationDto;
 import com.order.entity.Seat;
 import com.order.entity.Store;
 import com.order.entity.Terminal;
+import com.order.event.TerminalChangedEvent;
 import com.order.repository.SeatRepository;
 import com.order.repository.StoreRepository;
 import com.order.repository.TerminalRepository;
@@ -24,6 +26,7 @@ public class TerminalService {
     private final TerminalRepository terminalRepository;
     private final SeatRepository seatRepository;
     private final StoreRepository storeRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 新しい端末を作成します
@@ -67,6 +70,7 @@ public class TerminalService {
         newTerminal.setAdmin(dto.isAdmin());
 
         terminalRepository.save(newTerminal);
+        eventPublisher.publishEvent(new TerminalChangedEvent(storeId));
     }
 
     /**
@@ -117,6 +121,7 @@ public class TerminalService {
         existingTerminal.setAdmin(dto.isAdmin());
 
         terminalRepository.save(existingTerminal);
+        eventPublisher.publishEvent(new TerminalChangedEvent(storeId));
     }
 
     /**
@@ -140,6 +145,7 @@ public class TerminalService {
         }
 
         terminalRepository.delete(existingTerminal);
+        eventPublisher.publishEvent(new TerminalChangedEvent(storeId));
     }
 
     /**
@@ -0,0 +1,198 @@
+package com.order.service.print;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Base64;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 印刷コマンド（JSON配列）を ESC/POS のバイト列に変換するエンコーダ
+ * 端末の printer.js が ePOS SDK で組み立てる印字と同じになるよう、コマンドごとに対応する ESC/POS を出力します
+ * サーバーからプリンターへ直接送信する場合（TcpPrinterTransport）に使用します
+ */
+public class EscPosEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(EscPosEncoder.class);
+
+    private static final Charset SHIFT_JIS = Charset.forName("Shift_JIS");
+
+    private static final int ESC = 0x1B;
+    private static final int GS = 0x1D;
+    private static final int FS = 0x1C;
+    private static final int LF = 0x0A;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 印刷コマンドを ESC/POS に変換します（先頭でプリンターを初期化します）
+     *
+     * @param jsonCommands 印刷コマンドのJSON配列（入れ子の配列も可）
+     * @return プリンターへ送るバイト列
+     */
+    public byte[] encode(String jsonCommands) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(jsonCommands);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("印刷コマンドのJSONが不正です: " + e.getOriginalMessage(), e);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(jsonCommands.length());
+        bytes(out, ESC, '@');
+        writeCommands(out, root);
+        return out.toByteArray();
+    }
+
+    private void writeCommands(ByteArrayOutputStream out, JsonNode node) {
+        if (node.isArray()) {
+            for (JsonNode child : node) {
+                writeCommands(out, child);
+            }
+        } else {
+            writeCommand(out, node);
+        }
+    }
+
+    private void writeCommand(ByteArrayOutputStream out, JsonNode command) {
+        String api = command.path("api").asText();
+        switch (api) {
+            case "addTextLang" -> {
+                if ("ja".equals(command.path("lang").asText())) {
+                    // 国際文字: 日本、文字コード表: カタカナ、漢字: Shift_JIS
+                    bytes(out, ESC, 'R', 8, ESC, 't', 1, FS, 'C', 1, FS, '&');
+                }
+            }
+            case "addTextFont" -> bytes(out, ESC, 'M', "FONT_B".equalsIgnoreCase(command.path("font").asText()) ? 1 : 0);
+            case "addTextAlign" -> bytes(out, ESC, 'a', align(command.path("align").asText()));
+            case "addTextDouble" -> textDouble(out, command.path("dw").asBoolean(), command.path("dh").asBoolean());
+            case "addTextSize" -> textSize(out, command.path("width").asInt(1), command.path("height").asInt(1));
+            case "addText" -> {
+                // printer.js と同じく、行ごとの指定がなければ左揃えで印字する
+                bytes(out, ESC, 'a', align(command.path("align").asText("left")));
+                if (command.has("dw") && command.has("dh")) {
+                    textDouble(out, command.path("dw").asBoolean(), command.path("dh").asBoolean());
+                }
+                if (command.has("width") && command.has("height")) {
+                    textSize(out, command.path("width").asInt(1), command.path("height").asInt(1));
+                }
+                out.writeBytes(command.path("content").asText().getBytes(SHIFT_JIS));
+                out.write(LF);
+            }
+            case "addFeed" -> out.write(LF);
+            case "addFeedUnit" -> bytes(out, ESC, 'J', Math.max(0, Math.min(255, command.path("unit").asInt())));
+            case "addCut" -> {
+                if ("no_feed".equalsIgnoreCase(command.path("type").asText())) {
+                    bytes(out, GS, 'V', 1);
+                } else {
+                    // 用紙をカット位置まで送ってからパーシャルカット
+                    bytes(out, GS, 'V', 66, 0);
+                }
+            }
+            case "addCommand" -> out.writeBytes(Base64.getDecoder().decode(command.path("data").asText()));
+            case "addLogo" -> bytes(out, GS, '(', 'L', 6, 0, 48, 69, command.path("key1").asInt(), command.path("key2").asInt(), 1, 1);
+            case "addImage" -> image(out, command);
+            case "addSymbol" -> symbol(out, command);
+            case "addSound" -> {
+                // ブザーは機種ごとにコマンドが異なるため送らない
+            }
+            default -> logger.warn("未対応の印刷コマンドのため読み飛ばします: {}", api);
+        }
+    }
+
+    private static int align(String align) {
+        return switch (align.toLowerCase()) {
+            case "center" -> 1;
+            case "right" -> 2;
+            default -> 0;
+        };
+    }
+
+    private static void textDouble(ByteArrayOutputStream out, boolean dw, boolean dh) {
+        bytes(out, GS, '!', (dw ? 0x10 : 0) | (dh ? 0x01 : 0));
+        bytes(out, FS, '!', (dw ? 0x04 : 0) | (dh ? 0x08 : 0));
+    }
+
+    private static void textSize(ByteArrayOutputStream out, int width, int height) {
+        int w = Math.max(1, Math.min(8, width)) - 1;
+        int h = Math.max(1, Math.min(8, height)) - 1;
+        bytes(out, GS, '!', (w << 4) | h);
+    }
+
+    private static void image(ByteArrayOutputStream out, JsonNode command) {
+        String data = command.path("base64Content").asText();
+        if (data.startsWith("data:") && data.indexOf(',') >= 0) {
+            data = data.substring(data.indexOf(',') + 1);
+        }
+        int width = command.path("width").asInt();
+        int height = command.path("height").asInt();
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(Base64.getMimeDecoder().decode(data)));
+            if (image == null || width <= 0 || height <= 0) {
+                logger.warn("画像を認識できないため印字しません");
+                return;
+            }
+            out.writeBytes(PrintLogo.rasterCommand(PrintLogo.rasterize(image, width, height), width, height));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("画像の変換に失敗したため印字しません: {}", e.getMessage());
+        }
+    }
+
+    private static void symbol(ByteArrayOutputStream out, JsonNode command) {
+        String type = command.path("type").asText();
+        String level = command.path("level").asText();
+        byte[] data = command.path("data").asText().getBytes(SHIFT_JIS);
+        int width = command.path("width").asInt(3);
+        int height = command.path("height").asInt(0);
+        if (type.startsWith("pdf417")) {
+            int errorLevel = level.matches("level_[0-8]") ? level.charAt(6) - '0' : 1;
+            bytes(out, GS, '(', 'k', 3, 0, 48, 65, 0);                       // 列数: 自動
+            bytes(out, GS, '(', 'k', 3, 0, 48, 66, 0);                       // 段数: 自動
+            bytes(out, GS, '(', 'k', 3, 0, 48, 67, clamp(width, 2, 8));      // モジュール幅
+            bytes(out, GS, '(', 'k', 3, 0, 48, 68, height > 0 ? clamp(height, 2, 8) : 3); // 段の高さ
+            bytes(out, GS, '(', 'k', 4, 0, 48, 69, 48, 48 + errorLevel);     // 誤り訂正レベル
+            bytes(out, GS, '(', 'k', 3, 0, 48, 70, "pdf417_truncated".equals(type) ? 1 : 0);
+            storeSymbol(out, 48, data);
+            bytes(out, GS, '(', 'k', 3, 0, 48, 81, 48);
+        } else if (type.startsWith("qrcode")) {
+            int errorLevel = switch (level) {
+                case "level_l" -> 48;
+                case "level_q" -> 50;
+                case "level_h" -> 51;
+                default -> 49;
+            };
+            bytes(out, GS, '(', 'k', 4, 0, 49, 65, "qrcode_model_1".equals(type) ? 49 : 50, 0);
+            bytes(out, GS, '(', 'k', 3, 0, 49, 67, clamp(width, 1, 16));     // モジュールサイズ
+            bytes(out, GS, '(', 'k', 3, 0, 49, 69, errorLevel);
+            storeSymbol(out, 49, data);
+            bytes(out, GS, '(', 'k', 3, 0, 49, 81, 48);
+        } else {
+            logger.warn("未対応のシンボルのため読み飛ばします: {}", type);
+        }
+    }
+
+    private static void storeSymbol(ByteArrayOutputStream out, int cn, byte[] data) {
+        int length = data.length + 3;
+        bytes(out, GS, '(', 'k', length & 0xFF, (length >> 8) & 0xFF, cn, 80, 48);
+        out.writeBytes(data);
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static void bytes(ByteArrayOutputStream out, int... values) {
+        for (int value : values) {
+            out.write(value);
+        }
+    }
+}
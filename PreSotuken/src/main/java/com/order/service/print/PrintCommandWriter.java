@@ -0,0 +1,135 @@
+package com.order.service.print;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * 印刷コマンドをJSON配列の要素としてストリームに直接書き出すライタ
+ * コマンドの形式は PrintCommandService が生成する ObjectNode と同じです（フィールドの順序も同一）
+ */
+public class PrintCommandWriter {
+
+    private final JsonGenerator generator;
+
+    public PrintCommandWriter(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * 事前に書き出したコマンド（JSONオブジェクト1件）をそのまま書き込む
+     */
+    public void raw(String commandJson) throws IOException {
+        generator.writeRawValue(commandJson);
+    }
+
+    public void text(String content) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addText");
+        generator.writeStringField("content", content);
+        generator.writeEndObject();
+    }
+
+    public void textAlign(String align) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addTextAlign");
+        generator.writeStringField("align", align);
+        generator.writeEndObject();
+    }
+
+    public void textDouble(boolean dw, boolean dh) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addTextDouble");
+        generator.writeBooleanField("dw", dw);
+        generator.writeBooleanField("dh", dh);
+        generator.writeEndObject();
+    }
+
+    public void feed() throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addFeed");
+        generator.writeEndObject();
+    }
+
+    public void feedUnit(int unit) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addFeedUnit");
+        generator.writeNumberField("unit", unit);
+        generator.writeEndObject();
+    }
+
+    public void cut(String type) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addCut");
+        generator.writeStringField("type", type);
+        generator.writeEndObject();
+    }
+
+    public void sound(String pattern, int repeat) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addSound");
+        generator.writeStringField("pattern", pattern);
+        generator.writeNumberField("repeat", repeat);
+        generator.writeEndObject();
+    }
+
+    public void textLang(String lang) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addTextLang");
+        generator.writeStringField("lang", lang);
+        generator.writeEndObject();
+    }
+
+    public void textFont(String font) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addTextFont");
+        generator.writeStringField("font", font);
+        generator.writeEndObject();
+    }
+
+    public void image(String base64Content, int x, int y, int width, int height, String color, String mode) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addImage");
+        generator.writeStringField("base64Content", base64Content);
+        generator.writeNumberField("x", x);
+        generator.writeNumberField("y", y);
+        generator.writeNumberField("width", width);
+        generator.writeNumberField("height", height);
+        generator.writeStringField("color", color);
+        generator.writeStringField("mode", mode);
+        generator.writeEndObject();
+    }
+
+    /**
+     * プリンターへそのまま送るESC/POSコマンド（BASE64）
+     */
+    public void command(String base64Data) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addCommand");
+        generator.writeStringField("data", base64Data);
+        generator.writeEndObject();
+    }
+
+    /**
+     * NVグラフィックスに登録済みのロゴの印字
+     */
+    public void nvLogo(int key1, int key2) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addLogo");
+        generator.writeNumberField("key1", key1);
+        generator.writeNumberField("key2", key2);
+        generator.writeEndObject();
+    }
+
+    public void qrCode(String data) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("api", "addSymbol");
+        generator.writeStringField("type", "pdf417_standard");
+        generator.writeStringField("level", "level_m");
+        generator.writeNumberField("width", 3);
+        generator.writeNumberField("height", 0);
+        generator.writeNumberField("size", 0);
+        generator.writeStringField("data", data);
+        generator.writeEndObject();
+    }
+}
@@ -1,6 +1,8 @@
 package com.order.service.print;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.stereotype.Service;
 
@@ -17,26 +19,75 @@ public class PrintFormatService {
     private static final int RECEIPT_QUANTITY_WIDTH_HALF = 6;
     private static final int RECEIPT_PRICE_WIDTH_HALF = 10;
 
+    /**
+     * 文字ごとの印字幅（半角=1, 全角=2）
+     * Shift_JIS で2バイトになる文字を全角として、起動時に1回だけ全文字分を求めておく
+     */
+    private static final byte[] CHAR_WIDTHS = buildCharWidthTable();
+
+    private static byte[] buildCharWidthTable() {
+        Charset sjis = Charset.forName("Shift_JIS");
+        byte[] widths = new byte[Character.MAX_VALUE + 1];
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            widths[c] = (byte) (String.valueOf((char) c).getBytes(sjis).length == 2 ? 2 : 1);
+        }
+        return widths;
+    }
+
+    /**
+     * 1文字の印字幅を返す（全角文字は2、半角文字は1）
+     */
+    public int charWidth(char c) {
+        return CHAR_WIDTHS[c];
+    }
+
     /**
      * 全角文字を2バイト、半角文字を1バイトとして計算
      */
     public int calculateEpsonPrintByteLength(String s) {
-        int length = 0;
         if (s == null) return 0;
-        for (char c : s.toCharArray()) {
-            try {
-                if (String.valueOf(c).getBytes("Shift_JIS").length == 2) {
-                    length += 2;
-                } else {
-                    length += 1;
-                }
-            } catch (UnsupportedEncodingException e) {
-                length += 1;
-            }
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            length += CHAR_WIDTHS[s.charAt(i)];
         }
         return length;
     }
 
+    /**
+     * 指定された半角幅に収まる文字数を返す（start から数えて、幅を超えない最大の文字数）
+     * 1文字も収まらない場合でも折り返しが進むよう、最低1文字とする
+     */
+    public int fitLength(String s, int start, int maxHalfWidth) {
+        int width = 0;
+        int end = start;
+        while (end < s.length()) {
+            int w = CHAR_WIDTHS[s.charAt(end)];
+            if (width + w > maxHalfWidth) {
+                break;
+            }
+            width += w;
+            end++;
+        }
+        return end > start || start >= s.length() ? end - start : 1;
+    }
+
+    /**
+     * 文字列を指定された半角幅ごとに折り返す（各行は幅を超えない）
+     */
+    public List<String> wrapHalfWidth(String s, int maxHalfWidth) {
+        List<String> lines = new ArrayList<>();
+        if (s == null) {
+            return lines;
+        }
+        int start = 0;
+        while (start < s.length()) {
+            int len = fitLength(s, start, maxHalfWidth);
+            lines.add(s.substring(start, start + len));
+            start += len;
+        }
+        return lines;
+    }
+
     /**
      * 指定された半角幅になるように文字列の右側を空白で埋める
      */
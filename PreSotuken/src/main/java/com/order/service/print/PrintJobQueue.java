@@ -0,0 +1,199 @@
+package com.order.service.print;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 印刷ジョブを注文トランザクションから切り離して非同期に実行するキュー
+ * ジョブはトランザクションのコミット後にのみ投入され、件数上限付きのワーカースレッドで順次処理されます
+ * キューが溢れた場合、通常は呼び出し元スレッドで実行しますが、コミット後のコールバック中は
+ * 完了済みのトランザクションの中で印刷処理を動かさないよう、予備のスレッドへ引き渡します
+ */
+@Component
+public class PrintJobQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrintJobQueue.class);
+
+    private final ThreadPoolExecutor executor;
+    // キューが溢れたときにコミット後のコールバックから引き渡すジョブを実行する予備のスレッド
+    private final ExecutorService overflowExecutor;
+    private final int capacity;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong callerRunsCount = new AtomicLong();
+    private final AtomicLong handedOffCount = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong totalRunMillis = new AtomicLong();
+    private final LongAccumulator maxLatencyMillis = new LongAccumulator(Long::max, 0);
+
+    public PrintJobQueue(@Value("${print.queue.workers:2}") int workers,
+                         @Value("${print.queue.capacity:500}") int capacity) {
+        this.capacity = capacity;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                r -> {
+                    Thread t = new Thread(r, "print-job-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                (r, pool) -> {
+                    // キューが溢れた場合は印刷を落とさないよう、投入側（submit）で実行先を決める
+                    throw new RejectedExecutionException("印刷キューが上限(" + capacity + ")に達しました");
+                });
+        this.overflowExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "print-job-overflow");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 印刷ジョブを投入します
+     * トランザクション中であればコミット後に投入し、ロールバック時は破棄します
+     *
+     * @param name ログ用のジョブ名
+     * @param job 実行する印刷処理
+     */
+    public void submitAfterCommit(String name, Runnable job) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // コミット後のコールバックではトランザクションの後片付けが終わっていないため、呼び出し元スレッドでは実行しない
+                    enqueue(name, job, false);
+                }
+            });
+        } else {
+            submit(name, job);
+        }
+    }
+
+    /**
+     * 印刷ジョブを即時にキューへ投入します
+     *
+     * @param name ログ用のジョブ名
+     * @param job 実行する印刷処理
+     */
+    public void submit(String name, Runnable job) {
+        enqueue(name, job, true);
+    }
+
+    /**
+     * 印刷ジョブをキューへ投入します
+     * キューが溢れた場合、callerRuns が true なら呼び出し元スレッドで実行し、false なら予備のスレッドへ引き渡します
+     */
+    private void enqueue(String name, Runnable job, boolean callerRuns) {
+        long enqueuedAt = System.nanoTime();
+        submittedCount.incrementAndGet();
+        Runnable task = () -> {
+            long startedAt = System.nanoTime();
+            try {
+                job.run();
+                completedCount.incrementAndGet();
+            } catch (Exception e) {
+                failedCount.incrementAndGet();
+                logger.error("印刷ジョブの実行に失敗しました。job: {}, error: {}", name, e.getMessage(), e);
+            } finally {
+                long finishedAt = System.nanoTime();
+                long waitMillis = TimeUnit.NANOSECONDS.toMillis(startedAt - enqueuedAt);
+                long runMillis = TimeUnit.NANOSECONDS.toMillis(finishedAt - startedAt);
+                totalWaitMillis.addAndGet(waitMillis);
+                totalRunMillis.addAndGet(runMillis);
+                maxLatencyMillis.accumulate(waitMillis + runMillis);
+                logger.debug("印刷ジョブ完了: job={}, 待ち時間={}ms, 実行時間={}ms", name, waitMillis, runMillis);
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                logger.warn("印刷キューの停止中のためジョブを破棄します。job: {}", name);
+                return;
+            }
+            if (callerRuns) {
+                callerRunsCount.incrementAndGet();
+                logger.warn("印刷キューが上限({})に達したため呼び出し元スレッドで実行します", capacity);
+                task.run();
+            } else {
+                handedOffCount.incrementAndGet();
+                logger.warn("印刷キューが上限({})に達したため予備のスレッドへ引き渡します。job: {}", capacity, name);
+                overflowExecutor.execute(task);
+            }
+        }
+    }
+
+    /**
+     * キューの滞留件数を返します
+     *
+     * @return 実行待ちのジョブ数
+     */
+    public int getBacklogDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * キューの状態と処理時間の統計を返します
+     *
+     * @return 統計情報のMap
+     */
+    public Map<String, Object> getStats() {
+        long finished = completedCount.get() + failedCount.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backlogDepth", getBacklogDepth());
+        stats.put("capacity", capacity);
+        stats.put("activeWorkers", executor.getActiveCount());
+        stats.put("submitted", submittedCount.get());
+        stats.put("completed", completedCount.get());
+        stats.put("failed", failedCount.get());
+        stats.put("callerRuns", callerRunsCount.get());
+        stats.put("handedOff", handedOffCount.get());
+        stats.put("avgWaitMillis", finished == 0 ? 0 : totalWaitMillis.get() / finished);
+        stats.put("avgRunMillis", finished == 0 ? 0 : totalRunMillis.get() / finished);
+        stats.put("maxLatencyMillis", maxLatencyMillis.get());
+        return stats;
+    }
+
+    /**
+     * アプリケーション終了時に残っているジョブを処理してから停止します
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        overflowExecutor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("印刷キューの停止がタイムアウトしました。未処理: {}件", getBacklogDepth());
+                executor.shutdownNow();
+            }
+            if (!overflowExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                overflowExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            overflowExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.order.service.print;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 伝票レイアウトの定義
+ * 単品伝票・小計伝票・領収書のレイアウトを起動時に1回だけコンパイルし、印刷のたびに再利用します
+ * 各伝票の可変部分は record で受け取り、文字列の整形（幅揃え・折り返し）は呼び出し側で済ませておきます
+ */
+@Component
+public class PrintLayouts {
+
+    /** 伝票に印字するロゴと印字方式（register が true の場合はNVグラフィックスへの登録コマンドも送る） */
+    public record LogoOutput(PrintLogo logo, PrintLogo.Mode mode, boolean register) {
+    }
+
+    /** 単品伝票（キッチン向け） */
+    public record OrderLabel(String seatName, String userLine, String itemName, String quantityLine) {
+    }
+
+    /** 小計伝票 */
+    public record SubtotalSlip(LogoOutput logo, String tableLine, List<String> itemLines,
+                               String subtotalLine, List<String> taxTargetLines, List<String> taxLines) {
+    }
+
+    /** 領収書 */
+    public record ReceiptSlip(LogoOutput logo, String storeName, boolean reprint,
+                              String receiptNo, String issuedAt, String issuerName, String totalLine,
+                              List<String> breakdownLines, Integer paymentId, Integer receiptId, Integer issuerId) {
+    }
+
+    private final PrintTemplate<OrderLabel> orderLabel;
+    private final PrintTemplate<SubtotalSlip> subtotalSlip;
+    private final PrintTemplate<ReceiptSlip> receiptSlip;
+
+    public PrintLayouts(PrintFormatService printFormatService) {
+        String separator = printFormatService.createSeparatorLine(printFormatService.getReceiptTotalWidthHalf());
+        String itemHeaderLine = printFormatService.padRightHalfWidth("品名", printFormatService.getReceiptItemNameMaxWidthHalf())
+                + printFormatService.padRightHalfWidth("数量", printFormatService.getReceiptQuantityWidthHalf())
+                + printFormatService.padLeftHalfWidth("単価", printFormatService.getReceiptPriceWidthHalf());
+
+        this.orderLabel = PrintTemplate.<OrderLabel>builder()
+                .sound("pattern_a", 1)
+                .textLang("ja")
+                .textFont("FONT_A")
+                .textAlign("left")
+                .text(d -> "テーブル: " + d.seatName())
+                .feedUnit(5)
+                .text(OrderLabel::userLine)
+                .feedUnit(8)
+                // 注文商品・点数は倍角
+                .textDouble(true, true)
+                .textAlign("left")
+                .text(OrderLabel::itemName)
+                .textAlign("right")
+                .text(OrderLabel::quantityLine)
+                .feedUnit(8)
+                .textDouble(false, false)
+                .textAlign("left")
+                .cut("feed")
+                .compile();
+
+        this.subtotalSlip = PrintTemplate.<SubtotalSlip>builder()
+                .sound("pattern_a", 1)
+                .textLang("ja")
+                .textFont("FONT_A")
+                .textAlign("center")
+                .when(d -> d.logo() != null, PrintTemplate.<SubtotalSlip>builder()
+                        .dynamic((w, d) -> writeLogo(w, d.logo()))
+                        .feedUnit(10)
+                        .compile())
+                .textAlign("left")
+                .text(SubtotalSlip::tableLine)
+                .feedUnit(5)
+                .feed()
+                .text(itemHeaderLine)
+                .text(separator)
+                .lines(SubtotalSlip::itemLines)
+                .text(separator)
+                .feedUnit(10)
+                .text(SubtotalSlip::subtotalLine)
+                .lines(SubtotalSlip::taxTargetLines)
+                .text("内税")
+                .lines(SubtotalSlip::taxLines)
+                .feedUnit(15)
+                .cut("feed")
+                .compile();
+
+        this.receiptSlip = PrintTemplate.<ReceiptSlip>builder()
+                .when(d -> d.logo() != null, PrintTemplate.<ReceiptSlip>builder()
+                        .dynamic((w, d) -> writeLogo(w, d.logo()))
+                        .feedUnit(10)
+                        .compile())
+                .feed()
+                // ヘッダー：店名と発行日時
+                .textAlign("center")
+                .text(ReceiptSlip::storeName)
+                .text("領収書")
+                .when(ReceiptSlip::reprint, PrintTemplate.<ReceiptSlip>builder()
+                        .text("【再印字】")
+                        .compile())
+                .textAlign("left")
+                .feedUnit(5)
+                .text(d -> "印字番号: " + d.receiptNo())
+                .text(d -> "発行日時: " + d.issuedAt())
+                .text(d -> "発行者: " + d.issuerName())
+                .feedUnit(5)
+                .text(separator)
+                .text(ReceiptSlip::totalLine)
+                .feedUnit(5)
+                .text("【内訳】")
+                .lines(ReceiptSlip::breakdownLines)
+                .feedUnit(5)
+                .text(separator)
+                // フッター：会計ID、領収書ID、発行者ID
+                .feedUnit(5)
+                .text(d -> "会計ID: " + d.paymentId())
+                .text(d -> "領収書ID: " + d.receiptId())
+                .text(d -> "発行者ID: " + d.issuerId())
+                // QRコード（印字番号を埋め込み）
+                .feedUnit(5)
+                .dynamic((w, d) -> w.qrCode(d.receiptNo()))
+                .feedUnit(15)
+                .cut("feed")
+                .compile();
+    }
+
+    private static void writeLogo(PrintCommandWriter w, LogoOutput output) throws IOException {
+        PrintLogo logo = output.logo();
+        switch (output.mode()) {
+            case RASTER -> w.command(logo.getRasterCommandBase64());
+            case NV -> {
+                if (output.register()) {
+                    w.command(logo.getNvDefineCommandBase64());
+                }
+                w.nvLogo(PrintLogo.NV_KEY1, PrintLogo.NV_KEY2);
+            }
+            default -> w.image(logo.getImageBase64(), 0, 0, logo.getWidth(), logo.getHeight(), "COLOR_1", "MONO");
+        }
+    }
+
+    public String renderOrderLabel(OrderLabel label) {
+        return orderLabel.render(label);
+    }
+
+    /** 同じプリンターで続けて印刷する単品伝票（伝票ごとにカット） */
+    public String renderOrderLabels(List<OrderLabel> labels) {
+        return orderLabel.renderAll(labels);
+    }
+
+    public String renderSubtotalSlip(SubtotalSlip slip) {
+        return subtotalSlip.render(slip);
+    }
+
+    public String renderReceipt(ReceiptSlip slip) {
+        return receiptSlip.render(slip);
+    }
+}
@@ -0,0 +1,193 @@
+package com.order.service.print;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 伝票に印字する店舗ロゴ
+ * 登録された画像（BASE64）を印字サイズのモノクロラスターへ1回だけ変換し、
+ * プリンターへそのまま送れるESC/POSコマンド（BASE64）として保持します
+ */
+public final class PrintLogo {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrintLogo.class);
+
+    /** プリンターのNVグラフィックスに登録するロゴのキーコード（GS ( L / ePOS addLogo） */
+    public static final int NV_KEY1 = 'L';
+    public static final int NV_KEY2 = 'G';
+
+    /** 黒として印字する輝度のしきい値（0〜255） */
+    private static final int BLACK_THRESHOLD = 128;
+
+    /**
+     * ロゴの印字方式
+     */
+    public enum Mode {
+        /** 画像（PNG）をそのまま送り、端末側で変換して印字する（従来の方式） */
+        IMAGE,
+        /** 変換済みのラスターデータ（GS v 0）を送る */
+        RASTER,
+        /** プリンターのNVメモリに1回だけ登録し、以降はキーで印字する */
+        NV
+    }
+
+    private final String imageBase64;
+    private final int width;
+    private final int height;
+    private final String rasterCommandBase64;
+    private final String nvDefineCommandBase64;
+
+    private PrintLogo(String imageBase64, int width, int height, byte[] raster) {
+        this.imageBase64 = imageBase64;
+        this.width = width;
+        this.height = height;
+        this.rasterCommandBase64 = raster != null ? Base64.getEncoder().encodeToString(rasterCommand(raster, width, height)) : null;
+        this.nvDefineCommandBase64 = raster != null ? Base64.getEncoder().encodeToString(nvDefineCommand(raster, width, height)) : null;
+    }
+
+    /**
+     * 登録された画像を指定サイズのラスターへ変換します
+     * 画像として読み込めない場合は変換せず、画像のまま送る方式だけが使えます
+     *
+     * @param imageBase64 BASE64エンコードされた画像（data URI 形式も可）
+     * @param width 印字幅（ドット）
+     * @param height 印字高さ（ドット）
+     * @return ロゴ
+     */
+    public static PrintLogo of(String imageBase64, int width, int height) {
+        String data = imageBase64;
+        if (data.startsWith("data:") && data.indexOf(',') >= 0) {
+            data = data.substring(data.indexOf(',') + 1);
+        }
+        byte[] raster = null;
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(Base64.getMimeDecoder().decode(data)));
+            if (image != null) {
+                raster = rasterize(image, width, height);
+            } else {
+                logger.warn("ロゴ画像の形式を認識できないため、ラスター変換を行いません");
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("ロゴ画像のラスター変換に失敗しました: {}", e.getMessage());
+        }
+        return new PrintLogo(data, width, height, raster);
+    }
+
+    /**
+     * 画像を印字サイズに拡大縮小し、1ドット1ビット（左上から行ごと、MSB が左）のラスターに変換します
+     * 透過部分は白として扱います
+     */
+    static byte[] rasterize(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+
+        int bytesPerRow = (width + 7) / 8;
+        byte[] raster = new byte[bytesPerRow * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = scaled.getRGB(x, y);
+                int luminance = (((rgb >> 16) & 0xFF) * 299 + ((rgb >> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114) / 1000;
+                if (luminance < BLACK_THRESHOLD) {
+                    raster[y * bytesPerRow + x / 8] |= (byte) (0x80 >> (x % 8));
+                }
+            }
+        }
+        return raster;
+    }
+
+    /** ラスタービットイメージの印字（GS v 0） */
+    static byte[] rasterCommand(byte[] raster, int width, int height) {
+        int bytesPerRow = (width + 7) / 8;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raster.length + 8);
+        out.write(0x1D);
+        out.write('v');
+        out.write('0');
+        out.write(0); // 通常サイズ
+        out.write(bytesPerRow & 0xFF);
+        out.write((bytesPerRow >> 8) & 0xFF);
+        out.write(height & 0xFF);
+        out.write((height >> 8) & 0xFF);
+        out.writeBytes(raster);
+        return out.toByteArray();
+    }
+
+    /** NVグラフィックスへのラスター形式での登録（GS ( L / GS 8 L, fn=67） */
+    private static byte[] nvDefineCommand(byte[] raster, int width, int height) {
+        int paramLength = 11 + raster.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raster.length + 20);
+        out.write(0x1D);
+        if (paramLength <= 0xFFFF) {
+            out.write('(');
+            out.write('L');
+            out.write(paramLength & 0xFF);
+            out.write((paramLength >> 8) & 0xFF);
+        } else {
+            out.write('8');
+            out.write('L');
+            out.write(paramLength & 0xFF);
+            out.write((paramLength >> 8) & 0xFF);
+            out.write((paramLength >> 16) & 0xFF);
+            out.write((paramLength >> 24) & 0xFF);
+        }
+        out.write(48); // m
+        out.write(67); // fn: NVグラフィックスの定義
+        out.write(48); // a: ラスター形式
+        out.write(NV_KEY1);
+        out.write(NV_KEY2);
+        out.write(1); // b: 色数
+        out.write(width & 0xFF);
+        out.write((width >> 8) & 0xFF);
+        out.write(height & 0xFF);
+        out.write((height >> 8) & 0xFF);
+        out.write(49); // c: 第1色
+        out.writeBytes(raster);
+        return out.toByteArray();
+    }
+
+    /** 登録された画像（BASE64） */
+    public String getImageBase64() {
+        return imageBase64;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** ラスター変換できたか（できない場合は IMAGE 方式で印字する） */
+    public boolean isRasterized() {
+        return rasterCommandBase64 != null;
+    }
+
+    /** ラスター印字コマンド（GS v 0、BASE64） */
+    public String getRasterCommandBase64() {
+        return rasterCommandBase64;
+    }
+
+    /** NVグラフィックス登録コマンド（BASE64） */
+    public String getNvDefineCommandBase64() {
+        return nvDefineCommandBase64;
+    }
+}
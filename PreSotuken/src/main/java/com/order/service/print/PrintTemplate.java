@@ -0,0 +1,203 @@
+package com.order.service.print;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * 伝票レイアウトを事前にコンパイルした印刷テンプレート
+ * 固定のコマンド（ブザー・フォント・罫線など）は組み立て時に1回だけJSONへ書き出しておき、
+ * 印刷のたびに席名・明細・合計などの可変部分だけを JsonGenerator でバッファに直接書き込みます
+ *
+ * @param <T> 可変部分の値を持つ伝票データの型
+ */
+public final class PrintTemplate<T> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /** 書き出し用バッファの初期サイズ（直前の出力の1伝票あたりのサイズを使用） */
+    private volatile int sizeHint = 1024;
+
+    private final List<Segment<T>> segments;
+
+    private PrintTemplate(List<Segment<T>> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * テンプレートの1区間（固定コマンドの並び、または可変部分）
+     */
+    @FunctionalInterface
+    public interface Segment<T> {
+        void write(PrintCommandWriter writer, T data) throws IOException;
+    }
+
+    /**
+     * 伝票データを埋め込んだ印刷コマンドのJSON配列を返します
+     *
+     * @param data 伝票データ
+     * @return 印刷コマンドのJSON配列（文字列）
+     */
+    public String render(T data) {
+        return renderAll(List.of(data));
+    }
+
+    /**
+     * 複数の伝票を続けて印刷する1つのコマンド配列を返します（1回の送信で複数枚を印刷する場合に使用）
+     *
+     * @param items 伝票データ（この順で印刷）
+     * @return 印刷コマンドのJSON配列（文字列）
+     */
+    public String renderAll(List<? extends T> items) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sizeHint * items.size());
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            PrintCommandWriter writer = new PrintCommandWriter(generator);
+            for (T data : items) {
+                writeTo(writer, data);
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("印刷コマンドの生成に失敗しました", e);
+        }
+        sizeHint = Math.max(256, out.size() / Math.max(1, items.size()));
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 配列の要素として印刷コマンドを書き込みます（入れ子のテンプレートから使用）
+     */
+    void writeTo(PrintCommandWriter writer, T data) throws IOException {
+        for (Segment<T> segment : segments) {
+            segment.write(writer, data);
+        }
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 印刷テンプレートの組み立て
+     * 連続する固定コマンドは compile 時に1つの区間にまとめられます
+     */
+    public static final class Builder<T> {
+
+        private final List<Segment<T>> segments = new ArrayList<>();
+        private final List<String> pendingStatic = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder<T> sound(String pattern, int repeat) {
+            return fixed(w -> w.sound(pattern, repeat));
+        }
+
+        public Builder<T> textLang(String lang) {
+            return fixed(w -> w.textLang(lang));
+        }
+
+        public Builder<T> textFont(String font) {
+            return fixed(w -> w.textFont(font));
+        }
+
+        public Builder<T> textAlign(String align) {
+            return fixed(w -> w.textAlign(align));
+        }
+
+        public Builder<T> textDouble(boolean dw, boolean dh) {
+            return fixed(w -> w.textDouble(dw, dh));
+        }
+
+        public Builder<T> feed() {
+            return fixed(PrintCommandWriter::feed);
+        }
+
+        public Builder<T> feedUnit(int unit) {
+            return fixed(w -> w.feedUnit(unit));
+        }
+
+        public Builder<T> cut(String type) {
+            return fixed(w -> w.cut(type));
+        }
+
+        /** 固定のテキスト */
+        public Builder<T> text(String content) {
+            return fixed(w -> w.text(content));
+        }
+
+        /** 伝票データから求めるテキスト */
+        public Builder<T> text(Function<T, String> content) {
+            return dynamic((w, d) -> w.text(content.apply(d)));
+        }
+
+        /** 伝票データから求める複数行のテキスト（1行ごとにテキストコマンドを出力） */
+        public Builder<T> lines(Function<T, ? extends Iterable<String>> lines) {
+            return dynamic((w, d) -> {
+                for (String line : lines.apply(d)) {
+                    w.text(line);
+                }
+            });
+        }
+
+        /** 条件を満たす場合のみ出力する部分 */
+        public Builder<T> when(Predicate<T> condition, PrintTemplate<T> part) {
+            return dynamic((w, d) -> {
+                if (condition.test(d)) {
+                    part.writeTo(w, d);
+                }
+            });
+        }
+
+        /** 任意の可変部分 */
+        public Builder<T> dynamic(Segment<T> segment) {
+            flushStatic();
+            segments.add(segment);
+            return this;
+        }
+
+        public PrintTemplate<T> compile() {
+            flushStatic();
+            return new PrintTemplate<>(List.copyOf(segments));
+        }
+
+        private Builder<T> fixed(CommandWriter command) {
+            StringWriter json = new StringWriter();
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(json)) {
+                command.write(new PrintCommandWriter(generator));
+            } catch (IOException e) {
+                throw new UncheckedIOException("印刷テンプレートの組み立てに失敗しました", e);
+            }
+            pendingStatic.add(json.toString());
+            return this;
+        }
+
+        private void flushStatic() {
+            if (pendingStatic.isEmpty()) {
+                return;
+            }
+            String[] commands = pendingStatic.toArray(String[]::new);
+            pendingStatic.clear();
+            segments.add((w, d) -> {
+                for (String command : commands) {
+                    w.raw(command);
+                }
+            });
+        }
+    }
+
+    @FunctionalInterface
+    private interface CommandWriter {
+        void write(PrintCommandWriter writer) throws IOException;
+    }
+}
@@ -0,0 +1,308 @@
+package com.order.service.print;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * サーバーからプリンターへ印刷データを直接送信するトランスポート
+ * 印刷コマンドを ESC/POS に変換し、プリンターのRAWポート（既定 9100）へTCPで送ります
+ * 端末（タブレット）がスリープ・切断中でも伝票が印刷されるよう、print.transport.mode=tcp で有効にします
+ *
+ * - プリンターごとに専用の送信スレッドと件数上限付きのキューを持ち、投入順に印刷します
+ * - 送信後の接続はプリンターごとにプールし、次の伝票で再利用します（一定時間使わなかった接続は閉じます）
+ * - 送信に失敗した場合は接続を破棄して決められた回数まで再試行し、それでも失敗した場合は呼び出し元の代替処理を実行します
+ */
+@Component
+public class TcpPrinterTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(TcpPrinterTransport.class);
+
+    private final EscPosEncoder encoder = new EscPosEncoder();
+    private final Map<String, PrinterLane> lanes = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final int port;
+    private final int connectTimeoutMillis;
+    private final int writeTimeoutMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final int queueCapacity;
+    private final int maxIdleConnections;
+    private final long idleTimeoutMillis;
+
+    public TcpPrinterTransport(@Value("${print.transport.mode:websocket}") String mode,
+                               @Value("${print.transport.tcp.port:9100}") int port,
+                               @Value("${print.transport.tcp.connect-timeout-ms:3000}") int connectTimeoutMillis,
+                               @Value("${print.transport.tcp.write-timeout-ms:5000}") int writeTimeoutMillis,
+                               @Value("${print.transport.tcp.max-attempts:3}") int maxAttempts,
+                               @Value("${print.transport.tcp.retry-backoff-ms:500}") long retryBackoffMillis,
+                               @Value("${print.transport.tcp.queue-capacity:200}") int queueCapacity,
+                               @Value("${print.transport.tcp.max-idle-connections:2}") int maxIdleConnections,
+                               @Value("${print.transport.tcp.idle-timeout-ms:30000}") long idleTimeoutMillis) {
+        this.enabled = "tcp".equalsIgnoreCase(mode);
+        this.port = port;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.queueCapacity = queueCapacity;
+        this.maxIdleConnections = maxIdleConnections;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        if (enabled) {
+            logger.info("印刷データをサーバーからプリンターへ直接送信します (port={})", port);
+        }
+    }
+
+    /**
+     * サーバーから直接送信する設定かどうか
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 印刷コマンドをプリンターの送信キューへ投入します
+     *
+     * @param printerIp 送信先プリンターのIPアドレス
+     * @param jsonCommands 印刷コマンドのJSON配列
+     * @param onFailure 変換・投入・再試行を含めた送信に失敗した場合の代替処理
+     */
+    public void submit(String printerIp, String jsonCommands, Runnable onFailure) {
+        submit(printerIp, jsonCommands, () -> { }, onFailure);
+    }
+
+    /**
+     * 印刷コマンドをプリンターの送信キューへ投入します
+     *
+     * @param printerIp 送信先プリンターのIPアドレス
+     * @param jsonCommands 印刷コマンドのJSON配列
+     * @param onSuccess プリンターへの送信が完了した場合の処理（送信スレッドで実行）
+     * @param onFailure 変換・投入・再試行を含めた送信に失敗した場合の代替処理
+     */
+    public void submit(String printerIp, String jsonCommands, Runnable onSuccess, Runnable onFailure) {
+        byte[] data;
+        try {
+            data = encoder.encode(jsonCommands);
+        } catch (RuntimeException e) {
+            logger.error("印刷データの変換に失敗しました。printer: {}, error: {}", printerIp, e.getMessage(), e);
+            onFailure.run();
+            return;
+        }
+        PrinterLane lane = lanes.computeIfAbsent(printerIp, PrinterLane::new);
+        lane.submitted.incrementAndGet();
+        try {
+            lane.executor.execute(() -> lane.deliver(data, onSuccess, onFailure));
+        } catch (RejectedExecutionException e) {
+            lane.failed.incrementAndGet();
+            logger.error("プリンターの送信キューが上限({})に達したため送信できません。printer: {}", queueCapacity, printerIp);
+            onFailure.run();
+        }
+    }
+
+    /**
+     * プリンターごとの送信状況を返します
+     *
+     * @return プリンターIP → 統計情報のMap
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("port", port);
+        Map<String, Object> printers = new LinkedHashMap<>();
+        lanes.values().stream()
+                .sorted((a, b) -> a.printerIp.compareTo(b.printerIp))
+                .forEach(lane -> printers.put(lane.printerIp, lane.getStats()));
+        stats.put("printers", printers);
+        return stats;
+    }
+
+    /**
+     * アプリケーション終了時に送信待ちの伝票を送ってから接続を閉じます
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (PrinterLane lane : lanes.values()) {
+            lane.executor.shutdown();
+        }
+        for (PrinterLane lane : lanes.values()) {
+            try {
+                if (!lane.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    logger.warn("プリンターへの送信の停止がタイムアウトしました。printer: {}, 未送信: {}件",
+                            lane.printerIp, lane.executor.getQueue().size());
+                    lane.executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                lane.executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            lane.closeIdleConnections();
+        }
+    }
+
+    /**
+     * プリンター1台分の送信キューと接続プール
+     */
+    private final class PrinterLane {
+
+        private final String printerIp;
+        private final ThreadPoolExecutor executor;
+        // 再利用できる接続（送信スレッドからのみ操作する）
+        private final Deque<PooledConnection> idle = new ArrayDeque<>();
+
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong retried = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong connectionsOpened = new AtomicLong();
+
+        private PrinterLane(String printerIp) {
+            this.printerIp = printerIp;
+            this.executor = new ThreadPoolExecutor(
+                    1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread t = new Thread(r, "printer-" + printerIp);
+                        t.setDaemon(true);
+                        return t;
+                    });
+        }
+
+        private void deliver(byte[] data, Runnable onSuccess, Runnable onFailure) {
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                PooledConnection connection = null;
+                try {
+                    connection = borrow();
+                    OutputStream out = connection.socket.getOutputStream();
+                    out.write(data);
+                    out.flush();
+                    release(connection);
+                    sent.incrementAndGet();
+                    runCallback(onSuccess);
+                    return;
+                } catch (IOException e) {
+                    if (connection != null) {
+                        connection.close();
+                    }
+                    // 再利用した接続がプリンター側で閉じられていた可能性もあるため、残りの接続も作り直す
+                    closeIdleConnections();
+                    logger.warn("プリンターへの送信に失敗しました ({}/{})。printer: {}, error: {}",
+                            attempt, maxAttempts, printerIp, e.getMessage());
+                    if (attempt < maxAttempts) {
+                        retried.incrementAndGet();
+                        if (!sleep(retryBackoffMillis * attempt)) {
+                            break;
+                        }
+                    }
+                }
+            }
+            failed.incrementAndGet();
+            logger.error("プリンターへの送信を中止しました。printer: {}", printerIp);
+            runCallback(onFailure);
+        }
+
+        private void runCallback(Runnable callback) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                logger.error("送信後の処理に失敗しました。printer: {}, error: {}", printerIp, e.getMessage(), e);
+            }
+        }
+
+        private PooledConnection borrow() throws IOException {
+            long now = System.currentTimeMillis();
+            PooledConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (now - connection.lastUsedAt <= idleTimeoutMillis && !connection.socket.isClosed()) {
+                    return connection;
+                }
+                connection.close();
+            }
+            Socket socket = new Socket();
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setKeepAlive(true);
+                socket.setSoTimeout(writeTimeoutMillis);
+                socket.connect(new InetSocketAddress(printerIp, port), connectTimeoutMillis);
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            connectionsOpened.incrementAndGet();
+            return new PooledConnection(socket);
+        }
+
+        private void release(PooledConnection connection) {
+            connection.lastUsedAt = System.currentTimeMillis();
+            if (idle.size() < maxIdleConnections) {
+                idle.offerFirst(connection);
+            } else {
+                connection.close();
+            }
+        }
+
+        private void closeIdleConnections() {
+            PooledConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                connection.close();
+            }
+        }
+
+        private Map<String, Object> getStats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("queued", executor.getQueue().size());
+            stats.put("submitted", submitted.get());
+            stats.put("sent", sent.get());
+            stats.put("retried", retried.get());
+            stats.put("failed", failed.get());
+            stats.put("connectionsOpened", connectionsOpened.get());
+            return stats;
+        }
+    }
+
+    private static final class PooledConnection {
+
+        private final Socket socket;
+        private long lastUsedAt = System.currentTimeMillis();
+
+        private PooledConnection(Socket socket) {
+            this.socket = socket;
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // 閉じる際のエラーは無視する
+            }
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
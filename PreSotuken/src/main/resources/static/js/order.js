@@ -13,6 +13,15 @@ const cart = [];
 /** @type {Object} 税率データを保持するマップオブジェクト */
 let taxRateMap = {};
 
+/** @type {boolean} メニュー時間帯の切り替え後、注文確定まで再読み込みを保留しているか */
+let menuRefreshPending = false;
+
+/** @type {Array} 取得済みの注文履歴（明細ID順） */
+let orderHistoryLines = [];
+
+/** @type {string|null} 取得済みの注文履歴のバージョン（差分取得の since に使う） */
+let orderHistoryVersion = null;
+
 /** @type {string|number} 現在の座席ID */
 let seatId = getCookie("seatId");
 
@@ -106,14 +115,38 @@ function toggleHistory() {
     }
 }
 
+/**
+ * 注文履歴を差分で取得し、取得済みの履歴に反映する関数
+ * 前回のバージョン以降に追加された明細だけを受け取り、変更がない場合（304）は取得済みの履歴をそのまま使う
+ * @returns {Promise<Array>} 注文履歴の全明細
+ */
+function loadOrderHistory() {
+    const url = orderHistoryVersion
+        ? `/order/history/delta?since=${encodeURIComponent(orderHistoryVersion)}`
+        : '/order/history/delta';
+    return fetch(url, { cache: 'no-store' })
+        .then(res => {
+            if (res.status === 304) {
+                return orderHistoryLines;
+            }
+            if (!res.ok) {
+                throw new Error(`注文履歴の取得に失敗しました: ${res.status}`);
+            }
+            return res.json().then(delta => {
+                orderHistoryLines = delta.reset ? delta.lines : orderHistoryLines.concat(delta.lines);
+                orderHistoryVersion = delta.version;
+                return orderHistoryLines;
+            });
+        });
+}
+
 /**
  * 注文履歴データを取得して表示する内部関数
  * @param {HTMLElement} historyModal - 履歴モーダル要素
  * @param {HTMLElement} toggleBtn - トグルボタン要素
  */
 function fetchOrderHistoryForDisplay(historyModal, toggleBtn) {
-    fetch('/order/history')
-        .then(res => res.json())
+    loadOrderHistory()
         .then(data => {
             const tbody = document.querySelector('#historyTable tbody');
             const totalEl = document.getElementById('historyTotal');
@@ -394,6 +427,10 @@ function addToCart(button) {
 
     // オプションの選択状態をチェックする処理を追加
     const menuItem = button.closest('.menu-item');
+    if (menuItem.classList.contains('sold-out')) {
+        showToast('品切れのためカートに追加できません。', 4000, 'error');
+        return;
+    }
     const optionSelects = menuItem.querySelectorAll('.option-select'); // このメニューアイテム内の全てのオプション選択欄を取得
 
     const selectedOptions = []; // 選択されたオプションアイテムのIDを格納する配列
@@ -497,6 +534,11 @@ function submitOrder() {
             cart.length = 0;
             updateMiniCart();
             showToast("注文を確定しました", 3000);
+            if (menuRefreshPending) {
+                const currentUrl = new URL(window.location.href);
+                currentUrl.searchParams.set('toastMessage', '注文を確定しました。メニューが切り替わりました');
+                window.location.href = currentUrl.toString();
+            }
         } else {
             cart.splice(index, 1);
         }
@@ -511,8 +553,7 @@ function submitOrder() {
  * 注文履歴モーダル内の表示を更新するためのフェッチ関数
  */
 function fetchOrderHistoryForHistoryModal() {
-    fetch('/order/history')
-        .then(res => res.json())
+    loadOrderHistory()
         .then(data => {
             const tbody = document.querySelector('#historyTable tbody');
             const totalEl = document.getElementById('historyTotal');
@@ -612,6 +653,10 @@ function switchTab(tabElement) {
         
         if (itemGroupId === groupId) {
             item.classList.remove('d-none');
+            // 飲み放題のグループのタブは有効な場合（または管理者画面）にのみ表示されるため、選択されたらメニューも表示する
+            if (item.getAttribute('data-is-plan-target') === 'true') {
+                item.classList.add('active-plan-menu');
+            }
         } else {
             item.classList.add('d-none');
             // 飲み放題メニューの表示クラスも削除して確実に非表示にする
@@ -725,32 +770,9 @@ window.addEventListener('DOMContentLoaded', () => {
                     document.cookie = 'visitId=; Max-Age=0; path=/';
                     window.location.href = '/visits/orderwait';
                 } else if (body.type === 'PLAN_ACTIVATED') {
-                    const activatedMenuGroupIds = body.activatedMenuGroupIds;
-                    const activatedPlanId = body.planId;
-                    
-                    console.log(`プラン ${activatedPlanId} がシート ${seatId} でアクティブ化されました。`);
-                    console.log("表示されるメニューグループID:", activatedMenuGroupIds);
-
-                    document.querySelectorAll('.menu-tab[data-is-plan-target="true"]').forEach(tab => {
-                        tab.classList.remove('active-plan-group');
-                    });
-                    document.querySelectorAll('.menu-item[data-is-plan-target="true"]').forEach(item => {
-                        item.classList.remove('active-plan-menu');
-                    });
-
-                    activatedMenuGroupIds.forEach(groupId => {
-                        const menuGroupTab = document.querySelector(`.menu-tab[data-group-id="${groupId}"]`);
-                        if (menuGroupTab) {
-                            menuGroupTab.classList.add('active-plan-group');
-                        }
-                        document.querySelectorAll(`.menu-item[data-group-id="${groupId}"]`).forEach(item => {
-                            item.classList.add('active-plan-menu');
-                        });
-                    });
-                    
-                    const currentUrl = new URL(window.location.href);
-                    currentUrl.searchParams.set('toastMessage', '飲み放題が開始されました！メニューが増えました！');
-                    window.location.href = currentUrl.toString();
+                    console.log(`プラン ${body.planIds} がシート ${seatId} でアクティブ化されました。`);
+                    console.log("表示されるメニューグループID:", body.activatedMenuGroupIds);
+                    applyPlanActivation(body.activatedMenuGroupIds || [], body.menuGroups || [], body.menus || []);
                 }
             }, function (error) {
                 console.error('STOMP error:', error);
@@ -760,7 +782,7 @@ window.addEventListener('DOMContentLoaded', () => {
                 const payload = JSON.parse(message.body);
                 console.log("WebSocketメッセージ受信 (printerトピック):", payload);
                 if (payload.type === 'PRINT_COMMANDS') {
-                    enqueuePrintJob(payload.ip, payload.commands);
+                    enqueuePrintJob(payload.ip, payload.commands, 0, payload.jobId != null ? { jobId: payload.jobId, part: payload.part } : null);
                 } else if (payload.type === 'PRINT_ERROR') {
                     alert('印刷エラー: ' + payload.message);
                     console.error('印刷エラー:', payload.message);
@@ -771,10 +793,110 @@ window.addEventListener('DOMContentLoaded', () => {
                 updatePrinterStatus('WebSocket購読エラー (printer): ' + error);
             });
 
+            // 店舗のメニュー時間帯切り替えを購読（ランチ→ディナーなど）
+            if (window.storeIdFromModel) {
+                stompClient.subscribe(`/topic/stores/${window.storeIdFromModel}/menu`, function (message) {
+                    const body = JSON.parse(message.body);
+                    console.log("WebSocketメッセージ受信 (menuトピック):", body);
+                    if (body.type === 'MENU_TIMESLOT_CHANGED') {
+                        if (cart.length === 0) {
+                            const currentUrl = new URL(window.location.href);
+                            currentUrl.searchParams.set('toastMessage', 'メニューが切り替わりました');
+                            window.location.href = currentUrl.toString();
+                        } else {
+                            // カートの中身を失わないよう、注文中は再読み込みせず注文確定後に反映する
+                            menuRefreshPending = true;
+                            showToast('メニューの提供時間帯が切り替わりました。注文後に最新のメニューが表示されます。');
+                        }
+                    } else if (body.type === 'SOLD_OUT_CHANGED') {
+                        applySoldOutChange(body.soldOut || [], body.available || []);
+                    }
+                });
+            }
+
         }
     });
 });
 
+/**
+ * 飲み放題の開始を画面に反映する（再読み込みはしない）
+ * 新たに表示されるメニューグループのタブを並び順の位置に追加し、有効なグループのメニューを表示する
+ * 通知されたメニューが画面にない場合（時間帯の切り替え直後など）は、カートが空なら再読み込みし、そうでなければ注文確定後に再読み込みする
+ * @param {Array<number>} activatedMenuGroupIds - 有効な全てのメニューグループID
+ * @param {Array<Object>} menuGroups - 新たに表示されるメニューグループ（groupId, groupName, sortOrder）
+ * @param {Array<Object>} menus - 新たに表示されるメニュー
+ */
+function applyPlanActivation(activatedMenuGroupIds, menuGroups, menus) {
+    const tabContainer = document.querySelector('.menu-tabs');
+    const sortOrderOf = value => (value === undefined || value === null || value === '') ? Number.MAX_SAFE_INTEGER : Number(value);
+
+    menuGroups.forEach(group => {
+        if (document.querySelector(`.menu-tab[data-group-id="${group.groupId}"]`)) {
+            return;
+        }
+        const tab = document.createElement('div');
+        tab.className = 'menu-tab';
+        tab.setAttribute('data-group-id', group.groupId);
+        if (group.sortOrder !== null && group.sortOrder !== undefined) {
+            tab.setAttribute('data-sort-order', group.sortOrder);
+        }
+        tab.textContent = group.groupName;
+        tab.addEventListener('click', () => switchTab(tab));
+
+        const next = Array.from(tabContainer.querySelectorAll('.menu-tab'))
+            .find(existing => sortOrderOf(existing.getAttribute('data-sort-order')) > sortOrderOf(group.sortOrder));
+        tabContainer.insertBefore(tab, next || null);
+    });
+
+    activatePlanGroups(activatedMenuGroupIds);
+
+    const missing = menus.some(menu => !document.querySelector(`.menu-item[data-menu-id="${menu.menuId}"]`));
+    if (missing) {
+        if (cart.length === 0) {
+            const currentUrl = new URL(window.location.href);
+            currentUrl.searchParams.set('toastMessage', '飲み放題が開始されました！メニューが増えました！');
+            window.location.href = currentUrl.toString();
+            return;
+        }
+        menuRefreshPending = true;
+    }
+    showToast('飲み放題が開始されました！メニューが増えました！');
+}
+
+/**
+ * 品切れ状態の差分を画面に反映する（再読み込みはしない）
+ * 品切れになったメニューはグレーアウトしてカートから取り除き、品切れが解除されたメニューは元に戻す
+ * 表示時点で品切れだったメニューは画面にないため、次の再読み込み（注文確定後）で表示する
+ * @param {Array<number>} soldOutIds - 品切れになったメニューID
+ * @param {Array<number>} availableIds - 品切れが解除されたメニューID
+ */
+function applySoldOutChange(soldOutIds, availableIds) {
+    const removedNames = [];
+    soldOutIds.forEach(menuId => {
+        document.querySelectorAll(`.menu-item[data-menu-id="${menuId}"]`).forEach(item => {
+            item.classList.add('sold-out');
+            item.classList.remove('expanded');
+        });
+        for (let i = cart.length - 1; i >= 0; i--) {
+            if (String(cart[i].menuId) === String(menuId)) {
+                removedNames.push(cart[i].name);
+                cart.splice(i, 1);
+            }
+        }
+    });
+    availableIds.forEach(menuId => {
+        const items = document.querySelectorAll(`.menu-item[data-menu-id="${menuId}"]`);
+        if (items.length === 0) {
+            menuRefreshPending = true;
+        }
+        items.forEach(item => item.classList.remove('sold-out'));
+    });
+    if (removedNames.length > 0) {
+        updateMiniCart();
+        showToast(`品切れになったためカートから削除しました: ${[...new Set(removedNames)].join('、')}`, 4000, 'error');
+    }
+}
+
 window.addEventListener('click', (e) => {
     const cartPanel = document.getElementById("cartPanel");
     const toggleButton = document.getElementById("cartToggleButton");
@@ -12,14 +12,24 @@ let currentPrinterIp = null;
 const printJobQueue = [];
 let isPrinting = false;
 
+// 印刷済みの印刷ジョブ（サーバーからの再送を二重に印刷しないよう記録する）
+const PRINTED_JOBS_KEY = 'printedJobParts';
+const PRINTED_JOBS_LIMIT = 200;
+
 /**
  * 印刷キューに印刷ジョブを追加
  * @param {string} ip - プリンターのIPアドレス
  * @param {string} commandsJson - 印刷コマンドのJSON文字列
  * @param {number} retryCount - リトライ回数
+ * @param {Object} ack - 受信確認を返す印刷ジョブ（{ jobId, part }、不要な場合は null）
  */
-function enqueuePrintJob(ip, commandsJson, retryCount = 0) {
-    printJobQueue.push({ ip, commandsJson, retryCount });
+function enqueuePrintJob(ip, commandsJson, retryCount = 0, ack = null) {
+    if (ack && retryCount === 0 && isPrintedJobPart(ack)) {
+        // 印刷済みの伝票の再送は印刷せず、受信確認だけを返す
+        acknowledgePrintJob(ack);
+        return;
+    }
+    printJobQueue.push({ ip, commandsJson, retryCount, ack });
     if (!isPrinting) {
         processPrintJobs();
     }
@@ -35,7 +45,7 @@ async function processPrintJobs() {
     }
 
     isPrinting = true;
-    const { ip, commandsJson, retryCount } = printJobQueue.shift();
+    const { ip, commandsJson, retryCount, ack } = printJobQueue.shift();
 
     try {
         if (!printer || !ePosDev.isConnected || currentPrinterIp !== ip) {
@@ -52,13 +62,17 @@ async function processPrintJobs() {
         } else {
             await executeCommands(commandsJson);
         }
+        if (ack) {
+            markPrintedJobPart(ack);
+            acknowledgePrintJob(ack);
+        }
     } catch (e) {
         console.error("印刷エラー:", e);
         updatePrinterStatus(`印刷エラー: ${e.message}`);
 
         if (retryCount < 3) {
             console.warn(`リトライ ${retryCount + 1} 回目: 再キューします`);
-            enqueuePrintJob(ip, commandsJson, retryCount + 1);
+            enqueuePrintJob(ip, commandsJson, retryCount + 1, ack);
         } else {
             showToast("印刷に3回失敗しました。プリンタの状態を確認してください。", 4000, 'error');
         }
@@ -67,6 +81,33 @@ async function processPrintJobs() {
     processPrintJobs();
 }
 
+function printedJobParts() {
+    try {
+        return JSON.parse(localStorage.getItem(PRINTED_JOBS_KEY) || '[]');
+    } catch (e) {
+        return [];
+    }
+}
+
+function isPrintedJobPart(ack) {
+    return printedJobParts().includes(`${ack.jobId}:${ack.part}`);
+}
+
+function markPrintedJobPart(ack) {
+    const printed = printedJobParts();
+    printed.push(`${ack.jobId}:${ack.part}`);
+    localStorage.setItem(PRINTED_JOBS_KEY, JSON.stringify(printed.slice(-PRINTED_JOBS_LIMIT)));
+}
+
+/**
+ * 印刷ジョブの受信確認をサーバーへ送信（届かなかった場合はサーバーから再送される）
+ * @param {Object} ack - { jobId, part }
+ */
+function acknowledgePrintJob(ack) {
+    fetch(`/api/print-jobs/${ack.jobId}/ack?part=${ack.part}`, { method: 'POST' })
+        .catch(e => console.warn('印刷ジョブの受信確認に失敗しました:', e));
+}
+
 /**
  * プリンターステータスを更新
  * @param {string} message - ステータスメッセージ
@@ -236,6 +277,14 @@ async function executeCommands(commandsJson) {
                 case "addCut":
                     printer.addCut(printer[`CUT_${command.type.toUpperCase()}`]);
                     break;
+                case "addCommand":
+                    // サーバーで変換済みのESC/POSコマンド（ロゴのラスターなど）
+                    printer.addCommand(atob(command.data));
+                    break;
+                case "addLogo":
+                    // プリンターのNVグラフィックスに登録済みのロゴ
+                    printer.addLogo(command.key1, command.key2);
+                    break;
                 case "addImage":
                     await new Promise((resolve, reject) => {
                         const img = new Image();
@@ -106,63 +106,97 @@ window.onclick = function (event) {
     }
 }
 
-function fetchVisitInfo() {
-    document.querySelectorAll('.seat').forEach(seat => {
-        const seatId = seat.getAttribute('data-seat-id');
-        updateSeatTile(seatId);
+/** 座席ID → 来店中の座席の状態（座席ボード） */
+const seatBoard = {};
+
+/** サーバーの時刻 − 端末の時刻（経過時間の計算に使う） */
+let serverTimeOffset = 0;
+
+/**
+ * 座席ボードの全体を取得して表示する（初回と、WebSocketの再接続時に取りこぼした差分を補うため）
+ */
+function loadSeatBoard() {
+    const storeId = getCookie("storeId");
+    return fetch(`/api/seat-board?storeId=${storeId}`)
+        .then(res => res.json())
+        .then(data => {
+            serverTimeOffset = data.serverTime - Date.now();
+            Object.keys(seatBoard).forEach(seatId => delete seatBoard[seatId]);
+            data.seats.forEach(seat => seatBoard[seat.seatId] = seat);
+            document.querySelectorAll('.seat').forEach(seat => {
+                renderSeatTile(seat.getAttribute('data-seat-id'));
+            });
+        })
+        .catch(error => console.error("座席ボードの取得に失敗しました:", error));
+}
+
+/**
+ * 座席ボードの差分を購読する（切断時は5秒後に再接続し、全体を取得し直す）
+ */
+function subscribeSeatBoard() {
+    const storeId = getCookie("storeId");
+    const stompClient = Stomp.over(new SockJS('/ws-endpoint'));
+    stompClient.debug = null;
+
+    stompClient.connect({}, () => {
+        stompClient.subscribe(`/topic/stores/${storeId}/seats`, (message) => {
+            const data = JSON.parse(message.body);
+            serverTimeOffset = data.serverTime - Date.now();
+            data.seats.forEach(seat => {
+                if (seat.visiting) {
+                    seatBoard[seat.seatId] = seat;
+                } else {
+                    delete seatBoard[seat.seatId];
+                }
+                renderSeatTile(seat.seatId);
+            });
+        });
+        loadSeatBoard();
+    }, (error) => {
+        console.error('座席ボードのWebSocket接続が切断されました:', error);
+        setTimeout(subscribeSeatBoard, 5000);
     });
 }
 
-function updateSeatTile(seatId) {
+/**
+ * 座席ボードの状態で座席を表示する（経過時間は来店日時から計算する）
+ */
+function renderSeatTile(seatId) {
+    const data = seatBoard[seatId];
+    if (!data) {
+        resetSeatTile(seatId);
+        return;
+    }
     const seat = document.querySelector(`.seat[data-seat-id="${seatId}"]`);
+    if (!seat) return;
     const peopleSpan = document.getElementById(`people-${seatId}`);
     const totalDiv = document.getElementById(`total-${seatId}`);
     const elapsedDiv = document.getElementById(`elapsed-${seatId}`);
-    const statusDiv = document.getElementById(`status-${seatId}`); 
-    const storeId = getCookie("storeId");
+    const statusDiv = document.getElementById(`status-${seatId}`);
 
-    seat.classList.remove('elapsed-yellow', 'elapsed-red', 'occupied');
+    seat.classList.remove('elapsed-yellow', 'elapsed-red');
+    seat.classList.add('occupied');
+    if (statusDiv) statusDiv.style.display = 'block';
 
-    fetch(`/api/visit-info?seatId=${seatId}&storeId=${storeId}`)
-        .then(res => res.json())
-        .then(data => {
-            if (data.visiting) {
-                seat.classList.add('occupied');
-                if (statusDiv) statusDiv.style.display = 'block';
-                const elapsedMinutes = Math.floor(data.elapsedMinutes);
-
-                if (elapsedMinutes >= 60) {
-                    seat.classList.add('elapsed-red');
-                } else if (elapsedMinutes >= 30) {
-                    seat.classList.add('elapsed-yellow');
-                }
+    const elapsedMinutes = Math.max(0, Math.floor((Date.now() + serverTimeOffset - data.visitTime) / 60000));
+    if (elapsedMinutes >= 60) {
+        seat.classList.add('elapsed-red');
+    } else if (elapsedMinutes >= 30) {
+        seat.classList.add('elapsed-yellow');
+    }
 
-                peopleSpan.innerText = `${data.numberOfPeople}名`;
-                elapsedDiv.innerText = `${elapsedMinutes}分`;
-
-                fetch(`/api/total-amount?seatId=${seatId}`)
-                    .then(res => res.json())
-                    .then(amountData => {
-                        if (amountData.total && amountData.total > 0) {
-                            totalDiv.innerHTML = `&yen; ${amountData.total.toLocaleString()}`;
-                        } else {
-                            totalDiv.innerText = '';
-                        }
-                    })
-                    .catch(() => {
-                        totalDiv.innerText = '金額取得失敗';
-                    });
-            } else {
-                peopleSpan.innerText = '';
-                totalDiv.innerText = '';
-                elapsedDiv.innerText = '';
-                if (statusDiv) statusDiv.style.display = 'none';
-            }
-        });
+    peopleSpan.innerText = `${data.numberOfPeople}名`;
+    elapsedDiv.innerText = `${elapsedMinutes}分`;
+    if (data.total > 0) {
+        totalDiv.innerHTML = `&yen; ${data.total.toLocaleString()}`;
+    } else {
+        totalDiv.innerText = '';
+    }
 }
 
 function resetSeatTile(seatId) {
 	const seat = document.querySelector(`.seat[data-seat-id="${seatId}"]`);
+	if (!seat) return;
 	const peopleSpan = document.getElementById(`people-${seatId}`);
 	const totalDiv = document.getElementById(`total-${seatId}`);
 	const elapsedDiv = document.getElementById(`elapsed-${seatId}`);
@@ -224,8 +258,9 @@ window.onload = function() {
         }
     }
 
-    fetchVisitInfo();
-    setInterval(fetchVisitInfo, 60000);
+    // 座席の状態は座席ボードの差分で更新し、経過時間だけを毎分描き直す
+    loadSeatBoard().then(subscribeSeatBoard);
+    setInterval(() => Object.keys(seatBoard).forEach(renderSeatTile), 60000);
     
     // 呼び出しシステムを初期化
     if (typeof CallListManager !== 'undefined') {
@@ -0,0 +1,63 @@
+package com.order.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * リクエストごとのSQL発行数の計測のテスト
+ * データソースのプロキシで数えた件数をリクエスト単位で記録し、同じ件数でクエリ予算を判定することを確認する
+ */
+public class HibernateRequestMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final DataSource dataSource = QueryBudgetGuardTest.proxiedDataSource();
+
+    @Test
+    void testRequestRecordsStatementsCountedByDataSourceProxy() throws Exception {
+        HibernateRequestMetrics metrics = new HibernateRequestMetrics(registry, new QueryBudgetGuard(registry, "off"), 0);
+
+        metrics.doFilter(request(), new MockHttpServletResponse(), chain(3));
+
+        assertEquals(3, registry.get("http.server.requests.queries").tag("uri", "/order/history").summary().max(), 0.001);
+    }
+
+    @Test
+    void testRequestOverRequestMaxFailsWithSameCount() {
+        HibernateRequestMetrics metrics = new HibernateRequestMetrics(registry, new QueryBudgetGuard(registry, "fail"), 2);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> metrics.doFilter(request(), new MockHttpServletResponse(), chain(3)));
+        assertTrue(e.getMessage().contains("GET /order/history"));
+
+        assertEquals(3, registry.get("http.server.requests.queries").summary().max(), 0.001);
+        assertEquals(1.0, registry.get("query.budget.exceeded").tag("name", "GET /order/history").counter().count());
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/order/history");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/order/history");
+        return request;
+    }
+
+    private MockFilterChain chain(int statements) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) {
+                QueryBudgetGuardTest.executeStatements(dataSource, statements);
+            }
+        });
+    }
+}
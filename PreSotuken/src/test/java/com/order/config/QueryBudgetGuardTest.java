@@ -0,0 +1,106 @@
+package com.order.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * クエリ予算のテスト
+ * プロキシで包んだデータソースのSQL発行件数と、予算超過時の警告・エラーを確認する
+ */
+public class QueryBudgetGuardTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void testProxiedDataSourceCountsStatementsPerThread() throws Exception {
+        DataSource dataSource = proxiedDataSource();
+
+        long start = QueryCounter.current();
+        executeStatements(dataSource, 3);
+
+        assertEquals(3, QueryCounter.current() - start);
+    }
+
+    @Test
+    void testProxiedDataSourceIsNotWrappedAgain() {
+        DataSource dataSource = proxiedDataSource();
+
+        assertSame(dataSource, new QueryCountingDataSourcePostProcessor().postProcessAfterInitialization(dataSource, "dataSource"));
+    }
+
+    @Test
+    void testFailModeThrowsWhenAnnotatedMethodExceedsBudget() {
+        DataSource dataSource = proxiedDataSource();
+        Screens screens = proxy(new Screens(dataSource), new QueryBudgetGuard(registry, "fail"));
+
+        screens.withinBudget();
+        IllegalStateException e = assertThrows(IllegalStateException.class, screens::overBudget);
+        assertTrue(e.getMessage().contains("Screens.overBudget"));
+
+        assertEquals(1.0, registry.get("query.budget.exceeded").tag("name", "Screens.overBudget").counter().count());
+        assertEquals(2, registry.get("query.budget.statements").tag("method", "Screens.withinBudget").summary().max(), 0.001);
+    }
+
+    @Test
+    void testWarnModeOnlyRecordsExceededBudget() {
+        DataSource dataSource = proxiedDataSource();
+        Screens screens = proxy(new Screens(dataSource), new QueryBudgetGuard(registry, "warn"));
+
+        assertDoesNotThrow(screens::overBudget);
+        assertEquals(1.0, registry.get("query.budget.exceeded").counter().count());
+    }
+
+    static DataSource proxiedDataSource() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:query-budget");
+        return (DataSource) new QueryCountingDataSourcePostProcessor().postProcessAfterInitialization(dataSource, "dataSource");
+    }
+
+    private static Screens proxy(Screens target, QueryBudgetGuard guard) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(guard);
+        return factory.getProxy();
+    }
+
+    static void executeStatements(DataSource dataSource, int count) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (int i = 0; i < count; i++) {
+                statement.execute("SELECT 1");
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 予算を指定した画面の代わり
+     */
+    public static class Screens {
+
+        private final DataSource dataSource;
+
+        public Screens(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @QueryBudget(2)
+        public void withinBudget() {
+            executeStatements(dataSource, 2);
+        }
+
+        @QueryBudget(2)
+        public void overBudget() {
+            executeStatements(dataSource, 3);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.order.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * WebSocketDestinationMetrics の購読数・配信レート集計のテスト
+ */
+public class WebSocketDestinationMetricsTest {
+
+    private final WebSocketDestinationMetrics metrics = new WebSocketDestinationMetrics();
+
+    @Test
+    void testSubscriberCountsFollowSubscribeUnsubscribeAndDisconnect() {
+        metrics.onInbound(headers(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/seats/1"));
+        metrics.onInbound(headers(SimpMessageType.SUBSCRIBE, "s1", "sub-1", "/topic/seatCalls"));
+        metrics.onInbound(headers(SimpMessageType.SUBSCRIBE, "s2", "sub-0", "/topic/seatCalls"));
+        metrics.onInbound(headers(SimpMessageType.SUBSCRIBE, "s3", "sub-0", "/topic/seatCalls"));
+
+        assertEquals(Map.of("/topic/seats/1", 1, "/topic/seatCalls", 3), metrics.getSubscriberCounts());
+
+        metrics.onInbound(headers(SimpMessageType.UNSUBSCRIBE, "s2", "sub-0", null));
+        metrics.onInbound(headers(SimpMessageType.DISCONNECT, "s1", null, null));
+
+        assertEquals(Map.of("/topic/seatCalls", 1), metrics.getSubscriberCounts());
+    }
+
+    @Test
+    void testPublishRateIsComputedFromDeltaSinceLastSample() {
+        metrics.sampleRates(0L);
+        for (int i = 0; i < 30; i++) {
+            metrics.onBroker(headers(SimpMessageType.MESSAGE, null, null, "/topic/seats/1"));
+        }
+        // 購読などの制御メッセージは配信件数に含めない
+        metrics.onBroker(headers(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/seats/1"));
+
+        // 30秒間に30件 → 60件/分
+        Map<String, Double> rates = metrics.sampleRates(30_000_000_000L);
+        assertEquals(60.0, rates.get("/topic/seats/1"), 0.001);
+
+        // 次の間隔で配信がなければレートに含めない
+        assertTrue(metrics.sampleRates(60_000_000_000L).isEmpty());
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) metrics.getStats().get("destinations");
+        assertEquals(30L, rows.get(0).get("published"));
+    }
+
+    @Test
+    void testPublishedCounterIsTaggedWithNormalizedDestination() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        metrics.bindTo(registry);
+
+        metrics.onBroker(headers(SimpMessageType.MESSAGE, null, null, "/topic/printer/5"));
+        metrics.onBroker(headers(SimpMessageType.MESSAGE, null, null, "/topic/printer/12"));
+        metrics.onBroker(headers(SimpMessageType.MESSAGE, null, null, "/topic/seatCalls"));
+        metrics.onInbound(headers(SimpMessageType.SUBSCRIBE, "s1", "sub-0", "/topic/seats/1"));
+
+        assertEquals(2.0, registry.get("stomp.messages.published").tag("destination", "/topic/printer/{id}").counter().count());
+        assertEquals(1.0, registry.get("stomp.messages.published").tag("destination", "/topic/seatCalls").counter().count());
+        assertEquals(1.0, registry.get("stomp.subscriptions").gauge().value());
+        // 途中の区間の数値もまとめる
+        assertEquals("/topic/seats/{id}/orders", WebSocketDestinationMetrics.normalizeDestination("/topic/seats/3/orders"));
+    }
+
+    private MessageHeaders headers(SimpMessageType type, String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return accessor.getMessageHeaders();
+    }
+}
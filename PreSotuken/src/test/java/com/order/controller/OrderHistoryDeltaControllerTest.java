@@ -0,0 +1,84 @@
+package com.order.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.order.dto.OrderHistoryDeltaDto;
+import com.order.service.OrderService;
+
+/**
+ * 注文履歴の差分取得のテスト
+ * since だけでなく If-None-Match が現在のバージョンと一致する場合も 304 を返すことを確認する
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderHistoryDeltaControllerTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @InjectMocks
+    private OrderController orderController;
+
+    @Test
+    void testMatchingIfNoneMatchReturnsNotModified() {
+        when(orderService.getOrderHistoryDelta(1, 5, null)).thenReturn(delta("10-3-25-99"));
+
+        ResponseEntity<OrderHistoryDeltaDto> response = orderController.getOrderHistoryDelta(1, 5, null, null,
+                request("\"10-3-25-99\""));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("\"10-3-25-99\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void testStaleIfNoneMatchReturnsDelta() {
+        when(orderService.getOrderHistoryDelta(1, 5, null)).thenReturn(delta("10-4-26-12"));
+
+        ResponseEntity<OrderHistoryDeltaDto> response = orderController.getOrderHistoryDelta(1, 5, null, null,
+                request("\"10-3-25-99\""));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("10-4-26-12", response.getBody().getVersion());
+        assertEquals("\"10-4-26-12\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void testMatchingSinceReturnsNotModifiedWithoutIfNoneMatch() {
+        when(orderService.getOrderHistoryDelta(1, 5, "10-3-25-99")).thenReturn(delta("10-3-25-99"));
+
+        ResponseEntity<OrderHistoryDeltaDto> response = orderController.getOrderHistoryDelta(1, 5, null, "10-3-25-99",
+                request(null));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/order/history/delta");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
+    private static OrderHistoryDeltaDto delta(String version) {
+        OrderHistoryDeltaDto delta = new OrderHistoryDeltaDto();
+        delta.setVersion(version);
+        delta.setReset(true);
+        delta.setLines(List.of());
+        return delta;
+    }
+}
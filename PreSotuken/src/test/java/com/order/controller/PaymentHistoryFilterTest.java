@@ -4,9 +4,12 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +17,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.ui.Model;
 import org.springframework.ui.ExtendedModelMap;
 
@@ -23,7 +27,8 @@ import com.order.service.PaymentSplitService;
 
 /**
  * 会計履歴の表示フィルタのテスト
- * 個別会計と割り勘会計の表示ルールを検証
+ * 個別会計と割り勘会計の表示ルールはクエリで適用されるため、ここではページングと集計結果の受け渡しを検証
+ * （クエリの表示ルールは PaymentHistoryPageQueryTest でH2に対して検証）
  */
 @ExtendWith(MockitoExtension.class)
 class PaymentHistoryFilterTest {
@@ -189,173 +194,130 @@ class PaymentHistoryFilterTest {
     }
     
     @Test
-    void 通常会計は表示される() {
+    void 通常会計は表示され税抜合計が設定される() {
         // Given
-        List<Payment> allPayments = Arrays.asList(normalPayment);
-        when(paymentRepository.findByStoreStoreIdAndCancelledStatus(1, false))
-            .thenReturn(allPayments);
-        when(paymentRepository.findByParentPaymentPaymentId(1))
-            .thenReturn(Arrays.asList()); // 子会計なし
-        when(paymentDetailRepository.findByPaymentPaymentId(anyInt()))
-            .thenReturn(Arrays.asList());
+        when(paymentRepository.findHistoryPage(eq(1), eq(false), any(), any(), any(), any(), any()))
+            .thenReturn(rows(row(normalPayment, 909.0)));
         
         Model model = new ExtendedModelMap();
         
         // When
-        String viewName = paymentController.showPaymentHistory(1, "active", model);
+        String viewName = paymentController.showPaymentHistory(1, "active", null, null, null, null, model);
         
         // Then
         assertEquals("paymentHistory", viewName);
-        @SuppressWarnings("unchecked")
-        List<Payment> payments = (List<Payment>) model.getAttribute("payments");
-        assertNotNull(payments);
+        List<Payment> payments = payments(model);
         assertEquals(1, payments.size());
         assertEquals(normalPayment.getPaymentId(), payments.get(0).getPaymentId());
+        assertEquals(909.0, subtotalMap(model).get(normalPayment.getPaymentId()));
+        assertNull(model.getAttribute("nextBeforeId"), "1ページに収まる場合は次ページなし");
     }
     
     @Test
-    void 割り勘会計は親会計のみ表示され子会計は非表示() {
-        // Given
-        List<Payment> allPayments = Arrays.asList(
-            splitParent, 
-            splitChild1, 
-            splitChild2
-        );
-        when(paymentRepository.findByStoreStoreIdAndCancelledStatus(1, false))
-            .thenReturn(allPayments);
-        when(paymentRepository.findByParentPaymentPaymentId(2))
-            .thenReturn(Arrays.asList(splitChild1, splitChild2));
-        when(paymentDetailRepository.findByPaymentPaymentId(anyInt()))
-            .thenReturn(Arrays.asList());
+    void 表示ルールはクエリで適用され結果の順序のまま表示される() {
+        // Given: 割り勘は親会計のみ、個別会計は子会計のみがクエリから返る
+        when(paymentRepository.findHistoryPage(eq(1), eq(false), any(), any(), any(), any(), any()))
+            .thenReturn(rows(
+                row(individualChild2, 1200.0),
+                row(individualChild1, 800.0),
+                row(splitParent, 3000.0),
+                row(normalPayment, 1000.0)));
         
         Model model = new ExtendedModelMap();
         
         // When
-        String viewName = paymentController.showPaymentHistory(1, "active", model);
+        paymentController.showPaymentHistory(1, "active", null, null, null, null, model);
         
         // Then
-        assertEquals("paymentHistory", viewName);
-        @SuppressWarnings("unchecked")
-        List<Payment> payments = (List<Payment>) model.getAttribute("payments");
-        assertNotNull(payments);
+        List<Integer> ids = payments(model).stream().map(Payment::getPaymentId).toList();
+        assertEquals(List.of(204, 203, 2, 1), ids);
+        assertEquals(3000.0, subtotalMap(model).get(splitParent.getPaymentId()));
         
-        // 親会計のみが表示されることを確認
-        assertEquals(1, payments.size(), "割り勘会計では親会計のみが表示されるべき");
-        assertEquals(splitParent.getPaymentId(), payments.get(0).getPaymentId());
-        
-        // 子会計が含まれていないことを確認
-        boolean hasChild = payments.stream()
-            .anyMatch(p -> p.getPaymentId().equals(splitChild1.getPaymentId()) || 
-                          p.getPaymentId().equals(splitChild2.getPaymentId()));
-        assertFalse(hasChild, "割り勘会計の子会計は表示されないべき");
+        // 子会計の有無・税抜合計は同じクエリで求めるため、会計ごとの追加検索は行わない
+        verify(paymentRepository, never()).findByParentPaymentPaymentId(anyInt());
+        verifyNoInteractions(paymentDetailRepository);
     }
     
     @Test
-    void 個別会計は子会計のみ表示され親会計は非表示() {
+    void キャンセル履歴の表示ではキャンセル済みの会計を検索する() {
         // Given
-        List<Payment> allPayments = Arrays.asList(
-            individualParent,
-            individualChild1,
-            individualChild2
-        );
-        when(paymentRepository.findByStoreStoreIdAndCancelledStatus(1, false))
-            .thenReturn(allPayments);
-        when(paymentRepository.findByParentPaymentPaymentId(3))
-            .thenReturn(Arrays.asList(individualChild1, individualChild2));
-        when(paymentDetailRepository.findByPaymentPaymentId(anyInt()))
-            .thenReturn(Arrays.asList());
+        normalPayment.setCancel(true);
+        when(paymentRepository.findHistoryPage(eq(1), eq(true), any(), any(), any(), any(), any()))
+            .thenReturn(rows(row(normalPayment, 1000.0)));
         
         Model model = new ExtendedModelMap();
         
         // When
-        String viewName = paymentController.showPaymentHistory(1, "active", model);
+        paymentController.showPaymentHistory(1, "cancelled", null, null, null, null, model);
         
         // Then
-        assertEquals("paymentHistory", viewName);
-        @SuppressWarnings("unchecked")
-        List<Payment> payments = (List<Payment>) model.getAttribute("payments");
-        assertNotNull(payments);
+        assertEquals(1, payments(model).size());
+        assertEquals("cancelled", model.getAttribute("currentFilter"));
+    }
+    
+    @Test
+    void ページサイズを超える場合は最後の行を次ページのカーソルにする() {
+        // Given: 1ページ(50件)より1件多く返る
+        List<Object[]> page = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 10, 22, 0);
+        for (int i = 0; i < 51; i++) {
+            Payment p = new Payment();
+            p.setPaymentId(1000 - i);
+            p.setPaymentTime(base.minusMinutes(i));
+            page.add(row(p, 100.0));
+        }
+        when(paymentRepository.findHistoryPage(eq(1), eq(false), any(), any(), any(), any(), eq(PageRequest.of(0, 51))))
+            .thenReturn(page);
         
-        // 子会計のみが表示されることを確認
-        assertEquals(2, payments.size(), "個別会計では子会計のみが表示されるべき");
+        Model model = new ExtendedModelMap();
         
-        boolean hasChild1 = payments.stream()
-            .anyMatch(p -> p.getPaymentId().equals(individualChild1.getPaymentId()));
-        boolean hasChild2 = payments.stream()
-            .anyMatch(p -> p.getPaymentId().equals(individualChild2.getPaymentId()));
-        assertTrue(hasChild1, "個別会計の子会計1が表示されるべき");
-        assertTrue(hasChild2, "個別会計の子会計2が表示されるべき");
+        // When
+        paymentController.showPaymentHistory(1, "active", null, null, null, null, model);
         
-        // 親会計が含まれていないことを確認
-        boolean hasParent = payments.stream()
-            .anyMatch(p -> p.getPaymentId().equals(individualParent.getPaymentId()));
-        assertFalse(hasParent, "個別会計の親会計は表示されないべき");
+        // Then
+        assertEquals(50, payments(model).size());
+        assertEquals(951, model.getAttribute("nextBeforeId"));
+        assertEquals(base.minusMinutes(49), model.getAttribute("nextBeforeTime"));
     }
     
     @Test
-    void 複数の会計タイプが混在する場合の表示() {
+    void 期間とカーソルを指定した場合はその範囲から検索する() {
         // Given
-        List<Payment> allPayments = Arrays.asList(
-            normalPayment,
-            splitParent,
-            splitChild1,
-            splitChild2,
-            individualParent,
-            individualChild1,
-            individualChild2
-        );
-        when(paymentRepository.findByStoreStoreIdAndCancelledStatus(1, false))
-            .thenReturn(allPayments);
-        when(paymentRepository.findByParentPaymentPaymentId(1))
-            .thenReturn(Arrays.asList()); // 通常会計: 子なし
-        when(paymentRepository.findByParentPaymentPaymentId(2))
-            .thenReturn(Arrays.asList(splitChild1, splitChild2)); // 割り勘: 子あり
-        when(paymentRepository.findByParentPaymentPaymentId(3))
-            .thenReturn(Arrays.asList(individualChild1, individualChild2)); // 個別: 子あり
-        when(paymentDetailRepository.findByPaymentPaymentId(anyInt()))
-            .thenReturn(Arrays.asList());
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 1, 31);
+        LocalDateTime beforeTime = LocalDateTime.of(2025, 1, 20, 19, 30);
+        when(paymentRepository.findHistoryPage(1, false,
+                LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 2, 1, 0, 0),
+                beforeTime, 500, PageRequest.of(0, 51)))
+            .thenReturn(rows());
         
         Model model = new ExtendedModelMap();
         
         // When
-        String viewName = paymentController.showPaymentHistory(1, "active", model);
+        paymentController.showPaymentHistory(1, "active", from, to, beforeTime, 500, model);
         
         // Then
-        assertEquals("paymentHistory", viewName);
-        @SuppressWarnings("unchecked")
+        assertTrue(payments(model).isEmpty());
+        assertEquals(Boolean.FALSE, model.getAttribute("firstPage"));
+    }
+    
+    private static Object[] row(Payment payment, double subtotal) {
+        return new Object[] { payment, subtotal };
+    }
+    
+    private static List<Object[]> rows(Object[]... rows) {
+        return Arrays.asList(rows);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static List<Payment> payments(Model model) {
         List<Payment> payments = (List<Payment>) model.getAttribute("payments");
         assertNotNull(payments);
-        
-        // 期待される表示: 通常会計1 + 割り勘親会計1 + 個別会計子会計2 = 4件
-        assertEquals(4, payments.size(), "通常会計、割り勘親会計、個別会計の子会計2つの計4件が表示されるべき");
-        
-        // 通常会計が含まれることを確認
-        boolean hasNormal = payments.stream()
-            .anyMatch(p -> p.getPaymentId().equals(normalPayment.getPaymentId()));
-        assertTrue(hasNormal, "通常会計が表示されるべき");
-        
-        // 割り勘の親会計が含まれることを確認
-        boolean hasSplitParent = payments.stream()
-            .anyMatch(p -> p.getPaymentId().equals(splitParent.getPaymentId()));
-        assertTrue(hasSplitParent, "割り勘の親会計が表示されるべき");
-        
-        // 割り勘の子会計が含まれないことを確認
-        boolean hasSplitChild = payments.stream()
-            .anyMatch(p -> p.getPaymentId().equals(splitChild1.getPaymentId()) || 
-                          p.getPaymentId().equals(splitChild2.getPaymentId()));
-        assertFalse(hasSplitChild, "割り勘の子会計は表示されないべき");
-        
-        // 個別会計の親会計が含まれないことを確認
-        boolean hasIndividualParent = payments.stream()
-            .anyMatch(p -> p.getPaymentId().equals(individualParent.getPaymentId()));
-        assertFalse(hasIndividualParent, "個別会計の親会計は表示されないべき");
-        
-        // 個別会計の子会計が含まれることを確認
-        boolean hasIndividualChild1 = payments.stream()
-            .anyMatch(p -> p.getPaymentId().equals(individualChild1.getPaymentId()));
-        boolean hasIndividualChild2 = payments.stream()
-            .anyMatch(p -> p.getPaymentId().equals(individualChild2.getPaymentId()));
-        assertTrue(hasIndividualChild1, "個別会計の子会計1が表示されるべき");
-        assertTrue(hasIndividualChild2, "個別会計の子会計2が表示されるべき");
+        return payments;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<Integer, Double> subtotalMap(Model model) {
+        return (Map<Integer, Double>) model.getAttribute("subtotalMap");
     }
 }
@@ -0,0 +1,86 @@
+package com.order.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.order.dto.PaymentHistoryUpdateRequest;
+import com.order.entity.Payment;
+import com.order.entity.Seat;
+import com.order.entity.Store;
+import com.order.entity.Visit;
+import com.order.event.SeatBoardChangedEvent;
+import com.order.repository.PaymentDetailRepository;
+import com.order.repository.PaymentRepository;
+import com.order.repository.SeatRepository;
+import com.order.repository.VisitRepository;
+
+/**
+ * 会計履歴の編集で座席を移動した場合のテスト
+ * 移動元・移動先の両方の座席について座席ボードの変更イベントを発行することを確認する
+ */
+@ExtendWith(MockitoExtension.class)
+class PaymentHistorySeatMoveTest {
+
+    @Mock
+    private VisitRepository visitRepository;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private PaymentDetailRepository paymentDetailRepository;
+
+    @Mock
+    private SeatRepository seatRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private PaymentController paymentController;
+
+    @Test
+    void testSeatMovePublishesEventsForBothSeats() {
+        Store store = new Store();
+        store.setStoreId(1);
+        Visit visit = new Visit();
+        visit.setSeat(seat(5));
+        Payment payment = new Payment();
+        payment.setPaymentId(100);
+        payment.setStore(store);
+        payment.setVisit(visit);
+
+        when(paymentRepository.findById(100)).thenReturn(Optional.of(payment));
+        when(seatRepository.findById(7)).thenReturn(Optional.of(seat(7)));
+        when(paymentDetailRepository.findByPaymentPaymentId(100)).thenReturn(List.of());
+
+        PaymentHistoryUpdateRequest req = new PaymentHistoryUpdateRequest();
+        req.setSeatId(7);
+        paymentController.editPaymentHistory(1, 100, req);
+
+        assertEquals(7, visit.getSeat().getSeatId());
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(events.capture());
+        assertEquals(List.of(5, 7), events.getAllValues().stream()
+                .filter(SeatBoardChangedEvent.class::isInstance)
+                .map(event -> ((SeatBoardChangedEvent) event).getSeatId())
+                .toList());
+    }
+
+    private static Seat seat(int seatId) {
+        Seat seat = new Seat();
+        seat.setSeatId(seatId);
+        return seat;
+    }
+}
@@ -0,0 +1,156 @@
+package com.order.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.order.PreSotukenApplication;
+import com.order.entity.Payment;
+import com.order.entity.PaymentDetail;
+import com.order.entity.Store;
+
+/**
+ * 会計履歴の1ページ分を取得するクエリ（findHistoryPage）のテスト（H2）
+ * 表示ルール（割り勘は親会計のみ、個別会計は子会計のみ）・税抜合計・取消の絞り込み・キーセットページングを確認する
+ */
+@SpringBootTest(classes = PreSotukenApplication.class)
+@ActiveProfiles("test")
+@Transactional
+public class PaymentHistoryPageQueryTest {
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentDetailRepository paymentDetailRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 1, 10, 0, 0);
+
+    private Store store;
+    private Payment normal;
+    private Payment splitParent;
+    private Payment splitChild1;
+    private Payment splitChild2;
+    private Payment individualParent;
+    private Payment individualChild1;
+    private Payment individualChild2;
+    private Payment cancelled;
+
+    @BeforeEach
+    void setUp() {
+        store = new Store();
+        store.setStoreName("会計履歴テスト店舗");
+        store = storeRepository.save(store);
+
+        // 通常会計: 明細ごとに 小計 − 値引 を0円で下限補正して合計する
+        normal = payment(DAY.plusHours(10), null, null);
+        detail(normal, 1000.0, 200.0);
+        detail(normal, 100.0, 300.0);
+
+        // 割り勘: 親会計のみ表示する
+        splitParent = payment(DAY.plusHours(11), null, 2);
+        detail(splitParent, 3000.0, null);
+        splitChild1 = payment(DAY.plusHours(11).plusMinutes(5), splitParent, 2);
+        splitChild2 = payment(DAY.plusHours(11).plusMinutes(6), splitParent, 2);
+
+        // 個別会計: 子会計のみ表示する
+        individualParent = payment(DAY.plusHours(12), null, null);
+        individualChild1 = payment(DAY.plusHours(12).plusMinutes(10), individualParent, null);
+        detail(individualChild1, 1200.0, null);
+        individualChild2 = payment(DAY.plusHours(12).plusMinutes(20), individualParent, null);
+        detail(individualChild2, 1800.0, null);
+
+        cancelled = payment(DAY.plusHours(13), null, null);
+        cancelled.setCancel(true);
+        paymentRepository.save(cancelled);
+
+        // 会計前（会計日時が未確定）の会計は履歴に含めない
+        payment(null, null, null);
+    }
+
+    @Test
+    void testActiveHistoryAppliesDisplayRulesAndSubtotals() {
+        List<Object[]> rows = findPage(false, DAY.plusDays(1), Integer.MAX_VALUE, 10);
+
+        assertEquals(List.of(individualChild2.getPaymentId(), individualChild1.getPaymentId(),
+                        splitParent.getPaymentId(), normal.getPaymentId()),
+                ids(rows));
+        assertEquals(List.of(1800.0, 1200.0, 3000.0, 800.0), subtotals(rows));
+    }
+
+    @Test
+    void testCancelledHistoryReturnsOnlyCancelledPayments() {
+        List<Object[]> rows = findPage(true, DAY.plusDays(1), Integer.MAX_VALUE, 10);
+
+        assertEquals(List.of(cancelled.getPaymentId()), ids(rows));
+    }
+
+    @Test
+    void testCursorReturnsRowsOlderThanPreviousPage() {
+        // 次ページの有無を判定するため、ページサイズ(2)より1件多く取得する
+        List<Object[]> first = findPage(false, DAY.plusDays(1), Integer.MAX_VALUE, 3);
+        assertEquals(3, first.size());
+
+        Payment last = (Payment) first.get(1)[0];
+        assertEquals(individualChild1.getPaymentId(), last.getPaymentId());
+        List<Object[]> second = findPage(false, last.getPaymentTime(), last.getPaymentId(), 3);
+
+        assertEquals(List.of(splitParent.getPaymentId(), normal.getPaymentId()), ids(second));
+    }
+
+    @Test
+    void testCursorOrdersSamePaymentTimeByPaymentId() {
+        Payment sameTime1 = payment(DAY.plusHours(14), null, null);
+        Payment sameTime2 = payment(DAY.plusHours(14), null, null);
+
+        List<Object[]> first = findPage(false, DAY.plusDays(1), Integer.MAX_VALUE, 1);
+        assertEquals(List.of(sameTime2.getPaymentId()), ids(first));
+
+        List<Object[]> second = findPage(false, sameTime2.getPaymentTime(), sameTime2.getPaymentId(), 1);
+        assertEquals(List.of(sameTime1.getPaymentId()), ids(second));
+    }
+
+    private List<Object[]> findPage(boolean isCancelled, LocalDateTime cursorTime, Integer cursorId, int size) {
+        return paymentRepository.findHistoryPage(store.getStoreId(), isCancelled, DAY, DAY.plusDays(1),
+                cursorTime, cursorId, PageRequest.of(0, size));
+    }
+
+    private Payment payment(LocalDateTime paymentTime, Payment parent, Integer totalSplits) {
+        Payment payment = new Payment();
+        payment.setStore(store);
+        payment.setPaymentTime(paymentTime);
+        payment.setParentPayment(parent);
+        payment.setTotalSplits(totalSplits);
+        return paymentRepository.save(payment);
+    }
+
+    private void detail(Payment payment, Double subtotal, Double discount) {
+        PaymentDetail detail = new PaymentDetail();
+        detail.setPayment(payment);
+        detail.setStore(store);
+        detail.setQuantity(1);
+        detail.setSubtotal(subtotal);
+        detail.setDiscount(discount);
+        paymentDetailRepository.save(detail);
+    }
+
+    private static List<Integer> ids(List<Object[]> rows) {
+        return rows.stream().map(row -> ((Payment) row[0]).getPaymentId()).toList();
+    }
+
+    private static List<Double> subtotals(List<Object[]> rows) {
+        return rows.stream().map(row -> ((Number) row[1]).doubleValue()).toList();
+    }
+}
@@ -0,0 +1,79 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.order.event.SeatBoardChangedEvent;
+import com.order.repository.VisitRepository;
+
+/**
+ * 来店中の座席の登録簿のテスト
+ * 全件の読み込みは1回だけで、以降の参照はDBに問い合わせず、変更イベントで該当座席だけを読み直すことを確認する
+ */
+@ExtendWith(MockitoExtension.class)
+public class ActiveVisitRegistryTest {
+
+    @Mock
+    private VisitRepository visitRepository;
+
+    @InjectMocks
+    private ActiveVisitRegistry registry;
+
+    private final LocalDateTime visitTime = LocalDateTime.of(2026, 10, 18, 18, 0);
+
+    @Test
+    void testLookupsAreServedFromMemoryAfterFirstLoad() {
+        when(visitRepository.findActiveVisitRows(null)).thenReturn(rows(
+                row(5, 1, 100, 200),
+                row(6, 1, 101, null)));
+
+        assertEquals(200, registry.findPaymentIdBySeatId(5));
+        assertNull(registry.findPaymentIdBySeatId(6));
+        assertNull(registry.findPaymentIdBySeatId(7));
+        assertEquals(100, registry.find(1, 5).orElseThrow().getVisitId());
+        assertTrue(registry.find(2, 5).isEmpty());
+        verify(visitRepository, times(1)).findActiveVisitRows(null);
+    }
+
+    @Test
+    void testLatestVisitWinsWhenSeatHasSeveralOpenVisits() {
+        when(visitRepository.findActiveVisitRows(null)).thenReturn(rows(
+                row(5, 1, 100, 200),
+                row(5, 1, 110, 210)));
+
+        assertEquals(210, registry.findPaymentIdBySeatId(5));
+    }
+
+    @Test
+    void testSeatChangeReloadsOnlyThatSeat() {
+        when(visitRepository.findActiveVisitRows(null)).thenReturn(rows(row(5, 1, 100, 200)));
+        when(visitRepository.findActiveVisitRows(5)).thenReturn(List.of());
+        when(visitRepository.findActiveVisitRows(6)).thenReturn(rows(row(6, 1, 120, 220)));
+        registry.rebuild();
+
+        registry.onSeatChanged(new SeatBoardChangedEvent(1, 5));
+        registry.onSeatChanged(new SeatBoardChangedEvent(1, 6));
+
+        assertTrue(registry.findBySeatId(5).isEmpty());
+        assertEquals(220, registry.findPaymentIdBySeatId(6));
+        verify(visitRepository, times(1)).findActiveVisitRows(null);
+    }
+
+    private Object[] row(int seatId, int storeId, int visitId, Integer paymentId) {
+        return new Object[] { seatId, storeId, visitId, 2, visitTime, paymentId };
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
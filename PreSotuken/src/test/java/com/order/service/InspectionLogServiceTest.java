@@ -8,7 +8,6 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,7 +15,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.order.dto.InspectionSummaryDto;
+import com.order.dto.InspectionSummaryDto.PaymentTypeSales;
+import com.order.dto.InspectionSummaryDto.TaxRateSales;
 import com.order.entity.InspectionLog;
+import com.order.entity.PaymentType;
 import com.order.entity.Store;
 import com.order.repository.CashTransactionRepository;
 import com.order.repository.InspectionLogRepository;
@@ -24,7 +27,6 @@ import com.order.repository.PaymentDetailRepository;
 import com.order.repository.PaymentRepository;
 import com.order.repository.PaymentTypeRepository;
 import com.order.repository.StoreRepository;
-import com.order.repository.VisitRepository;
 
 @ExtendWith(MockitoExtension.class)
 class InspectionLogServiceTest {
@@ -45,7 +47,7 @@ class InspectionLogServiceTest {
     private CashTransactionRepository cashTransactionRepository;
     
     @Mock
-    private VisitRepository visitRepository;
+    private SalesReportService salesReportService;
     
     @Mock
     private StoreRepository storeRepository;
@@ -72,7 +74,7 @@ class InspectionLogServiceTest {
     }
     
     @Test
-    void testBuildInspectionSummary_CalculatesTaxAmountByPaymentType() {
+    void testBuildInspectionSummary_AggregatesAnyPaymentTypeAndTaxRateInOneQuery() {
         // Given
         Integer storeId = 1;
         
@@ -82,54 +84,59 @@ class InspectionLogServiceTest {
         mockStore.setTransitionTime(java.time.LocalTime.of(3, 0));
         when(storeRepository.findById(storeId)).thenReturn(java.util.Optional.of(mockStore));
         
-        // Mock基本的なデータ
         when(inspectionLogRepository.existsByStoreIdAndInspectionTimeBetween(eq(storeId), any(), any()))
             .thenReturn(false);
-        when(paymentRepository.sumCashSales(eq(storeId), any(), any()))
-            .thenReturn(BigDecimal.ZERO);
-        when(paymentDetailRepository.sumTotalSales(eq(storeId), any(), any()))
-            .thenReturn(BigDecimal.ZERO);
-        when(paymentDetailRepository.sumSalesByTaxRate(eq(storeId), any(), any()))
-            .thenReturn(new ArrayList<>());
-        when(paymentDetailRepository.sumSalesByPaymentTypeAndTaxRate(eq(storeId), any(), any()))
-            .thenReturn(new ArrayList<>());
-        when(paymentDetailRepository.sumTaxAmount(eq(storeId), any(), any(), any()))
-            .thenReturn(BigDecimal.ZERO);
-        
-        // 支払い方法別の消費税額データをモック
-        List<Object[]> taxAmountData = new ArrayList<>();
-        // 現金 10%: 100円
-        taxAmountData.add(new Object[]{"現金", 0.10, 100.0});
-        // 現金 8%: 80円
-        taxAmountData.add(new Object[]{"現金", 0.08, 80.0});
-        // カード 10%: 200円
-        taxAmountData.add(new Object[]{"カード", 0.10, 200.0});
+        when(paymentTypeRepository.findByStoreId(storeId))
+            .thenReturn(List.of(paymentType(3, "QR決済", false), paymentType(1, "現金", true), paymentType(2, "カード", false)));
         
-        when(paymentDetailRepository.sumTaxAmountByPaymentTypeAndTaxRate(eq(storeId), any(LocalDateTime.class), any(LocalDateTime.class)))
-            .thenReturn(taxAmountData);
+        // 会計種別・税率ごとの集計行（[種別ID, 種別名, 点検対象, 税率ID, 税率, 税抜売上, 消費税額, 値引額]）
+        // 税率ID・種別名に依存しないことを確認するため、標準以外のIDと税率を含める
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1, "現金", true, 11, 0.10, 1000.0, 100.0, 50.0});
+        rows.add(new Object[]{1, "現金", true, 12, 0.08, 1000.0, 80.0, 0.0});
+        rows.add(new Object[]{2, "カード", false, 11, 0.10, 2000.0, 200.0, 0.0});
+        rows.add(new Object[]{3, "QR決済", false, 13, 0.05, 400.0, 20.0, 0.0});
+        when(paymentDetailRepository.sumInspectionSalesByPaymentTypeAndTaxRate(eq(storeId), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(rows);
         
-        when(paymentDetailRepository.sumDiscountByPaymentType(eq(storeId), any(), any()))
-            .thenReturn(new ArrayList<>());
-        when(visitRepository.sumNumberOfPeopleByPaymentTime(eq(storeId), any(), any()))
-            .thenReturn(0L);
-        when(cashTransactionRepository.sumAmountByType(eq(storeId), any(), any(), any()))
-            .thenReturn(BigDecimal.ZERO);
-        when(paymentTypeRepository.findAllByOrderByTypeNameAsc())
-            .thenReturn(new ArrayList<>());
+        when(paymentRepository.sumCashSales(eq(storeId), any(), any()))
+            .thenReturn(new BigDecimal("2130"));
+        when(salesReportService.sumNetCustomers(eq(storeId), any(), any()))
+            .thenReturn(5L);
+        when(cashTransactionRepository.sumAmountByType(eq(storeId), eq("IN"), any(), any()))
+            .thenReturn(new BigDecimal("1000"));
+        when(cashTransactionRepository.sumAmountByType(eq(storeId), eq("OUT"), any(), any()))
+            .thenReturn(null);
         
         // When
-        Map<String, Object> result = inspectionLogService.buildInspectionSummary(storeId);
+        InspectionSummaryDto summary = inspectionLogService.buildInspectionSummary(storeId);
         
         // Then
-        assertNotNull(result);
+        assertEquals(0, new BigDecimal("4400").compareTo(summary.getTotalSales()));
+        assertEquals(0, new BigDecimal("4800").compareTo(summary.getTotalSalesWithTax()));
+        assertEquals(List.of("10%", "8%", "5%"), summary.getTaxRates().stream().map(TaxRateSales::getLabel).toList());
+        assertEquals(0, new BigDecimal("1000").compareTo(summary.getTaxRates().get(0).getInspectionTargetSales()));
         
-        // 支払い方法別の消費税額が正しく計算されていることを確認
-        assertTrue(result.containsKey("taxAmountByPaymentType_現金_10%"));
-        assertTrue(result.containsKey("taxAmountByPaymentType_現金_8%"));
-        assertTrue(result.containsKey("taxAmountByPaymentType_カード_10%"));
+        // 会計種別は名前順、税率は高い順
+        List<PaymentTypeSales> types = summary.getPaymentTypes();
+        assertEquals(List.of("QR決済", "カード", "現金"), types.stream().map(PaymentTypeSales::getTypeName).toList());
+        PaymentTypeSales cash = types.get(2);
+        assertEquals(0, new BigDecimal("80").compareTo(cash.getTaxRates().get(1).getTaxAmount()));
+        assertEquals(0, new BigDecimal("50").compareTo(cash.getDiscount()));
         
-        assertEquals(new BigDecimal("100.0"), result.get("taxAmountByPaymentType_現金_10%"));
-        assertEquals(new BigDecimal("80.0"), result.get("taxAmountByPaymentType_現金_8%"));
-        assertEquals(new BigDecimal("200.0"), result.get("taxAmountByPaymentType_カード_10%"));
+        assertEquals(5L, summary.getGuestCount());
+        assertEquals(0, new BigDecimal("3130").compareTo(summary.getExpectedCash()));
+        
+        // 集計クエリは1回のみ
+        verify(paymentDetailRepository, times(1)).sumInspectionSalesByPaymentTypeAndTaxRate(eq(storeId), any(), any());
+        verifyNoMoreInteractions(paymentDetailRepository);
+    }
+
+    private PaymentType paymentType(Integer typeId, String typeName, boolean inspectionTarget) {
+        PaymentType type = new PaymentType();
+        type.setTypeId(typeId);
+        type.setTypeName(typeName);
+        type.setIsInspectionTarget(inspectionTarget);
+        return type;
     }
-}
\ No newline at end of file
+}
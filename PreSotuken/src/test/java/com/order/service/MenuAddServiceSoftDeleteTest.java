@@ -12,9 +12,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.order.entity.Menu;
 import com.order.entity.Store;
+import com.order.event.MenuCatalogChangedEvent;
 import com.order.repository.MenuOptionRepository;
 import com.order.repository.MenuPrinterMapRepository;
 import com.order.repository.MenuRepository;
@@ -33,6 +35,9 @@ public class MenuAddServiceSoftDeleteTest {
     
     @Mock
     private ImageUploadService imageUploadService;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private MenuAddService menuAddService;
@@ -69,6 +74,9 @@ public class MenuAddServiceSoftDeleteTest {
         // プリンターマップやオプションは削除しない（ソフトデリート）
         verify(menuPrinterMapRepository, never()).deleteByMenu_MenuId(menuId);
         verify(menuOptionRepository, never()).deleteByMenu_MenuId(menuId);
+
+        // メニューカタログの破棄イベントが発行される
+        verify(eventPublisher).publishEvent(any(MenuCatalogChangedEvent.class));
     }
 
     @Test
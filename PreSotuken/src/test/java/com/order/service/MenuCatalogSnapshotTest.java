@@ -0,0 +1,79 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.order.dto.MenuWithOptionsDTO;
+import com.order.service.MenuCatalogCache.CatalogEntry;
+import com.order.service.MenuCatalogCache.MenuSnapshot;
+import com.order.service.MenuCatalogCache.StoreMenuCatalog;
+import com.order.service.MenuCatalogCache.TimeSlotRange;
+
+/**
+ * 時間帯境界ごとのメニュースナップショットのテスト
+ */
+public class MenuCatalogSnapshotTest {
+
+    private static final int LUNCH = 1;
+    private static final int DINNER = 2;
+    private static final int ALL_DAY = 3;
+
+    private StoreMenuCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        List<TimeSlotRange> slots = List.of(
+                new TimeSlotRange(LUNCH, LocalTime.of(11, 0), LocalTime.of(15, 0)),
+                new TimeSlotRange(DINNER, LocalTime.of(17, 0), LocalTime.of(23, 0)),
+                new TimeSlotRange(ALL_DAY, LocalTime.of(11, 0), LocalTime.of(23, 0)));
+
+        // メニュー名順
+        List<CatalogEntry> entries = List.of(
+                entry(1, LUNCH, false),
+                entry(2, ALL_DAY, false),
+                entry(3, DINNER, false),
+                entry(4, DINNER, true),
+                entry(5, null, false));
+
+        catalog = new StoreMenuCatalog(slots, entries, entries);
+    }
+
+    @Test
+    void testSnapshotsFollowTimeSlotBoundaries() {
+        assertEquals(List.of(), menuIds(catalog.snapshotAt(LocalTime.of(10, 59))));
+        assertEquals(List.of(1, 2), menuIds(catalog.snapshotAt(LocalTime.of(11, 0))));
+        assertEquals(List.of(2), menuIds(catalog.snapshotAt(LocalTime.of(15, 0))));
+        // 品切れ(4)と時間帯未設定(5)は含まない
+        assertEquals(List.of(2, 3), menuIds(catalog.snapshotAt(LocalTime.of(18, 30))));
+        assertEquals(List.of(), menuIds(catalog.snapshotAt(LocalTime.of(23, 0))));
+    }
+
+    @Test
+    void testActivateSwitchesSnapshotAtBoundary() {
+        MenuSnapshot lunch = catalog.activate(LocalTime.of(14, 59));
+        assertEquals(Set.of(LUNCH, ALL_DAY), lunch.getActiveTimeSlotIds());
+
+        // 境界を過ぎた時刻では切り替え前でも正しいスナップショットを返す
+        assertEquals(Set.of(ALL_DAY), catalog.snapshotAt(LocalTime.of(15, 0)).getActiveTimeSlotIds());
+
+        MenuSnapshot afternoon = catalog.activate(LocalTime.of(15, 0));
+        assertNotSame(lunch, afternoon);
+        assertSame(afternoon, catalog.snapshotAt(LocalTime.of(16, 59)));
+    }
+
+    private CatalogEntry entry(Integer menuId, Integer timeSlotId, boolean soldOut) {
+        MenuWithOptionsDTO dto = new MenuWithOptionsDTO();
+        dto.setMenuId(menuId);
+        return new CatalogEntry(timeSlotId, soldOut, dto);
+    }
+
+    private List<Integer> menuIds(MenuSnapshot snapshot) {
+        return snapshot.getMenus().stream().map(MenuWithOptionsDTO::getMenuId).toList();
+    }
+}
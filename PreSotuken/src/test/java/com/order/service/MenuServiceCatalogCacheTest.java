@@ -0,0 +1,155 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.order.dto.MenuWithOptionsDTO;
+import com.order.entity.Menu;
+import com.order.entity.MenuOption;
+import com.order.entity.MenuTimeSlot;
+import com.order.entity.OptionGroup;
+import com.order.entity.OptionItem;
+import com.order.event.MenuCatalogChangedEvent;
+import com.order.event.SoldOutChangedEvent;
+import com.order.repository.MenuOptionRepository;
+import com.order.repository.MenuRepository;
+import com.order.repository.MenuTimeSlotRepository;
+import com.order.repository.OptionGroupRepository;
+import com.order.repository.OptionItemRepository;
+import com.order.repository.PlanRepository;
+
+/**
+ * MenuService のメニューカタログキャッシュのテスト
+ */
+@ExtendWith(MockitoExtension.class)
+public class MenuServiceCatalogCacheTest {
+
+    @Mock
+    private MenuTimeSlotRepository menuTimeSlotRepository;
+    @Mock
+    private MenuRepository menuRepository;
+    @Mock
+    private MenuOptionRepository menuOptionRepository;
+    @Mock
+    private OptionGroupRepository optionGroupRepository;
+    @Mock
+    private OptionItemRepository optionItemRepository;
+    @Mock
+    private PlanRepository planRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private MenuCatalogCache menuCatalogCache = new MenuCatalogCache();
+
+    @InjectMocks
+    private MenuService menuService;
+
+    private static final Integer STORE_ID = 1;
+
+    @BeforeEach
+    void setUp() {
+        MenuTimeSlot allDay = new MenuTimeSlot();
+        allDay.setTimeSlotId(1);
+        allDay.setStartTime(LocalTime.MIN);
+        allDay.setEndTime(LocalTime.MAX);
+
+        // メニュー名順（DBのORDER BY menu_name の結果）で返す
+        Menu karaage = createMenu(2, "唐揚げ", allDay, false);
+        Menu edamame = createMenu(1, "枝豆", allDay, true);
+
+        MenuOption karaageSize = new MenuOption();
+        karaageSize.setMenu(karaage);
+        karaageSize.setOptionGroupId(10);
+
+        OptionGroup size = new OptionGroup();
+        size.setOptionGroupId(10);
+        size.setGroupName("サイズ");
+
+        OptionItem small = new OptionItem();
+        small.setOptionItemId(100);
+        small.setOptionGroupId(10);
+        small.setItemName("小");
+
+        when(menuTimeSlotRepository.findByStoreStoreId(STORE_ID)).thenReturn(List.of(allDay));
+        when(menuRepository.findByStore_StoreIdAndDeletedAtIsNullOrderByMenuNameAsc(STORE_ID))
+                .thenReturn(List.of(karaage, edamame));
+        when(menuOptionRepository.findByMenu_MenuIdIn(List.of(2, 1))).thenReturn(List.of(karaageSize));
+        when(optionGroupRepository.findAllById(Set.of(10))).thenReturn(List.of(size));
+        when(optionItemRepository.findByOptionGroupIdIn(Set.of(10))).thenReturn(List.of(small));
+    }
+
+    @Test
+    void testCatalogIsBuiltWithBulkQueriesAndServedFromMemory() {
+        List<MenuWithOptionsDTO> all = menuService.getAllMenusWithOptions(STORE_ID);
+        List<MenuWithOptionsDTO> orderable = menuService.getMenusWithOptions(STORE_ID);
+
+        // 管理者用はメニューID順、品切れも含む
+        assertEquals(List.of(1, 2), all.stream().map(MenuWithOptionsDTO::getMenuId).toList());
+        // 注文用は品切れを除いてメニュー名順
+        assertEquals(List.of(2), orderable.stream().map(MenuWithOptionsDTO::getMenuId).toList());
+        assertEquals("サイズ", orderable.get(0).getOptionGroups().get(0).getGroupName());
+        assertEquals("小", orderable.get(0).getOptionGroups().get(0).getOptionItems().get(0).getItemName());
+
+        // 2回目以降はDBを参照しない
+        verify(menuRepository, times(1)).findByStore_StoreIdAndDeletedAtIsNullOrderByMenuNameAsc(STORE_ID);
+        verify(menuOptionRepository, times(1)).findByMenu_MenuIdIn(anyCollection());
+        verify(menuOptionRepository, never()).findByMenu_MenuId(anyInt());
+        verify(optionGroupRepository, never()).findById(anyInt());
+        verify(optionItemRepository, never()).findByOptionGroupId(anyInt());
+    }
+
+    @Test
+    void testCatalogIsRebuiltAfterChangeEvent() {
+        menuService.getAllMenusWithOptions(STORE_ID);
+
+        menuCatalogCache.onMenuCatalogChanged(new MenuCatalogChangedEvent(STORE_ID));
+        menuService.getAllMenusWithOptions(STORE_ID);
+
+        verify(menuRepository, times(2)).findByStore_StoreIdAndDeletedAtIsNullOrderByMenuNameAsc(STORE_ID);
+    }
+
+    @Test
+    void testSoldOutChangeIsAppliedWithoutRebuild() {
+        List<MenuWithOptionsDTO> before = menuService.getAllMenusWithOptions(STORE_ID);
+
+        // 唐揚げを品切れに、枝豆の品切れを解除する
+        menuCatalogCache.onMenuCatalogChanged(new SoldOutChangedEvent(STORE_ID, Map.of(2, "唐揚げ"), true));
+        menuCatalogCache.onMenuCatalogChanged(new SoldOutChangedEvent(STORE_ID, Map.of(1, "枝豆"), false));
+
+        List<MenuWithOptionsDTO> all = menuService.getAllMenusWithOptions(STORE_ID);
+        assertEquals(List.of(1, 2), all.stream().map(MenuWithOptionsDTO::getMenuId).toList());
+        assertEquals(List.of(false, true), all.stream().map(MenuWithOptionsDTO::getIsSoldOut).toList());
+        assertEquals(List.of(1), menuService.getMenusWithOptions(STORE_ID).stream()
+                .map(MenuWithOptionsDTO::getMenuId).toList());
+        // 品切れを反映したDTOは複製され、変更前のカタログのDTOは変わらない
+        assertEquals(List.of(true, false), before.stream().map(MenuWithOptionsDTO::getIsSoldOut).toList());
+        assertEquals("サイズ", all.get(1).getOptionGroups().get(0).getGroupName());
+
+        verify(menuRepository, times(1)).findByStore_StoreIdAndDeletedAtIsNullOrderByMenuNameAsc(STORE_ID);
+    }
+
+    private Menu createMenu(Integer menuId, String name, MenuTimeSlot timeSlot, boolean soldOut) {
+        Menu menu = new Menu();
+        menu.setMenuId(menuId);
+        menu.setMenuName(name);
+        menu.setPrice(300.0);
+        menu.setTimeSlot(timeSlot);
+        menu.setIsSoldOut(soldOut);
+        return menu;
+    }
+}
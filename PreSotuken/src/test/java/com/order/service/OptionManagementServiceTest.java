@@ -13,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.order.dto.OptionDeletionCheckDTO;
 import com.order.entity.Menu;
@@ -33,6 +34,9 @@ class OptionManagementServiceTest {
     @Mock
     private MenuOptionRepository menuOptionRepository;
     
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
     @InjectMocks
     private OptionManagementService optionManagementService;
     
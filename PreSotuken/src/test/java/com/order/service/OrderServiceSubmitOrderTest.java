@@ -0,0 +1,209 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.order.controller.OrderController.OrderItemDto;
+import com.order.entity.Menu;
+import com.order.entity.OptionItem;
+import com.order.entity.Payment;
+import com.order.entity.PaymentDetail;
+import com.order.entity.PaymentDetailOption;
+import com.order.entity.Seat;
+import com.order.entity.Store;
+import com.order.entity.TaxRate;
+import com.order.entity.Visit;
+import com.order.repository.MenuRepository;
+import com.order.repository.OptionItemRepository;
+import com.order.repository.PaymentDetailBatchRepository;
+import com.order.repository.PaymentDetailOptionRepository;
+import com.order.repository.PaymentDetailRepository;
+import com.order.repository.PaymentRepository;
+import com.order.repository.SeatRepository;
+import com.order.repository.StoreRepository;
+import com.order.repository.TaxRateRepository;
+import com.order.repository.UserRepository;
+import com.order.repository.VisitRepository;
+
+/**
+ * OrderService.submitOrder の一括取得・バッチ登録のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+public class OrderServiceSubmitOrderTest {
+
+    @Mock
+    private MenuRepository menuRepository;
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private PaymentDetailRepository paymentDetailRepository;
+    @Mock
+    private TaxRateRepository taxRateRepository;
+    @Mock
+    private VisitRepository visitRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private OptionItemRepository optionItemRepository;
+    @Mock
+    private PaymentDetailOptionRepository paymentDetailOptionRepository;
+    @Mock
+    private StoreRepository storeRepository;
+    @Mock
+    private SeatRepository seatRepository;
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+    @Mock
+    private PaymentDetailBatchRepository paymentDetailBatchRepository;
+    @Mock
+    private PrintJobOutboxService printJobOutboxService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private SoldOutRegistry soldOutRegistry;
+    @Mock
+    private PlanActivationCache planActivationCache;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    private Payment payment;
+    private Menu beer;
+    private Menu edamame;
+    private TaxRate taxRate;
+
+    @BeforeEach
+    void setUp() {
+        Store store = new Store();
+        store.setStoreId(1);
+
+        Seat seat = new Seat();
+        seat.setSeatId(5);
+
+        Visit visit = new Visit();
+        visit.setVisitId(10);
+        visit.setSeat(seat);
+
+        payment = new Payment();
+        payment.setPaymentId(100);
+
+        beer = createMenu(1, "生ビール", 500.0, store);
+        edamame = createMenu(2, "枝豆", 300.0, store);
+
+        taxRate = new TaxRate();
+        taxRate.setTaxRateId(1);
+        taxRate.setRate(0.10);
+
+        // 品切れの登録簿で弾かれるテストでは参照されない
+        lenient().when(paymentRepository.findByVisitVisitIdAndParentPaymentIsNull(10)).thenReturn(payment);
+        lenient().when(visitRepository.findById(10)).thenReturn(Optional.of(visit));
+    }
+
+    @Test
+    void testSubmitOrderResolvesCartWithBulkLookupsAndBatchInsert() {
+        OptionItem large = new OptionItem();
+        large.setOptionItemId(7);
+        large.setItemName("大");
+
+        when(menuRepository.findAllById(Set.of(1, 2))).thenReturn(List.of(beer, edamame));
+        when(taxRateRepository.findAllById(Set.of(1))).thenReturn(List.of(taxRate));
+        when(optionItemRepository.findAllById(Set.of(7))).thenReturn(List.of(large));
+
+        List<OrderItemDto> items = List.of(
+                createItem(1, 2, List.of(7)),
+                createItem(2, 1, null),
+                createItem(1, 1, List.of(7)));
+
+        orderService.submitOrder(items, 10, 1, null);
+
+        // 行ごとの findById は発行しない
+        verify(menuRepository, never()).findById(anyInt());
+        verify(taxRateRepository, never()).findById(anyInt());
+        verify(optionItemRepository, never()).findById(anyInt());
+        verify(paymentDetailRepository, never()).save(any());
+        verify(paymentDetailOptionRepository, never()).save(any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PaymentDetail>> detailCaptor = ArgumentCaptor.forClass(List.class);
+        verify(paymentDetailBatchRepository, times(1)).insertDetails(detailCaptor.capture());
+        List<PaymentDetail> details = detailCaptor.getValue();
+        assertEquals(3, details.size());
+        assertEquals(1000.0, details.get(0).getSubtotal());
+        assertEquals(edamame, details.get(1).getMenu());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PaymentDetailOption>> optionCaptor = ArgumentCaptor.forClass(List.class);
+        verify(paymentDetailBatchRepository, times(1)).insertOptions(optionCaptor.capture());
+        List<PaymentDetailOption> options = optionCaptor.getValue();
+        assertEquals(2, options.size());
+        assertSame(details.get(0), options.get(0).getPaymentDetail());
+        assertSame(details.get(2), options.get(1).getPaymentDetail());
+
+        // 印刷は注文処理中には実行せず、注文と同じトランザクションで印刷ジョブを1件登録する
+        verify(printJobOutboxService, times(1)).enqueueOrder(1, 5, details);
+    }
+
+    @Test
+    void testSubmitOrderRejectsSoldOutMenuBeforeInsert() {
+        edamame.setIsSoldOut(true);
+
+        when(menuRepository.findAllById(Set.of(1, 2))).thenReturn(List.of(beer, edamame));
+        when(taxRateRepository.findAllById(Set.of(1))).thenReturn(List.of(taxRate));
+
+        List<OrderItemDto> items = List.of(createItem(1, 1, null), createItem(2, 1, null));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> orderService.submitOrder(items, 10, 1, null));
+
+        assertTrue(ex.getMessage().contains("品切れ商品「枝豆」"));
+        verify(paymentDetailBatchRepository, never()).insertDetails(any());
+        verifyNoInteractions(printJobOutboxService);
+    }
+
+    @Test
+    void testSubmitOrderRejectsSoldOutMenuFromRegistryWithoutLookups() {
+        when(soldOutRegistry.findSoldOutMenuName(1, Set.of(1, 2))).thenReturn(Optional.of("枝豆"));
+
+        List<OrderItemDto> items = List.of(createItem(1, 1, null), createItem(2, 1, null));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> orderService.submitOrder(items, 10, 1, null));
+
+        assertTrue(ex.getMessage().contains("品切れ商品「枝豆」"));
+        verifyNoInteractions(menuRepository, paymentRepository, paymentDetailBatchRepository, printJobOutboxService);
+    }
+
+    private Menu createMenu(Integer menuId, String name, Double price, Store store) {
+        Menu menu = new Menu();
+        menu.setMenuId(menuId);
+        menu.setMenuName(name);
+        menu.setPrice(price);
+        menu.setStore(store);
+        menu.setIsSoldOut(false);
+        return menu;
+    }
+
+    private OrderItemDto createItem(Integer menuId, Integer quantity, List<Integer> optionItemIds) {
+        OrderItemDto item = new OrderItemDto();
+        item.setMenuId(menuId);
+        item.setTaxRateId(1);
+        item.setQuantity(quantity);
+        item.setOptionItemIds(optionItemIds);
+        return item;
+    }
+}
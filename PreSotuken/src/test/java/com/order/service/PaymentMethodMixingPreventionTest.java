@@ -15,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.order.dto.IndividualPaymentRequest;
 import com.order.dto.SplitPaymentRequest;
@@ -41,6 +42,9 @@ class PaymentMethodMixingPreventionTest {
     
     @Mock
     private VisitRepository visitRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     
     @InjectMocks
     private PaymentSplitService paymentSplitService;
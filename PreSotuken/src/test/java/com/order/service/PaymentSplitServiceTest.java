@@ -8,6 +8,7 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,6 +16,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.order.dto.IndividualPaymentRequest;
 import com.order.dto.RemainingPaymentDto;
@@ -27,6 +29,7 @@ import com.order.entity.Store;
 import com.order.entity.TaxRate;
 import com.order.entity.User;
 import com.order.entity.Visit;
+import com.order.event.SalesChangedEvent;
 import com.order.repository.PaymentDetailRepository;
 import com.order.repository.PaymentRepository;
 import com.order.repository.PaymentTypeRepository;
@@ -53,6 +56,9 @@ class PaymentSplitServiceTest {
     
     @Mock
     private VisitRepository visitRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     
     @InjectMocks
     private PaymentSplitService paymentSplitService;
@@ -273,6 +279,8 @@ class PaymentSplitServiceTest {
         // 1000 / 3 = 333.33... → 1人目と2人目は333円、3人目は334円
         // 1000 - (333 * 2) = 334
         assertEquals(334.0, result.getTotal(), 0.01);
+        // 売上集計の更新はイベントで通知される（反映はコミット後）
+        verify(eventPublisher).publishEvent(any(SalesChangedEvent.class));
     }
     
     @Test
@@ -306,7 +314,7 @@ class PaymentSplitServiceTest {
         request.setDeposit(600.0);
         
         when(paymentRepository.findById(1)).thenReturn(Optional.of(originalPayment));
-        when(paymentDetailRepository.findById(2)).thenReturn(Optional.of(detail2));
+        when(paymentDetailRepository.findByPaymentDetailIdIn(Set.of(2))).thenReturn(Arrays.asList(detail2));
         when(paymentDetailRepository.findByPaymentPaymentId(1)).thenReturn(Arrays.asList(paymentDetails.get(0)));
         when(paymentRepository.save(any(Payment.class))).thenAnswer(i -> {
             Payment p = (Payment) i.getArguments()[0];
@@ -343,7 +351,7 @@ class PaymentSplitServiceTest {
         request.setDeposit(3500.0);
         
         when(paymentRepository.findById(1)).thenReturn(Optional.of(originalPayment));
-        when(paymentDetailRepository.findById(1)).thenReturn(Optional.of(paymentDetails.get(0)));
+        when(paymentDetailRepository.findByPaymentDetailIdIn(Set.of(1))).thenReturn(Arrays.asList(paymentDetails.get(0)));
         when(paymentDetailRepository.findByPaymentPaymentId(1))
             .thenReturn(Arrays.asList(paymentDetails.get(0)))
             .thenReturn(Arrays.asList()); // 2回目の呼び出しでは空リストを返す（全て削除済み）
@@ -427,7 +435,7 @@ class PaymentSplitServiceTest {
         request.setPaymentTime(LocalDateTime.now());
         
         when(paymentRepository.findById(1)).thenReturn(Optional.of(originalPayment));
-        when(paymentDetailRepository.findById(1)).thenReturn(Optional.of(paymentDetails.get(0)));
+        when(paymentDetailRepository.findByPaymentDetailIdIn(Set.of(1))).thenReturn(Arrays.asList(paymentDetails.get(0)));
         
         // When & Then
         assertThrows(IllegalArgumentException.class, () -> {
@@ -0,0 +1,133 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.order.dto.MenuWithOptionsDTO;
+import com.order.entity.MenuGroup;
+import com.order.event.PlanActivatedEvent;
+import com.order.event.SeatBoardChangedEvent;
+import com.order.repository.MenuGroupRepository;
+import com.order.repository.PaymentDetailRepository;
+import com.order.repository.PlanMenuGroupMapRepository;
+
+/**
+ * 飲み放題プランのキャッシュのテスト
+ * プランの紐付けと座席の有効なプランはDBから1回だけ読み込み、プランの開始時は新たに表示されるグループとメニューだけを通知することを確認する
+ */
+@ExtendWith(MockitoExtension.class)
+public class PlanActivationCacheTest {
+
+    @Mock
+    private PlanMenuGroupMapRepository planMenuGroupMapRepository;
+
+    @Mock
+    private PaymentDetailRepository paymentDetailRepository;
+
+    @Mock
+    private MenuGroupRepository menuGroupRepository;
+
+    @Mock
+    private MenuService menuService;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private PlanActivationCache planActivationCache;
+
+    @Test
+    void testActivePlansAndPlanGroupsAreServedFromMemory() {
+        when(paymentDetailRepository.findActivePlanIds(100)).thenReturn(List.of(1));
+        when(planMenuGroupMapRepository.findPlanMenuGroupRowsByStoreId(1)).thenReturn(rows(
+                new Object[] { 1, 10 },
+                new Object[] { 1, 11 },
+                new Object[] { 2, 11 }));
+
+        for (int i = 0; i < 2; i++) {
+            Set<Integer> planIds = planActivationCache.getActivePlanIds(5, 100);
+            assertEquals(Set.of(10, 11), planActivationCache.getMenuGroupIds(1, planIds));
+        }
+        assertTrue(planActivationCache.getActivePlanIds(6, null).isEmpty());
+        verify(paymentDetailRepository, times(1)).findActivePlanIds(100);
+        verify(planMenuGroupMapRepository, times(1)).findPlanMenuGroupRowsByStoreId(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPlanActivationPushesOnlyNewGroupsAndMenus() {
+        when(paymentDetailRepository.findActivePlanIds(100)).thenReturn(List.of(1));
+        when(planMenuGroupMapRepository.findPlanMenuGroupRowsByStoreId(1)).thenReturn(rows(
+                new Object[] { 1, 10 },
+                new Object[] { 2, 10 },
+                new Object[] { 2, 20 }));
+        when(menuGroupRepository.findByGroupIdInAndIsPlanTargetTrueOrderBySortOrderAsc(List.of(20)))
+                .thenReturn(List.of(group(20, "プレミアム")));
+        when(menuService.getMenusWithOptions(1)).thenReturn(List.of(menu(200, 10), menu(201, 20)));
+        planActivationCache.getActivePlanIds(5, 100);
+
+        planActivationCache.onPlanActivated(new PlanActivatedEvent(1, 5, 100, Set.of(2), Set.of(1)));
+
+        ArgumentCaptor<Map<String, Object>> payload = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/seats/5"), payload.capture());
+        assertEquals("PLAN_ACTIVATED", payload.getValue().get("type"));
+        assertEquals(Set.of(10, 20), payload.getValue().get("activatedMenuGroupIds"));
+        List<Map<String, Object>> groups = (List<Map<String, Object>>) payload.getValue().get("menuGroups");
+        assertEquals(20, groups.get(0).get("groupId"));
+        List<MenuWithOptionsDTO> menus = (List<MenuWithOptionsDTO>) payload.getValue().get("menus");
+        assertEquals(List.of(201), menus.stream().map(MenuWithOptionsDTO::getMenuId).toList());
+
+        // 有効なプランはDBを読み直さずに反映され、座席の変更で破棄される
+        assertEquals(Set.of(1, 2), planActivationCache.getActivePlanIds(5, 100));
+        planActivationCache.onSeatChanged(new SeatBoardChangedEvent(1, 5));
+        planActivationCache.getActivePlanIds(5, 100);
+        verify(paymentDetailRepository, times(2)).findActivePlanIds(100);
+    }
+
+    @Test
+    void testLoadOverlappingSeatChangeIsNotCached() {
+        // DBの読み込み中に座席が変更された（読み込んだ内容が古い可能性がある）場合は保持しない
+        when(paymentDetailRepository.findActivePlanIds(100)).thenAnswer(invocation -> {
+            planActivationCache.onSeatChanged(new SeatBoardChangedEvent(1, 5));
+            return List.of(1);
+        }).thenReturn(List.of(1, 2));
+
+        assertEquals(Set.of(1), planActivationCache.getActivePlanIds(5, 100));
+        assertEquals(Set.of(1, 2), planActivationCache.getActivePlanIds(5, 100));
+        assertEquals(Set.of(1, 2), planActivationCache.getActivePlanIds(5, 100));
+        verify(paymentDetailRepository, times(2)).findActivePlanIds(100);
+    }
+
+    private static MenuGroup group(int groupId, String name) {
+        MenuGroup group = new MenuGroup();
+        group.setGroupId(groupId);
+        group.setGroupName(name);
+        group.setSortOrder(1);
+        return group;
+    }
+
+    private static MenuWithOptionsDTO menu(int menuId, int groupId) {
+        MenuWithOptionsDTO menu = new MenuWithOptionsDTO();
+        menu.setMenuId(menuId);
+        menu.setMenuGroupId(groupId);
+        return menu;
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
@@ -0,0 +1,264 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+
+import com.order.config.NewTransactionTemplate;
+import com.order.entity.PaymentDetail;
+import com.order.entity.PrintJob;
+import com.order.entity.PrintJobPart;
+import com.order.repository.PaymentDetailRepository;
+import com.order.repository.PrintJobDetailBatchRepository;
+import com.order.repository.PrintJobPartBatchRepository;
+import com.order.repository.PrintJobPartRepository;
+import com.order.repository.PrintJobRepository;
+import com.order.service.print.PrintJobQueue;
+
+/**
+ * 印刷ジョブのアウトボックスのテスト
+ * 登録・送信・受信確認・再送の上限と、再送で最初に保存した伝票をそのまま送ることを確認する
+ */
+@ExtendWith(MockitoExtension.class)
+public class PrintJobOutboxServiceTest {
+
+    @Mock
+    private PrintJobRepository printJobRepository;
+
+    @Mock
+    private PrintJobDetailBatchRepository printJobDetailBatchRepository;
+
+    @Mock
+    private PrintJobPartRepository printJobPartRepository;
+
+    @Mock
+    private PrintJobPartBatchRepository printJobPartBatchRepository;
+
+    @Mock
+    private PaymentDetailRepository paymentDetailRepository;
+
+    @Mock
+    private PrintService printService;
+
+    @Mock
+    private PrintJobQueue printJobQueue;
+
+    @Mock
+    private NewTransactionTemplate newTransactionTemplate;
+
+    @InjectMocks
+    private PrintJobOutboxService outboxService;
+
+    private final PrintService.PrintMessage kitchen = new PrintService.PrintMessage("192.168.0.50", "[\"kitchen\"]");
+    private final PrintService.PrintMessage drink = new PrintService.PrintMessage("192.168.0.51", "[\"drink\"]");
+    private final PrintService.PrintMessage subtotal = new PrintService.PrintMessage("192.168.0.52", "[\"subtotal\"]");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxService, "ackTimeoutMillis", 30000L);
+        ReflectionTestUtils.setField(outboxService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(outboxService, "batchSize", 50);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        lenient().when(newTransactionTemplate.execute(any())).thenAnswer(i -> ((TransactionCallback<?>) i.getArgument(0)).doInTransaction(null));
+        lenient().doAnswer(i -> {
+            ((Consumer<TransactionStatus>) i.getArgument(0)).accept(null);
+            return null;
+        }).when(newTransactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void testEnqueueOrderSavesJobAndDispatchesAfterCommit() {
+        PaymentDetail d1 = detail(11);
+        PaymentDetail d2 = detail(12);
+        when(printJobRepository.save(any(PrintJob.class))).thenAnswer(i -> {
+            PrintJob job = i.getArgument(0);
+            job.setPrintJobId(100);
+            return job;
+        });
+
+        outboxService.enqueueOrder(1, 5, List.of(d1, d2));
+
+        ArgumentCaptor<PrintJob> jobCaptor = ArgumentCaptor.forClass(PrintJob.class);
+        verify(printJobRepository).save(jobCaptor.capture());
+        PrintJob job = jobCaptor.getValue();
+        assertEquals(PrintJob.STATUS_PENDING, job.getStatus());
+        assertEquals(PrintJob.TYPE_ORDER, job.getJobType());
+        verify(printJobDetailBatchRepository).insert(100, List.of(11, 12));
+        verify(printJobQueue).submitAfterCommit(eq("print-job 100"), any(Runnable.class));
+        verifyNoInteractions(printService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFirstDispatchRendersAndStoresParts() {
+        runTransactionsInline();
+        PrintJob job = job(PrintJob.STATUS_PENDING, 0, 0L);
+        List<PaymentDetail> details = List.of(detail(11), detail(12));
+        when(printJobRepository.findById(100)).thenReturn(Optional.of(job));
+        when(paymentDetailRepository.findByPrintJobId(100)).thenReturn(details);
+        when(printService.renderLabelsForOrder(details, 5)).thenReturn(List.of(kitchen, drink));
+        when(printService.renderReceiptForPayment(details, 5, 1)).thenReturn(subtotal);
+        when(printJobRepository.claim(eq(100), eq(0), any(LocalDateTime.class))).thenReturn(1);
+
+        outboxService.dispatch(100);
+
+        // 確保してから伝票を組み立て、送信前に伝票の数と内容を保存する
+        InOrder inOrder = inOrder(printJobRepository, paymentDetailRepository, printJobPartBatchRepository, printService);
+        inOrder.verify(printJobRepository).claim(eq(100), eq(0), any(LocalDateTime.class));
+        inOrder.verify(paymentDetailRepository).findByPrintJobId(100);
+        inOrder.verify(printJobRepository).updateParts(100, 3);
+        ArgumentCaptor<List<PrintJobPart>> parts = ArgumentCaptor.forClass(List.class);
+        inOrder.verify(printJobPartBatchRepository).insert(parts.capture());
+        inOrder.verify(printService).sendPrintJobPart(eq(kitchen), eq(5), eq(100), eq(0), any(Runnable.class));
+        inOrder.verify(printService).sendPrintJobPart(eq(drink), eq(5), eq(100), eq(1), any(Runnable.class));
+        inOrder.verify(printService).sendPrintJobPart(eq(subtotal), eq(5), eq(100), eq(2), any(Runnable.class));
+        assertEquals(List.of(0, 1, 2), parts.getValue().stream().map(PrintJobPart::getPart).toList());
+        assertEquals("[\"drink\"]", parts.getValue().get(1).getJsonCommands());
+    }
+
+    @Test
+    void testResendSendsStoredUnacknowledgedPartsWithoutRendering() {
+        runTransactionsInline();
+        PrintJob job = job(PrintJob.STATUS_SENT, 1, 0b010L);
+        job.setParts(3);
+        when(printJobRepository.findById(100)).thenReturn(Optional.of(job));
+        when(printJobRepository.claim(eq(100), eq(1), any(LocalDateTime.class))).thenReturn(1);
+        when(printJobPartRepository.findByPrintJobIdOrderByPartAsc(100)).thenReturn(List.of(
+                part(0, kitchen), part(1, drink), part(2, subtotal)));
+
+        outboxService.dispatch(100);
+
+        // 明細やプリンターの設定が変わっていても、最初に送った伝票と同じ番号・内容で再送する
+        verifyNoInteractions(paymentDetailRepository, printJobPartBatchRepository);
+        verify(printJobRepository, never()).updateParts(anyInt(), anyInt());
+        verify(printService, never()).renderLabelsForOrder(any(), any());
+        verify(printService).sendPrintJobPart(eq(kitchen), eq(5), eq(100), eq(0), any(Runnable.class));
+        verify(printService, never()).sendPrintJobPart(eq(drink), anyInt(), anyInt(), anyInt(), any(Runnable.class));
+        verify(printService).sendPrintJobPart(eq(subtotal), eq(5), eq(100), eq(2), any(Runnable.class));
+    }
+
+    @Test
+    void testDispatchSkipsJobClaimedElsewhere() {
+        runTransactionsInline();
+        PrintJob job = job(PrintJob.STATUS_PENDING, 0, 0L);
+        when(printJobRepository.findById(100)).thenReturn(Optional.of(job));
+        when(printJobRepository.claim(eq(100), eq(0), any(LocalDateTime.class))).thenReturn(0);
+
+        outboxService.dispatch(100);
+
+        // 確保できなかったジョブは伝票を組み立てない
+        verifyNoInteractions(printService, paymentDetailRepository);
+    }
+
+    @Test
+    void testDispatchMarksJobFailedAfterMaxAttempts() {
+        runTransactionsInline();
+        PrintJob job = job(PrintJob.STATUS_SENT, 3, 0L);
+        when(printJobRepository.findById(100)).thenReturn(Optional.of(job));
+
+        outboxService.dispatch(100);
+
+        verify(printJobRepository).updateStatus(eq(100), eq(PrintJob.STATUS_FAILED), any(LocalDateTime.class));
+        verifyNoInteractions(printService, paymentDetailRepository);
+    }
+
+    @Test
+    void testDispatchMarksJobFailedWhenPartsExceedLimit() {
+        runTransactionsInline();
+        PrintJob job = job(PrintJob.STATUS_PENDING, 0, 0L);
+        List<PaymentDetail> details = List.of(detail(11), detail(12));
+        when(printJobRepository.findById(100)).thenReturn(Optional.of(job));
+        when(printJobRepository.claim(eq(100), eq(0), any(LocalDateTime.class))).thenReturn(1);
+        when(paymentDetailRepository.findByPrintJobId(100)).thenReturn(details);
+        when(printService.renderLabelsForOrder(details, 5)).thenReturn(Collections.nCopies(Long.SIZE, kitchen));
+        when(printService.renderReceiptForPayment(details, 5, 1)).thenReturn(subtotal);
+
+        outboxService.dispatch(100);
+
+        verify(printJobRepository).updateStatus(eq(100), eq(PrintJob.STATUS_FAILED), any(LocalDateTime.class));
+        verify(printJobRepository, never()).updateParts(anyInt(), anyInt());
+        verifyNoInteractions(printJobPartBatchRepository);
+        verify(printService, never()).sendPrintJobPart(any(), anyInt(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void testAcknowledgeCompletesJobWhenAllPartsArrive() {
+        runTransactionsInline();
+        PrintJob job = job(PrintJob.STATUS_SENT, 1, 0b001L);
+        job.setParts(2);
+        when(printJobRepository.findForUpdate(100)).thenReturn(Optional.of(job));
+
+        assertTrue(outboxService.acknowledge(100, 0));
+        assertEquals(PrintJob.STATUS_SENT, job.getStatus());
+
+        assertTrue(outboxService.acknowledge(100, 1));
+        assertEquals(0b011L, job.getAckedParts());
+        assertEquals(PrintJob.STATUS_DONE, job.getStatus());
+        assertNotNull(job.getCompletedAt());
+    }
+
+    @Test
+    void testAcknowledgeUnknownJobReturnsFalse() {
+        runTransactionsInline();
+        when(printJobRepository.findForUpdate(999)).thenReturn(Optional.empty());
+
+        assertFalse(outboxService.acknowledge(999, 0));
+        assertThrows(IllegalArgumentException.class, () -> outboxService.acknowledge(100, -1));
+    }
+
+    @Test
+    void testAcknowledgeRejectsPartOutsideSentParts() {
+        runTransactionsInline();
+        PrintJob job = job(PrintJob.STATUS_SENT, 1, 0b001L);
+        job.setParts(2);
+        when(printJobRepository.findForUpdate(100)).thenReturn(Optional.of(job));
+
+        // 送信していない伝票番号の確認を記録すると、全ての確認が揃わず DONE にならなくなる
+        assertThrows(IllegalArgumentException.class, () -> outboxService.acknowledge(100, 2));
+        assertEquals(0b001L, job.getAckedParts());
+        assertEquals(PrintJob.STATUS_SENT, job.getStatus());
+    }
+
+    private static PrintJob job(String status, int attempts, long ackedParts) {
+        PrintJob job = new PrintJob();
+        job.setPrintJobId(100);
+        job.setStoreId(1);
+        job.setSeatId(5);
+        job.setJobType(PrintJob.TYPE_ORDER);
+        job.setStatus(status);
+        job.setAttempts(attempts);
+        job.setAckedParts(ackedParts);
+        return job;
+    }
+
+    private static PrintJobPart part(int part, PrintService.PrintMessage message) {
+        return new PrintJobPart(100, part, message.printerIp(), message.jsonCommands());
+    }
+
+    private static PaymentDetail detail(int id) {
+        PaymentDetail detail = new PaymentDetail();
+        detail.setPaymentDetailId(id);
+        return detail;
+    }
+}
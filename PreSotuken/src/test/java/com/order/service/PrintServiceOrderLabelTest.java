@@ -0,0 +1,177 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.order.entity.Menu;
+import com.order.entity.MenuPrinterMap;
+import com.order.entity.OptionItem;
+import com.order.entity.PaymentDetail;
+import com.order.entity.PaymentDetailOption;
+import com.order.entity.PrinterConfig;
+import com.order.entity.Seat;
+import com.order.repository.MenuPrinterMapRepository;
+import com.order.repository.PaymentDetailOptionRepository;
+import com.order.repository.PrinterConfigRepository;
+import com.order.repository.SeatRepository;
+import com.order.service.print.PrintFormatService;
+import com.order.service.print.PrintLayouts;
+import com.order.service.print.TcpPrinterTransport;
+
+/**
+ * 単品伝票の注文単位での印刷のテスト
+ * 明細を印刷先プリンターごとにまとめ、プリンター1台につき1回だけ送信することを確認する
+ */
+@ExtendWith(MockitoExtension.class)
+public class PrintServiceOrderLabelTest {
+
+    @Mock
+    private SeatRepository seatRepository;
+
+    @Mock
+    private PaymentDetailOptionRepository paymentDetailOptionRepository;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private LogoService logoService;
+
+    @Mock
+    private MenuPrinterMapRepository menuPrinterMapRepository;
+
+    @Mock
+    private PrinterConfigRepository printerConfigRepository;
+
+    @Mock
+    private TcpPrinterTransport printerTransport;
+
+    private PrintService printService;
+
+    private PrinterConfig kitchen;
+    private PrinterConfig drink;
+    private Menu ramen;
+    private Menu gyoza;
+    private Menu beer;
+
+    @BeforeEach
+    void setUp() {
+        PrintFormatService printFormatService = new PrintFormatService();
+        printService = new PrintService(seatRepository, paymentDetailOptionRepository, messagingTemplate, logoService,
+                menuPrinterMapRepository, printerConfigRepository, printFormatService, new PrintLayouts(printFormatService),
+                printerTransport);
+
+        Seat seat = new Seat();
+        seat.setSeatId(5);
+        seat.setSeatName("A-1");
+        when(seatRepository.findById(5)).thenReturn(Optional.of(seat));
+
+        kitchen = printer(1, "192.168.0.50");
+        drink = printer(2, "192.168.0.51");
+        ramen = menu(1, "ラーメン");
+        gyoza = menu(2, "餃子");
+        beer = menu(3, "生ビール");
+    }
+
+    @Test
+    void testLabelsAreSentOncePerPrinter() {
+        PaymentDetail d1 = detail(11, ramen);
+        PaymentDetail d2 = detail(12, beer);
+        PaymentDetail d3 = detail(13, gyoza);
+        List<PaymentDetail> details = List.of(d1, d2, d3);
+
+        OptionItem large = new OptionItem();
+        large.setItemName("大盛り");
+        PaymentDetailOption option = new PaymentDetailOption();
+        option.setPaymentDetail(d1);
+        option.setOptionItem(large);
+        when(paymentDetailOptionRepository.findByPaymentDetailIn(details)).thenReturn(List.of(option));
+        // 餃子は2台に登録されているが、プリンターIDの小さい方へ印刷する
+        when(menuPrinterMapRepository.findByMenuIdsWithPrinter(anyCollection())).thenReturn(List.of(
+                new MenuPrinterMap(ramen, kitchen),
+                new MenuPrinterMap(gyoza, kitchen),
+                new MenuPrinterMap(gyoza, drink),
+                new MenuPrinterMap(beer, drink)));
+
+        printService.printLabelsForOrder(details, 5);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, String>> payloadCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/printer/5"), payloadCaptor.capture());
+        List<Map<String, String>> payloads = payloadCaptor.getAllValues();
+
+        assertEquals("192.168.0.50", payloads.get(0).get("ip"));
+        String kitchenCommands = payloads.get(0).get("commands");
+        assertTrue(kitchenCommands.contains("ラーメン（大盛り）"));
+        assertTrue(kitchenCommands.contains("餃子"));
+        assertEquals(2, count(kitchenCommands, "\"addCut\""));
+
+        assertEquals("192.168.0.51", payloads.get(1).get("ip"));
+        String drinkCommands = payloads.get(1).get("commands");
+        assertTrue(drinkCommands.contains("生ビール"));
+        assertEquals(1, count(drinkCommands, "\"addCut\""));
+
+        // 明細ごとの参照は行わない
+        verify(paymentDetailOptionRepository, never()).findByPaymentDetail(any());
+        verify(menuPrinterMapRepository, never()).findFirstByMenu_MenuIdOrderByPrinter_PrinterIdAsc(anyInt());
+    }
+
+    @Test
+    void testMenuWithoutPrinterIsReportedAndOthersArePrinted() {
+        PaymentDetail d1 = detail(11, ramen);
+        PaymentDetail d2 = detail(12, beer);
+        List<PaymentDetail> details = List.of(d1, d2);
+
+        when(paymentDetailOptionRepository.findByPaymentDetailIn(details)).thenReturn(List.of());
+        when(menuPrinterMapRepository.findByMenuIdsWithPrinter(anyCollection())).thenReturn(List.of(
+                new MenuPrinterMap(ramen, kitchen)));
+
+        printService.printLabelsForOrder(details, 5);
+
+        verify(messagingTemplate).convertAndSend(eq("/topic/seats/5"), any(Object.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/printer/5"), any(Object.class));
+    }
+
+    private static int count(String s, String token) {
+        int count = 0;
+        for (int i = s.indexOf(token); i >= 0; i = s.indexOf(token, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static PrinterConfig printer(int id, String ip) {
+        PrinterConfig printer = new PrinterConfig();
+        printer.setPrinterId(id);
+        printer.setPrinterIp(ip);
+        return printer;
+    }
+
+    private static Menu menu(int id, String name) {
+        Menu menu = new Menu();
+        menu.setMenuId(id);
+        menu.setMenuName(name);
+        return menu;
+    }
+
+    private static PaymentDetail detail(int id, Menu menu) {
+        PaymentDetail detail = new PaymentDetail();
+        detail.setPaymentDetailId(id);
+        detail.setMenu(menu);
+        detail.setQuantity(1);
+        return detail;
+    }
+}
@@ -0,0 +1,302 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.order.PreSotukenApplication;
+import com.order.config.QueryCounter;
+import com.order.dto.MenuWithOptionsDTO;
+import com.order.dto.OrderHistoryDeltaDto;
+import com.order.dto.OrderHistoryDto;
+import com.order.entity.Menu;
+import com.order.entity.MenuOption;
+import com.order.entity.OptionGroup;
+import com.order.entity.OptionItem;
+import com.order.entity.Payment;
+import com.order.entity.PaymentDetail;
+import com.order.entity.PaymentDetailOption;
+import com.order.entity.Seat;
+import com.order.entity.Store;
+import com.order.entity.TaxRate;
+import com.order.entity.Visit;
+import com.order.repository.MenuOptionRepository;
+import com.order.repository.MenuRepository;
+import com.order.repository.OptionGroupRepository;
+import com.order.repository.OptionItemRepository;
+import com.order.repository.PaymentDetailOptionRepository;
+import com.order.repository.PaymentDetailRepository;
+import com.order.repository.PaymentRepository;
+import com.order.repository.SeatRepository;
+import com.order.repository.StoreRepository;
+import com.order.repository.TaxRateRepository;
+import com.order.repository.VisitRepository;
+
+/**
+ * 主要画面のクエリ予算の回帰テスト（H2）
+ * SQLの発行件数が明細数・メニュー数に比例しないこと（N+1 がないこと）と、注文履歴の差分取得を確認する
+ * テストプロファイルでは @QueryBudget の上限を超えるとエラーになる
+ */
+@SpringBootTest(classes = PreSotukenApplication.class)
+@ActiveProfiles("test")
+public class QueryBudgetRegressionTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MenuService menuService;
+
+    @Autowired
+    private ActiveVisitRegistry activeVisitRegistry;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private TaxRateRepository taxRateRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentDetailRepository paymentDetailRepository;
+
+    @Autowired
+    private PaymentDetailOptionRepository paymentDetailOptionRepository;
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private MenuOptionRepository menuOptionRepository;
+
+    @Autowired
+    private OptionGroupRepository optionGroupRepository;
+
+    @Autowired
+    private OptionItemRepository optionItemRepository;
+
+    private Store store;
+    private TaxRate taxRate;
+
+    @BeforeEach
+    void setUp() {
+        store = newStore();
+        taxRate = new TaxRate();
+        taxRate.setStore(store);
+        taxRate.setRate(0.1);
+        taxRate = taxRateRepository.save(taxRate);
+    }
+
+    @Test
+    void testOrderHistoryQueriesDoNotGrowWithDetails() {
+        List<Menu> menus = List.of(newMenu(store, "ラーメン"), newMenu(store, "生ビール"));
+        Seat small = seedOrder(menus, 2);
+        Seat large = seedOrder(menus, 10);
+
+        long smallQueries = countQueries(() -> orderService.getOrderHistory(store.getStoreId(), small.getSeatId()));
+        List<OrderHistoryDto> history = new ArrayList<>();
+        long largeQueries = countQueries(() -> history.addAll(orderService.getOrderHistory(store.getStoreId(), large.getSeatId())));
+
+        assertEquals(10, history.size());
+        assertEquals(List.of("大盛り"), history.get(0).getSelectedOptionNames());
+        assertEquals(smallQueries, largeQueries);
+    }
+
+    @Test
+    void testOrderHistoryDeltaReturnsOnlyAddedLines() {
+        List<Menu> menus = List.of(newMenu(store, "ラーメン"), newMenu(store, "生ビール"));
+        Seat seat = seedOrder(menus, 10);
+
+        OrderHistoryDeltaDto first = orderService.getOrderHistoryDelta(store.getStoreId(), seat.getSeatId(), null);
+        assertTrue(first.isReset());
+        assertEquals(10, first.getLines().size());
+
+        // 変更がなければ明細を読み込まない（会計IDは来店中の座席の登録簿から取得し、件数の集計だけ）
+        List<OrderHistoryDeltaDto> unchanged = new ArrayList<>();
+        assertEquals(1, countQueries(() -> unchanged.add(orderService.getOrderHistoryDelta(store.getStoreId(), seat.getSeatId(), first.getVersion()))));
+        assertEquals(first.getVersion(), unchanged.get(0).getVersion());
+        assertTrue(unchanged.get(0).getLines().isEmpty());
+
+        addDetail(currentPayment(seat), menus.get(1), 2, null);
+        OrderHistoryDeltaDto added = orderService.getOrderHistoryDelta(store.getStoreId(), seat.getSeatId(), first.getVersion());
+        assertFalse(added.isReset());
+        assertEquals(1, added.getLines().size());
+        assertEquals("生ビール", added.getLines().get(0).getMenuName());
+        assertEquals(2, added.getLines().get(0).getQuantity());
+
+        // 数量の変更は差分にできないため全件を返す
+        PaymentDetail changed = paymentDetailRepository.findById(first.getLines().get(0).getPaymentDetailId()).orElseThrow();
+        changed.setQuantity(3);
+        paymentDetailRepository.save(changed);
+        OrderHistoryDeltaDto reset = orderService.getOrderHistoryDelta(store.getStoreId(), seat.getSeatId(), added.getVersion());
+        assertTrue(reset.isReset());
+        assertEquals(11, reset.getLines().size());
+        assertEquals(3, reset.getLines().get(0).getQuantity());
+    }
+
+    @Test
+    void testOrderHistoryVersionChangesOnEditsKeepingQuantity() {
+        List<Menu> menus = List.of(newMenu(store, "ラーメン"), newMenu(store, "生ビール"));
+        Seat seat = seedOrder(menus, 3);
+        OrderHistoryDeltaDto first = orderService.getOrderHistoryDelta(store.getStoreId(), seat.getSeatId(), null);
+
+        // 数量を変えずに値引だけを変更しても全件を返す
+        PaymentDetail discounted = paymentDetailRepository.findById(first.getLines().get(0).getPaymentDetailId()).orElseThrow();
+        discounted.setDiscount(100.0);
+        paymentDetailRepository.save(discounted);
+        OrderHistoryDeltaDto afterDiscount = orderService.getOrderHistoryDelta(store.getStoreId(), seat.getSeatId(), first.getVersion());
+        assertTrue(afterDiscount.isReset());
+        assertNotEquals(first.getVersion(), afterDiscount.getVersion());
+
+        // 明細を1件削除し、別の明細の数量を同じだけ増やしても（数量の合計が同じでも）全件を返す
+        PaymentDetail deleted = paymentDetailRepository.findById(first.getLines().get(1).getPaymentDetailId()).orElseThrow();
+        PaymentDetail raised = paymentDetailRepository.findById(first.getLines().get(2).getPaymentDetailId()).orElseThrow();
+        raised.setQuantity(raised.getQuantity() + deleted.getQuantity());
+        paymentDetailRepository.save(raised);
+        paymentDetailRepository.delete(deleted);
+        OrderHistoryDeltaDto afterEdit = orderService.getOrderHistoryDelta(store.getStoreId(), seat.getSeatId(), afterDiscount.getVersion());
+        assertTrue(afterEdit.isReset());
+        assertEquals(2, afterEdit.getLines().size());
+        assertEquals(2, afterEdit.getLines().get(1).getQuantity());
+    }
+
+    @Test
+    void testMenuCatalogQueriesDoNotGrowWithMenus() {
+        Store small = seedMenus(1);
+        Store large = seedMenus(8);
+
+        long smallQueries = countQueries(() -> menuService.getAllMenusWithOptions(small.getStoreId()));
+        List<MenuWithOptionsDTO> menus = new ArrayList<>();
+        long largeQueries = countQueries(() -> menus.addAll(menuService.getAllMenusWithOptions(large.getStoreId())));
+
+        assertEquals(8, menus.size());
+        assertEquals(1, menus.get(0).getOptionGroups().size());
+        assertEquals(2, menus.get(0).getOptionGroups().get(0).getOptionItems().size());
+        assertEquals(smallQueries, largeQueries);
+        // 構築済みのカタログからはDBに問い合わせない
+        assertEquals(0, countQueries(() -> menuService.getAllMenusWithOptions(large.getStoreId())));
+    }
+
+    private static long countQueries(Supplier<?> call) {
+        long start = QueryCounter.current();
+        call.get();
+        return QueryCounter.current() - start;
+    }
+
+    // 座席に来店・会計と、メニューを交互に並べた明細（それぞれオプション1件）を登録する
+    private Seat seedOrder(List<Menu> menus, int detailCount) {
+        Seat seat = new Seat();
+        seat.setStore(store);
+        seat.setSeatName("A-" + detailCount);
+        seat = seatRepository.save(seat);
+
+        Visit visit = new Visit();
+        visit.setStore(store);
+        visit.setSeat(seat);
+        visit.setNumberOfPeople(2);
+        visit.setVisitTime(LocalDateTime.now());
+        visit = visitRepository.save(visit);
+
+        Payment payment = new Payment();
+        payment.setStore(store);
+        payment.setVisit(visit);
+        payment = paymentRepository.save(payment);
+
+        OptionItem large = newOptionItem(newOptionGroup(store, "麺の量"), "大盛り");
+        for (int i = 0; i < detailCount; i++) {
+            addDetail(payment, menus.get(i % menus.size()), 1, large);
+        }
+        // リポジトリで直接登録したため、来店登録のイベントの代わりに登録簿を更新する
+        activeVisitRegistry.refresh(seat.getSeatId());
+        return seat;
+    }
+
+    // 会計に明細を1件追加する（optionItem が null の場合はオプションなし）
+    private void addDetail(Payment payment, Menu menu, int quantity, OptionItem optionItem) {
+        PaymentDetail detail = new PaymentDetail();
+        detail.setPayment(payment);
+        detail.setStore(store);
+        detail.setMenu(menu);
+        detail.setTaxRate(taxRate);
+        detail.setQuantity(quantity);
+        detail.setSubtotal(menu.getPrice() * quantity);
+        detail.setOrderTime(LocalDateTime.now());
+        detail = paymentDetailRepository.save(detail);
+
+        if (optionItem != null) {
+            PaymentDetailOption option = new PaymentDetailOption();
+            option.setPaymentDetail(detail);
+            option.setOptionItem(optionItem);
+            paymentDetailOptionRepository.save(option);
+        }
+    }
+
+    private Payment currentPayment(Seat seat) {
+        Integer paymentId = activeVisitRegistry.findPaymentIdBySeatId(seat.getSeatId());
+        return paymentRepository.findById(paymentId).orElseThrow();
+    }
+
+    // 新しい店舗に、それぞれ別のオプショングループ（選択肢2件）を持つメニューを登録する
+    private Store seedMenus(int menuCount) {
+        Store menuStore = newStore();
+        for (int i = 0; i < menuCount; i++) {
+            Menu menu = newMenu(menuStore, "メニュー" + i);
+            OptionGroup group = newOptionGroup(menuStore, "オプション" + i);
+            newOptionItem(group, "選択肢A");
+            newOptionItem(group, "選択肢B");
+
+            MenuOption menuOption = new MenuOption();
+            menuOption.setMenu(menu);
+            menuOption.setOptionGroupId(group.getOptionGroupId());
+            menuOptionRepository.save(menuOption);
+        }
+        return menuStore;
+    }
+
+    private Store newStore() {
+        Store newStore = new Store();
+        newStore.setStoreName("クエリ予算テスト店舗");
+        return storeRepository.save(newStore);
+    }
+
+    private Menu newMenu(Store menuStore, String name) {
+        Menu menu = new Menu();
+        menu.setStore(menuStore);
+        menu.setTaxRate(taxRate);
+        menu.setMenuName(name);
+        menu.setPrice(500.0);
+        menu.setIsSoldOut(false);
+        return menuRepository.save(menu);
+    }
+
+    private OptionGroup newOptionGroup(Store groupStore, String name) {
+        OptionGroup group = new OptionGroup();
+        group.setStoreId(groupStore.getStoreId());
+        group.setGroupName(name);
+        return optionGroupRepository.save(group);
+    }
+
+    private OptionItem newOptionItem(OptionGroup group, String name) {
+        OptionItem item = new OptionItem();
+        item.setOptionGroupId(group.getOptionGroupId());
+        item.setItemName(name);
+        return optionItemRepository.save(item);
+    }
+}
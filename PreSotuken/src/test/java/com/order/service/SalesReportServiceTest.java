@@ -0,0 +1,147 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.order.dto.HourlySalesDto;
+import com.order.entity.SalesHourlyRollup;
+import com.order.repository.PaymentDetailRepository;
+import com.order.repository.PaymentRepository;
+import com.order.repository.SalesHourlyMenuRollupRepository;
+import com.order.repository.SalesHourlyRollupRepository;
+import com.order.repository.VisitRepository;
+
+/**
+ * SalesReportService の時間帯別集計のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+public class SalesReportServiceTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private PaymentDetailRepository paymentDetailRepository;
+
+    @Mock
+    private VisitRepository visitRepository;
+
+    @Mock
+    private SalesHourlyRollupRepository salesHourlyRollupRepository;
+
+    @Mock
+    private SalesHourlyMenuRollupRepository salesHourlyMenuRollupRepository;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @InjectMocks
+    private SalesReportService salesReportService;
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 1, 10, 3, 0);
+    private final LocalDateTime end = LocalDateTime.of(2025, 1, 11, 3, 0);
+
+    @Test
+    void testAggregateHourlyByDateMapsGroupedRows() {
+        when(paymentRepository.sumHourlySalesByPaymentTime(1, start, end)).thenReturn(List.of(
+                new Object[] { 2025, 1, 10, 18, 11000.0, 4L },
+                new Object[] { 2025, 1, 11, 1, 2200.0, 2L }));
+        when(paymentDetailRepository.sumHourlySubtotalByPaymentTime(1, start, end)).thenReturn(List.of(
+                new Object[] { 2025, 1, 10, 18, 10000.0 },
+                new Object[] { 2025, 1, 11, 1, 2000.0 }));
+
+        Map<LocalDate, HourlySalesDto> result = salesReportService.aggregateHourlyByDate(1, start, end);
+
+        assertEquals(2, result.size());
+        HourlySalesDto day1 = result.get(LocalDate.of(2025, 1, 10));
+        assertEquals(11000.0, day1.getSalesWithTax()[18]);
+        assertEquals(10000.0, day1.getSalesWithoutTax()[18]);
+        assertEquals(4, day1.getCustomers()[18]);
+        assertEquals(2, result.get(LocalDate.of(2025, 1, 11)).getTotalCustomers());
+    }
+
+    @Test
+    void testAggregateHourlyMergesDatesIntoSameHour() {
+        when(paymentRepository.sumHourlySalesByPaymentTime(1, start, end)).thenReturn(List.of(
+                new Object[] { 2025, 1, 10, 18, 1100.0, 1L },
+                new Object[] { 2025, 1, 11, 18, 2200.0, 2L }));
+        when(paymentDetailRepository.sumHourlySubtotalByPaymentTime(1, start, end)).thenReturn(List.of());
+
+        HourlySalesDto sales = salesReportService.aggregateHourly(1, start, end);
+        List<Map<String, Object>> rows = salesReportService.buildHourlyRows(sales);
+        Map<String, Object> totalRow = salesReportService.buildTotalRow(sales);
+
+        assertEquals(24, rows.size());
+        assertEquals(3300.0, rows.get(18).get("hourSalesWithTax"));
+        assertEquals(1100.0, rows.get(18).get("customerUnitPriceWithTax"));
+        assertEquals(3300.0, rows.get(23).get("cumulativeSalesWithTax"));
+        assertEquals(-1, totalRow.get("hour"));
+        assertEquals(3, totalRow.get("customers"));
+    }
+
+    @Test
+    void testAggregateHourlyReadsRollupWhenRangeIsOnTheHour() {
+        ReflectionTestUtils.setField(salesReportService, "rollupEnabled", true);
+        when(salesRollupService.isAvailable()).thenReturn(true);
+        when(salesHourlyRollupRepository
+                .findByStoreIdAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(1, start, end))
+                .thenReturn(List.of(
+                        rollup(LocalDateTime.of(2025, 1, 10, 18, 0), 11000.0, 10000.0, 4, 3),
+                        rollup(LocalDateTime.of(2025, 1, 11, 1, 0), 2200.0, 2000.0, 2, 2)));
+
+        Map<LocalDate, HourlySalesDto> result = salesReportService.aggregateHourlyByDate(1, start, end);
+
+        assertEquals(11000.0, result.get(LocalDate.of(2025, 1, 10)).getSalesWithTax()[18]);
+        assertEquals(2000.0, result.get(LocalDate.of(2025, 1, 11)).getSalesWithoutTax()[1]);
+        assertEquals(5L, salesReportService.sumNetCustomers(1, start, end));
+        verifyNoInteractions(paymentRepository, paymentDetailRepository, visitRepository);
+    }
+
+    @Test
+    void testAggregateHourlyFallsBackToLiveQueryWhenRangeIsNotOnTheHour() {
+        ReflectionTestUtils.setField(salesReportService, "rollupEnabled", true);
+        LocalDateTime halfPast = start.plusMinutes(30);
+        when(paymentRepository.sumHourlySalesByPaymentTime(1, halfPast, end)).thenReturn(List.of());
+        when(paymentDetailRepository.sumHourlySubtotalByPaymentTime(1, halfPast, end)).thenReturn(List.of());
+
+        salesReportService.aggregateHourlyByDate(1, halfPast, end);
+
+        verifyNoInteractions(salesHourlyRollupRepository);
+    }
+
+    @Test
+    void testAggregateHourlyFallsBackToLiveQueryWhenRollupIsUnavailable() {
+        ReflectionTestUtils.setField(salesReportService, "rollupEnabled", true);
+        when(salesRollupService.isAvailable()).thenReturn(false);
+        when(paymentRepository.sumHourlySalesByPaymentTime(1, start, end)).thenReturn(List.of());
+        when(paymentDetailRepository.sumHourlySubtotalByPaymentTime(1, start, end)).thenReturn(List.of());
+
+        salesReportService.aggregateHourlyByDate(1, start, end);
+
+        verifyNoInteractions(salesHourlyRollupRepository);
+    }
+
+    private SalesHourlyRollup rollup(LocalDateTime bucketStart, double withTax, double withoutTax,
+                                     int customers, int netCustomers) {
+        SalesHourlyRollup rollup = new SalesHourlyRollup();
+        rollup.setStoreId(1);
+        rollup.setBucketStart(bucketStart);
+        rollup.setSalesWithTax(withTax);
+        rollup.setSalesWithoutTax(withoutTax);
+        rollup.setCustomers(customers);
+        rollup.setNetCustomers(netCustomers);
+        return rollup;
+    }
+}
@@ -0,0 +1,69 @@
+package com.order.service;
+
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+
+import com.order.repository.PaymentRepository;
+import com.order.repository.SalesHourlyRollupRepository;
+
+/**
+ * 起動時の売上集計テーブルの再構築のテスト
+ * 再構築中と失敗時は集計テーブルを利用不可にし、売上分析が会計・明細からの集計に切り替わることを確認する
+ */
+@ExtendWith(MockitoExtension.class)
+public class SalesRollupRebuildRunnerTest {
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @Mock
+    private SalesHourlyRollupRepository salesHourlyRollupRepository;
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @InjectMocks
+    private SalesRollupRebuildRunner runner;
+
+    @Test
+    void testEmptyRollupIsRebuiltWhileUnavailable() {
+        when(salesHourlyRollupRepository.count()).thenReturn(0L);
+        when(paymentRepository.count()).thenReturn(10L);
+        when(salesRollupService.rebuildAll()).thenReturn(5);
+
+        runner.rebuildIfNeeded(false);
+
+        InOrder inOrder = inOrder(salesRollupService);
+        inOrder.verify(salesRollupService).markRebuildStarted();
+        inOrder.verify(salesRollupService).rebuildAll();
+        inOrder.verify(salesRollupService).markRebuildCompleted();
+    }
+
+    @Test
+    void testFilledRollupIsNotRebuilt() {
+        when(salesHourlyRollupRepository.count()).thenReturn(100L);
+
+        runner.rebuildIfNeeded(false);
+
+        verifyNoInteractions(salesRollupService);
+    }
+
+    @Test
+    void testMissingRollupTableMarksRollupUnavailable() {
+        when(salesHourlyRollupRepository.count())
+                .thenThrow(new InvalidDataAccessResourceUsageException("Table 'sales_hourly_rollup' doesn't exist"));
+
+        runner.rebuildIfNeeded(false);
+
+        verify(salesRollupService).markRebuildFailed();
+        verify(salesRollupService, never()).rebuildAll();
+        verify(salesRollupService, never()).markRebuildCompleted();
+    }
+}
@@ -0,0 +1,117 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionCallback;
+
+import com.order.config.NewTransactionTemplate;
+import com.order.entity.SalesHourlyMenuRollup;
+import com.order.entity.SalesHourlyRollup;
+import com.order.event.SalesChangedEvent;
+import com.order.repository.PaymentDetailRepository;
+import com.order.repository.PaymentRepository;
+import com.order.repository.SalesHourlyMenuRollupRepository;
+import com.order.repository.SalesHourlyRollupRepository;
+import com.order.repository.StoreRepository;
+
+/**
+ * SalesRollupService の時間帯単位の再計算のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+public class SalesRollupServiceTest {
+
+    @Mock
+    private SalesHourlyRollupRepository salesHourlyRollupRepository;
+    @Mock
+    private SalesHourlyMenuRollupRepository salesHourlyMenuRollupRepository;
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private PaymentDetailRepository paymentDetailRepository;
+    @Mock
+    private StoreRepository storeRepository;
+    @Mock
+    private NewTransactionTemplate newTransactionTemplate;
+
+    @InjectMocks
+    private SalesRollupService salesRollupService;
+
+    private static final Integer STORE_ID = 1;
+    private final LocalDateTime hour = LocalDateTime.of(2025, 1, 10, 18, 0);
+
+    @BeforeEach
+    void setUp() {
+        when(newTransactionTemplate.execute(any())).thenAnswer(i -> ((TransactionCallback<?>) i.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    void testSalesChangedEventReplacesAffectedHour() {
+        LocalDateTime next = hour.plusHours(1);
+        when(paymentRepository.findPaymentTimesOfVisitsPaidBetween(STORE_ID, hour, next))
+                .thenReturn(List.of(hour.plusMinutes(15)));
+        when(paymentRepository.sumHourlySalesByPaymentTime(STORE_ID, hour, next))
+                .thenReturn(List.<Object[]>of(new Object[] { 2025, 1, 10, 18, 3300.0, 3L }));
+        when(paymentDetailRepository.sumHourlySubtotalByPaymentTime(STORE_ID, hour, next))
+                .thenReturn(List.<Object[]>of(new Object[] { 2025, 1, 10, 18, 3000.0 }));
+        // 来店10は18時台が最初の会計、来店11は17時台に最初の会計があるため18時台には数えない
+        when(paymentRepository.findFirstPaymentTimeByVisit(STORE_ID, hour, next)).thenReturn(List.of(
+                new Object[] { 10, hour.plusMinutes(15), 2 },
+                new Object[] { 11, hour.minusMinutes(20), 4 }));
+        when(paymentDetailRepository.sumRollupMenuQuantityByHour(STORE_ID, hour, next))
+                .thenReturn(List.<Object[]>of(new Object[] { 2025, 1, 10, 18, "唐揚げ", 2L, 1000.0, 1100.0 }));
+
+        salesRollupService.onSalesChanged(SalesChangedEvent.of(STORE_ID, hour.plusMinutes(15), null));
+
+        verify(salesHourlyRollupRepository).deleteByStoreIdAndRange(STORE_ID, hour, next);
+        verify(salesHourlyMenuRollupRepository).deleteByStoreIdAndRange(STORE_ID, hour, next);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SalesHourlyRollup>> rollupCaptor = ArgumentCaptor.forClass(List.class);
+        verify(salesHourlyRollupRepository).saveAll(rollupCaptor.capture());
+        SalesHourlyRollup rollup = rollupCaptor.getValue().get(0);
+        assertEquals(hour, rollup.getBucketStart());
+        assertEquals(3300.0, rollup.getSalesWithTax());
+        assertEquals(3000.0, rollup.getSalesWithoutTax());
+        assertEquals(3, rollup.getCustomers());
+        assertEquals(2, rollup.getNetCustomers());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SalesHourlyMenuRollup>> menuCaptor = ArgumentCaptor.forClass(List.class);
+        verify(salesHourlyMenuRollupRepository).saveAll(menuCaptor.capture());
+        assertEquals("唐揚げ", menuCaptor.getValue().get(0).getMenuName());
+        assertEquals(2, menuCaptor.getValue().get(0).getQuantity());
+    }
+
+    @Test
+    void testFailedHourIsRetriedBeforeRollupBecomesAvailable() {
+        LocalDateTime next = hour.plusHours(1);
+        when(paymentRepository.findPaymentTimesOfVisitsPaidBetween(STORE_ID, hour, next))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(List.of());
+
+        salesRollupService.markRebuildStarted();
+        salesRollupService.onSalesChanged(SalesChangedEvent.of(STORE_ID, hour.plusMinutes(15)));
+        salesRollupService.markRebuildCompleted();
+
+        // 再構築の完了後も、再構築中に更新に失敗した時間帯を再試行するまでは利用不可
+        assertFalse(salesRollupService.isAvailable());
+
+        salesRollupService.retryFailedHours();
+
+        assertTrue(salesRollupService.isAvailable());
+        verify(salesHourlyRollupRepository).deleteByStoreIdAndRange(STORE_ID, hour, next);
+    }
+}
@@ -0,0 +1,107 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.order.PreSotukenApplication;
+import com.order.controller.PaymentController;
+import com.order.dto.PaymentFinalizeRequest;
+import com.order.entity.Payment;
+import com.order.entity.SalesHourlyRollup;
+import com.order.entity.Seat;
+import com.order.entity.Store;
+import com.order.entity.User;
+import com.order.entity.Visit;
+import com.order.repository.PaymentRepository;
+import com.order.repository.SalesHourlyRollupRepository;
+import com.order.repository.SeatRepository;
+import com.order.repository.StoreRepository;
+import com.order.repository.UserRepository;
+import com.order.repository.VisitRepository;
+
+/**
+ * 売上集計テーブルの更新のトランザクションのテスト（H2）
+ * トランザクション内で確定した会計が、コミット後のイベントで集計テーブルに書き込まれる（発行元の完了済みトランザクションに参加して失われない）ことを確認する
+ */
+@SpringBootTest(classes = PreSotukenApplication.class)
+@ActiveProfiles("test")
+public class SalesRollupTransactionTest {
+
+    @Autowired
+    private PaymentController paymentController;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SalesHourlyRollupRepository salesHourlyRollupRepository;
+
+    @Test
+    void testFinalizedPaymentIsWrittenToRollupAfterCommit() {
+        Store store = new Store();
+        store.setStoreName("売上集計テスト店舗");
+        store = storeRepository.save(store);
+
+        Seat seat = new Seat();
+        seat.setStore(store);
+        seat.setSeatName("A-1");
+        seat = seatRepository.save(seat);
+
+        Visit visit = new Visit();
+        visit.setStore(store);
+        visit.setSeat(seat);
+        visit.setNumberOfPeople(3);
+        visit.setVisitTime(LocalDateTime.of(2025, 1, 10, 17, 0));
+        visit = visitRepository.save(visit);
+
+        Payment payment = new Payment();
+        payment.setStore(store);
+        payment.setVisit(visit);
+        payment = paymentRepository.save(payment);
+
+        User staff = new User();
+        staff.setStore(store);
+        staff.setUserName("会計担当");
+        staff = userRepository.save(staff);
+
+        PaymentFinalizeRequest req = new PaymentFinalizeRequest();
+        req.setPaymentId(payment.getPaymentId());
+        req.setStaffId(staff.getUserId());
+        req.setSubtotal(3300.0);
+        req.setDiscount(0.0);
+        req.setTotal(3300.0);
+        req.setDeposit(5000.0);
+        req.setPaymentTime(LocalDateTime.of(2025, 1, 10, 18, 30));
+
+        // @Transactional の会計確定がコミットされた後に、集計テーブルへ反映される
+        paymentController.finalizePayment(req);
+
+        LocalDateTime hour = LocalDateTime.of(2025, 1, 10, 18, 0);
+        List<SalesHourlyRollup> rollups = salesHourlyRollupRepository
+                .findByStoreIdAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+                        store.getStoreId(), hour, hour.plusHours(1));
+        assertEquals(1, rollups.size());
+        assertEquals(3300.0, rollups.get(0).getSalesWithTax());
+        assertEquals(3, rollups.get(0).getCustomers());
+        assertEquals(3, rollups.get(0).getNetCustomers());
+    }
+}
@@ -0,0 +1,140 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.order.event.SeatBoardChangedEvent;
+import com.order.repository.VisitRepository;
+
+/**
+ * 座席ボードのテスト
+ * 初回だけDBから読み込み、変更イベントでは該当座席だけを読み直して差分を通知することを確認する
+ * 再読み込みの途中に届いた変更が、先に始まった再読み込みの結果で上書きされないことを確認する
+ */
+@ExtendWith(MockitoExtension.class)
+public class SeatBoardServiceTest {
+
+    @Mock
+    private VisitRepository visitRepository;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private SeatBoardService seatBoardService;
+
+    private final LocalDateTime visitTime = LocalDateTime.of(2026, 10, 18, 18, 0);
+
+    @Test
+    void testBoardIsLoadedOnceAndServedFromMemory() {
+        when(visitRepository.findSeatBoardRows(1, null)).thenReturn(rows(row(5, 100, 2, 1100)));
+
+        List<Map<String, Object>> board = seatBoardService.getBoard(1);
+        seatBoardService.getBoard(1);
+
+        assertEquals(1, board.size());
+        assertEquals(5, board.get(0).get("seatId"));
+        assertEquals(true, board.get(0).get("visiting"));
+        assertEquals(1100, board.get(0).get("total"));
+        verify(visitRepository, times(1)).findSeatBoardRows(1, null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testChangedSeatIsReloadedAndPushedAsDiff() {
+        when(visitRepository.findSeatBoardRows(1, null)).thenReturn(rows(row(5, 100, 2, 1100)));
+        when(visitRepository.findSeatBoardRows(1, 5)).thenReturn(rows(row(5, 100, 2, 1650)));
+        seatBoardService.getBoard(1);
+
+        seatBoardService.onSeatBoardChanged(new SeatBoardChangedEvent(1, 5));
+
+        ArgumentCaptor<Map<String, Object>> payload = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/stores/1/seats"), payload.capture());
+        List<Map<String, Object>> seats = (List<Map<String, Object>>) payload.getValue().get("seats");
+        assertEquals(1, seats.size());
+        assertEquals(1650, seats.get(0).get("total"));
+        assertEquals(1650, seatBoardService.getBoard(1).get(0).get("total"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLeaveIsPushedAsVacantSeat() {
+        when(visitRepository.findSeatBoardRows(1, null)).thenReturn(rows(row(5, 100, 2, 1100)));
+        when(visitRepository.findSeatBoardRows(1, 5)).thenReturn(List.of());
+        seatBoardService.getBoard(1);
+
+        seatBoardService.onSeatBoardChanged(new SeatBoardChangedEvent(1, 5));
+
+        ArgumentCaptor<Map<String, Object>> payload = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/stores/1/seats"), payload.capture());
+        List<Map<String, Object>> seats = (List<Map<String, Object>>) payload.getValue().get("seats");
+        assertEquals(Map.of("seatId", 5, "visiting", false), seats.get(0));
+        assertTrue(seatBoardService.getBoard(1).isEmpty());
+    }
+
+    @Test
+    void testUnchangedSeatAndUnloadedStoreAreNotPushed() {
+        when(visitRepository.findSeatBoardRows(1, null)).thenReturn(rows(row(5, 100, 2, 1100)));
+        when(visitRepository.findSeatBoardRows(1, 5)).thenReturn(rows(row(5, 100, 2, 1100)));
+        seatBoardService.getBoard(1);
+
+        seatBoardService.onSeatBoardChanged(new SeatBoardChangedEvent(1, 5));
+        seatBoardService.onSeatBoardChanged(new SeatBoardChangedEvent(2, 7));
+
+        verify(visitRepository, never()).findSeatBoardRows(eq(2), any());
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void testChangeDuringResyncIsNotOverwrittenByOlderRead() throws InterruptedException {
+        AtomicReference<Thread> eventThread = new AtomicReference<>();
+        when(visitRepository.findSeatBoardRows(1, null))
+                .thenReturn(rows(row(5, 100, 2, 1100)))
+                .thenAnswer(invocation -> {
+                    // 再読み込みがDBを読んでいる間に変更がコミットされ、イベントが届く
+                    Thread thread = new Thread(() -> seatBoardService.onSeatBoardChanged(new SeatBoardChangedEvent(1, 5)));
+                    eventThread.set(thread);
+                    thread.start();
+                    awaitBlocked(thread);
+                    return rows(row(5, 100, 2, 1100));
+                });
+        when(visitRepository.findSeatBoardRows(1, 5)).thenReturn(rows(row(5, 100, 2, 1650)));
+        seatBoardService.getBoard(1);
+
+        seatBoardService.resync();
+        eventThread.get().join(5000);
+
+        assertEquals(1650, seatBoardService.getBoard(1).get(0).get("total"));
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.BLOCKED, thread.getState());
+    }
+
+    private Object[] row(int seatId, int visitId, int people, double total) {
+        return new Object[] { seatId, visitId, people, visitTime, total };
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
@@ -0,0 +1,110 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.order.event.MenuCatalogChangedEvent;
+import com.order.event.SoldOutChangedEvent;
+import com.order.repository.MenuRepository;
+
+/**
+ * 品切れの登録簿のテスト
+ * 初回だけDBから読み込み、品切れの変更はDBを読み直さずに反映して端末へ差分を通知することを確認する
+ */
+@ExtendWith(MockitoExtension.class)
+public class SoldOutRegistryTest {
+
+    @Mock
+    private MenuRepository menuRepository;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private SoldOutRegistry soldOutRegistry;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSoldOutChangeIsAppliedWithoutReloadAndPushed() {
+        when(menuRepository.findSoldOutMenuRows(1)).thenReturn(rows(new Object[] { 2, "枝豆" }));
+
+        assertEquals("枝豆", soldOutRegistry.findSoldOutMenuName(1, List.of(1, 2)).orElseThrow());
+
+        soldOutRegistry.onMenuCatalogChanged(new SoldOutChangedEvent(1, Map.of(1, "生ビール"), true));
+        soldOutRegistry.onMenuCatalogChanged(new SoldOutChangedEvent(1, Map.of(2, "枝豆"), false));
+
+        assertEquals("生ビール", soldOutRegistry.findSoldOutMenuName(1, List.of(1, 2)).orElseThrow());
+        assertTrue(soldOutRegistry.findSoldOutMenuName(1, List.of(2, 3)).isEmpty());
+        verify(menuRepository, times(1)).findSoldOutMenuRows(1);
+
+        ArgumentCaptor<Map<String, Object>> payload = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/stores/1/menu"), payload.capture());
+        assertEquals(List.of(1), payload.getAllValues().get(0).get("soldOut"));
+        assertEquals(List.of(2), payload.getAllValues().get(1).get("available"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOtherMenuChangeReloadsLoadedStoreAndPushesDiff() {
+        when(menuRepository.findSoldOutMenuRows(1))
+                .thenReturn(rows(new Object[] { 2, "枝豆" }))
+                .thenReturn(rows(new Object[] { 3, "唐揚げ" }));
+        soldOutRegistry.findSoldOutMenuName(1, List.of(1));
+
+        soldOutRegistry.onMenuCatalogChanged(new MenuCatalogChangedEvent(1));
+        soldOutRegistry.onMenuCatalogChanged(new MenuCatalogChangedEvent(2));
+
+        ArgumentCaptor<Map<String, Object>> payload = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/stores/1/menu"), payload.capture());
+        assertEquals(List.of(3), payload.getValue().get("soldOut"));
+        assertEquals(List.of(2), payload.getValue().get("available"));
+        verify(menuRepository, never()).findSoldOutMenuRows(2);
+    }
+
+    @Test
+    void testSoldOutChangeDuringReloadIsNotRevertedByOlderRead() {
+        when(menuRepository.findSoldOutMenuRows(1))
+                .thenReturn(rows())
+                .thenAnswer(invocation -> {
+                    // 読み直しの読み込み後（古い内容を読んだ後）に品切れの変更が反映される
+                    soldOutRegistry.onMenuCatalogChanged(new SoldOutChangedEvent(1, Map.of(2, "枝豆"), true));
+                    return rows();
+                });
+        soldOutRegistry.findSoldOutMenuName(1, List.of(1));
+
+        soldOutRegistry.resync();
+
+        assertEquals("枝豆", soldOutRegistry.findSoldOutMenuName(1, List.of(2)).orElseThrow());
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/stores/1/menu"), any(Object.class));
+    }
+
+    @Test
+    void testSoldOutChangeDuringFirstLoadIsNotLostByOlderRead() {
+        when(menuRepository.findSoldOutMenuRows(1))
+                .thenAnswer(invocation -> {
+                    soldOutRegistry.onMenuCatalogChanged(new SoldOutChangedEvent(1, Map.of(2, "枝豆"), true));
+                    return rows();
+                })
+                .thenReturn(rows(new Object[] { 2, "枝豆" }));
+
+        assertEquals("枝豆", soldOutRegistry.findSoldOutMenuName(1, List.of(2)).orElseThrow());
+        assertEquals("枝豆", soldOutRegistry.findSoldOutMenuName(1, List.of(2)).orElseThrow());
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
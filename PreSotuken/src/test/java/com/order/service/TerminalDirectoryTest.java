@@ -0,0 +1,70 @@
+package com.order.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.order.entity.Seat;
+import com.order.entity.Terminal;
+import com.order.event.TerminalChangedEvent;
+import com.order.repository.TerminalRepository;
+
+/**
+ * 端末一覧のキャッシュのテスト
+ * 店舗ごとに1回だけDBから読み込み、端末の変更イベントで読み直すことを確認する
+ */
+@ExtendWith(MockitoExtension.class)
+public class TerminalDirectoryTest {
+
+    @Mock
+    private TerminalRepository terminalRepository;
+
+    @InjectMocks
+    private TerminalDirectory terminalDirectory;
+
+    @Test
+    void testLookupsAreServedFromMemoryAfterFirstLoad() {
+        when(terminalRepository.findByStoreStoreId(1)).thenReturn(List.of(
+                terminal(10, "192.168.0.10", 5),
+                terminal(11, "192.168.0.11", null)));
+
+        assertEquals(5, terminalDirectory.find("192.168.0.10", 1).orElseThrow().getSeatId());
+        assertTrue(terminalDirectory.find("192.168.0.11", 1).orElseThrow().isAdmin());
+        assertTrue(terminalDirectory.find("192.168.0.99", 1).isEmpty());
+        verify(terminalRepository, times(1)).findByStoreStoreId(1);
+    }
+
+    @Test
+    void testTerminalChangeReloadsStore() {
+        when(terminalRepository.findByStoreStoreId(1))
+                .thenReturn(List.of(terminal(10, "192.168.0.10", 5)))
+                .thenReturn(List.of(terminal(10, "192.168.0.10", 6)));
+        terminalDirectory.find("192.168.0.10", 1);
+
+        terminalDirectory.onTerminalChanged(new TerminalChangedEvent(1));
+
+        assertEquals(6, terminalDirectory.find("192.168.0.10", 1).orElseThrow().getSeatId());
+        verify(terminalRepository, times(2)).findByStoreStoreId(1);
+    }
+
+    private static Terminal terminal(int terminalId, String ipAddress, Integer seatId) {
+        Terminal terminal = new Terminal();
+        terminal.setTerminalId(terminalId);
+        terminal.setIpAddress(ipAddress);
+        if (seatId != null) {
+            Seat seat = new Seat();
+            seat.setSeatId(seatId);
+            terminal.setSeat(seat);
+        } else {
+            terminal.setAdmin(true);
+        }
+        return terminal;
+    }
+}
@@ -0,0 +1,53 @@
+package com.order.service.print;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * PrintFormatService の印字幅計算・折り返しのテスト
+ */
+public class PrintFormatServiceTest {
+
+    private final PrintFormatService printFormatService = new PrintFormatService();
+
+    @Test
+    void testWidthMatchesShiftJisByteLength() {
+        // 半角英数字・半角カナは1、全角文字・全角記号は2
+        assertEquals(1, printFormatService.charWidth('A'));
+        assertEquals(1, printFormatService.charWidth('ｶ'));
+        assertEquals(2, printFormatService.charWidth('唐'));
+        assertEquals(2, printFormatService.charWidth('（'));
+        assertEquals(14, printFormatService.calculateEpsonPrintByteLength("ﾗｲｽ 鶏の唐揚げ"));
+        assertEquals(0, printFormatService.calculateEpsonPrintByteLength(null));
+
+        for (String s : List.of("特製濃厚豚骨ラーメン（味玉）", "Caesar Salad シーザーサラダ", "¥1,280", "①②")) {
+            assertEquals(s.getBytes(Charset.forName("Shift_JIS")).length,
+                    printFormatService.calculateEpsonPrintByteLength(s), s);
+        }
+    }
+
+    @Test
+    void testWrapHalfWidthKeepsEachLineWithinWidth() {
+        List<String> lines = printFormatService.wrapHalfWidth("特製濃厚豚骨ラーメン（味玉・チャーシュー増し）", 18);
+
+        assertEquals(List.of("特製濃厚豚骨ラーメ", "ン（味玉・チャーシ", "ュー増し）"), lines);
+        // 全角文字が幅の境界をまたぐ場合は次の行へ送る
+        assertEquals(List.of("ABC", "唐揚"), printFormatService.wrapHalfWidth("ABC唐揚", 4));
+        assertEquals(List.of(), printFormatService.wrapHalfWidth("", 18));
+    }
+
+    @Test
+    void testWrapHalfWidthAlwaysAdvancesWhenCharIsWiderThanLine() {
+        assertEquals(List.of("唐", "揚"), printFormatService.wrapHalfWidth("唐揚", 1));
+    }
+
+    @Test
+    void testPaddingUsesPrintWidth() {
+        assertEquals("唐揚げ    ", printFormatService.padRightHalfWidth("唐揚げ", 10));
+        assertEquals("小計            \\1,280", printFormatService.formatToLeftAndRight("小計", "\\1,280", 22));
+    }
+}
@@ -0,0 +1,87 @@
+package com.order.service.print;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 印刷キューのテスト
+ * キューが溢れたとき、コミット後のコールバックからのジョブは呼び出し元スレッドで実行せず予備のスレッドへ引き渡すことを確認する
+ */
+public class PrintJobQueueTest {
+
+    private final PrintJobQueue queue = new PrintJobQueue(1, 1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        queue.shutdown();
+    }
+
+    @Test
+    void testOverflowOutsideTransactionRunsOnCallerThread() {
+        fillQueue();
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        queue.submit("overflow", () -> ranOn.set(Thread.currentThread()));
+
+        assertSame(Thread.currentThread(), ranOn.get());
+        assertEquals(1L, queue.getStats().get("callerRuns"));
+    }
+
+    @Test
+    void testOverflowInAfterCommitIsHandedOff() throws InterruptedException {
+        fillQueue();
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        queue.submitAfterCommit("overflow", () -> {
+            ranOn.set(Thread.currentThread());
+            done.countDown();
+        });
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("print-job-overflow", ranOn.get().getName());
+        assertEquals(0L, queue.getStats().get("callerRuns"));
+        assertEquals(1L, queue.getStats().get("handedOff"));
+    }
+
+    // ワーカーを止めたまま、キューを上限まで埋める
+    private void fillQueue() {
+        CountDownLatch started = new CountDownLatch(1);
+        queue.submit("blocker", () -> {
+            started.countDown();
+            awaitRelease();
+        });
+        try {
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(e);
+        }
+        queue.submit("queued", this::awaitRelease);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
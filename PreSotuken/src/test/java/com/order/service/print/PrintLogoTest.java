@@ -0,0 +1,71 @@
+package com.order.service.print;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 店舗ロゴのラスター変換のテスト
+ */
+public class PrintLogoTest {
+
+    // 左半分が黒、右半分が白の画像
+    private static String halfBlackPng(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width / 2, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    @Test
+    void testRasterCommandHasHeaderAndBits() throws Exception {
+        PrintLogo logo = PrintLogo.of(halfBlackPng(16, 2), 16, 2);
+
+        assertTrue(logo.isRasterized());
+        byte[] command = Base64.getDecoder().decode(logo.getRasterCommandBase64());
+        // GS v 0 m xL xH yL yH + 2バイト × 2行
+        assertArrayEquals(new byte[] { 0x1D, 'v', '0', 0, 2, 0, 2, 0,
+                (byte) 0xFF, 0x00, (byte) 0xFF, 0x00 }, command);
+    }
+
+    @Test
+    void testNvDefineCommandUsesKeyCodes() throws Exception {
+        PrintLogo logo = PrintLogo.of("data:image/png;base64," + halfBlackPng(16, 2), 16, 2);
+
+        byte[] command = Base64.getDecoder().decode(logo.getNvDefineCommandBase64());
+        // GS ( L pL pH m fn a kc1 kc2 b xL xH yL yH c + データ
+        assertEquals(0x1D, command[0]);
+        assertEquals('(', command[1]);
+        assertEquals('L', command[2]);
+        assertEquals(11 + 4, command[3]);
+        assertEquals(67, command[6]);
+        assertEquals(PrintLogo.NV_KEY1, command[8]);
+        assertEquals(PrintLogo.NV_KEY2, command[9]);
+        assertEquals(16, command[11]);
+        assertEquals(2, command[13]);
+        assertEquals(5 + 15, command.length);
+    }
+
+    @Test
+    void testUnreadableImageIsNotRasterized() {
+        PrintLogo logo = PrintLogo.of("aGVsbG8=", 256, 60);
+
+        assertFalse(logo.isRasterized());
+        assertNull(logo.getRasterCommandBase64());
+        assertEquals("aGVsbG8=", logo.getImageBase64());
+    }
+}
@@ -0,0 +1,69 @@
+package com.order.service.print;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+/**
+ * 印刷テンプレートのテスト
+ * テンプレートの出力が PrintCommandService で1コマンドずつ組み立てたJSONと一致することを確認する
+ */
+public class PrintTemplateTest {
+
+    private final PrintCommandService gencmd = new PrintCommandService();
+
+    record Slip(String logo, String seatName, List<String> lines) {
+    }
+
+    private final PrintTemplate<Slip> template = PrintTemplate.<Slip>builder()
+            .sound("pattern_a", 1)
+            .textLang("ja")
+            .when(d -> d.logo() != null, PrintTemplate.<Slip>builder()
+                    .dynamic((w, d) -> w.image(d.logo(), 0, 0, 256, 60, "COLOR_1", "MONO"))
+                    .feedUnit(10)
+                    .compile())
+            .textAlign("left")
+            .text(d -> "テーブル: " + d.seatName())
+            .textDouble(true, true)
+            .lines(Slip::lines)
+            .text("内税")
+            .feed()
+            .dynamic((w, d) -> w.qrCode("R-0001"))
+            .cut("feed")
+            .compile();
+
+    @Test
+    void testRenderMatchesCommandsBuiltOneByOne() {
+        Slip slip = new Slip("aGVsbG8=", "カウンター\"3\"", List.of("唐揚げ              2    \\1,280", "ﾗｲｽ"));
+
+        ArrayNode expected = gencmd.createCommandArray();
+        expected.add(gencmd.createSoundCommand("pattern_a", 1));
+        expected.add(gencmd.createAddTextLangCommand("ja"));
+        expected.add(gencmd.createAddImageCommand("aGVsbG8=", 0, 0, 256, 60, "COLOR_1", "MONO"));
+        expected.add(gencmd.createFeedUnitCommand(10));
+        expected.add(gencmd.createTextAlignCommand("left"));
+        expected.add(gencmd.createTextCommand("テーブル: カウンター\"3\""));
+        expected.add(gencmd.createTextDoubleCommand(true, true));
+        expected.add(gencmd.createTextCommand("唐揚げ              2    \\1,280"));
+        expected.add(gencmd.createTextCommand("ﾗｲｽ"));
+        expected.add(gencmd.createTextCommand("内税"));
+        expected.add(gencmd.createFeedCommand());
+        expected.add(gencmd.createQRCodeCommand("R-0001"));
+        expected.add(gencmd.createCutCommand("feed"));
+
+        assertEquals(gencmd.commandsToJson(expected), template.render(slip));
+    }
+
+    @Test
+    void testConditionalPartIsSkippedAndEmptyLinesProduceNoCommands() {
+        String json = template.render(new Slip(null, "1", List.of()));
+
+        assertFalse(json.contains("addImage"));
+        assertTrue(json.startsWith("[{\"api\":\"addSound\""));
+        assertTrue(json.contains("{\"api\":\"addTextDouble\",\"dw\":true,\"dh\":true},{\"api\":\"addText\",\"content\":\"内税\"}"));
+    }
+}
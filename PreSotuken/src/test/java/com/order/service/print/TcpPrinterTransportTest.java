@@ -0,0 +1,175 @@
+package com.order.service.print;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * プリンターへの直接送信のテスト
+ * ローカルに立てた疑似プリンター（TCPサーバー）に対して送信し、受信したバイト列と接続数を確認する
+ */
+public class TcpPrinterTransportTest {
+
+    private static final String LABEL_1 = "[{\"api\":\"addTextLang\",\"lang\":\"ja\"},{\"api\":\"addText\",\"content\":\"ラーメン\"},{\"api\":\"addCut\",\"type\":\"feed\"}]";
+    private static final String LABEL_2 = "[{\"api\":\"addText\",\"content\":\"生ビール\"},{\"api\":\"addCut\",\"type\":\"feed\"}]";
+
+    private final EscPosEncoder encoder = new EscPosEncoder();
+    private FakePrinter printer;
+    private TcpPrinterTransport transport;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (transport != null) {
+            transport.shutdown();
+        }
+        if (printer != null) {
+            printer.close();
+        }
+    }
+
+    @Test
+    void testJobsAreSentInOrderOverPooledConnection() throws Exception {
+        printer = new FakePrinter();
+        transport = transport(printer.port());
+
+        AtomicInteger failures = new AtomicInteger();
+        transport.submit("127.0.0.1", LABEL_1, failures::incrementAndGet);
+        transport.submit("127.0.0.1", LABEL_2, failures::incrementAndGet);
+
+        byte[] expected = concat(encoder.encode(LABEL_1), encoder.encode(LABEL_2));
+        assertArrayEquals(expected, printer.awaitBytes(expected.length));
+        assertEquals(0, failures.get());
+        assertEquals(1, printer.connections.get());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stats = (Map<String, Object>) ((Map<String, Object>) transport.getStats().get("printers")).get("127.0.0.1");
+        assertEquals(2L, stats.get("sent"));
+        assertEquals(1L, stats.get("connectionsOpened"));
+    }
+
+    @Test
+    void testFailureCallbackRunsAfterRetries() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        transport = transport(closedPort);
+
+        CountDownLatch failed = new CountDownLatch(1);
+        transport.submit("127.0.0.1", LABEL_1, failed::countDown);
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stats = (Map<String, Object>) ((Map<String, Object>) transport.getStats().get("printers")).get("127.0.0.1");
+        assertEquals(2L, stats.get("retried"));
+        assertEquals(1L, stats.get("failed"));
+    }
+
+    @Test
+    void testInvalidCommandsRunFailureCallbackImmediately() {
+        transport = transport(9100);
+
+        AtomicInteger failures = new AtomicInteger();
+        transport.submit("127.0.0.1", "not json", failures::incrementAndGet);
+
+        assertEquals(1, failures.get());
+    }
+
+    @Test
+    void testEncoderOutputsShiftJisTextAndCut() {
+        byte[] bytes = encoder.encode("[{\"api\":\"addText\",\"content\":\"\\\\1,280\"},{\"api\":\"addCut\",\"type\":\"feed\"}]");
+
+        // 初期化 + 左揃え + テキスト + 改行 + カット
+        assertArrayEquals(new byte[] { 0x1B, '@', 0x1B, 'a', 0, '\\', '1', ',', '2', '8', '0', 0x0A, 0x1D, 'V', 66, 0 }, bytes);
+    }
+
+    private static TcpPrinterTransport transport(int port) {
+        return new TcpPrinterTransport("tcp", port, 1000, 1000, 3, 10, 10, 2, 30000);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * 受信したバイト列を記録する疑似プリンター
+     */
+    private static final class FakePrinter {
+
+        private final ServerSocket server;
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private final AtomicInteger connections = new AtomicInteger();
+
+        private FakePrinter() throws IOException {
+            server = new ServerSocket(0);
+            Thread acceptor = new Thread(this::acceptLoop, "fake-printer");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        private int port() {
+            return server.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connections.incrementAndGet();
+                    Thread reader = new Thread(() -> read(socket));
+                    reader.setDaemon(true);
+                    reader.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void read(Socket socket) {
+            try (socket; InputStream in = socket.getInputStream()) {
+                byte[] buffer = new byte[1024];
+                int n;
+                while ((n = in.read(buffer)) >= 0) {
+                    synchronized (received) {
+                        received.write(buffer, 0, n);
+                    }
+                }
+            } catch (IOException e) {
+                // 接続の切断は無視する
+            }
+        }
+
+        private byte[] awaitBytes(int length) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (System.currentTimeMillis() < deadline) {
+                synchronized (received) {
+                    if (received.size() >= length) {
+                        return received.toByteArray();
+                    }
+                }
+                Thread.sleep(10);
+            }
+            synchronized (received) {
+                return received.toByteArray();
+            }
+        }
+
+        private void close() throws IOException {
+            server.close();
+        }
+    }
+}